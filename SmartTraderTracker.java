@@ -1,44 +1,101 @@
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.*;
 import java.io.*;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import com.itextpdf.text.*;
 import com.itextpdf.text.pdf.*;
+import tracker.BatchTradeImporter;
+import tracker.EquityChartPanel;
+import tracker.MarkTableModel;
+import tracker.MarkToMarket;
+import tracker.Metrics;
+import tracker.MonteCarlo;
+import tracker.PriceFeed;
+import tracker.PriceFeedRunner;
+import tracker.CsvTradeExporter;
+import tracker.CsvTradeImporter;
+import tracker.PdfTradeReport;
+import tracker.RowBitmap;
+import tracker.SessionManager;
+import tracker.TradeAnalytics;
+import tracker.TradeIndex;
+import tracker.TradeJournal;
+import tracker.TradeMatcher;
+import tracker.TradeQuery;
+import tracker.TradeRules;
+import tracker.TradeDates;
+import tracker.TradeFile;
+import tracker.TradeHistory;
+import tracker.TradeSorter;
+import tracker.TradeStatistics;
+import tracker.TradeStore;
+import tracker.TradeTableModel;
+import tracker.TradeTags;
+import tracker.TradeTimeSeries;
+import tracker.Workspace;
 
 
 public class SmartTraderTracker extends JFrame {
+    private static final int IMPORT_BATCH = 10_000;
+    private static final long UNDO_MEMORY = 64L << 20; // captured rows beyond this are spilled to disk
+    private static final int UNDO_DEPTH = 100;
+    private static final int LIVE_FRAME_MS = 40; // live prices repaint at most 25 times a second
+    private static final long SESSION_MEMORY = Runtime.getRuntime().maxMemory() / 4; // beyond this, least recent traders are closed
+
     private JTextField nameField, emailField, dobField, phoneField, countryField, accountIdField, searchField;
-    private JButton uploadButton, sortByProfitBtn, undoBtn, searchButton, exportCsvButton, logoutButton, exportPdfButton, saveButton, loadButton, statsButton;
+    private JTextField searchFromField, searchToField;
+    private JComboBox<String> searchSignBox, searchTagBox;
+    private JButton uploadButton, batchImportButton, sortByProfitBtn, undoBtn, redoBtn, searchButton, exportCsvButton, logoutButton, exportPdfButton, saveButton, loadButton, statsButton, breakdownButton, equityButton, liveButton, rulesButton;
+    private JButton rulesApplyButton; // the open Tag Rules dialog's, gated with the history buttons
     private JTable tradeTable;
-    private DefaultTableModel tableModel;
+    private TradeTableModel tableModel;
     private JLabel summaryLabel, dateTimeLabel, profileSummaryLabel;
 
-    private LinkedList<Trade> tradeList = new LinkedList<>();
-    private Stack<Trade> undoStack = new Stack<>();
+    private final TradeAnalytics analytics = new TradeAnalytics();
+    private final SessionManager sessions = new SessionManager(SmartTraderTracker::loadWorkspace, SESSION_MEMORY, this::evictionFailed);
+    // the active trader's workspace, and its parts unpacked for brevity; all swapped by showWorkspace
+    private Workspace workspace;
+    private TradeStore store;
+    private TradeStatistics stats;
+    private TradeTimeSeries timeSeries;
+    private TradeIndex index;
+    private TradeTags tags;
+    private TradeSorter sorter;
+    private java.util.List<TradeSorter.Order> sortKeys; // primary first
+    private TradeHistory history;
+    private int runningTasks; // imports, exports and breakdowns in flight; switching trader and replacing trades wait for them
+    private java.util.List<Component> disabledWhileLoading; // non-null while a trader loads; re-enabled by showWorkspace
+    private final Map<JTextField, String> hints = new LinkedHashMap<>();
     private String loggedInUser = "";
     private UserProfile currentProfile;
 
     public SmartTraderTracker() {
         try { UIManager.setLookAndFeel(new javax.swing.plaf.nimbus.NimbusLookAndFeel()); } catch (Exception ignored) {}
-        loginPrompt();
-        if (loggedInUser == null || loggedInUser.isEmpty()) System.exit(0);
-        setTitle("Smart Trader Tracker - Logged in as: " + loggedInUser);
+        String user = loginPrompt();
+        if (user == null) System.exit(0);
+        loggedInUser = user;
         setDefaultCloseOperation(EXIT_ON_CLOSE);
         setSize(1150, 850);
         setLayout(new BorderLayout());
         buildUI();
-        loadUserProfile();
+        switchTrader(user);
+        addWindowListener(new WindowAdapter() {
+            public void windowClosing(WindowEvent e) { closeSessions(); }
+        });
     }
 
     private void buildUI() {
         JPanel inputPanel = new JPanel(new GridLayout(11, 2));
         inputPanel.setBorder(BorderFactory.createTitledBorder("Trader Profile"));
 
-        nameField = new JTextField(loggedInUser); nameField.setEditable(false);
+        nameField = new JTextField(); nameField.setEditable(false);
         emailField = new JTextField(); setHint(emailField, "example@gmail.com");
         dobField = new JTextField(); setHint(dobField, "DD-MM-YYYY");
         phoneField = new JTextField(); setHint(phoneField, "1234567890");
@@ -53,48 +110,86 @@ public class SmartTraderTracker extends JFrame {
         inputPanel.add(new JLabel("Account ID (8 characters):")); inputPanel.add(accountIdField);
 
         uploadButton = new JButton("Upload Trade CSV");
+        batchImportButton = new JButton("Batch Import");
         exportPdfButton = new JButton("Export PDF Report");
         exportCsvButton = new JButton("Export as CSV");
         logoutButton = new JButton("Logout");
 
         uploadButton.addActionListener(e -> { if (!validateFormBeforeUpload()) return; uploadCSV(); });
+        batchImportButton.addActionListener(e -> { if (!validateFormBeforeUpload()) return; batchImport(); });
         exportPdfButton.addActionListener(e -> { if (!validateFormBeforeUpload()) return; exportPDF(); });
         exportCsvButton.addActionListener(e -> { if (!validateFormBeforeUpload()) return; exportCSV(); });
         logoutButton.addActionListener(e -> logout());
 
-        inputPanel.add(uploadButton); inputPanel.add(exportPdfButton);
-        inputPanel.add(exportCsvButton); inputPanel.add(logoutButton);
+        inputPanel.add(uploadButton); inputPanel.add(batchImportButton);
+        inputPanel.add(exportPdfButton); inputPanel.add(exportCsvButton);
+        inputPanel.add(logoutButton); inputPanel.add(new JLabel());
         add(inputPanel, BorderLayout.NORTH);
 
-        tableModel = new DefaultTableModel(new String[]{"#", "Symbol", "Type", "Entry", "Exit", "Profit", "Date", "Note"}, 0);
-        tradeTable = new JTable(tableModel);
+        tradeTable = new JTable(); // the model is the active trader's; see showWorkspace
+        tradeTable.getTableHeader().setToolTipText("Click to sort, click again to reverse, Shift+click to add a key; # restores insertion order");
+        tradeTable.getTableHeader().addMouseListener(new MouseAdapter() {
+            public void mouseClicked(MouseEvent e) {
+                int column = tradeTable.columnAtPoint(e.getPoint());
+                if (column >= 0) headerClicked(tradeTable.convertColumnIndexToModel(column), e.isShiftDown());
+            }
+        });
         add(new JScrollPane(tradeTable), BorderLayout.CENTER);
 
         JPanel bottomPanel = new JPanel(new GridLayout(6, 1));
         searchField = new JTextField(15);
         searchButton = new JButton("Search");
+        searchFromField = new JTextField(8);
+        searchToField = new JTextField(8);
+        searchSignBox = new JComboBox<>(new String[]{"All", "Winners", "Losers"});
         searchButton.addActionListener(e -> searchTrades());
+        searchSignBox.addActionListener(e -> searchTrades());
+        searchTagBox = new JComboBox<>();
+        searchTagBox.setToolTipText("Only trades the rules gave this tag");
+        searchTagBox.addActionListener(e -> searchTrades());
+        javax.swing.event.DocumentListener searchAsYouType = new javax.swing.event.DocumentListener() {
+            public void insertUpdate(javax.swing.event.DocumentEvent e) { searchTrades(); }
+            public void removeUpdate(javax.swing.event.DocumentEvent e) { searchTrades(); }
+            public void changedUpdate(javax.swing.event.DocumentEvent e) { searchTrades(); }
+        };
+        searchField.getDocument().addDocumentListener(searchAsYouType);
         JPanel searchPanel = new JPanel();
         searchPanel.add(new JLabel("Search Symbol/Type:"));
-        searchPanel.add(searchField); searchPanel.add(searchButton);
+        searchPanel.add(searchField);
+        searchPanel.add(searchSignBox);
+        searchPanel.add(searchTagBox);
+        searchPanel.add(new JLabel("From:")); searchPanel.add(searchFromField);
+        searchPanel.add(new JLabel("To:")); searchPanel.add(searchToField);
+        searchPanel.add(searchButton);
         bottomPanel.add(searchPanel);
 
         sortByProfitBtn = new JButton("Sort by Profit");
-        undoBtn = new JButton("Undo Last Trade");
+        undoBtn = new JButton("Undo");
+        redoBtn = new JButton("Redo");
         saveButton = new JButton("Save Trades");
         loadButton = new JButton("Load Trades");
         sortByProfitBtn.addActionListener(e -> sortTradesByProfit());
-        undoBtn.addActionListener(e -> undoLastTrade());
+        undoBtn.addActionListener(e -> undoOrRedo(true));
+        redoBtn.addActionListener(e -> undoOrRedo(false));
         saveButton.addActionListener(e -> { if (!validateFormBeforeUpload()) return; saveTrades(); });
         loadButton.addActionListener(e -> loadTrades());
         JPanel controlPanel = new JPanel();
-        controlPanel.add(sortByProfitBtn); controlPanel.add(undoBtn);
+        controlPanel.add(sortByProfitBtn); controlPanel.add(undoBtn); controlPanel.add(redoBtn);
         controlPanel.add(saveButton); controlPanel.add(loadButton);
         bottomPanel.add(controlPanel);
 
         statsButton = new JButton("Show Stats");
         statsButton.addActionListener(e -> showStatistics());
-        JPanel statsPanel = new JPanel(); statsPanel.add(statsButton);
+        breakdownButton = new JButton("Breakdown");
+        breakdownButton.addActionListener(e -> showBreakdown());
+        equityButton = new JButton("Equity Curve");
+        equityButton.addActionListener(e -> showEquityCurve());
+        liveButton = new JButton("Live Prices");
+        liveButton.addActionListener(e -> showLivePrices());
+        rulesButton = new JButton("Tag Rules");
+        rulesButton.addActionListener(e -> showRules());
+        JPanel statsPanel = new JPanel(); statsPanel.add(statsButton); statsPanel.add(breakdownButton); statsPanel.add(equityButton);
+        statsPanel.add(liveButton); statsPanel.add(rulesButton);
         bottomPanel.add(statsPanel);
 
         summaryLabel = new JLabel("Summary: ");
@@ -106,10 +201,19 @@ public class SmartTraderTracker extends JFrame {
         bottomPanel.add(profileSummaryLabel);
         add(bottomPanel, BorderLayout.SOUTH);
 
+        // no button: the diagnostics panel is for support, not day-to-day use
+        getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(
+            KeyStroke.getKeyStroke(KeyEvent.VK_D, InputEvent.CTRL_DOWN_MASK | InputEvent.SHIFT_DOWN_MASK), "diagnostics");
+        getRootPane().getActionMap().put("diagnostics", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) { showDiagnostics(); }
+        });
+
         new javax.swing.Timer(1000, e -> updateDateTime()).start();
     }
 
     private void setHint(JTextField field, String hint) {
+        hints.put(field, hint);
         field.setForeground(Color.GRAY);
         field.setText(hint);
         field.addFocusListener(new FocusAdapter() {
@@ -170,26 +274,166 @@ private void showError(String message, String title) {
 }
 
 
-    private String getNoteForTrade(Trade t) {
-        if (t.profit > 100) return "Great trade!";
-        else if (t.profit > 0) return "Good job.";
-        else if (t.profit < -100) return "High loss. Review setup.";
-        else return "Be cautious.";
-    }
-
+    /**
+     * Hides the window and asks who is next. Their workspace comes from the session cache if they
+     * used this window recently, so switching back and forth between traders does not reload.
+     */
     private void logout() {
+        if (runningTasks > 0) {
+            showError("Wait for the running import, export or breakdown to finish before logging out.", "Logout");
+            return;
+        }
         int confirm = JOptionPane.showConfirmDialog(this, "Are you sure you want to logout?", "Logout", JOptionPane.YES_NO_OPTION);
-        if (confirm == JOptionPane.YES_OPTION) {
-            this.dispose();
-            new SmartTraderTracker(); // restarts the app
+        if (confirm != JOptionPane.YES_OPTION) return;
+        for (Window w : getOwnedWindows()) w.dispose(); // stats, charts and live prices belong to this trader
+        setVisible(false);
+        String user = loginPrompt();
+        if (user == null) {
+            closeSessions();
+            System.exit(0);
+        }
+        switchTrader(user);
+        setVisible(true);
+    }
+
+    /** Shows {@code user}'s workspace now if it is cached; otherwise blocks the window until it has loaded. */
+    private void switchTrader(String user) {
+        CompletableFuture<Workspace> session = sessions.open(user);
+        if (session.isDone()) {
+            showWorkspace(user, session);
+            return;
+        }
+        showLoading(user);
+        session.whenComplete((ws, e) -> SwingUtilities.invokeLater(() -> {
+            if (user.equals(sessions.active())) showWorkspace(user, session);
+        }));
+    }
+
+    /** Clears the previous trader's data off screen and blocks input until the new one is shown. */
+    private void showLoading(String user) {
+        setTitle("Smart Trader Tracker - Loading " + user + "...");
+        tradeTable.setModel(new javax.swing.table.DefaultTableModel());
+        nameField.setText(user);
+        clearProfileFields();
+        summaryLabel.setText("Summary: ");
+        profileSummaryLabel.setText("Trader Info: ");
+        JPanel glass = new JPanel(new GridBagLayout());
+        glass.setOpaque(false);
+        glass.add(new JLabel("Loading " + user + "'s trades..."));
+        glass.addMouseListener(new MouseAdapter() { }); // swallows clicks
+        glass.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        setGlassPane(glass);
+        glass.setVisible(true);
+        // the window may still be hidden here, so the glass pane cannot take the focus; keystrokes
+        // are blocked by disabling every control instead
+        if (disabledWhileLoading == null) {
+            disabledWhileLoading = new ArrayList<>();
+            disableAll(getContentPane());
         }
     }
 
-    private PdfPCell createCell(String text, com.itextpdf.text.Font font, BaseColor bg) {
-        PdfPCell cell = new PdfPCell(new Phrase(text, font));
-        cell.setBackgroundColor(bg);
-        cell.setPadding(5);
-        return cell;
+    private void disableAll(Container parent) {
+        for (Component c : parent.getComponents()) {
+            if (c.isEnabled()) {
+                c.setEnabled(false);
+                disabledWhileLoading.add(c);
+            }
+            if (c instanceof Container) disableAll((Container) c);
+        }
+    }
+
+    private void showWorkspace(String user, CompletableFuture<Workspace> session) {
+        Workspace ws;
+        try {
+            ws = session.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            showError("Could not open " + user + "'s trades: " + cause + "\nChanges will not be saved this session.", "Load Error");
+            ws = new Workspace(user, TradeRules.DEFAULT, UNDO_MEMORY, UNDO_DEPTH);
+        }
+        if (disabledWhileLoading != null) {
+            for (Component c : disabledWhileLoading) c.setEnabled(true); // before the per-trader gating below
+            disabledWhileLoading = null;
+        }
+        try (Metrics.Sample sample = Metrics.start("switchTrader")) {
+            workspace = ws;
+            store = ws.store;
+            stats = ws.stats;
+            timeSeries = ws.timeSeries;
+            index = ws.index;
+            tags = ws.tags;
+            sorter = ws.sorter;
+            sortKeys = ws.sortKeys;
+            history = ws.history;
+            tableModel = ws.table;
+            loggedInUser = ws.user;
+            setTitle("Smart Trader Tracker - Logged in as: " + loggedInUser);
+            nameField.setText(loggedInUser);
+            clearProfileFields();
+            loadUserProfile();
+            tradeTable.setModel(tableModel);
+            updateSortHeaders();
+            searchField.setText("");
+            searchFromField.setText("");
+            searchToField.setText("");
+            searchSignBox.setSelectedIndex(0);
+            fillTagBox();
+            searchTrades();
+            updateHistoryButtons();
+            updateSummary();
+            sample.rows(store.size());
+        }
+        getGlassPane().setVisible(false);
+        for (String warning : ws.takeWarnings()) showError(warning, "Load Error");
+        sessions.trim();
+    }
+
+    private void clearProfileFields() {
+        currentProfile = null;
+        hints.forEach((field, hint) -> {
+            field.setForeground(Color.GRAY);
+            field.setText(hint);
+        });
+    }
+
+    /**
+     * Builds a trader's workspace on the session loader thread: tag rules first, so the journal
+     * replay tags each row once, then the saved trades. Problems become warnings shown when the
+     * workspace is displayed, so a trader always gets one.
+     */
+    private static Workspace loadWorkspace(String user) {
+        TradeRules rules = TradeRules.DEFAULT;
+        String rulesProblem = null;
+        File rulesFile = new File(user + "_rules.txt");
+        if (rulesFile.exists()) {
+            try {
+                rules = TradeRules.parse(new String(java.nio.file.Files.readAllBytes(rulesFile.toPath()), java.nio.charset.StandardCharsets.UTF_8));
+            } catch (IOException | IllegalArgumentException e) {
+                rulesProblem = "Failed to load tag rules, using the built-in notes:\n" + e.getMessage();
+            }
+        }
+        Workspace ws = new Workspace(user, rules, UNDO_MEMORY, UNDO_DEPTH);
+        if (rulesProblem != null) ws.warn(rulesProblem);
+        try {
+            openJournal(ws);
+        } catch (IOException | ClassNotFoundException e) {
+            ws.warn("Load error: " + e.getMessage());
+        }
+        return ws;
+    }
+
+    /** A trader evicted from the session cache could not be closed, so their last changes may not be on disk. */
+    private void evictionFailed(String user, IOException e) {
+        SwingUtilities.invokeLater(() -> showError("Could not save " + user + "'s trades when closing their session: "
+            + e.getMessage(), "Save Error"));
+    }
+
+    private void closeSessions() {
+        try {
+            sessions.close();
+        } catch (IOException e) {
+            showError("Save error: " + e.getMessage(), "Save Error");
+        }
     }
 
     private void saveUserProfile() {
@@ -221,20 +465,9 @@ private void showError(String message, String title) {
 }
 
    private void updateSummary() {
-    double totalProfit = 0;
-    int winCount = 0;
-
-    for (Trade t : tradeList) {
-        totalProfit += t.profit;
-        if (t.profit > 0) winCount++;
-    }
-
-    int totalTrades = tradeList.size();
-    double winRate = totalTrades > 0 ? (100.0 * winCount / totalTrades) : 0;
-
     summaryLabel.setText(String.format(
         "Summary: Trades: %d | Win Rate: %.2f%% | Net Profit: %.2f",
-        totalTrades, winRate, totalProfit
+        stats.count(), stats.winRate(), stats.netProfit()
     ));
 
     profileSummaryLabel.setText(String.format(
@@ -252,38 +485,16 @@ private void showError(String message, String title) {
     }
 
     private void showStatistics() {
-    if (tradeList.isEmpty()) {
-        JOptionPane.showMessageDialog(this, "No trade data available.");
+    int tag = searchTagBox.getSelectedIndex(); // 0 = any tag, else the tag id
+    String tagged = tag > 0 ? " (tag: " + searchTagBox.getSelectedItem() + ")" : "";
+    TradeStatistics shown = tag > 0 ? TradeStatistics.of(store, tags.rows(tag)) : stats;
+    if (shown.count() == 0) {
+        JOptionPane.showMessageDialog(this, tag > 0 ? "No trades carry the selected tag." : "No trade data available.");
         return;
     }
 
-    double totalProfit = 0, totalWin = 0, totalLoss = 0;
-    double maxProfit = Double.NEGATIVE_INFINITY;
-    double maxLoss = Double.POSITIVE_INFINITY;
-    int winCount = 0, lossCount = 0;
-
-    for (Trade t : tradeList) {
-        totalProfit += t.profit;
-
-        if (t.profit > 0) {
-            winCount++;
-            totalWin += t.profit;
-        } else if (t.profit < 0) {
-            lossCount++;
-            totalLoss += t.profit;
-        }
-
-        maxProfit = Math.max(maxProfit, t.profit);
-        maxLoss = Math.min(maxLoss, t.profit);
-    }
-
-    int totalTrades = tradeList.size();
-    double avgWin = winCount > 0 ? totalWin / winCount : 0;
-    double avgLoss = lossCount > 0 ? totalLoss / lossCount : 0;
-    double winRate = (100.0 * winCount) / totalTrades;
-
     String statsMessage = String.format(
-        "📊 Advanced Trade Statistics:\n" +
+        "📊 Advanced Trade Statistics" + tagged + ":\n" +
         "------------------------------\n" +
         "Total Trades      : %d\n" +
         "Win Trades        : %d\n" +
@@ -293,33 +504,601 @@ private void showError(String message, String title) {
         "Max Profit Trade  : %.2f\n" +
         "Max Loss Trade    : %.2f\n" +
         "Avg Profit (Wins) : %.2f\n" +
-        "Avg Loss (Losses) : %.2f",
-        totalTrades, winCount, lossCount, winRate, totalProfit,
-        maxProfit, maxLoss, avgWin, avgLoss
+        "Avg Loss (Losses) : %.2f\n" +
+        "Profit Factor     : %.2f\n" +
+        "Expectancy        : %.2f\n" +
+        "Std Deviation     : %.2f\n" +
+        "Max Drawdown      : %.2f",
+        shown.count(), shown.wins(), shown.losses(), shown.winRate(), shown.netProfit(),
+        shown.maxProfit(), shown.maxLoss(), shown.avgWin(), shown.avgLoss(),
+        shown.profitFactor(), shown.expectancy(), shown.stdDev(), shown.maxDrawdown()
     );
 
-    JOptionPane.showMessageDialog(this, statsMessage, "Advanced Stats", JOptionPane.INFORMATION_MESSAGE);
+    JTextArea statsText = new JTextArea(statsMessage);
+    statsText.setEditable(false);
+    statsText.setFont(new java.awt.Font(java.awt.Font.MONOSPACED, java.awt.Font.PLAIN, 12));
+    JDialog dialog = new JDialog(this, "Advanced Stats", false);
+    dialog.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+    dialog.setLayout(new BorderLayout());
+    dialog.add(statsText, BorderLayout.NORTH);
+    dialog.add(riskPanel(dialog, shown, tag), BorderLayout.CENTER);
+    dialog.pack();
+    dialog.setLocationRelativeTo(this);
+    dialog.setVisible(true);
 }
 
+    /**
+     * Monte Carlo section of the stats dialog, resampling the trades {@code shown} covers: all of
+     * them, or those carrying {@code tag} when it is not 0. Results fill in while the simulation
+     * runs; closing the dialog cancels it.
+     */
+    private JPanel riskPanel(JDialog dialog, TradeStatistics shown, int tag) {
+        int trades = shown.count();
+        JComboBox<String> methodBox = new JComboBox<>(new String[]{"Block bootstrap", "Bootstrap"});
+        JTextField pathsField = new JTextField("10000", 7);
+        JTextField horizonField = new JTextField(String.valueOf(Math.min(trades, 10_000)), 7);
+        JTextField blockField = new JTextField(String.valueOf(MonteCarlo.defaultBlockLength(trades)), 4);
+        JTextField ruinField = new JTextField(String.format("%.2f", 2 * shown.maxDrawdown()), 8);
+        methodBox.addActionListener(e -> blockField.setEnabled(methodBox.getSelectedIndex() == 0));
+        JButton runButton = new JButton("Simulate");
+        JProgressBar bar = new JProgressBar();
+        bar.setStringPainted(true);
+        JTextArea results = new JTextArea("Resamples past trades into simulated equity paths.\n"
+            + "Ruin is counted when a path falls the given amount below its start.", 18, 72);
+        results.setEditable(false);
+        results.setFont(new java.awt.Font(java.awt.Font.MONOSPACED, java.awt.Font.PLAIN, 12));
+        AtomicBoolean[] cancel = {null};
+
+        runButton.addActionListener(e -> {
+            if (cancel[0] != null) {
+                cancel[0].set(true);
+                return;
+            }
+            int paths, horizon, block;
+            double ruin;
+            try {
+                paths = Integer.parseInt(pathsField.getText().trim().replace(",", ""));
+                horizon = Integer.parseInt(horizonField.getText().trim().replace(",", ""));
+                block = Integer.parseInt(blockField.getText().trim());
+                ruin = Double.parseDouble(ruinField.getText().trim().replace(",", ""));
+                if (paths <= 0 || horizon <= 0 || block <= 0) throw new NumberFormatException();
+            } catch (NumberFormatException ex) {
+                showError("Paths, trades ahead and block length must be positive whole numbers, ruin a number.", "Risk Simulation");
+                return;
+            }
+            // snapshot on the event thread; later edits do not affect this run
+            double[] profits = tag > 0 ? MonteCarlo.profits(store, tags.rows(tag)) : MonteCarlo.profits(store);
+            if (profits.length == 0) return;
+            MonteCarlo.Method method = methodBox.getSelectedIndex() == 0 ? MonteCarlo.Method.BLOCK : MonteCarlo.Method.BOOTSTRAP;
+            AtomicBoolean stop = new AtomicBoolean();
+            cancel[0] = stop;
+            runButton.setText("Cancel");
+            bar.setMaximum(paths);
+            bar.setValue(0);
+
+            new SwingWorker<MonteCarlo.Result, MonteCarlo.Result>() {
+                @Override
+                protected MonteCarlo.Result doInBackground() throws InterruptedException {
+                    try (Metrics.Sample sample = Metrics.start("monteCarlo")) {
+                        MonteCarlo.Result r = new MonteCarlo(profits).run(method, paths, horizon, block, ruin,
+                            System.nanoTime(), this::publish, stop);
+                        sample.rows((long) r.paths * horizon);
+                        return r;
+                    }
+                }
+
+                @Override
+                protected void process(java.util.List<MonteCarlo.Result> snapshots) {
+                    MonteCarlo.Result r = snapshots.get(snapshots.size() - 1);
+                    bar.setValue(r.paths);
+                    results.setText(riskReport(r, method, block, ruin));
+                    results.setCaretPosition(0);
+                }
+
+                @Override
+                protected void done() {
+                    cancel[0] = null;
+                    runButton.setText("Simulate");
+                    try {
+                        MonteCarlo.Result r = get();
+                        bar.setValue(r.paths);
+                        results.setText(riskReport(r, method, block, ruin));
+                        results.setCaretPosition(0);
+                    } catch (InterruptedException | ExecutionException ex) {
+                        Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                        results.setText("Simulation failed: " + cause.getMessage());
+                    }
+                }
+            }.execute();
+        });
+        dialog.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                if (cancel[0] != null) cancel[0].set(true);
+            }
+        });
+
+        JPanel controls = new JPanel();
+        controls.add(methodBox);
+        controls.add(new JLabel("Paths:")); controls.add(pathsField);
+        controls.add(new JLabel("Trades ahead:")); controls.add(horizonField);
+        controls.add(new JLabel("Block:")); controls.add(blockField);
+        controls.add(new JLabel("Ruin if down:")); controls.add(ruinField);
+        controls.add(runButton);
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.setBorder(BorderFactory.createTitledBorder("Risk Simulation"));
+        panel.add(controls, BorderLayout.NORTH);
+        panel.add(new JScrollPane(results), BorderLayout.CENTER);
+        panel.add(bar, BorderLayout.SOUTH);
+        return panel;
+    }
+
+    private static String riskReport(MonteCarlo.Result r, MonteCarlo.Method method, int block, double ruin) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Paths             : %,d of %,d, %,d trades ahead, %s%s%n", r.paths, r.requested, r.horizon,
+            method == MonteCarlo.Method.BLOCK ? "blocks of " + block : "trades drawn independently",
+            r.cancelled ? " (cancelled)" : r.isDone() ? "" : " (running)"));
+        if (r.paths == 0) return sb.toString();
+        sb.append(String.format("Mean P&L          : %.2f%n", r.meanPnl));
+        sb.append(String.format("Chance of loss    : %.2f%%%n", r.lossProbability));
+        sb.append(String.format("Risk of ruin      : %.2f%% (down %.2f or more at any point)%n", r.riskOfRuin, ruin));
+        sb.append(String.format("Mean max drawdown : %.2f%n%n", r.meanDrawdown));
+        sb.append(String.format("%-18s", "Percentile"));
+        for (double p : MonteCarlo.Result.PERCENTILES) sb.append(String.format("%12.0f%%", p));
+        sb.append(String.format("%n%-18s", "Final P&L"));
+        for (double v : r.pnl) sb.append(String.format("%13.2f", v));
+        sb.append(String.format("%n%-18s", "Max drawdown"));
+        for (double v : r.drawdown) sb.append(String.format("%13.2f", v));
+        sb.append(String.format("%n%nEquity band%n%-18s%13s%13s%13s%n", "After trade", "5%", "Median", "95%"));
+        for (int i = 0; i < r.checkpoints.length; i++) {
+            sb.append(String.format("%-18s%13.2f%13.2f%13.2f%n", String.format("%,d", r.checkpoints[i]),
+                r.bands[i][0], r.bands[i][1], r.bands[i][2]));
+        }
+        return sb.toString();
+    }
+
+    private void showBreakdown() {
+        if (store.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "No trade data available.");
+            return;
+        }
+        breakdownButton.setEnabled(false);
+        TradeStore source = store;
+        TradeTags tagged = tags;
+        runningTasks++;
+        updateHistoryButtons();
+        new SwingWorker<TradeAnalytics.Report, Void>() {
+            @Override
+            protected TradeAnalytics.Report doInBackground() {
+                return analytics.analyze(source);
+            }
+
+            @Override
+            protected void done() {
+                breakdownButton.setEnabled(true);
+                runningTasks--;
+                updateHistoryButtons();
+                TradeAnalytics.Report r;
+                try {
+                    r = get();
+                } catch (Exception ex) {
+                    JOptionPane.showMessageDialog(SmartTraderTracker.this, "Breakdown failed: " + ex.getMessage());
+                    return;
+                }
+                StringBuilder sb = new StringBuilder();
+                sb.append(String.format("Trades %d   Net %.2f   Win rate %.2f%%   Std Dev %.2f   Max Drawdown %.2f%n",
+                        r.count, r.net, r.winRate(), r.stdDev, r.maxDrawdown));
+                sb.append("\nProfit percentiles\n");
+                for (int i = 0; i < r.percentiles.length; i++) {
+                    sb.append(String.format("  p%-3.0f %12.2f%n", r.percentileRanks[i], r.percentiles[i]));
+                }
+                appendBuckets(sb, "By symbol", r.bySymbol);
+                appendBuckets(sb, "By type", r.byType);
+                appendBuckets(sb, "By month", r.byMonth);
+                appendBuckets(sb, "By week", r.byWeek);
+                appendBuckets(sb, "By day", r.byDay);
+                appendBuckets(sb, "By tag", tagged.byTag());
+                JTextArea text = new JTextArea(sb.toString(), 30, 64);
+                text.setEditable(false);
+                text.setFont(new java.awt.Font(java.awt.Font.MONOSPACED, java.awt.Font.PLAIN, 12));
+                JOptionPane.showMessageDialog(SmartTraderTracker.this, new JScrollPane(text), "Breakdown", JOptionPane.PLAIN_MESSAGE);
+            }
+        }.execute();
+    }
+
+    /** Non-modal, so it keeps updating while trades are imported or undone. */
+    private void showEquityCurve() {
+        EquityChartPanel chart = new EquityChartPanel(store, timeSeries);
+        JComboBox<String> axisBox = new JComboBox<>(new String[]{"Per trade", "By date"});
+        axisBox.addActionListener(e -> chart.setAxis(axisBox.getSelectedIndex() == 0
+            ? EquityChartPanel.Axis.TRADES : EquityChartPanel.Axis.DATES));
+        JTextField fromField = new JTextField(8), toField = new JTextField(8);
+        JLabel rangeLabel = new JLabel(" ");
+        JButton rangeButton = new JButton("Range Stats");
+        rangeButton.addActionListener(e -> {
+            String fromText = fromField.getText().trim(), toText = toField.getText().trim();
+            int from = TradeDates.parse(fromText), to = TradeDates.parse(toText);
+            if ((from == TradeDates.NO_DATE && !fromText.isEmpty()) || (to == TradeDates.NO_DATE && !toText.isEmpty())) {
+                showError("Not a valid date: use YYYY-MM-DD, or leave the field blank for an open range.", "Range Stats");
+                return;
+            }
+            TradeTimeSeries.Range r = timeSeries.range(fromText.isEmpty() ? Integer.MIN_VALUE : from,
+                toText.isEmpty() ? Integer.MAX_VALUE : to);
+            rangeLabel.setText(String.format("Trades %d   Net %.2f   Win rate %.2f%%   Max drawdown %.2f",
+                r.count, r.net, r.winRate(), r.maxDrawdown));
+        });
+        JPanel controls = new JPanel();
+        controls.add(axisBox);
+        controls.add(new JLabel("From:")); controls.add(fromField);
+        controls.add(new JLabel("To:")); controls.add(toField);
+        controls.add(rangeButton);
+        controls.add(rangeLabel);
+
+        JDialog dialog = new JDialog(this, "Equity Curve", false);
+        dialog.setLayout(new BorderLayout());
+        dialog.add(chart, BorderLayout.CENTER);
+        dialog.add(controls, BorderLayout.SOUTH);
+        dialog.pack();
+        dialog.setLocationRelativeTo(this);
+        dialog.setVisible(true);
+    }
+
+    /**
+     * Matches a fills file into open positions and marks them to a live feed. The feed and the
+     * marking run on their own threads; the table is refreshed by a timer at a fixed frame rate,
+     * never per tick.
+     */
+    private void showLivePrices() {
+        JTextField fillsField = new JTextField(18), sourceField = new JTextField("127.0.0.1:9000", 14), rateField = new JTextField("0", 6);
+        JComboBox<TradeMatcher.Method> methodBox = new JComboBox<>(TradeMatcher.Method.values());
+        JButton browseButton = new JButton("Browse"), startButton = new JButton("Start");
+        browseButton.addActionListener(e -> {
+            JFileChooser chooser = new JFileChooser();
+            if (chooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) fillsField.setText(chooser.getSelectedFile().getPath());
+        });
+        MarkTableModel model = new MarkTableModel();
+        JLabel statusLabel = new JLabel("Stopped");
+        PriceFeedRunner[] running = new PriceFeedRunner[1];
+        long[] lastTicks = new long[2]; // ticks and nanoTime at the previous status update
+
+        javax.swing.Timer frame = new javax.swing.Timer(LIVE_FRAME_MS, null);
+        frame.addActionListener(e -> {
+            PriceFeedRunner runner = running[0];
+            if (runner == null) return;
+            MarkToMarket marks = model.marks();
+            if (model.refresh() || !runner.isRunning()) {
+                long now = System.nanoTime(), ticks = marks.ticks();
+                double rate = now > lastTicks[1] ? (ticks - lastTicks[0]) * 1e9 / (now - lastTicks[1]) : 0;
+                if (now - lastTicks[1] >= 1_000_000_000L) {
+                    lastTicks[0] = ticks;
+                    lastTicks[1] = now;
+                }
+                statusLabel.setText(String.format("Unrealized %.2f   Ticks %,d (%,.0f/s)   Lag %.2f ms (max %.2f)",
+                    marks.totalUnrealized(), ticks, rate, marks.lastLagNanos() / 1e6, marks.maxLagNanos() / 1e6));
+            }
+            if (!runner.isRunning()) {
+                frame.stop();
+                running[0] = null;
+                startButton.setText("Start");
+                statusLabel.setText(statusLabel.getText() + "   Feed ended"
+                    + (runner.error() != null ? ": " + runner.error().getMessage() : ""));
+            }
+        });
+
+        startButton.addActionListener(e -> {
+            if (running[0] != null) {
+                running[0].stop();
+                return; // the timer notices the runner has stopped
+            }
+            java.nio.file.Path fills = java.nio.file.Paths.get(fillsField.getText().trim());
+            String source = sourceField.getText().trim();
+            double rate;
+            try {
+                rate = Double.parseDouble(rateField.getText().trim());
+            } catch (NumberFormatException ex) {
+                showError("Ticks per second must be a number (0 replays a file as fast as possible).", "Live Prices");
+                return;
+            }
+            TradeMatcher.Method method = (TradeMatcher.Method) methodBox.getSelectedItem();
+            startButton.setEnabled(false);
+            statusLabel.setText("Matching fills...");
+            new SwingWorker<MarkToMarket, Void>() {
+                @Override
+                protected MarkToMarket doInBackground() throws Exception {
+                    TradeMatcher matcher = new TradeMatcher(method, (symbol, type, entry, exit, profit, day) -> { });
+                    matcher.replay(fills);
+                    return new MarkToMarket(matcher);
+                }
+
+                @Override
+                protected void done() {
+                    startButton.setEnabled(true);
+                    try {
+                        MarkToMarket marks = get();
+                        model.setMarks(marks);
+                        PriceFeedRunner runner = new PriceFeedRunner(PriceFeed.open(source, rate), marks, PriceFeedRunner.DEFAULT_RING);
+                        runner.start();
+                        running[0] = runner;
+                        lastTicks[0] = 0;
+                        lastTicks[1] = System.nanoTime();
+                        statusLabel.setText(String.format("%d open positions, waiting for ticks", marks.size()));
+                        startButton.setText("Stop");
+                        frame.start();
+                    } catch (InterruptedException | ExecutionException ex) {
+                        Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                        statusLabel.setText("Stopped");
+                        showError("Could not read fills: " + cause.getMessage(), "Live Prices");
+                    }
+                }
+            }.execute();
+        });
+
+        JPanel controls = new JPanel(new GridLayout(2, 1));
+        JPanel row1 = new JPanel(), row2 = new JPanel();
+        row1.add(new JLabel("Fills:")); row1.add(fillsField); row1.add(browseButton); row1.add(methodBox);
+        row2.add(new JLabel("Feed (host:port or file):")); row2.add(sourceField);
+        row2.add(new JLabel("Ticks/s:")); row2.add(rateField); row2.add(startButton);
+        controls.add(row1); controls.add(row2);
+
+        JDialog dialog = new JDialog(this, "Live Prices", false);
+        dialog.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+        dialog.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                frame.stop();
+                if (running[0] != null) running[0].stop(); // daemon threads; nothing to wait for here
+                running[0] = null;
+            }
+        });
+        dialog.setLayout(new BorderLayout());
+        dialog.add(controls, BorderLayout.NORTH);
+        dialog.add(new JScrollPane(new JTable(model)), BorderLayout.CENTER);
+        dialog.add(statusLabel, BorderLayout.SOUTH);
+        dialog.setSize(760, 420);
+        dialog.setLocationRelativeTo(this);
+        dialog.setVisible(true);
+    }
+
+    /** Ctrl+Shift+D: per-operation latency, throughput and allocation, refreshed every second. */
+    private void showDiagnostics() {
+        JTextArea text = new JTextArea(diagnostics(), 16, 100);
+        text.setEditable(false);
+        text.setFont(new java.awt.Font(java.awt.Font.MONOSPACED, java.awt.Font.PLAIN, 12));
+        javax.swing.Timer refresh = new javax.swing.Timer(1000, e -> text.setText(diagnostics()));
+        JButton resetButton = new JButton("Reset");
+        resetButton.addActionListener(e -> {
+            Metrics.reset();
+            text.setText(diagnostics());
+        });
+        JButton dumpButton = new JButton("Save JSON");
+        dumpButton.addActionListener(e -> {
+            File out = new File(loggedInUser + "_metrics.json");
+            try {
+                java.nio.file.Files.write(out.toPath(), Metrics.toJson().getBytes(java.nio.charset.StandardCharsets.UTF_8));
+                JOptionPane.showMessageDialog(this, "Metrics written to " + out.getName());
+            } catch (IOException ex) {
+                showError("Could not write metrics: " + ex.getMessage(), "Diagnostics");
+            }
+        });
+        JPanel buttons = new JPanel();
+        buttons.add(resetButton); buttons.add(dumpButton);
+        buttons.add(new JLabel("Flight Recorder events: tracker.Operation"));
+
+        JDialog dialog = new JDialog(this, "Diagnostics", false);
+        dialog.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+        dialog.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) { refresh.stop(); }
+        });
+        dialog.setLayout(new BorderLayout());
+        dialog.add(new JScrollPane(text), BorderLayout.CENTER);
+        dialog.add(buttons, BorderLayout.SOUTH);
+        dialog.pack();
+        dialog.setLocationRelativeTo(this);
+        dialog.setVisible(true);
+        refresh.start();
+    }
+
+    /** Re-tags every trade, then refreshes the tag filter and the Note column through the search. */
+    private void applyRules(TradeRules rules) {
+        try (Metrics.Sample sample = Metrics.start("tagTrades")) {
+            tags.setRules(rules);
+            sample.rows(store.size());
+        }
+        fillTagBox();
+        searchTrades();
+    }
+
+    /** "Any tag" followed by the current rules' tags in id order, keeping the selection if it survives. */
+    private void fillTagBox() {
+        Object selected = searchTagBox.getSelectedItem();
+        Vector<String> items = new Vector<>();
+        items.add("Any tag");
+        items.addAll(tags.rules().tags());
+        DefaultComboBoxModel<String> model = new DefaultComboBoxModel<>(items);
+        if (selected != null && items.contains(selected)) model.setSelectedItem(selected);
+        searchTagBox.setModel(model);
+    }
+
+    private void showRules() {
+        JTextArea text = new JTextArea(tags.rules().source(), 20, 70);
+        text.setFont(new java.awt.Font(java.awt.Font.MONOSPACED, java.awt.Font.PLAIN, 12));
+        JLabel status = new JLabel(" ");
+        JButton applyButton = new JButton("Apply");
+        applyButton.setEnabled(runningTasks == 0);
+        JButton defaultsButton = new JButton("Defaults");
+        defaultsButton.addActionListener(e -> text.setText(TradeRules.DEFAULT_SOURCE));
+        applyButton.addActionListener(e -> {
+            TradeRules rules;
+            try {
+                rules = TradeRules.parse(text.getText());
+            } catch (IllegalArgumentException ex) {
+                status.setForeground(Color.RED);
+                status.setText(ex.getMessage().replace("\n", "   "));
+                return;
+            }
+            long t0 = System.nanoTime();
+            applyRules(rules);
+            status.setForeground(Color.BLACK);
+            status.setText(String.format("%d rules, %d tags, %,d trades tagged in %.0f ms", rules.size(),
+                rules.tags().size(), store.size(), (System.nanoTime() - t0) / 1e6));
+            File out = new File(loggedInUser + "_rules.txt");
+            try {
+                java.nio.file.Files.write(out.toPath(), rules.source().getBytes(java.nio.charset.StandardCharsets.UTF_8));
+            } catch (IOException ex) {
+                showError("Rules applied but not saved: " + ex.getMessage(), "Tag Rules");
+            }
+        });
+        JPanel buttons = new JPanel();
+        buttons.add(applyButton); buttons.add(defaultsButton);
+        JPanel south = new JPanel(new BorderLayout());
+        south.add(status, BorderLayout.CENTER);
+        south.add(buttons, BorderLayout.EAST);
+
+        JDialog dialog = new JDialog(this, "Tag Rules", false);
+        dialog.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+        dialog.addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowClosed(java.awt.event.WindowEvent e) {
+                if (rulesApplyButton == applyButton) rulesApplyButton = null;
+            }
+        });
+        rulesApplyButton = applyButton;
+        dialog.setLayout(new BorderLayout());
+        dialog.add(new JScrollPane(text), BorderLayout.CENTER);
+        dialog.add(south, BorderLayout.SOUTH);
+        dialog.pack();
+        dialog.setLocationRelativeTo(this);
+        dialog.setVisible(true);
+    }
+
+    private String diagnostics() {
+        return Metrics.table() + String.format("Sessions %s, about %,.1f of %,.1f MB%n", sessions.users(),
+            sessions.memoryBytes() / 1048576.0, sessions.budgetBytes() / 1048576.0);
+    }
+
+    private static void appendBuckets(StringBuilder sb, String title, java.util.List<TradeAnalytics.Bucket> buckets) {
+        sb.append('\n').append(title).append('\n');
+        sb.append(String.format("  %-16s %8s %9s %14s%n", "", "Trades", "Win %", "Net"));
+        for (TradeAnalytics.Bucket b : buckets) {
+            sb.append(String.format("  %-16s %8d %8.2f%% %14.2f%n", b.label, b.count, b.winRate(), b.net));
+        }
+    }
+
 
     private void sortTradesByProfit() {
-        tradeList.sort(Comparator.comparingDouble(t -> -t.profit));
-        reloadTable();
+        sortKeys.clear();
+        sortKeys.add(new TradeSorter.Order(TradeSorter.Key.PROFIT, true));
+        applySort();
     }
 
-    private void undoLastTrade() {
-        if (!undoStack.isEmpty()) {
-            Trade removed = undoStack.pop();
-            tradeList.remove(removed);
-            reloadTable();
+    /** Model column to sort key; null for "#" and "Note". */
+    private static TradeSorter.Key sortKey(int column) {
+        switch (column) {
+            case 1: return TradeSorter.Key.SYMBOL;
+            case 2: return TradeSorter.Key.TYPE;
+            case 3: return TradeSorter.Key.ENTRY;
+            case 4: return TradeSorter.Key.EXIT;
+            case 5: return TradeSorter.Key.PROFIT;
+            case 6: return TradeSorter.Key.DATE;
+            default: return null;
+        }
+    }
+
+    /**
+     * A plain click sorts by that column alone, or reverses it if it already is the only key.
+     * Shift+click appends the column as a further key, or reverses it if it is one already.
+     * Clicking "#" goes back to insertion order.
+     */
+    private void headerClicked(int column, boolean addKey) {
+        if (column == 0) {
+            clearSort();
+            searchTrades();
+            return;
+        }
+        TradeSorter.Key key = sortKey(column);
+        if (key == null) return;
+        int at = -1;
+        for (int i = 0; i < sortKeys.size(); i++) if (sortKeys.get(i).key == key) at = i;
+        if (addKey && at >= 0) {
+            sortKeys.set(at, sortKeys.get(at).reversed());
+        } else if (addKey) {
+            sortKeys.add(new TradeSorter.Order(key, false));
+        } else {
+            boolean reverse = at == 0 && sortKeys.size() == 1;
+            TradeSorter.Order order = reverse ? sortKeys.get(0).reversed() : new TradeSorter.Order(key, false);
+            sortKeys.clear();
+            sortKeys.add(order);
+        }
+        applySort();
+    }
+
+    /** Installs the order for {@link #sortKeys} and re-applies the current search. */
+    private void applySort() {
+        tableModel.setSort(sorter, sortKeys); // keeps appended rows, e.g. from a batch import, in order
+        updateSortHeaders();
+        searchTrades();
+        updateSummary();
+    }
+
+    private void clearSort() {
+        sortKeys.clear();
+        tableModel.setOrder(null);
+        updateSortHeaders();
+    }
+
+    /** Marks sorted columns with an arrow, numbered by priority when there is more than one key. */
+    private void updateSortHeaders() {
+        javax.swing.table.TableColumnModel columns = tradeTable.getColumnModel();
+        for (int i = 0; i < columns.getColumnCount(); i++) {
+            javax.swing.table.TableColumn column = columns.getColumn(i);
+            String name = tableModel.getColumnName(column.getModelIndex());
+            TradeSorter.Key key = sortKey(column.getModelIndex());
+            for (int k = 0; k < sortKeys.size(); k++) {
+                if (sortKeys.get(k).key != key) continue;
+                name += (sortKeys.get(k).descending ? " \u25BC" : " \u25B2") + (sortKeys.size() > 1 ? String.valueOf(k + 1) : "");
+            }
+            column.setHeaderValue(name);
         }
+        tradeTable.getTableHeader().repaint();
+    }
+
+    private void undoOrRedo(boolean undo) {
+        try {
+            if (undo ? history.undo() : history.redo()) applySort();
+        } catch (IOException | IllegalStateException e) {
+            showError((undo ? "Undo" : "Redo") + " failed: " + e.getMessage(), undo ? "Undo" : "Redo");
+            history.reset();
+        }
+        updateHistoryButtons();
+    }
+
+    /**
+     * Actions that truncate or replace trades wait for every running task. An import recording into
+     * the history would append its remaining batches to whatever the store then holds, and exports
+     * and breakdowns read the store's chunks on worker threads. Applying tag rules waits too, since
+     * breakdowns and exports read the tags being rebuilt.
+     */
+    private void updateHistoryButtons() {
+        boolean idle = runningTasks == 0 && !history.isOpen();
+        uploadButton.setEnabled(idle);
+        batchImportButton.setEnabled(idle);
+        loadButton.setEnabled(idle);
+        if (rulesApplyButton != null) rulesApplyButton.setEnabled(runningTasks == 0);
+        undoBtn.setEnabled(idle && history.canUndo());
+        redoBtn.setEnabled(idle && history.canRedo());
+        undoBtn.setToolTipText(history.undoLabel() != null ? "Undo " + history.undoLabel() : null);
+        redoBtn.setToolTipText(history.redoLabel() != null ? "Redo " + history.redoLabel() : null);
     }
 
     private void saveTrades() {
-    try (ObjectOutputStream out = new ObjectOutputStream(
-            new FileOutputStream(loggedInUser + "_trades.dat"))) {
-        
-        out.writeObject(tradeList);
+    try {
+        TradeJournal journal = workspace.journal();
+        if (journal == null) throw new IOException("trade journal is not open");
+        try (Metrics.Sample sample = Metrics.start("saveTrades")) {
+            journal.sync();
+            sample.rows(store.size());
+        }
         JOptionPane.showMessageDialog(this, "Trades saved.");
 
     } catch (IOException e) {
@@ -329,195 +1108,433 @@ private void showError(String message, String title) {
 
 
     private void loadTrades() {
-        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(loggedInUser + "_trades.dat"))) {
-            tradeList = (LinkedList<Trade>) in.readObject();
+        try (Metrics.Sample sample = Metrics.start("loadTrades")) {
+            closeJournal();
+            history.reset();
+            store.clear();
+            clearSort();
+            try {
+                openJournal(workspace);
+            } catch (IOException | ClassNotFoundException e) {
+                showError("Load error: " + e.getMessage(), "Load Error");
+            }
+            for (String warning : workspace.takeWarnings()) showError(warning, "Load Error");
             reloadTable();
-        } catch (IOException | ClassNotFoundException e) {
-            JOptionPane.showMessageDialog(this, "Load error: " + e.getMessage());
+            updateHistoryButtons();
+            sample.rows(store.size());
+        }
+    }
+
+    /** Restores the last snapshot plus journal tail; every later change is journaled as it happens. */
+    private static void openJournal(Workspace ws) throws IOException, ClassNotFoundException {
+        File snapshot = new File(ws.user + "_trades.bin");
+        File log = new File(ws.user + "_trades.journal");
+        String warning = migrateLegacyTrades(ws.user);
+        if (warning != null) ws.warn(warning);
+        ws.openJournal(snapshot.toPath(), log.toPath());
+    }
+
+    /**
+     * One-time migration of a trader's serialized {@code _trades.dat} into a snapshot, when they have
+     * neither snapshot nor journal yet. The .dat is left in place untouched. Dates the old app stored
+     * as free text that {@link TradeDates} cannot read are kept as undated trades; the returned
+     * warning counts them and points at the .dat, and is null when every date was read.
+     */
+    static String migrateLegacyTrades(String user) throws IOException, ClassNotFoundException {
+        File snapshot = new File(user + "_trades.bin");
+        File log = new File(user + "_trades.journal");
+        File legacy = new File(user + "_trades.dat");
+        if (snapshot.exists() || log.exists() || !legacy.exists()) return null;
+        int[] unreadable = new int[1];
+        TradeStore loaded = readLegacyTrades(legacy, unreadable);
+        TradeFile.write(loaded, snapshot.toPath());
+        if (unreadable[0] == 0) return null;
+        return String.format("%,d of %,d trades in %s have dates that could not be read and are now undated.%n"
+            + "The original file is kept unchanged.", unreadable[0], loaded.size(), legacy.getName());
+    }
+
+    private void closeJournal() {
+        try {
+            workspace.closeJournal();
+        } catch (IOException e) {
+            showError("Save error: " + e.getMessage(), "Save Error");
+        }
+    }
+
+    /** Reads the old serialized trades, counting non-blank dates that do not parse into {@code unreadable[0]}. */
+    @SuppressWarnings("unchecked")
+    private static TradeStore readLegacyTrades(File file, int[] unreadable) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            LinkedList<Trade> trades = (LinkedList<Trade>) in.readObject();
+            TradeStore loaded = new TradeStore();
+            for (Trade t : trades) {
+                int day = t.date == null ? TradeDates.NO_DATE : TradeDates.parse(t.date);
+                if (day == TradeDates.NO_DATE && t.date != null && !t.date.trim().isEmpty()) unreadable[0]++;
+                loaded.add(t.symbol, t.type, t.entry, t.exit, t.profit, day);
+            }
+            return loaded;
         }
     }
 
     private void reloadTable() {
-        tableModel.setRowCount(0);
-        int count = 1;
-        for (Trade t : tradeList) {
-            tableModel.addRow(new Object[]{count++, t.symbol, t.type, t.entry, t.exit, t.profit, t.date, getNoteForTrade(t)});
+        try (Metrics.Sample sample = Metrics.start("reloadTable")) {
+            tableModel.setFilter(null);
+            updateSummary();
+            sample.rows(store.size());
         }
-        updateSummary();
     }
 
     private void exportCSV() {
-    try (PrintWriter writer = new PrintWriter(new FileWriter(loggedInUser + "_trades_export.csv"))) {
-        writer.println("Symbol,Type,Entry,Exit,Profit,Date,Note");
-        for (Trade t : tradeList) {
-            writer.printf("%s,%s,%.2f,%.2f,%.2f,%s,%s%n",
-                    t.symbol, t.type, t.entry, t.exit, t.profit, t.date, getNoteForTrade(t));
+        JRadioButton allRows = new JRadioButton("All trades", true);
+        JRadioButton shownRows = new JRadioButton("Only the " + tableModel.getRowCount() + " trades shown");
+        shownRows.setEnabled(tableModel.isFiltered());
+        ButtonGroup scope = new ButtonGroup();
+        scope.add(allRows); scope.add(shownRows);
+        JCheckBox gzipBox = new JCheckBox("Compress (gzip)");
+        JPanel options = new JPanel(new GridLayout(0, 1));
+        options.add(allRows); options.add(shownRows); options.add(gzipBox);
+        if (JOptionPane.showConfirmDialog(this, options, "Export as CSV", JOptionPane.OK_CANCEL_OPTION) != JOptionPane.OK_OPTION) return;
+
+        CsvTradeExporter.Rows rows;
+        if (shownRows.isSelected()) {
+            int[] view = tableModel.viewRows();
+            rows = CsvTradeExporter.Rows.of(view, view.length);
+        } else {
+            int[] order = tableModel.order();
+            rows = order == null ? CsvTradeExporter.Rows.all(store.size()) : CsvTradeExporter.Rows.of(order, order.length);
         }
+        boolean gzip = gzipBox.isSelected();
+        File out = new File(loggedInUser + "_trades_export.csv" + (gzip ? ".gz" : ""));
+
+        TradeStore source = store;
+        TradeTags notes = tags;
+        runningTasks++;
+        exportCsvButton.setEnabled(false);
+        updateHistoryButtons();
+        ProgressMonitor monitor = new ProgressMonitor(this, "Writing " + out.getName(), "", 0, Math.max(1, rows.blocks()));
+        monitor.setMillisToDecideToPopup(200);
+        AtomicBoolean cancel = new AtomicBoolean();
+
+        new SwingWorker<CsvTradeExporter.Result, Integer>() {
+            @Override
+            protected CsvTradeExporter.Result doInBackground() throws IOException {
+                try (Metrics.Sample sample = Metrics.start("exportCSV")) {
+                    CsvTradeExporter.Result result = new CsvTradeExporter(source, notes::label).export(
+                        out.toPath(), rows, gzip,
+                        (written, total) -> {
+                            publish(written);
+                            if (monitor.isCanceled()) cancel.set(true);
+                        },
+                        cancel);
+                    sample.rows(result.rows);
+                    return result;
+                }
+            }
 
-        JOptionPane.showMessageDialog(this, "Exported successfully.");
+            @Override
+            protected void process(java.util.List<Integer> chunks) {
+                monitor.setProgress(chunks.get(chunks.size() - 1));
+            }
 
-    } catch (IOException ex) {
-        JOptionPane.showMessageDialog(this, "Export failed: " + ex.getMessage());
+            @Override
+            protected void done() {
+                monitor.close();
+                runningTasks--;
+                exportCsvButton.setEnabled(true);
+                updateHistoryButtons();
+                try {
+                    CsvTradeExporter.Result result = get();
+                    JOptionPane.showMessageDialog(SmartTraderTracker.this, result.cancelled
+                        ? "Export cancelled after " + result.rows + " trades."
+                        : "Exported successfully.");
+                } catch (InterruptedException | ExecutionException ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    JOptionPane.showMessageDialog(SmartTraderTracker.this, "Export failed: " + cause.getMessage());
+                }
+            }
+        }.execute();
     }
-}
 
 
     private void searchTrades() {
-        String query = searchField.getText().trim().toLowerCase();
-        tableModel.setRowCount(0);
-        int count = 1;
-        for (Trade t : tradeList) {
-            if (t.symbol.toLowerCase().contains(query) || t.type.toLowerCase().contains(query)) {
-                tableModel.addRow(new Object[]{count++, t.symbol, t.type, t.entry, t.exit, t.profit, t.date, getNoteForTrade(t)});
-            }
+        try (Metrics.Sample sample = Metrics.start("searchTrades")) {
+            filterTrades();
+            sample.rows(store.size());
+        }
+    }
+
+    private void filterTrades() {
+        String fromText = searchFromField.getText().trim(), toText = searchToField.getText().trim();
+        int from = TradeDates.parse(fromText), to = TradeDates.parse(toText);
+        if ((from == TradeDates.NO_DATE && !fromText.isEmpty()) || (to == TradeDates.NO_DATE && !toText.isEmpty())) {
+            showError("Not a valid date: use YYYY-MM-DD, or leave the field blank for an open range.", "Search");
+            return;
+        }
+        TradeQuery query = new TradeQuery()
+            .text(searchField.getText())
+            .dates(from, to)
+            .sign(TradeQuery.Sign.values()[searchSignBox.getSelectedIndex()]);
+        int tag = searchTagBox.getSelectedIndex(); // 0 = any tag, else the tag id
+        if (query.isEmpty() && tag <= 0) {
+            tableModel.setFilter(null);
+            return;
+        }
+        RowBitmap found = query.isEmpty() ? tags.rows(tag) : index.search(query);
+        RowBitmap matches = tag > 0 && !query.isEmpty() ? found.and(tags.rows(tag)) : found;
+        java.util.function.IntPredicate later = tag > 0
+            ? row -> query.matches(store, row) && tags.tagId(row) == tag
+            : row -> query.matches(store, row);
+        int indexed = store.size();
+        if (tableModel.isSorted()) {
+            tableModel.setFilter(row -> row < indexed ? matches.contains(row) : later.test(row));
+        } else {
+            int[] rows = matches.toArray();
+            tableModel.setFilterResult(rows, rows.length, later);
         }
     }
 
     private void exportPDF() {
-    try {
-        Document doc = new Document();
-        PdfWriter.getInstance(doc, new FileOutputStream(loggedInUser + "_report.pdf"));
-        doc.open();
-
-        com.itextpdf.text.Font titleFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18, BaseColor.BLACK);
-        com.itextpdf.text.Font sectionFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 14, BaseColor.DARK_GRAY);
-        com.itextpdf.text.Font textFont = FontFactory.getFont(FontFactory.HELVETICA, 12, BaseColor.BLACK);
-
-        Paragraph title = new Paragraph("📄 Smart Trader Report - " + loggedInUser, titleFont);
-        title.setSpacingAfter(10);
-        doc.add(title);
-        doc.add(new Paragraph("Date: " + new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()), textFont));
-        doc.add(Chunk.NEWLINE);
-
-        doc.add(new Paragraph("👤 Trader Info:", sectionFont));
-        doc.add(new Paragraph("Email      : " + emailField.getText(), textFont));
-        doc.add(new Paragraph("DOB        : " + dobField.getText(), textFont));
-        doc.add(new Paragraph("Phone      : " + phoneField.getText(), textFont));
-        doc.add(new Paragraph("Country    : " + countryField.getText(), textFont));
-        doc.add(new Paragraph("Account ID : " + accountIdField.getText(), textFont));
-        doc.add(Chunk.NEWLINE);
-
-        double totalProfit = 0, maxProfit = Double.NEGATIVE_INFINITY, maxLoss = Double.POSITIVE_INFINITY;
-        int winCount = 0, lossCount = 0;
-        double totalWin = 0, totalLoss = 0;
-
-        for (Trade t : tradeList) {
-            totalProfit += t.profit;
-            if (t.profit > 0) {
-                winCount++;
-                totalWin += t.profit;
-            } else if (t.profit < 0) {
-                lossCount++;
-                totalLoss += t.profit;
-            }
-            maxProfit = Math.max(maxProfit, t.profit);
-            maxLoss = Math.min(maxLoss, t.profit);
-        }
-
-        int totalTrades = tradeList.size();
-        double avgWin = winCount > 0 ? totalWin / winCount : 0;
-        double avgLoss = lossCount > 0 ? totalLoss / lossCount : 0;
-        double avgOverall = totalTrades > 0 ? totalProfit / totalTrades : 0;
-        double winRate = totalTrades > 0 ? (100.0 * winCount / totalTrades) : 0;
-
-        doc.add(new Paragraph("📊 Summary Stats:", sectionFont));
-        doc.add(new Paragraph("Total Trades        : " + totalTrades, textFont));
-        doc.add(new Paragraph("Winning Trades      : " + winCount, textFont));
-        doc.add(new Paragraph("Losing Trades       : " + lossCount, textFont));
-        doc.add(new Paragraph("Win Rate (%)        : " + String.format("%.2f", winRate), textFont));
-        doc.add(new Paragraph("Total Profit        : " + String.format("%.2f", totalProfit), textFont));
-        doc.add(new Paragraph("Total Winning Amt   : " + String.format("%.2f", totalWin), textFont));
-        doc.add(new Paragraph("Total Losing Amt    : " + String.format("%.2f", totalLoss), textFont));
-        doc.add(new Paragraph("Max Profit Trade    : " + String.format("%.2f", maxProfit), textFont));
-        doc.add(new Paragraph("Max Loss Trade      : " + String.format("%.2f", maxLoss), textFont));
-        doc.add(new Paragraph("Avg Profit (Wins)   : " + String.format("%.2f", avgWin), textFont));
-        doc.add(new Paragraph("Avg Loss (Losses)   : " + String.format("%.2f", avgLoss), textFont));
-        doc.add(new Paragraph("Avg Profit/Trade    : " + String.format("%.2f", avgOverall), textFont));
-        doc.add(Chunk.NEWLINE);
-
-        PdfPTable table = new PdfPTable(8);
-        table.setWidthPercentage(100);
-        table.setSpacingBefore(10f);
-        table.setSpacingAfter(10f);
-
-        String[] headers = {"#", "Symbol", "Type", "Entry", "Exit", "Profit", "Date", "Note"};
-        for (String h : headers) {
-            PdfPCell cell = new PdfPCell(new Phrase(h, sectionFont));
-            cell.setBackgroundColor(BaseColor.LIGHT_GRAY);
-            cell.setPadding(5);
-            table.addCell(cell);
-        }
-
-        int count = 1;
-        for (Trade t : tradeList) {
-            BaseColor rowColor = t.profit > 0 ? new BaseColor(200, 255, 200) :
-                                 (t.profit < 0 ? new BaseColor(255, 200, 200) : BaseColor.WHITE);
-
-            table.addCell(createCell(String.valueOf(count++), textFont, rowColor));
-            table.addCell(createCell(t.symbol, textFont, rowColor));
-            table.addCell(createCell(t.type, textFont, rowColor));
-            table.addCell(createCell(String.valueOf(t.entry), textFont, rowColor));
-            table.addCell(createCell(String.valueOf(t.exit), textFont, rowColor));
-            table.addCell(createCell(String.valueOf(t.profit), textFont, rowColor));
-            table.addCell(createCell(t.date, textFont, rowColor));
-            table.addCell(createCell(getNoteForTrade(t), textFont, rowColor));
-        }
-
-        doc.add(table);
-        doc.close();
-        JOptionPane.showMessageDialog(this, "🎉 PDF exported with color and modern layout!");
-
-    } catch (Exception e) {
-        JOptionPane.showMessageDialog(this, "❌ Export failed: " + e.getMessage());
+        Map<String, String> traderInfo = new LinkedHashMap<>();
+        traderInfo.put("Email", emailField.getText());
+        traderInfo.put("DOB", dobField.getText());
+        traderInfo.put("Phone", phoneField.getText());
+        traderInfo.put("Country", countryField.getText());
+        traderInfo.put("Account ID", accountIdField.getText());
+        Map<String, String> summary = PdfTradeReport.summary(stats);
+        int[] rows = tableModel.order();
+        int count = store.size();
+        File out = new File(loggedInUser + "_report.pdf");
+
+        TradeStore source = store;
+        TradeTags notes = tags;
+        runningTasks++;
+        exportPdfButton.setEnabled(false);
+        updateHistoryButtons();
+        ProgressMonitor monitor = new ProgressMonitor(this, "Writing " + out.getName(), "", 0, Math.max(1, count));
+        monitor.setMillisToDecideToPopup(200);
+        AtomicBoolean cancel = new AtomicBoolean();
+
+        new SwingWorker<PdfTradeReport.Result, Integer>() {
+            @Override
+            protected PdfTradeReport.Result doInBackground() throws Exception {
+                try (Metrics.Sample sample = Metrics.start("exportPDF")) {
+                    PdfTradeReport.Result result = new PdfTradeReport(source, notes::label).write(
+                        out.toPath(), loggedInUser, traderInfo, summary, rows, count,
+                        (written, total) -> {
+                            publish(written);
+                            if (monitor.isCanceled()) cancel.set(true);
+                        },
+                        cancel);
+                    sample.rows(result.rows);
+                    return result;
+                }
+            }
+
+            @Override
+            protected void process(java.util.List<Integer> chunks) {
+                int written = chunks.get(chunks.size() - 1);
+                monitor.setProgress(written);
+                monitor.setNote(String.format("%,d of %,d trades", written, count));
+            }
+
+            @Override
+            protected void done() {
+                monitor.close();
+                runningTasks--;
+                exportPdfButton.setEnabled(true);
+                updateHistoryButtons();
+                try {
+                    PdfTradeReport.Result result = get();
+                    if (result.cancelled) {
+                        JOptionPane.showMessageDialog(SmartTraderTracker.this, "PDF export cancelled.");
+                    } else {
+                        JOptionPane.showMessageDialog(SmartTraderTracker.this, "🎉 PDF exported with color and modern layout!");
+                    }
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    JOptionPane.showMessageDialog(SmartTraderTracker.this, "❌ Export failed: " + cause.getMessage());
+                }
+            }
+        }.execute();
     }
-}
 
 
     private void uploadCSV() {
     JFileChooser fileChooser = new JFileChooser();
-    
+
     if (fileChooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
         File file = fileChooser.getSelectedFile();
 
-        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-            tableModel.setRowCount(0);
-            tradeList.clear();
-            undoStack.clear();
-
-            br.readLine(); // Skip header
-            String line;
-            int count = 1;
-
-            while ((line = br.readLine()) != null) {
-                String[] parts = line.split(",");
-
-                if (parts.length == 6) {
-                    Trade t = new Trade(
-                        parts[0],
-                        parts[1],
-                        Double.parseDouble(parts[2]),
-                        Double.parseDouble(parts[3]),
-                        Double.parseDouble(parts[4]),
-                        parts[5]
-                    );
-
-                    tradeList.add(t);
-                    undoStack.push(t);
-
-                    tableModel.addRow(new Object[]{
-                        count++, t.symbol, t.type, t.entry, t.exit, t.profit, t.date, getNoteForTrade(t)
-                    });
+        TradeStore target = store;
+        TradeHistory recording = history;
+        recording.begin("upload of " + file.getName(), 0);
+        runningTasks++;
+        clearSort();
+        updateSummary();
+        updateHistoryButtons();
+
+        ProgressMonitor monitor = new ProgressMonitor(this, "Importing " + file.getName(), "", 0, 1000);
+        monitor.setMillisToDecideToPopup(200);
+        AtomicBoolean cancel = new AtomicBoolean();
+
+        new SwingWorker<CsvTradeImporter.Result, TradeStore>() {
+            private TradeStore batch = new TradeStore();
+
+            @Override
+            protected CsvTradeImporter.Result doInBackground() throws IOException {
+                try (Metrics.Sample sample = Metrics.start("uploadCSV")) {
+                    CsvTradeImporter.Result result = new CsvTradeImporter().parse(file.toPath(),
+                        (symbol, type, entry, exit, profit, day) -> {
+                            batch.add(symbol, type, entry, exit, profit, day);
+                            if (batch.size() == IMPORT_BATCH) flush();
+                        },
+                        (bytesRead, totalBytes, rows) -> {
+                            setProgress((int) (100 * bytesRead / Math.max(1, totalBytes)));
+                            if (monitor.isCanceled()) cancel.set(true);
+                        },
+                        cancel);
+                    flush();
+                    sample.rows(result.rows);
+                    return result;
                 }
             }
 
-            updateSummary();
+            private void flush() {
+                if (batch.isEmpty()) return;
+                publish(batch);
+                batch = new TradeStore();
+            }
+
+            @Override
+            protected void process(java.util.List<TradeStore> batches) {
+                for (TradeStore b : batches) target.appendAll(b);
+                monitor.setProgress(10 * getProgress());
+                monitor.setNote(target.size() + " trades");
+                updateSummary();
+            }
+
+            @Override
+            protected void done() {
+                monitor.close();
+                runningTasks--;
+                recording.end();
+                updateHistoryButtons();
+                sessions.trim();
+                try {
+                    CsvTradeImporter.Result result = get();
+                    updateSummary();
+                    if (result.cancelled) {
+                        JOptionPane.showMessageDialog(SmartTraderTracker.this,
+                            "Import cancelled after " + result.rows + " trades.");
+                    } else if (result.rejected > 0) {
+                        JOptionPane.showMessageDialog(SmartTraderTracker.this,
+                            "Imported " + result.rows + " trades, skipped " + result.rejected + " malformed rows.");
+                    }
+                } catch (InterruptedException ignored) {
+                } catch (ExecutionException ex) {
+                    JOptionPane.showMessageDialog(SmartTraderTracker.this, "Error reading file: " + ex.getCause().getMessage());
+                }
+            }
+        }.execute();
+    }
+}
+
+    private void batchImport() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setMultiSelectionEnabled(true);
+        fileChooser.setFileSelectionMode(JFileChooser.FILES_AND_DIRECTORIES);
+        if (fileChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+
+        java.util.List<java.nio.file.Path> files;
+        try {
+            java.util.List<java.nio.file.Path> picked = new ArrayList<>();
+            for (File f : fileChooser.getSelectedFiles()) picked.add(f.toPath());
+            files = BatchTradeImporter.expand(picked);
         } catch (IOException ex) {
-            JOptionPane.showMessageDialog(this, "Error reading file: " + ex.getMessage());
+            JOptionPane.showMessageDialog(this, "Error listing files: " + ex.getMessage());
+            return;
+        }
+        if (files.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "No CSV files selected.");
+            return;
         }
+
+        BatchTradeImporter importer = new BatchTradeImporter();
+        TradeStore target = store;
+        TradeHistory recording = history;
+        importer.seed(target);
+        recording.begin("batch import of " + files.size() + " files", target.size());
+        runningTasks++;
+        updateHistoryButtons();
+        ProgressMonitor monitor = new ProgressMonitor(this, "Importing " + files.size() + " files", "", 0, 1000);
+        monitor.setMillisToDecideToPopup(200);
+        AtomicBoolean cancel = new AtomicBoolean();
+
+        new SwingWorker<java.util.List<BatchTradeImporter.FileReport>, TradeStore>() {
+            @Override
+            protected java.util.List<BatchTradeImporter.FileReport> doInBackground() throws InterruptedException {
+                try (Metrics.Sample sample = Metrics.start("batchImport")) {
+                    java.util.List<BatchTradeImporter.FileReport> reports = importer.run(files,
+                        (report, unique) -> { if (!unique.isEmpty()) publish(unique); },
+                        (bytesRead, totalBytes, filesDone, totalFiles) -> {
+                            setProgress((int) (100 * bytesRead / Math.max(1, totalBytes)));
+                            if (monitor.isCanceled()) cancel.set(true);
+                        },
+                        cancel);
+                    for (BatchTradeImporter.FileReport r : reports) sample.rows(r.rows);
+                    return reports;
+                }
+            }
+
+            @Override
+            protected void process(java.util.List<TradeStore> batches) {
+                for (TradeStore b : batches) target.appendAll(b);
+                monitor.setProgress(10 * getProgress());
+                monitor.setNote(target.size() + " trades");
+                updateSummary();
+            }
+
+            @Override
+            protected void done() {
+                monitor.close();
+                runningTasks--;
+                recording.end();
+                updateHistoryButtons();
+                sessions.trim();
+                updateSummary();
+                java.util.List<BatchTradeImporter.FileReport> reports;
+                try {
+                    reports = get();
+                } catch (InterruptedException | ExecutionException ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    JOptionPane.showMessageDialog(SmartTraderTracker.this, "Batch import failed: " + cause.getMessage());
+                    return;
+                }
+                StringBuilder sb = new StringBuilder(String.format("%-32s %10s %10s %10s%n", "File", "Imported", "Rejected", "Duplicates"));
+                int rows = 0, rejected = 0, duplicates = 0;
+                for (BatchTradeImporter.FileReport r : reports) {
+                    String name = r.file.getFileName().toString();
+                    if (r.error != null) {
+                        sb.append(String.format("%-32s %s%n", name, "error: " + r.error));
+                        continue;
+                    }
+                    sb.append(String.format("%-32s %10d %10d %10d%n", name, r.rows, r.rejected, r.duplicates));
+                    rows += r.rows;
+                    rejected += r.rejected;
+                    duplicates += r.duplicates;
+                }
+                sb.append(String.format("%-32s %10d %10d %10d%n", "Total", rows, rejected, duplicates));
+                if (cancel.get()) sb.append("\nImport cancelled; later files were not merged.\n");
+                JTextArea text = new JTextArea(sb.toString(), Math.min(25, reports.size() + 4), 68);
+                text.setEditable(false);
+                text.setFont(new java.awt.Font(java.awt.Font.MONOSPACED, java.awt.Font.PLAIN, 12));
+                JOptionPane.showMessageDialog(SmartTraderTracker.this, new JScrollPane(text), "Batch Import", JOptionPane.PLAIN_MESSAGE);
+            }
+        }.execute();
     }
-}
 
-    private void loginPrompt() {
+    /** Returns the trader who logged in, or null if nobody did. */
+    private String loginPrompt() {
     JPanel loginPanel = new JPanel(new GridLayout(2, 2));
     JTextField usernameField = new JTextField();
     JPasswordField passwordField = new JPasswordField();
@@ -532,13 +1549,14 @@ private void showError(String message, String title) {
     if (option == JOptionPane.OK_OPTION) {
         String user = usernameField.getText().trim();
         String pass = new String(passwordField.getPassword());
+        if (user.isEmpty()) return null;
         File userFile = new File(user + "_login.dat");
 
         if (userFile.exists()) {
             try (BufferedReader reader = new BufferedReader(new FileReader(userFile))) {
                 String storedPass = reader.readLine();
                 if (storedPass.equals(pass)) {
-                    loggedInUser = user;
+                    return user;
                 } else {
                     JOptionPane.showMessageDialog(null, "Incorrect password.");
                 }
@@ -550,13 +1568,14 @@ private void showError(String message, String title) {
             if (create == JOptionPane.YES_OPTION) {
                 try (PrintWriter writer = new PrintWriter(new FileWriter(userFile))) {
                     writer.println(pass);
-                    loggedInUser = user;
+                    return user;
                 } catch (IOException e) {
                     JOptionPane.showMessageDialog(null, "Error saving new user.");
                 }
             }
         }
     }
+    return null;
 }
 
 
@@ -0,0 +1,338 @@
+import tracker.BatchTradeImporter;
+import tracker.CsvTradeExporter;
+import tracker.MarkToMarket;
+import tracker.Metrics;
+import tracker.PdfTradeReport;
+import tracker.PriceFeed;
+import tracker.PriceFeedRunner;
+import tracker.TradeAnalytics;
+import tracker.TradeJournal;
+import tracker.TradeMatcher;
+import tracker.TradeRules;
+import tracker.TradeServer;
+import tracker.TradeStatistics;
+import tracker.TradeStore;
+import tracker.TradeTags;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.IntFunction;
+
+/**
+ * Headless entry point for scripted jobs, e.g.
+ * <pre>
+ *   java -cp .:itextpdf-5.5.13.3.jar TraderCli --user alice --load --import trades.csv --stats --export-pdf out.pdf
+ * </pre>
+ * Uses the same importer, statistics and exporters as the Swing app but never touches AWT or Swing,
+ * so it runs on servers without a display. Progress goes to stdout, errors to stderr with exit code 1.
+ */
+public class TraderCli {
+    private static final String USAGE =
+        "Usage: TraderCli [options]\n" +
+        "  --user NAME          trader whose saved trades and profile are used (default: cli)\n" +
+        "  --load               start from NAME's saved trades (an old NAME_trades.dat is migrated first, as in the app)\n" +
+        "  --import PATH        import a CSV file or every *.csv in a directory; repeatable, duplicates are skipped\n" +
+        "  --fills PATH         match Symbol,Side,Quantity,Price,Date fills into closed trades; repeatable\n" +
+        "  --match METHOD       lot matching for --fills: fifo (default), lifo or average\n" +
+        "  --feed SOURCE        then mark open --fills positions to a Symbol,Price feed (HOST:PORT or file) until it ends\n" +
+        "  --feed-rate N        replay a file feed at N ticks per second (default: as fast as possible)\n" +
+        "  --save               keep imported trades in NAME's saved trades (implies --load)\n" +
+        "  --rules FILE         tag trades with these rules (default: NAME_rules.txt if it exists, else the built-in notes)\n" +
+        "  --stats              print summary statistics and trades per tag\n" +
+        "  --export-csv FILE    write trades as CSV (gzip if FILE ends in .gz)\n" +
+        "  --export-pdf FILE    write the PDF report\n" +
+        "  --metrics FILE       write per-operation timings, rows/s and allocation as JSON\n" +
+        "  --serve PORT         then serve the trades as JSON/CSV on 127.0.0.1:PORT until killed\n";
+
+    private static final int FILL_BATCH = 10_000;
+
+    private String user = "cli";
+    private boolean load, save, printStats;
+    private final List<Path> imports = new ArrayList<>();
+    private final List<Path> fills = new ArrayList<>();
+    private TradeMatcher.Method matching = TradeMatcher.Method.FIFO;
+    private String feed;
+    private double feedRate;
+    private Path csvOut, pdfOut, metricsOut, rulesFile;
+    private int servePort = -1;
+
+    private final TradeStore store = new TradeStore();
+    private final TradeStatistics stats = new TradeStatistics(store);
+    private final TradeTags tags = new TradeTags(store, TradeRules.DEFAULT);
+    private final IntFunction<String> notes = tags::label;
+
+    public static void main(String[] args) {
+        TraderCli cli = new TraderCli();
+        try {
+            if (!cli.parseArgs(args)) {
+                System.out.print(USAGE);
+                return;
+            }
+            cli.run();
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(USAGE);
+            System.exit(2);
+        } catch (Exception e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /** Returns false if only help was asked for. */
+    private boolean parseArgs(String[] args) {
+        if (args.length == 0) return false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--user": user = value(args, ++i); break;
+                case "--load": load = true; break;
+                case "--save": save = true; break;
+                case "--import": imports.add(Paths.get(value(args, ++i))); break;
+                case "--fills": fills.add(Paths.get(value(args, ++i))); break;
+                case "--match": matching = method(value(args, ++i)); break;
+                case "--feed": feed = value(args, ++i); break;
+                case "--feed-rate": feedRate = Double.parseDouble(value(args, ++i)); break;
+                case "--rules": rulesFile = Paths.get(value(args, ++i)); break;
+                case "--stats": printStats = true; break;
+                case "--export-csv": csvOut = Paths.get(value(args, ++i)); break;
+                case "--export-pdf": pdfOut = Paths.get(value(args, ++i)); break;
+                case "--metrics": metricsOut = Paths.get(value(args, ++i)); break;
+                case "--serve": servePort = port(value(args, ++i)); break;
+                case "-h": case "--help": return false;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if (feed != null && fills.isEmpty()) throw new IllegalArgumentException("--feed needs --fills to have open positions to mark");
+        return true;
+    }
+
+    private static int port(String s) {
+        try {
+            int port = Integer.parseInt(s);
+            if (port >= 0 && port <= 65535) return port;
+        } catch (NumberFormatException ignored) {
+            // reported below
+        }
+        throw new IllegalArgumentException("--serve needs a port number, got " + s);
+    }
+
+    private static TradeMatcher.Method method(String s) {
+        try {
+            return TradeMatcher.Method.valueOf(s.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("--match needs fifo, lifo or average, got " + s);
+        }
+    }
+
+    private static String value(String[] args, int i) {
+        if (i >= args.length || args[i].startsWith("--")) throw new IllegalArgumentException(args[i - 1] + " needs a value");
+        return args[i];
+    }
+
+    private void run() throws Exception {
+        loadRules();
+        TradeJournal journal = null;
+        TradeMatcher matcher = null;
+        if (load || save) {
+            long t0 = System.nanoTime();
+            try (Metrics.Sample sample = Metrics.start("loadTrades")) {
+                String warning = SmartTraderTracker.migrateLegacyTrades(user);
+                if (warning != null) System.err.println("warning: " + warning.replace(System.lineSeparator(), " "));
+                journal = TradeJournal.open(store, Paths.get(user + "_trades.bin"), Paths.get(user + "_trades.journal"));
+                sample.rows(store.size());
+            }
+            if (!save) {
+                journal.close();
+                journal = null;
+            }
+            System.out.printf("load: %,d trades for %s in %.0f ms%n", store.size(), user, (System.nanoTime() - t0) / 1e6);
+        }
+        try {
+            if (!imports.isEmpty()) importFiles();
+            if (!fills.isEmpty()) matcher = matchFills();
+        } finally {
+            if (journal != null) journal.close();
+        }
+        if (feed != null) markToMarket(matcher);
+        if (printStats) {
+            System.out.println("stats:");
+            PdfTradeReport.summary(stats).forEach((k, v) -> System.out.printf("  %-20s: %s%n", k, v));
+            for (TradeAnalytics.Bucket b : tags.byTag()) {
+                System.out.printf("  tag %-30s %,10d trades %7.2f%% won, net %,.2f%n", b.label, b.count, b.winRate(), b.net);
+            }
+        }
+        if (csvOut != null) exportCsv();
+        if (pdfOut != null) exportPdf();
+        if (metricsOut != null) {
+            Files.write(metricsOut, Metrics.toJson().getBytes(StandardCharsets.UTF_8));
+            System.out.println("metrics: " + metricsOut);
+        }
+        if (servePort >= 0) serve();
+    }
+
+    /** Tag rules are read before any trades arrive, so every row is tagged once as it is added. */
+    private void loadRules() throws IOException {
+        Path file = rulesFile != null ? rulesFile : Paths.get(user + "_rules.txt");
+        if (rulesFile == null && !Files.exists(file)) return;
+        try {
+            tags.setRules(TradeRules.parse(new String(Files.readAllBytes(file), StandardCharsets.UTF_8)));
+        } catch (IllegalArgumentException e) {
+            throw new IOException(file + ": " + e.getMessage());
+        }
+        System.out.printf("rules: %d rules, %d tags from %s%n", tags.rules().size(), tags.rules().tags().size(), file);
+    }
+
+    private void serve() throws Exception {
+        int threads = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+        TradeServer server = new TradeServer(store, notes, servePort, threads);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        System.out.printf("serve: %,d trades on http://127.0.0.1:%d/api/summary (Ctrl+C to stop)%n", store.size(), server.port());
+        new CountDownLatch(1).await();
+    }
+
+    private void importFiles() throws Exception {
+        List<Path> files = BatchTradeImporter.expand(imports);
+        BatchTradeImporter importer = new BatchTradeImporter();
+        importer.seed(store);
+        Progress progress = new Progress("import");
+        long t0 = System.nanoTime();
+        List<BatchTradeImporter.FileReport> reports;
+        try (Metrics.Sample sample = Metrics.start("batchImport")) {
+            reports = importer.run(files, (report, unique) -> store.appendAll(unique),
+                (read, total, done, count) -> progress.update(read, total), null);
+            for (BatchTradeImporter.FileReport r : reports) sample.rows(r.rows);
+        }
+        progress.done();
+        for (BatchTradeImporter.FileReport r : reports) {
+            if (r.error != null) System.out.printf("  %s: error %s%n", r.file, r.error);
+            else System.out.printf("  %s: %,d imported, %,d rejected, %,d duplicates%n", r.file, r.rows, r.rejected, r.duplicates);
+        }
+        System.out.printf("import: %,d trades in store after %.0f ms%n", store.size(), (System.nanoTime() - t0) / 1e6);
+    }
+
+    private TradeMatcher matchFills() throws IOException {
+        TradeStore batch = new TradeStore();
+        TradeMatcher matcher = new TradeMatcher(matching, (symbol, type, entry, exit, profit, day) -> {
+            batch.add(symbol, type, entry, exit, profit, day);
+            if (batch.size() == FILL_BATCH) {
+                store.appendAll(batch);
+                batch.clear();
+            }
+        });
+        long t0 = System.nanoTime();
+        for (Path file : fills) {
+            TradeMatcher.Result r = matcher.replay(file);
+            System.out.printf("  %s: %,d fills, %,d rejected, %,d closed trades%n", file, r.fills, r.rejected, r.trades);
+        }
+        store.appendAll(batch);
+        System.out.printf("fills: %,d closed trades (%s) in %.0f ms%n", matcher.trades(),
+            matching.name().toLowerCase(), (System.nanoTime() - t0) / 1e6);
+        for (int id = 0; id < matcher.symbols().size(); id++) {
+            if (matcher.openLots(id) == 0) continue;
+            System.out.printf("  open %-10s %,14.4f @ %,.4f in %d lots, realized %,.2f%n", matcher.symbols().get(id),
+                matcher.position(id), matcher.averageCost(id), matcher.openLots(id), matcher.realized(id));
+        }
+        return matcher;
+    }
+
+    /** Prints a status line each second while the feed runs, then the marked positions. */
+    private void markToMarket(TradeMatcher matcher) throws Exception {
+        MarkToMarket marks = new MarkToMarket(matcher);
+        try (PriceFeedRunner runner = new PriceFeedRunner(PriceFeed.open(feed, feedRate), marks, PriceFeedRunner.DEFAULT_RING)) {
+            Runtime.getRuntime().addShutdownHook(new Thread(runner::close));
+            runner.start();
+            long t0 = System.nanoTime(), lastTicks = 0;
+            while (runner.isRunning()) {
+                Thread.sleep(1000);
+                long ticks = marks.ticks();
+                System.out.printf("feed: %,d ticks (%,d/s), lag %.3f ms (max %.3f), unrealized %,.2f%n", ticks, ticks - lastTicks,
+                    marks.lastLagNanos() / 1e6, marks.maxLagNanos() / 1e6, marks.totalUnrealized());
+                lastTicks = ticks;
+            }
+            if (runner.error() != null) throw runner.error();
+            System.out.printf("feed: %,d ticks, %,d for other symbols, in %.0f ms%n", marks.ticks(), marks.unknown(),
+                (System.nanoTime() - t0) / 1e6);
+        }
+        for (int i = 0; i < marks.size(); i++) {
+            System.out.printf("  mark %-10s %,14.4f @ %,.4f last %,.4f unrealized %,.2f%n", marks.symbol(i),
+                marks.position(i), marks.averageCost(i), marks.last(i), marks.unrealized(i));
+        }
+        System.out.printf("  total unrealized %,.2f%n", marks.totalUnrealized());
+    }
+
+    private void exportCsv() throws IOException {
+        Progress progress = new Progress("export-csv");
+        long t0 = System.nanoTime();
+        CsvTradeExporter.Result result;
+        try (Metrics.Sample sample = Metrics.start("exportCSV")) {
+            result = new CsvTradeExporter(store, notes).export(csvOut,
+                CsvTradeExporter.Rows.all(store.size()), csvOut.toString().endsWith(".gz"), progress::update, null);
+            sample.rows(result.rows);
+        }
+        progress.done();
+        System.out.printf("export-csv: %,d trades to %s in %.0f ms%n", result.rows, csvOut, (System.nanoTime() - t0) / 1e6);
+    }
+
+    private void exportPdf() throws Exception {
+        Progress progress = new Progress("export-pdf");
+        long t0 = System.nanoTime();
+        PdfTradeReport.Result result;
+        try (Metrics.Sample sample = Metrics.start("exportPDF")) {
+            result = new PdfTradeReport(store, notes).write(pdfOut, user, traderInfo(),
+                PdfTradeReport.summary(stats), null, store.size(), progress::update, null);
+            sample.rows(result.rows);
+        }
+        progress.done();
+        System.out.printf("export-pdf: %,d trades to %s in %.0f ms%n", result.rows, pdfOut, (System.nanoTime() - t0) / 1e6);
+    }
+
+    /** The profile saved by the Swing app, if any. */
+    private Map<String, String> traderInfo() {
+        Map<String, String> info = new LinkedHashMap<>();
+        File file = new File(user + "_profile.dat");
+        if (!file.exists()) return info;
+        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(file))) {
+            SmartTraderTracker.UserProfile p = (SmartTraderTracker.UserProfile) in.readObject();
+            info.put("Email", p.email);
+            info.put("DOB", p.dob);
+            info.put("Phone", p.phone);
+            info.put("Country", p.country);
+            info.put("Account ID", p.accountId);
+        } catch (IOException | ClassNotFoundException e) {
+            System.err.println("warning: could not read " + file + ": " + e.getMessage());
+        }
+        return info;
+    }
+
+    /** Prints "<task>: NN%" each time another 10% is done. */
+    private static final class Progress {
+        private final String task;
+        private int lastDecile = -1;
+
+        Progress(String task) {
+            this.task = task;
+        }
+
+        synchronized void update(long done, long total) {
+            int decile = total > 0 ? (int) (10 * done / total) : 10;
+            if (decile <= lastDecile || decile >= 10) return;
+            lastDecile = decile;
+            System.out.printf("%s: %d%%%n", task, decile * 10);
+        }
+
+        void done() {
+            System.out.printf("%s: 100%%%n", task);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package tracker;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * {@link CsvTradeExporter#appendFixed2} against {@code String.format(Locale.ROOT, "%.2f")}, and whole
+ * exports, under a default locale that writes decimal commas.
+ */
+class CsvTradeExporterTest {
+
+    @Test
+    void fixed2MatchesRootLocaleFormat() {
+        Locale saved = Locale.getDefault();
+        Locale.setDefault(Locale.GERMANY);
+        try {
+            double[] edge = {0, -0.0, 0.004, -0.004, -0.005, 0.005, 0.015, -0.015, 1.005, 2.675, 1234.5, -1234.565,
+                0.125, 99.995, 1e9, -1e9, 1e9 + 0.005, 123456789.125, 1e11, 1e12 + 0.5, 1e15, -1e15, 1e18, 3e20,
+                Double.MIN_VALUE, -Double.MIN_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE,
+                Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+            for (double v : edge) check(v);
+            Random rnd = new Random(9);
+            for (int i = 0; i < 200_000; i++) {
+                double cents = Math.floor(rnd.nextGaussian() * 1e6);
+                check(cents / 100);                 // whole cents
+                check((cents + 0.5) / 100);         // ties
+                check(rnd.nextGaussian() * Math.pow(10, rnd.nextInt(16)));
+            }
+        } finally {
+            Locale.setDefault(saved);
+        }
+    }
+
+    @Test
+    void exportUsesDecimalPointUnderCommaLocale() throws IOException {
+        Locale saved = Locale.getDefault();
+        Locale.setDefault(Locale.FRANCE);
+        try {
+            TradeStore store = new TradeStore();
+            store.add("EURUSD", "Buy", 1.005, 2e15, -0.125, 19_000);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            new CsvTradeExporter(store, row -> "").export(out, CsvTradeExporter.Rows.all(1), null, null);
+            String line = out.toString(StandardCharsets.UTF_8).split("\\R")[1];
+            assertEquals("EURUSD,Buy,1.01,2000000000000000.00,-0.13," + TradeDates.format(19_000) + ",", line);
+        } finally {
+            Locale.setDefault(saved);
+        }
+    }
+
+    private static void check(double v) {
+        byte[] buf = new byte[400];
+        int len = CsvTradeExporter.appendFixed2(buf, 0, v);
+        assertEquals(String.format(Locale.ROOT, "%.2f", v), new String(buf, 0, len, StandardCharsets.US_ASCII), "value " + v);
+    }
+}
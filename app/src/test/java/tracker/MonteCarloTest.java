@@ -0,0 +1,75 @@
+package tracker;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link MonteCarlo}'s composed block summaries against trade-by-trade replay, and its seeding
+ * against the pool size.
+ */
+class MonteCarloTest {
+
+    /**
+     * Horizons of two whole blocks plus a partial one: every simulated P&L and drawdown must be one
+     * that replaying some choice of three block starts trade by trade produces.
+     */
+    @Test
+    void blockPathsMatchTradeByTradeReplay() throws InterruptedException {
+        Random rnd = new Random(2);
+        for (int trial = 0; trial < 150; trial++) {
+            int n = 2 + rnd.nextInt(12);
+            double[] p = new double[n];
+            for (int i = 0; i < n; i++) p[i] = Math.round(rnd.nextGaussian() * 100); // whole numbers, so sums are exact
+            int block = 1 + rnd.nextInt(n), horizon = 2 * block + rnd.nextInt(block);
+
+            Set<Double> pnl = new HashSet<>(), drawdown = new HashSet<>();
+            for (int s1 = 0; s1 < n; s1++) for (int s2 = 0; s2 < n; s2++) for (int s3 = 0; s3 < n; s3++) {
+                int[] starts = {s1, s2, s3};
+                double equity = 0, peak = 0, dd = 0;
+                for (int t = 0; t < horizon; t++) {
+                    equity += p[(starts[t / block] + t % block) % n];
+                    peak = Math.max(peak, equity);
+                    dd = Math.max(dd, peak - equity);
+                }
+                pnl.add(equity);
+                drawdown.add(dd);
+            }
+
+            MonteCarlo.Result r = new MonteCarlo(p).run(MonteCarlo.Method.BLOCK, 2000, horizon, block, 0, trial, null, null);
+            String at = "trial " + trial + ": " + n + " trades, block " + block + ", horizon " + horizon;
+            for (double v : r.pnl) assertTrue(pnl.contains(v), at + ", P&L " + v);
+            for (double v : r.drawdown) assertTrue(drawdown.contains(v), at + ", drawdown " + v);
+        }
+    }
+
+    @Test
+    void seedGivesSameResultOnAnyPoolSize() throws InterruptedException {
+        Random rnd = new Random(4);
+        double[] p = new double[5000];
+        for (int i = 0; i < p.length; i++) p[i] = rnd.nextGaussian() * 50 + 2;
+        ForkJoinPool one = new ForkJoinPool(1), four = new ForkJoinPool(4);
+        try {
+            for (MonteCarlo.Method method : MonteCarlo.Method.values()) {
+                MonteCarlo.Result a = new MonteCarlo(p, one).run(method, 3000, 700, 17, 500, 99, null, null);
+                MonteCarlo.Result b = new MonteCarlo(p, four).run(method, 3000, 700, 17, 500, 99, null, null);
+                assertEquals(3000, a.paths);
+                assertArrayEquals(a.pnl, b.pnl, method.name());
+                assertArrayEquals(a.drawdown, b.drawdown, method.name());
+                assertEquals(a.meanPnl, b.meanPnl, method.name());
+                assertEquals(a.riskOfRuin, b.riskOfRuin, method.name());
+                for (int i = 0; i < a.bands.length; i++) assertArrayEquals(a.bands[i], b.bands[i], method.name());
+            }
+        } finally {
+            one.shutdown();
+            four.shutdown();
+        }
+    }
+}
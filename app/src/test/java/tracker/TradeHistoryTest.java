@@ -0,0 +1,77 @@
+package tracker;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link TradeHistory} against a list of whole-store snapshots over random begin/undo/redo steps,
+ * with a memory cap small enough that most captured rows are spilled to disk.
+ */
+class TradeHistoryTest {
+    private static final int DEPTH = 8;
+    private static final long CAP = 20_000;
+
+    @Test
+    void undoRedoMatchesSnapshots() throws IOException {
+        Random rnd = new Random(1);
+        TradeStore store = new TradeStore();
+        TradeHistory history = new TradeHistory(store, CAP, DEPTH);
+        List<String> states = new ArrayList<>();
+        states.add(dump(store));
+        int current = 0, undoable = 0;
+        try {
+            for (int step = 0; step < 3000; step++) {
+                int op = rnd.nextInt(3);
+                if (op == 0) {
+                    int before = store.size();
+                    int keep = rnd.nextInt(5) == 0 ? rnd.nextInt(before + 1) : before;
+                    history.begin("change " + step, keep);
+                    int n = rnd.nextInt(400);
+                    for (int i = 0; i < n; i++) {
+                        store.add("S" + rnd.nextInt(9), rnd.nextBoolean() ? "Buy" : "Sell", rnd.nextInt(100), rnd.nextInt(100),
+                            rnd.nextGaussian(), rnd.nextInt(2000));
+                    }
+                    history.end();
+                    if (keep < before || n > 0) {
+                        while (states.size() > current + 1) states.remove(states.size() - 1);
+                        states.add(dump(store));
+                        current++;
+                        undoable = Math.min(undoable + 1, DEPTH);
+                    }
+                } else if (op == 1) {
+                    assertEquals(undoable > 0, history.undo(), "undo at step " + step);
+                    if (undoable > 0) {
+                        undoable--;
+                        current--;
+                    }
+                } else {
+                    boolean canRedo = current + 1 < states.size();
+                    assertEquals(canRedo, history.redo(), "redo at step " + step);
+                    if (canRedo) {
+                        undoable++;
+                        current++;
+                    }
+                }
+                assertEquals(states.get(current), dump(store), "step " + step);
+                assertTrue(history.memoryBytes() <= CAP, "memory cap at step " + step);
+            }
+        } finally {
+            history.close();
+        }
+    }
+
+    private static String dump(TradeStore s) {
+        StringBuilder b = new StringBuilder();
+        for (int i = 0; i < s.size(); i++) {
+            b.append(s.symbol(i)).append(s.type(i)).append(s.entry(i)).append(s.exit(i)).append(s.profit(i)).append(s.epochDay(i)).append(';');
+        }
+        return b.toString();
+    }
+}
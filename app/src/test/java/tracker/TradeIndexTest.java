@@ -0,0 +1,58 @@
+package tracker;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/** {@link TradeIndex#search} against a per-row scan, while rows are appended and truncated. */
+class TradeIndexTest {
+    private static final String[] SYMBOLS = {"BTCUSD", "ETHUSD", "EURUSD", "GBPJPY", "USDJPY", "XAUUSD", "Ünïcode"};
+    private static final String[] TEXT = {"usd", "jp", "bu", "ell", "eur", "x", "zzz", "ü", ""};
+
+    @Test
+    void searchMatchesScan() {
+        Random rnd = new Random(3);
+        TradeStore store = new TradeStore();
+        TradeIndex index = new TradeIndex(store);
+        for (int step = 0; step < 60; step++) {
+            if (rnd.nextInt(4) > 0 || store.isEmpty()) {
+                TradeStore batch = new TradeStore();
+                int n = rnd.nextInt(step % 20 == 0 ? 150_000 : 3000); // sometimes past one 64k-row block
+                for (int i = 0; i < n; i++) {
+                    int day = rnd.nextInt(15) == 0 ? TradeDates.NO_DATE : TradeDates.of(2025, 1 + rnd.nextInt(12), 1 + rnd.nextInt(28));
+                    batch.add(SYMBOLS[rnd.nextInt(SYMBOLS.length)], rnd.nextBoolean() ? "Buy" : "Sell", 1, 1,
+                        rnd.nextInt(10) == 0 ? 0 : rnd.nextGaussian(), day);
+                }
+                store.appendAll(batch);
+            } else {
+                store.truncate(rnd.nextInt(store.size() + 1));
+            }
+            for (TradeQuery q : queries(rnd)) assertArrayEquals(scan(store, q), index.search(q).toArray(), "step " + step);
+        }
+    }
+
+    private static List<TradeQuery> queries(Random rnd) {
+        List<TradeQuery> qs = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            TradeQuery q = new TradeQuery().text(TEXT[rnd.nextInt(TEXT.length)]);
+            if (rnd.nextInt(4) == 0) q.symbol(SYMBOLS[rnd.nextInt(SYMBOLS.length)]);
+            if (rnd.nextInt(4) == 0) q.type(rnd.nextBoolean() ? "Buy" : "Sell");
+            if (rnd.nextInt(3) == 0) {
+                int from = TradeDates.of(2025, 1 + rnd.nextInt(12), 1);
+                q.dates(rnd.nextInt(5) == 0 ? TradeDates.NO_DATE : from, from + rnd.nextInt(90));
+            }
+            q.sign(TradeQuery.Sign.values()[rnd.nextInt(3)]);
+            qs.add(q);
+        }
+        return qs;
+    }
+
+    private static int[] scan(TradeStore store, TradeQuery q) {
+        return IntStream.range(0, store.size()).filter(row -> q.matches(store, row)).toArray();
+    }
+}
@@ -0,0 +1,187 @@
+package tracker;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reopening a {@link TradeJournal} must rebuild exactly the store it journaled; a failed write stops
+ * it, and records naming undefined ids fail replay.
+ */
+class TradeJournalTest {
+    @TempDir
+    Path dir;
+
+    private Path snapshot() {
+        return dir.resolve("u_trades.bin");
+    }
+
+    private Path log() {
+        return dir.resolve("u_trades.journal");
+    }
+
+    @Test
+    void replayMatchesStoreAfterRandomChanges() throws IOException {
+        Random rnd = new Random(11);
+        TradeStore store = new TradeStore();
+        TradeJournal journal = TradeJournal.open(store, snapshot(), log());
+        for (int step = 0; step < 200; step++) {
+            int op = rnd.nextInt(10);
+            if (op < 5) {
+                TradeStore batch = new TradeStore();
+                for (int i = rnd.nextInt(2000); i > 0; i--) batch.add("S" + rnd.nextInt(step + 3), "T" + rnd.nextInt(3), 1, 2, rnd.nextGaussian(), 19_000 + i % 40);
+                store.appendAll(batch);
+            } else if (op < 8) {
+                store.add("R" + rnd.nextInt(step + 3), "Buy", 1, 2, rnd.nextGaussian(), rnd.nextInt(9) == 0 ? TradeDates.NO_DATE : 19_500);
+            } else if (op == 8) {
+                store.truncate(rnd.nextInt(store.size() + 1));
+            } else {
+                journal.compact();
+            }
+            if (step % 50 == 49) {
+                journal.close();
+                TradeStore reopened = new TradeStore();
+                journal = TradeJournal.open(reopened, snapshot(), log());
+                assertEquals(dump(store), dump(reopened), "reopened at step " + step);
+                store = reopened;
+            }
+        }
+        journal.close();
+    }
+
+    @Test
+    void compactionNeverSplitsDefinesFromTheirAppend() throws IOException {
+        TradeStore expected = new TradeStore();
+        for (int round = 0; round < 3; round++) {
+            TradeStore store = new TradeStore();
+            TradeJournal journal = TradeJournal.open(store, snapshot(), log());
+            assertEquals(dump(expected), dump(store), "reopened after round " + round);
+            journal.setCompactThreshold(0); // the first define of each change crosses it
+            TradeStore batch = new TradeStore();
+            for (int i = 0; i < 5; i++) batch.add("NEW" + round, "Type" + round, 1, 2, i, 19_000 + round);
+            store.appendAll(batch);
+            expected.appendAll(batch);
+            store.add("ONE" + round, "Buy", 1, 2, 9, 19_010);
+            expected.add("ONE" + round, "Buy", 1, 2, 9, 19_010);
+            journal.close();
+        }
+        TradeStore reopened = new TradeStore();
+        TradeJournal.open(reopened, snapshot(), log()).close();
+        assertEquals(dump(expected), dump(reopened));
+    }
+
+    @Test
+    void tornTailIsDropped() throws IOException {
+        TradeStore store = new TradeStore();
+        TradeJournal journal = TradeJournal.open(store, snapshot(), log());
+        for (int i = 0; i < 100; i++) store.add("EURUSD", "Buy", 1, 2, i, 19_000);
+        journal.sync();
+        String expected = dump(store);
+        store.add("TAIL", "Sell", 1, 1, 5, 19_001);
+        journal.close();
+        try (FileChannel ch = FileChannel.open(log(), StandardOpenOption.WRITE)) {
+            ch.truncate(ch.size() - 3);
+        }
+
+        TradeStore reopened = new TradeStore();
+        TradeJournal.open(reopened, snapshot(), log()).close();
+        assertEquals(expected, dump(reopened));
+        TradeStore again = new TradeStore();
+        TradeJournal.open(again, snapshot(), log()).close();
+        assertEquals(expected, dump(again), "torn record is truncated away for good");
+    }
+
+    @Test
+    void undefinedIdsAndRowsFailReplay() throws IOException {
+        for (int[] bad : new int[][]{{3, 0}, {0, 7}, {-1, 0}}) {
+            writeJournal(appendRecord(bad[0], bad[1]));
+            IOException e = assertThrows(IOException.class, () -> TradeJournal.open(new TradeStore(), snapshot(), log()));
+            assertTrue(e.getMessage().contains("undefined"), e.getMessage());
+        }
+        ByteArrayOutputStream truncate = new ByteArrayOutputStream();
+        new DataOutputStream(truncate).writeInt(5);
+        writeJournal(record(4, truncate.toByteArray()));
+        assertThrows(IOException.class, () -> TradeJournal.open(new TradeStore(), snapshot(), log()));
+    }
+
+    @Test
+    void failedWriteStopsJournaling() throws IOException {
+        Path unwritable = dir.resolve("missing").resolve("u_trades.bin"); // compaction cannot write its snapshot here
+        TradeStore store = new TradeStore();
+        TradeJournal journal = TradeJournal.open(store, unwritable, log());
+        for (int i = 0; i < 10; i++) store.add("EURUSD", "Buy", 1, 2, i, 19_000);
+        journal.sync();
+        String expected = dump(store);
+
+        journal.compact();
+        assertThrows(IOException.class, journal::sync);
+        assertThrows(UncheckedIOException.class, () -> store.add("GBPUSD", "Sell", 1, 2, 3, 19_001));
+        assertThrows(IOException.class, journal::close);
+
+        TradeStore reopened = new TradeStore();
+        TradeJournal.open(reopened, unwritable, log()).close();
+        assertEquals(expected, dump(reopened), "nothing after the failure reached the journal");
+    }
+
+    /** An empty-snapshot journal holding just {@code records}. */
+    private void writeJournal(byte[]... records) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(TradeJournal.MAGIC);
+        out.writeInt(TradeJournal.VERSION);
+        out.writeLong(0);
+        out.writeInt(0);
+        for (byte[] r : records) out.write(r);
+        Files.write(log(), bytes.toByteArray());
+    }
+
+    private static byte[] appendRecord(int symbolId, int typeId) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(payload);
+        out.writeInt(1);
+        out.writeInt(symbolId);
+        out.writeInt(typeId);
+        out.writeDouble(1);
+        out.writeDouble(2);
+        out.writeDouble(3);
+        out.writeInt(19_000);
+        return record(3, payload.toByteArray());
+    }
+
+    private static byte[] record(int kind, byte[] payload) throws IOException {
+        byte[] body = new byte[payload.length + 1];
+        body[0] = (byte) kind;
+        System.arraycopy(payload, 0, body, 1, payload.length);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(body.length);
+        out.write(body);
+        out.writeInt((int) crc.getValue());
+        return bytes.toByteArray();
+    }
+
+    static String dump(TradeStore s) {
+        StringBuilder b = new StringBuilder().append(s.size()).append(':');
+        for (int i = 0; i < s.size(); i++) {
+            b.append(s.symbol(i)).append(',').append(s.type(i)).append(',').append(s.entry(i)).append(',').append(s.exit(i))
+                .append(',').append(s.profit(i)).append(',').append(s.epochDay(i)).append(';');
+        }
+        return b.toString();
+    }
+}
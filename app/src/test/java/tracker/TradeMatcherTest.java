@@ -0,0 +1,139 @@
+package tracker;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * {@link TradeMatcher} on a hand-worked fill sequence under each method (partial closes across lots,
+ * a long flipped into a short), closing fractional lots whose decimal quantities do not sum exactly
+ * in binary, and replaying a fills file with bad lines.
+ */
+class TradeMatcherTest {
+    @TempDir
+    Path dir;
+
+    /**
+     * Buy 10 @ 100, buy 10 @ 110, sell 15 @ 120 (closes across both lots), sell 10 @ 90 (closes the
+     * last 5 and opens a 5 short), buy 5 @ 95 (closes the short). Expected per method: the two lots'
+     * closing cost and P&L, the open lot after the first sell, and its P&L marked at 130.
+     */
+    @Test
+    void realizedAndUnrealizedPerMethod() {
+        check(TradeMatcher.Method.FIFO, 1550, 250, 110, 100, -100);
+        check(TradeMatcher.Method.LIFO, 1600, 200, 100, 150, -50);
+        check(TradeMatcher.Method.AVERAGE, 1575, 225, 105, 125, -75);
+    }
+
+    private static void check(TradeMatcher.Method method, double firstCost, double firstProfit, double leftPrice,
+                              double unrealizedAt130, double flipProfit) {
+        String at = method.name();
+        List<Object[]> trades = new ArrayList<>();
+        TradeMatcher m = new TradeMatcher(method, (symbol, type, entry, exit, profit, day) ->
+            trades.add(new Object[]{symbol, type, entry, exit, profit, day}));
+        int id = m.symbolId("EURUSD");
+        m.fill(id, true, 10, 100, 19_000);
+        m.fill(id, true, 10, 110, 19_001);
+        assertEquals(20, m.position(id), at);
+        assertEquals(105, m.averageCost(id), 1e-9, at);
+        assertEquals(method == TradeMatcher.Method.AVERAGE ? 1 : 2, m.openLots(id), at);
+        assertEquals(0, m.trades(), at);
+
+        m.fill(id, false, 15, 120, 19_002);
+        assertTrade(trades.get(0), "Buy", firstCost / 15, 120, firstProfit, 19_002, at);
+        assertEquals(5, m.position(id), at);
+        assertEquals(leftPrice, m.averageCost(id), 1e-9, at);
+        assertEquals(1, m.openLots(id), at);
+        assertEquals(firstProfit, m.realized(id), 1e-9, at);
+        assertEquals(unrealizedAt130, m.unrealized(id, 130), 1e-9, at);
+
+        m.fill(id, false, 10, 90, 19_003);
+        assertTrade(trades.get(1), "Buy", leftPrice, 90, flipProfit, 19_003, at);
+        assertEquals(-5, m.position(id), at);
+        assertEquals(90, m.averageCost(id), 1e-9, at);
+        assertEquals(50, m.unrealized(id, 80), 1e-9, at + " short gains as the price falls");
+        assertEquals(firstProfit + flipProfit, m.realized(id), 1e-9, at);
+
+        m.fill(id, true, 5, 95, 19_004);
+        assertTrade(trades.get(2), "Sell", 90, 95, -25, 19_004, at);
+        assertEquals(0, m.position(id), at);
+        assertEquals(0, m.unrealized(id, 1000), at);
+        assertEquals(firstProfit + flipProfit - 25, m.realized(id), 1e-9, at);
+        assertEquals(3, m.trades(), at);
+        assertEquals(3, trades.size(), at);
+    }
+
+    private static void assertTrade(Object[] t, String type, double entry, double exit, double profit, int day, String at) {
+        assertEquals("EURUSD", t[0], at);
+        assertEquals(type, t[1], at);
+        assertEquals(entry, (double) t[2], 1e-9, at);
+        assertEquals(exit, (double) t[3], 1e-9, at);
+        assertEquals(profit, (double) t[4], 1e-9, at);
+        assertEquals(day, (int) t[5], at);
+    }
+
+    @Test
+    void replaySkipsAndCountsBadLines() throws IOException {
+        Path fills = dir.resolve("fills.csv");
+        Files.writeString(fills, String.join("\n",
+            "Symbol,Side,Quantity,Price,Date",
+            "EURUSD,Buy,10,1.10,2024-01-02",
+            "EURUSD,hold,10,1.10,2024-01-02",   // unknown side
+            "EURUSD,Sell,ten,1.20,2024-01-03",  // quantity not a number
+            "EURUSD,Sell,-5,1.20,2024-01-03",   // quantity not positive
+            "EURUSD,Sell,5",                    // too few fields
+            "",
+            "eurusd,SELL,4,1.20,",              // another symbol; no date
+            "EURUSD,sell,4,1.20,2024-01-03"));
+        TradeMatcher m = new TradeMatcher(TradeMatcher.Method.FIFO, (symbol, type, entry, exit, profit, day) -> { });
+        TradeMatcher.Result r = m.replay(fills);
+        assertEquals(3, r.fills);
+        assertEquals(4, r.rejected);
+        assertEquals(1, r.trades);
+        assertEquals(6, m.position(m.symbolId("EURUSD")), 1e-9);
+        assertEquals(-4, m.position(m.symbolId("eurusd")), 1e-9);
+        assertEquals(0.4, m.realized(m.symbolId("EURUSD")), 1e-9);
+    }
+
+    @Test
+    void roundingRemaindersCloseTheBook() {
+        for (TradeMatcher.Method method : TradeMatcher.Method.values()) {
+            List<Double> closed = new ArrayList<>();
+            TradeMatcher m = new TradeMatcher(method, (symbol, type, entry, exit, profit, day) -> closed.add(profit));
+            int id = m.symbolId("BTC");
+            m.fill(id, true, 0.3, 100, 19_000);
+            m.fill(id, false, 0.1, 110, 19_001);
+            m.fill(id, false, 0.2, 120, 19_002);
+            assertEquals(0, m.position(id), method.name());
+            assertEquals(0, m.openLots(id), method.name());
+            assertEquals(Double.NaN, m.averageCost(id), method.name());
+            assertEquals(2, closed.size(), method.name());
+            assertEquals(5, m.realized(id), 1e-9, method.name());
+
+            m.fill(id, false, 0.5, 130, 19_003); // flat, so this opens a fresh short
+            assertEquals(-0.5, m.position(id), method.name());
+            assertEquals(1, m.openLots(id), method.name());
+        }
+    }
+
+    @Test
+    void remainderAcrossLotsClosesEveryLot() {
+        for (TradeMatcher.Method method : TradeMatcher.Method.values()) {
+            TradeMatcher m = new TradeMatcher(method, (symbol, type, entry, exit, profit, day) -> { });
+            int id = m.symbolId("ETH");
+            m.fill(id, false, 0.1, 50, 19_000);
+            m.fill(id, false, 0.2, 50, 19_000);
+            m.fill(id, true, 0.3, 40, 19_001);
+            assertEquals(0, m.position(id), method.name());
+            assertEquals(0, m.openLots(id), method.name());
+            assertEquals(3, m.realized(id), 1e-9, method.name());
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package tracker;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link TradeRules} parsing: conditions compiled to intervals and name patterns, comments, errors
+ * naming their line, and the default rules against the fixed notes they replaced.
+ */
+class TradeRulesTest {
+
+    /** The note every trade got before tag rules. */
+    private static String oldNote(double profit) {
+        if (profit > 100) return "Great trade!";
+        else if (profit > 0) return "Good job.";
+        else if (profit < -100) return "High loss. Review setup.";
+        else return "Be cautious.";
+    }
+
+    @Test
+    void defaultRulesMatchOldNotes() {
+        TradeStore store = new TradeStore();
+        double[] profits = {0, -0.0, Double.MIN_VALUE, -Double.MIN_VALUE, 0.01, 100, Math.nextUp(100.0), 100.01, -100,
+            Math.nextDown(-100.0), -100.01, 1e12, -1e12, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NaN};
+        for (double p : profits) store.add("EURUSD", "Buy", 1, 1, p, TradeDates.NO_DATE);
+        for (int i = 0; i < 5000; i++) store.add("X", "Sell", 1, 1, Math.round((i - 2500) * 0.1 * 100) / 100.0, 19_000);
+        TradeTags tags = new TradeTags(store, TradeRules.DEFAULT);
+        for (int row = 0; row < store.size(); row++) {
+            assertEquals(oldNote(store.profit(row)), tags.label(row), "profit " + store.profit(row));
+        }
+    }
+
+    @Test
+    void conditionsCompileToIntervalsAndPatterns() {
+        TradeRules r = TradeRules.parse(String.join("\n",
+            "risk 50",
+            "symbol in *JPY, xauusd and type = Sell and r >= 2 -> Big short",
+            "date >= 2024-01-01 and date < 2024-02-01 and profit < 0 -> January loss",
+            "symbol not in EUR* and profit = 5 -> Five",
+            "PROFIT > 10 AND Type != buy -> Big short",
+            "else -> Other"));
+        assertEquals(5, r.size());
+        assertEquals(List.of("Big short", "January loss", "Five", "Other"), r.tags());
+        assertEquals(1, r.tagId("Big short"));
+        assertEquals(-1, r.tagId("Nope"));
+        assertArrayEquals(new short[]{1, 2, 3, 1, 4}, r.tag);
+
+        assertEquals(100, r.profitLo[0]);
+        assertEquals(Double.POSITIVE_INFINITY, r.profitHi[0]);
+        assertTrue(r.matchesSymbol(0, "usdjpy"));
+        assertTrue(r.matchesSymbol(0, "XAUUSD"));
+        assertFalse(r.matchesSymbol(0, "XAUUSD2"));
+        assertTrue(r.matchesType(0, "sell"));
+        assertFalse(r.matchesType(0, "Buy"));
+
+        assertEquals(TradeDates.of(2024, 1, 1), r.dayLo[1]);
+        assertEquals(TradeDates.of(2024, 1, 31), r.dayHi[1]);
+        assertEquals(Math.nextDown(0.0), r.profitHi[1]);
+
+        assertEquals(5, r.profitLo[2]);
+        assertEquals(5, r.profitHi[2]);
+        assertFalse(r.matchesSymbol(2, "EURUSD"));
+        assertTrue(r.matchesSymbol(2, "GBPUSD"));
+
+        assertEquals(Math.nextUp(10.0), r.profitLo[3]);
+        assertFalse(r.matchesType(3, "BUY"));
+
+        assertNull(r.symbols[4]);
+        assertEquals(Double.NEGATIVE_INFINITY, r.profitLo[4]);
+        assertEquals(Integer.MIN_VALUE, r.dayLo[4], "no date condition lets undated trades through");
+    }
+
+    @Test
+    void commentsEndAtTheArrow() {
+        TradeRules r = TradeRules.parse(String.join("\n",
+            "# a comment -> not a rule",
+            "   # indented comment",
+            "risk 20 # per trade",
+            "",
+            "r >= 1 -> Setup #3",
+            "else -> #untagged # still the label"));
+        assertEquals(List.of("Setup #3", "#untagged # still the label"), r.tags());
+        assertEquals(20, r.profitLo[0]);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+            () -> TradeRules.parse("profit < 0 # losers -> Loss"));
+        assertTrue(e.getMessage().startsWith("Line 1: expected CONDITIONS -> TAG"), e.getMessage());
+    }
+
+    @Test
+    void errorsNameTheirLine() {
+        String[][] bad = {
+            {"profit > 0", "expected CONDITIONS -> TAG"},
+            {"profit > 0 ->", "missing tag"},
+            {" -> Tag", "missing condition"},
+            {"r > 1 -> Tag", "risk"},
+            {"risk -5", "positive"},
+            {"profit > lots -> Tag", "not a number"},
+            {"date > yesterday -> Tag", "not a date"},
+            {"symbol > A -> Tag", "does not apply"},
+            {"profit in 1 -> Tag", "does not apply"},
+            {"symbol = A and symbol = B -> Tag", "already constrained"},
+            {"symbol in A, , B -> Tag", "empty name"},
+            {"volume > 1 -> Tag", "cannot read condition"},
+        };
+        for (String[] b : bad) {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> TradeRules.parse("else -> Fine\n" + b[0]), b[0]);
+            assertTrue(e.getMessage().startsWith("Line 2: "), e.getMessage());
+            assertTrue(e.getMessage().contains(b[1]), e.getMessage());
+        }
+    }
+}
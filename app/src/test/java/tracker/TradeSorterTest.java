@@ -0,0 +1,74 @@
+package tracker;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * {@link TradeSorter} against a stable comparator sort, over random one- to three-key orders while
+ * rows (with signed zeros, new dictionary entries and undated trades) are appended and truncated.
+ */
+class TradeSorterTest {
+    private static final String[] SYMBOLS = {"b", "A", "c", "Zed", "a", "BB"};
+
+    private final Random rnd = new Random(5);
+    private final TradeStore store = new TradeStore();
+
+    @Test
+    void sortMatchesComparator() {
+        TradeSorter sorter = new TradeSorter(store);
+        TradeSorter.Key[] keys = TradeSorter.Key.values();
+        for (int round = 0; round < 80; round++) {
+            int op = rnd.nextInt(3);
+            if (op == 0 || store.size() < 10) add(1 + rnd.nextInt(3000));
+            else if (op == 1) store.truncate(rnd.nextInt(store.size()));
+            List<TradeSorter.Order> orders = new ArrayList<>();
+            for (int k = 1 + rnd.nextInt(3); k > 0; k--) orders.add(new TradeSorter.Order(keys[rnd.nextInt(keys.length)], rnd.nextBoolean()));
+            assertArrayEquals(reference(orders), sorter.sort(orders), "round " + round);
+        }
+    }
+
+    private void add(int n) {
+        for (int i = 0; i < n; i++) {
+            double p = rnd.nextInt(7) == 0 ? 0.0 : rnd.nextInt(9) == 0 ? -0.0 : Math.round(rnd.nextGaussian() * 100) / 4.0;
+            String symbol = SYMBOLS[rnd.nextInt(SYMBOLS.length)] + (rnd.nextInt(50) == 0 ? "new" + rnd.nextInt(3) : "");
+            int day = rnd.nextInt(10) == 0 ? TradeDates.NO_DATE : TradeDates.of(1960 + rnd.nextInt(80), 1, 1);
+            store.add(symbol, rnd.nextBoolean() ? "Buy" : "sell", rnd.nextInt(20), rnd.nextInt(20) - 5, p, day);
+        }
+    }
+
+    private int[] reference(List<TradeSorter.Order> orders) {
+        Integer[] rows = new Integer[store.size()];
+        for (int i = 0; i < rows.length; i++) rows[i] = i;
+        Arrays.sort(rows, (a, b) -> {
+            for (TradeSorter.Order o : orders) {
+                int c = compare(o.key, a, b);
+                if (c != 0) return o.descending ? -c : c;
+            }
+            return Integer.compare(a, b);
+        });
+        return Arrays.stream(rows).mapToInt(Integer::intValue).toArray();
+    }
+
+    private int compare(TradeSorter.Key key, int a, int b) {
+        switch (key) {
+            case SYMBOL: return names(store.symbol(a), store.symbol(b));
+            case TYPE: return names(store.type(a), store.type(b));
+            // + 0.0 folds -0.0 into 0.0: the sorter treats them as equal
+            case ENTRY: return Double.compare(store.entry(a) + 0.0, store.entry(b) + 0.0);
+            case EXIT: return Double.compare(store.exit(a) + 0.0, store.exit(b) + 0.0);
+            case PROFIT: return Double.compare(store.profit(a) + 0.0, store.profit(b) + 0.0);
+            default: return Integer.compare(store.epochDay(a), store.epochDay(b));
+        }
+    }
+
+    private static int names(String a, String b) {
+        int c = String.CASE_INSENSITIVE_ORDER.compare(a, b);
+        return c != 0 ? c : a.compareTo(b);
+    }
+}
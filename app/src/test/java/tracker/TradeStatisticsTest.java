@@ -0,0 +1,86 @@
+package tracker;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * {@link TradeStatistics} against a full rescan after random appends and tail truncations, and its
+ * row-subset snapshots against the same rows copied into a store of their own.
+ */
+class TradeStatisticsTest {
+
+    @Test
+    void matchesRescanAfterRandomAppendsAndTruncations() {
+        Random rnd = new Random(1);
+        TradeStore store = new TradeStore();
+        TradeStatistics stats = new TradeStatistics(store);
+        for (int step = 0; step < 300; step++) {
+            if (rnd.nextInt(3) > 0 || store.isEmpty()) {
+                TradeStore batch = new TradeStore();
+                int n = rnd.nextInt(step % 40 == 0 ? 5000 : 400);
+                for (int i = 0; i < n; i++) batch.add("S" + rnd.nextInt(5), "Buy", 1, 1, profit(rnd), 19_000 + i);
+                if (rnd.nextBoolean()) store.appendAll(batch);
+                else for (int i = 0; i < n; i++) store.add(batch.symbol(i), "Buy", 1, 1, batch.profit(i), batch.epochDay(i));
+            } else {
+                store.truncate(rnd.nextInt(store.size() + 1));
+            }
+            assertMatches(store, stats, step);
+        }
+    }
+
+    @Test
+    void subsetMatchesStoreOfThoseRows() {
+        Random rnd = new Random(2);
+        TradeStore store = new TradeStore();
+        for (int i = 0; i < 20_000; i++) store.add("S", "Buy", 1, 1, profit(rnd), 19_000);
+        for (int trial = 0; trial < 20; trial++) {
+            RowBitmap rows = new RowBitmap();
+            TradeStore picked = new TradeStore();
+            int every = 1 + rnd.nextInt(7);
+            for (int i = rnd.nextInt(every); i < store.size(); i += every) {
+                rows.add(i);
+                picked.add("S", "Buy", 1, 1, store.profit(i), 19_000);
+            }
+            assertMatches(picked, TradeStatistics.of(store, rows), trial);
+        }
+    }
+
+    private static double profit(Random rnd) {
+        return rnd.nextInt(20) == 0 ? 0 : Math.round(rnd.nextGaussian() * 5000) / 100.0;
+    }
+
+    private static void assertMatches(TradeStore store, TradeStatistics stats, int step) {
+        int wins = 0, losses = 0;
+        double net = 0, grossWin = 0, grossLoss = 0, max = Double.NEGATIVE_INFINITY, min = Double.POSITIVE_INFINITY;
+        double equity = 0, peak = 0, drawdown = 0;
+        for (int i = 0; i < store.size(); i++) {
+            double p = store.profit(i);
+            net += p;
+            if (p > 0) { wins++; grossWin += p; }
+            if (p < 0) { losses++; grossLoss += p; }
+            max = Math.max(max, p);
+            min = Math.min(min, p);
+            equity += p;
+            peak = Math.max(peak, equity);
+            drawdown = Math.max(drawdown, peak - equity);
+        }
+        double mean = store.isEmpty() ? 0 : net / store.size(), m2 = 0;
+        for (int i = 0; i < store.size(); i++) m2 += (store.profit(i) - mean) * (store.profit(i) - mean);
+        double sd = store.size() > 1 ? Math.sqrt(m2 / (store.size() - 1)) : 0;
+
+        String at = "step " + step + ", " + store.size() + " rows";
+        assertEquals(store.size(), stats.count(), at);
+        assertEquals(wins, stats.wins(), at);
+        assertEquals(losses, stats.losses(), at);
+        assertEquals(net, stats.netProfit(), 1e-6, at);
+        assertEquals(grossWin, stats.grossWin(), 1e-6, at);
+        assertEquals(grossLoss, stats.grossLoss(), 1e-6, at);
+        assertEquals(max, stats.maxProfit(), at);
+        assertEquals(min, stats.maxLoss(), at);
+        assertEquals(drawdown, stats.maxDrawdown(), 1e-6, at);
+        assertEquals(sd, stats.stdDev(), 1e-6, at);
+    }
+}
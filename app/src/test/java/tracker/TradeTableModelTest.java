@@ -0,0 +1,63 @@
+package tracker;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** {@link TradeTableModel} keeping a sorted, optionally filtered view in order while rows are appended. */
+class TradeTableModelTest {
+
+    @Test
+    void sortedViewStaysSortedAfterAppends() {
+        Random rnd = new Random(3);
+        TradeStore store = new TradeStore();
+        add(store, rnd, 500);
+        TradeSorter sorter = new TradeSorter(store);
+        TradeTableModel model = new TradeTableModel(store, row -> "");
+        List<TradeSorter.Order> keys = new ArrayList<>(List.of(
+            new TradeSorter.Order(TradeSorter.Key.SYMBOL, false), new TradeSorter.Order(TradeSorter.Key.PROFIT, true)));
+        model.setSort(sorter, keys);
+        keys.clear(); // the model keeps its own copy
+
+        for (int step = 0; step < 20; step++) {
+            if (step == 10) model.setFilter(row -> store.profit(row) > 0);
+            if (rnd.nextBoolean()) {
+                TradeStore batch = new TradeStore();
+                add(batch, rnd, 1 + rnd.nextInt(3000));
+                store.appendAll(batch);
+            } else {
+                add(store, rnd, 1 + rnd.nextInt(5));
+            }
+            TradeSorter fresh = new TradeSorter(store);
+            int[] expected = fresh.sort(List.of(
+                new TradeSorter.Order(TradeSorter.Key.SYMBOL, false), new TradeSorter.Order(TradeSorter.Key.PROFIT, true)));
+            store.removeListener(fresh);
+            if (step >= 10) expected = Arrays.stream(expected).filter(row -> store.profit(row) > 0).toArray();
+            assertTrue(model.isSorted(), "step " + step);
+            assertArrayEquals(expected, model.viewRows(), "step " + step);
+        }
+    }
+
+    @Test
+    void installedOrderIsNotResorted() {
+        TradeStore store = new TradeStore();
+        store.add("B", "Buy", 1, 1, 1, 19_000);
+        store.add("A", "Buy", 1, 1, 2, 19_000);
+        TradeTableModel model = new TradeTableModel(store, row -> "");
+        model.setOrder(new int[]{1, 0});
+        store.add("0", "Buy", 1, 1, 3, 19_000);
+        assertArrayEquals(new int[]{1, 0, 2}, model.viewRows());
+    }
+
+    private static void add(TradeStore store, Random rnd, int n) {
+        for (int i = 0; i < n; i++) {
+            store.add("S" + rnd.nextInt(8), "Buy", 1, 1, Math.round(rnd.nextGaussian() * 100) / 4.0, 19_000 + rnd.nextInt(100));
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package tracker;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * {@link TradeTags} against evaluating each rule row by row, over random appends (with symbols the
+ * rules have not seen yet, undated trades and NaN profits), truncations and rule changes.
+ */
+class TradeTagsTest {
+    private static final String[] RULES = {
+        TradeRules.DEFAULT_SOURCE,
+        "risk 25\nsymbol in *JPY, XAU* and r >= 2 -> Big\ntype = Sell and date < 2023-06-01 -> Old short\nelse -> Rest",
+        "symbol not in EUR* and profit < 0 -> Non-euro loss\ndate >= 2023-01-01 and date <= 2023-12-31 -> 2023",
+        "profit = 0 -> Flat # zero\n# nothing else is tagged",
+    };
+    private static final String[] SYMBOLS = {"EURUSD", "USDJPY", "XAUUSD", "GBPUSD", "eurjpy"};
+
+    @Test
+    void matchesRowByRowEvaluation() {
+        Random rnd = new Random(8);
+        TradeStore store = new TradeStore();
+        TradeRules rules = TradeRules.parse(RULES[0]);
+        TradeTags tags = new TradeTags(store, rules);
+        for (int step = 0; step < 200; step++) {
+            int op = rnd.nextInt(10);
+            if (op < 6) {
+                TradeStore batch = new TradeStore();
+                for (int i = rnd.nextInt(step % 40 == 0 ? 20_000 : 500); i > 0; i--) {
+                    String symbol = rnd.nextInt(100) == 0 ? "NEW" + step : SYMBOLS[rnd.nextInt(SYMBOLS.length)];
+                    double profit = rnd.nextInt(50) == 0 ? Double.NaN : rnd.nextInt(10) == 0 ? 0 : Math.round(rnd.nextGaussian() * 8000) / 100.0;
+                    int day = rnd.nextInt(10) == 0 ? TradeDates.NO_DATE : TradeDates.of(2022, 1, 1) + rnd.nextInt(800);
+                    batch.add(symbol, rnd.nextBoolean() ? "Buy" : "Sell", 1, 1, profit, day);
+                }
+                if (rnd.nextBoolean()) {
+                    store.appendAll(batch);
+                } else {
+                    for (int i = 0; i < Math.min(batch.size(), 50); i++) {
+                        store.add(batch.symbol(i), batch.type(i), 1, 1, batch.profit(i), batch.epochDay(i));
+                    }
+                }
+            } else if (op < 8) {
+                store.truncate(rnd.nextInt(store.size() + 1));
+            } else {
+                rules = TradeRules.parse(RULES[rnd.nextInt(RULES.length)]);
+                tags.setRules(rules);
+            }
+            assertTags(store, tags, rules, "step " + step);
+        }
+    }
+
+    private static void assertTags(TradeStore store, TradeTags tags, TradeRules rules, String at) {
+        int[] count = new int[rules.tags().size() + 1];
+        for (int row = 0; row < store.size(); row++) {
+            int expected = expectedTag(store, rules, row);
+            count[expected]++;
+            assertEquals(expected, tags.tagId(row), at + ", row " + row);
+            assertEquals(expected == 0 ? "" : rules.tags().get(expected - 1), tags.label(row), at + ", row " + row);
+        }
+        for (int id = 1; id < count.length; id++) assertEquals(count[id], tags.rows(id).cardinality(), at + ", tag " + id);
+        List<TradeAnalytics.Bucket> buckets = tags.byTag();
+        int total = 0;
+        for (TradeAnalytics.Bucket b : buckets) total += b.count;
+        assertEquals(store.size(), total, at);
+    }
+
+    private static int expectedTag(TradeStore store, TradeRules rules, int row) {
+        double p = store.profit(row);
+        int day = store.epochDay(row);
+        for (int k = 0; k < rules.size(); k++) {
+            boolean anyProfit = rules.profitLo[k] == Double.NEGATIVE_INFINITY && rules.profitHi[k] == Double.POSITIVE_INFINITY;
+            if ((anyProfit || p >= rules.profitLo[k] && p <= rules.profitHi[k])
+                    && day >= rules.dayLo[k] && day <= rules.dayHi[k]
+                    && rules.matchesSymbol(k, store.symbol(row)) && rules.matchesType(k, store.type(row))) {
+                return rules.tag[k];
+            }
+        }
+        return 0;
+    }
+}
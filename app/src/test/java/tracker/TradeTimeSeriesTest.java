@@ -0,0 +1,103 @@
+package tracker;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * {@link TradeTimeSeries} against brute-force scans over random appends (bulk and row by row, with
+ * undated trades) and truncations; its rollups against {@link TradeAnalytics}.
+ */
+class TradeTimeSeriesTest {
+
+    @Test
+    void matchesScansAndAnalytics() {
+        Random rnd = new Random(7);
+        TradeStore store = new TradeStore();
+        TradeTimeSeries series = new TradeTimeSeries(store);
+        double[] out = new double[2];
+        for (int step = 0; step < 200; step++) {
+            if (rnd.nextInt(4) > 0) {
+                TradeStore batch = new TradeStore();
+                for (int i = rnd.nextInt(step % 50 == 0 ? 6000 : 300); i > 0; i--) {
+                    int day = rnd.nextInt(15) == 0 ? TradeDates.NO_DATE : 18_000 + rnd.nextInt(rnd.nextBoolean() ? 60 : 4000);
+                    batch.add("X", "Buy", 0, 0, Math.round(rnd.nextGaussian() * 1000) / 8.0, day);
+                }
+                store.appendAll(batch); // batches past 4096 rows take the bulk path
+            } else {
+                store.truncate(rnd.nextInt(store.size() + 1));
+            }
+            String at = "step " + step;
+            assertEquals(store.size(), series.rows(), at);
+
+            double equity = 0;
+            for (int i = 0; i < store.size(); i++) {
+                equity += store.profit(i);
+                assertEquals(equity, series.equity(i), 1e-6, at);
+            }
+            for (int q = 0; q < 10 && !store.isEmpty(); q++) {
+                int from = rnd.nextInt(store.size()), to = from + 1 + rnd.nextInt(store.size() - from);
+                series.equityRange(from, to, out);
+                double lo = Double.POSITIVE_INFINITY, hi = Double.NEGATIVE_INFINITY;
+                for (int i = from; i < to; i++) {
+                    lo = Math.min(lo, series.equity(i));
+                    hi = Math.max(hi, series.equity(i));
+                }
+                assertEquals(lo, out[0], at);
+                assertEquals(hi, out[1], at);
+            }
+            for (int q = 0; q < 5; q++) {
+                int d0 = 18_000 + rnd.nextInt(4000) - 10, d1 = d0 + rnd.nextInt(2000);
+                assertRange(store, series.range(d0, d1), d0, d1, at);
+            }
+        }
+
+        TradeAnalytics.Report report = new TradeAnalytics().analyze(store);
+        assertBuckets(report.byDay, series.rollup(TradeTimeSeries.Period.DAY));
+        assertBuckets(report.byWeek, series.rollup(TradeTimeSeries.Period.WEEK));
+        assertBuckets(report.byMonth, series.rollup(TradeTimeSeries.Period.MONTH));
+    }
+
+    private static void assertRange(TradeStore store, TradeTimeSeries.Range range, int d0, int d1, String at) {
+        TreeMap<Integer, double[]> days = new TreeMap<>(); // day -> count, wins, net
+        for (int i = 0; i < store.size(); i++) {
+            int d = store.epochDay(i);
+            if (d == TradeDates.NO_DATE || d < d0 || d > d1) continue;
+            double[] v = days.computeIfAbsent(d, k -> new double[3]);
+            v[0]++;
+            if (store.profit(i) > 0) v[1]++;
+            v[2] += store.profit(i);
+        }
+        double equity = 0, peak = 0, drawdown = 0, high = 0, low = 0;
+        int count = 0, wins = 0;
+        for (double[] v : days.values()) {
+            count += (int) v[0];
+            wins += (int) v[1];
+            equity += v[2];
+            peak = Math.max(peak, equity);
+            drawdown = Math.max(drawdown, peak - equity);
+            high = Math.max(high, equity);
+            low = Math.min(low, equity);
+        }
+        String where = at + ", days " + d0 + ".." + d1;
+        assertEquals(count, range.count, where);
+        assertEquals(wins, range.wins, where);
+        assertEquals(equity, range.net, 1e-6, where);
+        assertEquals(drawdown, range.maxDrawdown, 1e-6, where);
+        assertEquals(high, range.high, 1e-6, where);
+        assertEquals(low, range.low, 1e-6, where);
+    }
+
+    private static void assertBuckets(List<TradeAnalytics.Bucket> expected, List<TradeAnalytics.Bucket> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).label, actual.get(i).label);
+            assertEquals(expected.get(i).count, actual.get(i).count, expected.get(i).label);
+            assertEquals(expected.get(i).net, actual.get(i).net, 1e-6, expected.get(i).label);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package bench;
+
+import tracker.CsvTradeExporter;
+import tracker.TradeDates;
+import tracker.TradeStore;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The old {@code PrintWriter.printf} export against {@link CsvTradeExporter}, plain and gzip.
+ * Fails if the plain export differs from printf's output by a single byte.
+ * Usage: java bench.CsvExportBenchmark [rows]
+ */
+public class CsvExportBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        TradeStore store = new TradeStore();
+        Random rnd = new Random(42);
+        for (int i = 0; i < rows; i++) {
+            double entry = Math.round((1000 + rnd.nextDouble() * 1000) * 1000) / 1000.0;
+            double exit = Math.round((entry + rnd.nextGaussian() * 100) * 1000) / 1000.0;
+            store.add(CsvImportBenchmark.SYMBOLS[rnd.nextInt(6)], CsvImportBenchmark.TYPES[rnd.nextInt(2)],
+                    entry, exit, exit - entry, TradeDates.of(2025, 1 + rnd.nextInt(9), 10 + rnd.nextInt(18)));
+        }
+        Path printf = Files.createTempFile("bench", ".csv"), fast = Files.createTempFile("bench", ".csv"),
+                gz = Files.createTempFile("bench", ".csv.gz");
+        CsvTradeExporter exporter = new CsvTradeExporter(store, CsvExportBenchmark::note);
+        try {
+            for (int round = 0; round < 3; round++) {
+                long t0 = System.nanoTime();
+                try (PrintWriter writer = new PrintWriter(new FileWriter(printf.toFile()))) {
+                    writer.println("Symbol,Type,Entry,Exit,Profit,Date,Note");
+                    for (int row = 0; row < store.size(); row++) {
+                        writer.printf("%s,%s,%.2f,%.2f,%.2f,%s,%s%n", store.symbol(row), store.type(row), store.entry(row),
+                                store.exit(row), store.profit(row), store.date(row), note(row));
+                    }
+                }
+                long t1 = System.nanoTime();
+                exporter.export(fast, CsvTradeExporter.Rows.all(store.size()), false, null, null);
+                long t2 = System.nanoTime();
+                exporter.export(gz, CsvTradeExporter.Rows.all(store.size()), true, null, null);
+                long t3 = System.nanoTime();
+                System.out.printf("printf %8.1f ms   exporter %8.1f ms   exporter+gzip %8.1f ms (%,d -> %,d bytes)%n",
+                        (t1 - t0) / 1e6, (t2 - t1) / 1e6, (t3 - t2) / 1e6, Files.size(fast), Files.size(gz));
+            }
+            if (!Arrays.equals(Files.readAllBytes(printf), Files.readAllBytes(fast))) {
+                throw new IllegalStateException("exporter output differs from printf");
+            }
+        } finally {
+            Files.deleteIfExists(printf);
+            Files.deleteIfExists(fast);
+            Files.deleteIfExists(gz);
+        }
+    }
+
+    private static String note(int row) {
+        return row % 3 == 0 ? "Great trade!" : "";
+    }
+}
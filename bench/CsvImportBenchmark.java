@@ -0,0 +1,79 @@
+package bench;
+
+import tracker.CsvTradeImporter;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the original BufferedReader/String.split import loop with {@link CsvTradeImporter}.
+ * Usage: java bench.CsvImportBenchmark [rows]
+ */
+public class CsvImportBenchmark {
+    static final String[] SYMBOLS = {"BTCUSD", "ETHUSD", "EURUSD", "GBPJPY", "USDJPY", "XAUUSD"};
+    static final String[] TYPES = {"Buy", "Sell"};
+
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        Path file = Files.createTempFile("trades-bench", ".csv");
+        try {
+            writeCsv(file, rows, 42);
+            System.out.printf("%,d rows, %,d bytes%n", rows, Files.size(file));
+            for (int round = 0; round < 3; round++) {
+                report("split loop", rows, timeSplit(file));
+                report("CsvTradeImporter", rows, timeImporter(file));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    static void writeCsv(Path file, int rows, long seed) throws IOException {
+        Random rnd = new Random(seed);
+        try (BufferedWriter w = Files.newBufferedWriter(file)) {
+            w.write("Symbol,Type,Entry,Exit,Profit,Date\n");
+            for (int i = 0; i < rows; i++) {
+                double entry = Math.round((1000 + rnd.nextDouble() * 1000) * 100) / 100.0;
+                double exit = Math.round((entry + rnd.nextGaussian() * 100) * 100) / 100.0;
+                w.write(SYMBOLS[rnd.nextInt(SYMBOLS.length)] + "," + TYPES[rnd.nextInt(2)] + ","
+                        + entry + "," + exit + "," + (exit - entry) + ",2025-0" + (1 + rnd.nextInt(9))
+                        + "-" + (10 + rnd.nextInt(18)) + "\n");
+            }
+        }
+    }
+
+    static long timeSplit(Path file) throws IOException {
+        long start = System.nanoTime();
+        List<Object[]> out = new ArrayList<>();
+        try (BufferedReader br = new BufferedReader(new FileReader(file.toFile()))) {
+            br.readLine();
+            String line;
+            while ((line = br.readLine()) != null) {
+                String[] parts = line.split(",");
+                if (parts.length == 6) {
+                    out.add(new Object[]{parts[0], parts[1], Double.parseDouble(parts[2]),
+                            Double.parseDouble(parts[3]), Double.parseDouble(parts[4]), parts[5]});
+                }
+            }
+        }
+        if (out.isEmpty()) throw new IllegalStateException();
+        return System.nanoTime() - start;
+    }
+
+    static long timeImporter(Path file) throws IOException {
+        long start = System.nanoTime();
+        double[] checksum = new double[1];
+        CsvTradeImporter.Result r = new CsvTradeImporter().parse(file,
+                (symbol, type, entry, exit, profit, day) -> checksum[0] += profit, null, null);
+        if (r.rows == 0) throw new IllegalStateException();
+        return System.nanoTime() - start;
+    }
+
+    static void report(String name, int rows, long nanos) {
+        System.out.printf("%-18s %8.1f ms  %,12.0f rows/s%n", name, nanos / 1e6, rows / (nanos / 1e9));
+    }
+}
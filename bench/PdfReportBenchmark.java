@@ -0,0 +1,111 @@
+package bench;
+
+import com.itextpdf.text.*;
+import com.itextpdf.text.pdf.PdfPCell;
+import com.itextpdf.text.pdf.PdfPTable;
+import com.itextpdf.text.pdf.PdfWriter;
+import tracker.PdfTradeReport;
+import tracker.TradeDates;
+import tracker.TradeStatistics;
+import tracker.TradeStore;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Random;
+
+/**
+ * Time and peak heap of the old one-table PDF export against {@link PdfTradeReport}.
+ * Peak heap is read from the memory pools' peak usage, reset before each run.
+ * Usage: java -Xmx2g bench.PdfReportBenchmark [streaming|legacy] [rows...]
+ * (one mode per JVM keeps the peaks independent; defaults to both modes at 100k and 1M rows)
+ */
+public class PdfReportBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        String[] modes = args.length > 0 ? new String[]{args[0]} : new String[]{"streaming", "legacy"};
+        int[] sizes = {100_000, 1_000_000};
+        if (args.length > 1) {
+            sizes = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++) sizes[i - 1] = Integer.parseInt(args[i]);
+        }
+        for (int rows : sizes) {
+            TradeStore store = new TradeStore();
+            TradeStatistics stats = new TradeStatistics(store);
+            Random rnd = new Random(42);
+            for (int i = 0; i < rows; i++) {
+                double entry = 1000 + rnd.nextDouble() * 1000, exit = entry + rnd.nextGaussian() * 100;
+                store.add(CsvImportBenchmark.SYMBOLS[rnd.nextInt(6)], CsvImportBenchmark.TYPES[rnd.nextInt(2)],
+                        entry, exit, exit - entry, TradeDates.of(2025, 1 + rnd.nextInt(9), 10 + rnd.nextInt(18)));
+            }
+            Path out = Files.createTempFile("bench", ".pdf");
+            try {
+                for (String mode : modes) {
+                    System.gc();
+                    long base = resetPeaks();
+                    long t0 = System.nanoTime();
+                    try {
+                        if (mode.equals("legacy")) legacy(store, out);
+                        else new PdfTradeReport(store, row -> "").write(out, "bench", Collections.emptyMap(),
+                                PdfTradeReport.summary(stats), null, store.size(), null, null);
+                        System.out.printf("%-9s %,9d rows  %8.0f ms  peak heap %,6d MB  file %,6d KB%n", mode, rows,
+                                (System.nanoTime() - t0) / 1e6, (peakHeap() - base) >> 20, Files.size(out) >> 10);
+                    } catch (OutOfMemoryError e) {
+                        System.out.printf("%-9s %,9d rows  OutOfMemoryError after %.0f ms%n", mode, rows, (System.nanoTime() - t0) / 1e6);
+                    }
+                }
+            } finally {
+                Files.deleteIfExists(out);
+            }
+        }
+    }
+
+    /** What exportPDF() did before: every cell of every row in one table, added once at the end. */
+    private static void legacy(TradeStore store, Path out) throws Exception {
+        Document doc = new Document();
+        try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(out))) {
+            PdfWriter.getInstance(doc, os);
+            doc.open();
+            Font textFont = FontFactory.getFont(FontFactory.HELVETICA, 12, BaseColor.BLACK);
+            PdfPTable table = new PdfPTable(8);
+            table.setWidthPercentage(100);
+            for (int row = 0; row < store.size(); row++) {
+                double profit = store.profit(row);
+                BaseColor color = profit > 0 ? new BaseColor(200, 255, 200) : profit < 0 ? new BaseColor(255, 200, 200) : BaseColor.WHITE;
+                String[] values = {String.valueOf(row + 1), store.symbol(row), store.type(row), String.valueOf(store.entry(row)),
+                        String.valueOf(store.exit(row)), String.valueOf(profit), store.date(row), ""};
+                for (String v : values) {
+                    PdfPCell cell = new PdfPCell(new Phrase(v, textFont));
+                    cell.setBackgroundColor(color);
+                    cell.setPadding(5);
+                    table.addCell(cell);
+                }
+            }
+            doc.add(table);
+            doc.close();
+        }
+    }
+
+    private static long resetPeaks() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() != MemoryType.HEAP) continue;
+            pool.resetPeakUsage();
+            used += pool.getUsage().getUsed();
+        }
+        return used;
+    }
+
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) peak += pool.getPeakUsage().getUsed();
+        }
+        return peak;
+    }
+}
@@ -0,0 +1,79 @@
+package bench;
+
+import tracker.TradeDates;
+import tracker.TradeFile;
+import tracker.TradeStore;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedList;
+import java.util.Random;
+
+/**
+ * Save/load time and file size: Java serialization of {@code LinkedList<Trade>} against {@link TradeFile}.
+ * Usage: java bench.PersistenceBenchmark [rows]
+ */
+public class PersistenceBenchmark {
+
+    /** Same shape as SmartTraderTracker.Trade. */
+    static final class SerialTrade implements Serializable {
+        String symbol, type, date;
+        double entry, exit, profit;
+
+        SerialTrade(String symbol, String type, double entry, double exit, double profit, String date) {
+            this.symbol = symbol;
+            this.type = type;
+            this.entry = entry;
+            this.exit = exit;
+            this.profit = profit;
+            this.date = date;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        LinkedList<SerialTrade> list = new LinkedList<>();
+        TradeStore store = new TradeStore();
+        Random rnd = new Random(42);
+        for (int i = 0; i < rows; i++) {
+            double entry = 1000 + rnd.nextDouble() * 1000, exit = entry + rnd.nextGaussian() * 100;
+            String symbol = CsvImportBenchmark.SYMBOLS[rnd.nextInt(6)], type = CsvImportBenchmark.TYPES[rnd.nextInt(2)];
+            int day = TradeDates.of(2025, 1 + rnd.nextInt(9), 10 + rnd.nextInt(18));
+            list.add(new SerialTrade(symbol, type, entry, exit, exit - entry, TradeDates.format(day)));
+            store.add(symbol, type, entry, exit, exit - entry, day);
+        }
+
+        Path dat = Files.createTempFile("bench", ".dat"), bin = Files.createTempFile("bench", ".bin");
+        try {
+            for (int round = 0; round < 3; round++) {
+                long t0 = System.nanoTime();
+                try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(dat)))) {
+                    out.writeObject(list);
+                }
+                long t1 = System.nanoTime();
+                LinkedList<SerialTrade> back;
+                try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(dat)))) {
+                    back = (LinkedList<SerialTrade>) in.readObject();
+                }
+                long t2 = System.nanoTime();
+                TradeFile.write(store, bin);
+                long t3 = System.nanoTime();
+                TradeStore loaded = TradeFile.read(bin);
+                long t4 = System.nanoTime();
+
+                if (back.size() != rows || loaded.size() != rows || loaded.profit(rows - 1) != store.profit(rows - 1)) {
+                    throw new IllegalStateException("round trip mismatch");
+                }
+                System.out.printf("serialization: save %7.1f ms  load %7.1f ms  %,12d bytes%n",
+                        (t1 - t0) / 1e6, (t2 - t1) / 1e6, Files.size(dat));
+                System.out.printf("TradeFile:     save %7.1f ms  load %7.1f ms  %,12d bytes%n",
+                        (t3 - t2) / 1e6, (t4 - t3) / 1e6, Files.size(bin));
+            }
+        } finally {
+            Files.deleteIfExists(dat);
+            Files.deleteIfExists(bin);
+        }
+    }
+}
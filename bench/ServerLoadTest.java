@@ -0,0 +1,96 @@
+package bench;
+
+import tracker.TradeDates;
+import tracker.TradeRules;
+import tracker.TradeServer;
+import tracker.TradeStore;
+import tracker.TradeTags;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local load test for {@link TradeServer}. Starts the server on a free loopback port over a
+ * generated store, then has N client threads hammer each endpoint with keep-alive connections for
+ * a fixed time. Prints throughput and latency percentiles, with and without If-None-Match.
+ * Usage: java bench.ServerLoadTest [rows] [clients] [seconds per endpoint]
+ */
+public class ServerLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        TradeStore store = new TradeStore();
+        Random rnd = new Random(42);
+        for (int i = 0; i < rows; i++) {
+            double entry = 1000 + rnd.nextDouble() * 1000, exit = entry + rnd.nextGaussian() * 100;
+            store.add(CsvImportBenchmark.SYMBOLS[rnd.nextInt(6)], CsvImportBenchmark.TYPES[rnd.nextInt(2)],
+                    entry, exit, exit - entry, TradeDates.of(2025, 1 + rnd.nextInt(9), 10 + rnd.nextInt(18)));
+        }
+        try (TradeServer server = new TradeServer(store, new TradeTags(store, TradeRules.DEFAULT)::label, 0,
+                Math.max(4, 2 * Runtime.getRuntime().availableProcessors()))) {
+            String base = "http://127.0.0.1:" + server.port();
+            String etag = "\"v" + server.version() + '"';
+            System.out.printf("%,d rows, %d clients, %d s per endpoint%n", rows, clients, seconds);
+            System.out.printf("%-44s %9s %8s %8s %8s %8s %8s%n", "endpoint", "req/s", "p50 ms", "p90", "p99", "p99.9", "max");
+            run(base + "/api/summary", null, clients, seconds);
+            run(base + "/api/summary", etag, clients, seconds);
+            run(base + "/api/symbols", null, clients, seconds);
+            run(base + "/api/trades?limit=100", null, clients, seconds);
+            run(base + "/api/trades?limit=100&after=" + rows / 2 + "&sign=wins&q=usd", null, clients, seconds);
+            run(base + "/api/trades?limit=100", etag, clients, seconds);
+            run(base + "/api/trades.csv?symbol=EURUSD&from=2025-03-01&to=2025-03-31", null, Math.min(clients, 4), seconds);
+        }
+    }
+
+    private static void run(String url, String ifNoneMatch, int clients, int seconds) throws Exception {
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+        List<long[]> perThread = new ArrayList<>();
+        AtomicLong errors = new AtomicLong();
+        ExecutorService threads = Executors.newFixedThreadPool(clients);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            futures.add(threads.submit(() -> {
+                long[] lat = new long[1 << 16];
+                byte[] sink = new byte[1 << 16];
+                int n = 0;
+                while (System.nanoTime() < end) {
+                    long t0 = System.nanoTime();
+                    HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
+                    if (ifNoneMatch != null) conn.setRequestProperty("If-None-Match", ifNoneMatch);
+                    int status = conn.getResponseCode();
+                    if (status != 200 && status != 304) errors.incrementAndGet();
+                    try (InputStream in = status == 200 ? conn.getInputStream() : conn.getErrorStream()) {
+                        if (in != null) while (in.read(sink) >= 0) { /* drain so the connection is reused */ }
+                    }
+                    if (n == lat.length) lat = Arrays.copyOf(lat, n * 2);
+                    lat[n++] = System.nanoTime() - t0;
+                }
+                return Arrays.copyOf(lat, n);
+            }));
+        }
+        for (Future<long[]> f : futures) perThread.add(f.get());
+        threads.shutdown();
+
+        long[] all = perThread.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        String label = url.substring(url.indexOf("/api")) + (ifNoneMatch != null ? " (304)" : "");
+        if (label.length() > 44) label = label.substring(0, 41) + "...";
+        System.out.printf("%-44s %9.0f %8.2f %8.2f %8.2f %8.2f %8.2f%s%n", label, all.length / (double) seconds,
+                pct(all, 50), pct(all, 90), pct(all, 99), pct(all, 99.9), all.length > 0 ? all[all.length - 1] / 1e6 : 0,
+                errors.get() > 0 ? "  errors " + errors.get() : "");
+    }
+
+    private static double pct(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p / 100 * sorted.length) - 1)] / 1e6;
+    }
+}
@@ -0,0 +1,69 @@
+package bench;
+
+import tracker.TradeDates;
+import tracker.TradeSorter;
+import tracker.TradeSorter.Key;
+import tracker.TradeSorter.Order;
+import tracker.TradeStore;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The boxed comparator sort the table used before against {@link TradeSorter}: a cold radix sort,
+ * the cached re-sort after appending a batch, and a two-key order. Checks both give the same order.
+ * Usage: java bench.SortBenchmark [rows] [appended rows]
+ */
+public class SortBenchmark {
+
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int appended = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        TradeStore store = new TradeStore();
+        Random rnd = new Random(42);
+        add(store, rnd, rows);
+
+        List<Order> byProfit = List.of(new Order(Key.PROFIT, true));
+        List<Order> bySymbolThenProfit = List.of(new Order(Key.SYMBOL, false), new Order(Key.PROFIT, true));
+        for (int round = 0; round < 5; round++) {
+            long t0 = System.nanoTime();
+            int[] expected = comparatorSort(store);
+            long t1 = System.nanoTime();
+            TradeSorter sorter = new TradeSorter(store);
+            int[] cold = sorter.sort(byProfit);
+            long t2 = System.nanoTime();
+            if (!Arrays.equals(expected, cold)) throw new AssertionError("radix order differs from comparator order");
+            sorter.sort(bySymbolThenProfit);
+            long t3 = System.nanoTime();
+
+            add(store, rnd, appended);
+            long t4 = System.nanoTime();
+            int[] warm = sorter.sort(byProfit);
+            long t5 = System.nanoTime();
+            if (!Arrays.equals(comparatorSort(store), warm)) throw new AssertionError("incremental order differs");
+            store.truncate(rows);
+            store.removeListener(sorter);
+
+            System.out.printf("comparator %7.1f ms | radix cold %6.1f ms | symbol+profit %6.1f ms | +%,d rows %5.1f ms%n",
+                    (t1 - t0) / 1e6, (t2 - t1) / 1e6, (t3 - t2) / 1e6, appended, (t5 - t4) / 1e6);
+        }
+    }
+
+    /** Stable sort by descending profit through boxed row ids, like a TableRowSorter would do. */
+    private static int[] comparatorSort(TradeStore store) {
+        Integer[] boxed = new Integer[store.size()];
+        for (int i = 0; i < boxed.length; i++) boxed[i] = i;
+        Arrays.sort(boxed, Comparator.comparingDouble((Integer row) -> store.profit(row) + 0.0).reversed());
+        return Arrays.stream(boxed).mapToInt(Integer::intValue).toArray();
+    }
+
+    private static void add(TradeStore store, Random rnd, int rows) {
+        for (int i = 0; i < rows; i++) {
+            double entry = 1000 + rnd.nextDouble() * 1000, exit = entry + Math.round(rnd.nextGaussian() * 10000) / 100.0;
+            store.add(CsvImportBenchmark.SYMBOLS[rnd.nextInt(6)], CsvImportBenchmark.TYPES[rnd.nextInt(2)],
+                    entry, exit, exit - entry, TradeDates.of(2020 + rnd.nextInt(5), 1 + rnd.nextInt(12), 1 + rnd.nextInt(28)));
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package bench;
+
+import tracker.CsvTradeImporter;
+import tracker.TradeDates;
+import tracker.TradeStore;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+
+/**
+ * Reproducible synthetic trades in the {@code Symbol,Type,Entry,Exit,Profit,Date} schema: the same
+ * seed and row count always give byte-identical output. Each symbol follows its own random walk at
+ * a realistic price level, volatility and tick size; a few majors get most of the volume; trades
+ * are spread over ten years of weekdays whatever the row count; and profit is signed by side, so a
+ * Sell that exits lower is a win.
+ * Usage: java bench.TradeDataGenerator ROWS [SEED] [OUT.csv]
+ */
+public final class TradeDataGenerator {
+    public static final long DEFAULT_SEED = 42;
+
+    private static final String[] SYMBOLS = {"EURUSD", "USDJPY", "XAUUSD", "GBPUSD", "BTCUSD", "US500", "GBPJPY",
+        "ETHUSD", "AUDUSD", "AAPL", "TSLA", "USDCHF"};
+    private static final double[] START = {1.0850, 148.500, 2010.00, 1.2650, 42000.00, 4750.00, 188.000,
+        2300.00, 0.6550, 185.00, 240.00, 0.8800};
+    private static final double[] DAILY_VOL = {0.005, 0.006, 0.010, 0.006, 0.035, 0.011, 0.007,
+        0.040, 0.007, 0.017, 0.035, 0.005};
+    private static final int[] DECIMALS = {5, 3, 2, 5, 2, 2, 3, 2, 5, 2, 2, 5};
+    private static final int TRADING_DAYS = 2610; // ten years of weekdays
+    private static final int FIRST_DAY = TradeDates.of(2015, 1, 5); // a Monday
+
+    private final long seed;
+
+    public TradeDataGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /** Hands {@code rows} trades to {@code sink} in date order. */
+    public void generate(int rows, CsvTradeImporter.RowSink sink) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        double[] price = START.clone();
+        int tradingDay = -1, epochDay = FIRST_DAY;
+        for (int i = 0; i < rows; i++) {
+            int d = (int) ((long) i * TRADING_DAYS / Math.max(1, rows));
+            while (tradingDay < d) {
+                tradingDay++;
+                epochDay = FIRST_DAY + tradingDay / 5 * 7 + tradingDay % 5;
+                for (int s = 0; s < price.length; s++) price[s] *= Math.exp(DAILY_VOL[s] * gaussian(rnd));
+            }
+            double u = rnd.nextDouble();
+            int s = (int) (SYMBOLS.length * u * u); // a few symbols get most of the trades
+            boolean buy = rnd.nextDouble() < 0.55;
+            int holdDays = 1 + (int) (-Math.log(1 - rnd.nextDouble()) * 3);
+            double entry = round(price[s] * (1 + DAILY_VOL[s] * 0.2 * gaussian(rnd)), DECIMALS[s]);
+            double move = DAILY_VOL[s] * Math.sqrt(holdDays) * gaussian(rnd) + (buy ? 0.0004 : -0.0004);
+            double exit = round(entry * (1 + move), DECIMALS[s]);
+            double profit = round(buy ? exit - entry : entry - exit, DECIMALS[s]);
+            sink.row(SYMBOLS[s], buy ? "Buy" : "Sell", entry, exit, profit, epochDay);
+        }
+    }
+
+    public TradeStore store(int rows) {
+        TradeStore store = new TradeStore();
+        generate(rows, store::add);
+        return store;
+    }
+
+    /** Writes {@code rows} trades plus a header as UTF-8 CSV. */
+    public void writeCsv(Path file, int rows) throws IOException {
+        StringBuilder line = new StringBuilder(64);
+        int[] lastDay = {Integer.MIN_VALUE};
+        String[] date = {null};
+        try (BufferedWriter w = Files.newBufferedWriter(file)) {
+            w.write("Symbol,Type,Entry,Exit,Profit,Date\n");
+            IOException[] failed = {null};
+            generate(rows, (symbol, type, entry, exit, profit, day) -> {
+                if (failed[0] != null) return;
+                if (day != lastDay[0]) {
+                    lastDay[0] = day;
+                    date[0] = TradeDates.format(day);
+                }
+                int decimals = DECIMALS[indexOf(symbol)];
+                line.setLength(0);
+                line.append(symbol).append(',').append(type).append(',');
+                appendFixed(line, entry, decimals).append(',');
+                appendFixed(line, exit, decimals).append(',');
+                appendFixed(line, profit, decimals).append(',').append(date[0]).append('\n');
+                try {
+                    w.append(line);
+                } catch (IOException e) {
+                    failed[0] = e;
+                }
+            });
+            if (failed[0] != null) throw failed[0];
+        }
+    }
+
+    /**
+     * A generated CSV in the temp directory, written on first use and reused after that, so
+     * benchmark forks and repeated runs read the same bytes without regenerating them.
+     */
+    public Path cachedCsv(int rows) throws IOException {
+        Path file = Paths.get(System.getProperty("java.io.tmpdir"), "trades-" + rows + "-" + seed + ".csv");
+        if (!Files.exists(file)) {
+            Path tmp = Files.createTempFile(file.getParent(), "trades-", ".tmp");
+            writeCsv(tmp, rows);
+            Files.move(tmp, file, java.nio.file.StandardCopyOption.ATOMIC_MOVE);
+        }
+        return file;
+    }
+
+    private static int indexOf(String symbol) {
+        for (int i = 0; i < SYMBOLS.length; i++) if (SYMBOLS[i].equals(symbol)) return i;
+        throw new IllegalArgumentException(symbol);
+    }
+
+    private static double gaussian(SplittableRandom rnd) {
+        // Box-Muller; SplittableRandom has no nextGaussian on JDK 17
+        return Math.sqrt(-2 * Math.log(1 - rnd.nextDouble())) * Math.cos(2 * Math.PI * rnd.nextDouble());
+    }
+
+    private static double round(double v, int decimals) {
+        double scale = Math.pow(10, decimals);
+        return Math.round(v * scale) / scale;
+    }
+
+    /** Fixed-point text without exponent notation, which Double.toString uses for small values. */
+    static StringBuilder appendFixed(StringBuilder sb, double v, int decimals) {
+        long scale = (long) Math.pow(10, decimals);
+        long units = Math.round(Math.abs(v) * scale);
+        if (v < 0 && units != 0) sb.append('-');
+        sb.append(units / scale);
+        if (decimals > 0) {
+            sb.append('.');
+            String frac = Long.toString(units % scale);
+            for (int i = frac.length(); i < decimals; i++) sb.append('0');
+            sb.append(frac);
+        }
+        return sb;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: java bench.TradeDataGenerator ROWS [SEED] [OUT.csv]");
+            System.exit(2);
+        }
+        int rows = Integer.parseInt(args[0].replace("_", ""));
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : DEFAULT_SEED;
+        Path out = Paths.get(args.length > 2 ? args[2] : "trades-" + rows + ".csv");
+        long t0 = System.nanoTime();
+        new TradeDataGenerator(seed).writeCsv(out, rows);
+        System.out.printf("%,d trades (seed %d) to %s, %,d bytes in %.0f ms%n", rows, seed, out, Files.size(out),
+            (System.nanoTime() - t0) / 1e6);
+    }
+}
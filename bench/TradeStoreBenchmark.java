@@ -0,0 +1,91 @@
+package bench;
+
+import tracker.TradeDates;
+import tracker.TradeStore;
+
+import java.util.LinkedList;
+import java.util.Random;
+
+/**
+ * Heap footprint and scan throughput of the old {@code LinkedList<Trade>} against {@link TradeStore}.
+ * Usage: java bench.TradeStoreBenchmark [rows]
+ */
+public class TradeStoreBenchmark {
+
+    /** Same shape as SmartTraderTracker.Trade. */
+    static final class LegacyTrade {
+        final String symbol, type, date;
+        final double entry, exit, profit;
+
+        LegacyTrade(String symbol, String type, double entry, double exit, double profit, String date) {
+            this.symbol = symbol;
+            this.type = type;
+            this.entry = entry;
+            this.exit = exit;
+            this.profit = profit;
+            this.date = date;
+        }
+    }
+
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+
+        long base = usedHeap();
+        LinkedList<LegacyTrade> list = new LinkedList<>();
+        Random rnd = new Random(42);
+        for (int i = 0; i < rows; i++) {
+            double entry = 1000 + rnd.nextDouble() * 1000, exit = entry + rnd.nextGaussian() * 100;
+            // each row gets its own Strings, as it did when parsed by String.split
+            list.add(new LegacyTrade(new String(CsvImportBenchmark.SYMBOLS[rnd.nextInt(6)]),
+                    new String(CsvImportBenchmark.TYPES[rnd.nextInt(2)]), entry, exit, exit - entry,
+                    "2025-0" + (1 + rnd.nextInt(9)) + "-" + (10 + rnd.nextInt(18))));
+        }
+        long listBytes = usedHeap() - base;
+
+        base = usedHeap();
+        TradeStore store = new TradeStore();
+        rnd = new Random(42);
+        for (int i = 0; i < rows; i++) {
+            double entry = 1000 + rnd.nextDouble() * 1000, exit = entry + rnd.nextGaussian() * 100;
+            store.add(CsvImportBenchmark.SYMBOLS[rnd.nextInt(6)], CsvImportBenchmark.TYPES[rnd.nextInt(2)],
+                    entry, exit, exit - entry, TradeDates.of(2025, 1 + rnd.nextInt(9), 10 + rnd.nextInt(18)));
+        }
+        long storeBytes = usedHeap() - base;
+
+        System.out.printf("%,d rows%n", rows);
+        System.out.printf("LinkedList<Trade> %,14d bytes  %6.1f B/row%n", listBytes, (double) listBytes / rows);
+        System.out.printf("TradeStore        %,14d bytes  %6.1f B/row%n", storeBytes, (double) storeBytes / rows);
+
+        for (int round = 0; round < 5; round++) {
+            long t0 = System.nanoTime();
+            double a = 0;
+            int wins = 0;
+            for (LegacyTrade t : list) {
+                a += t.profit;
+                if (t.profit > 0) wins++;
+            }
+            long t1 = System.nanoTime();
+            double b = 0;
+            int wins2 = 0;
+            TradeStore.DoubleColumn profits = store.profitColumn();
+            for (int c = 0; c < profits.chunkCount(); c++) {
+                double[] chunk = profits.chunk(c);
+                for (int i = 0, n = profits.chunkLength(c); i < n; i++) {
+                    b += chunk[i];
+                    if (chunk[i] > 0) wins2++;
+                }
+            }
+            long t2 = System.nanoTime();
+            if (wins != wins2 || Math.abs(a - b) > 1e-3) throw new IllegalStateException("mismatch");
+            System.out.printf("summary scan: list %7.2f ms (%,.0f rows/s)   store %7.2f ms (%,.0f rows/s)%n",
+                    (t1 - t0) / 1e6, rows / ((t1 - t0) / 1e9), (t2 - t1) / 1e6, rows / ((t2 - t1) / 1e9));
+        }
+        if (list.size() != store.size()) throw new IllegalStateException();
+    }
+
+    static long usedHeap() {
+        for (int i = 0; i < 3; i++) System.gc();
+        Runtime rt = Runtime.getRuntime();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
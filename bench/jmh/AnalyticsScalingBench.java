@@ -0,0 +1,95 @@
+package bench.jmh;
+
+import bench.TradeDataGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tracker.TradeAnalytics;
+import tracker.TradeStore;
+
+import java.util.Arrays;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How Breakdown's fork/join analysis scales with the pool: {@link TradeAnalytics} on a pool of
+ * {@code threads} workers, against the same breakdowns computed row by row on the calling thread
+ * (what Show Stats and the summary did before the analysis was parallel). The baseline does not
+ * depend on {@code threads}; run it once with {@code -p threads=1}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalyticsScalingBench {
+    @Param({"5000000"})
+    public int rows;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private TradeStore store;
+    private ForkJoinPool pool;
+    private TradeAnalytics analytics;
+
+    @Setup
+    public void setup() {
+        store = new TradeDataGenerator(TradeDataGenerator.DEFAULT_SEED).store(rows);
+        pool = new ForkJoinPool(threads);
+        analytics = new TradeAnalytics(pool);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public TradeAnalytics.Report forkJoin() {
+        return analytics.analyze(store);
+    }
+
+    /** The same breakdowns through the store accessors, one row at a time. */
+    @Benchmark
+    public double sequential() {
+        int symbols = store.symbols().size(), types = store.types().size();
+        double[] bySymbol = new double[symbols], byType = new double[types];
+        TreeMap<Integer, double[]> byDay = new TreeMap<>();
+        double net = 0, max = Double.NEGATIVE_INFINITY, min = Double.POSITIVE_INFINITY, mean = 0, m2 = 0;
+        double equity = 0, peak = 0, drawdown = 0;
+        int wins = 0;
+        for (int row = 0; row < store.size(); row++) {
+            double profit = store.profit(row);
+            net += profit;
+            if (profit > 0) wins++;
+            max = Math.max(max, profit);
+            min = Math.min(min, profit);
+            double delta = profit - mean;
+            mean += delta / (row + 1);
+            m2 += delta * (profit - mean);
+            equity += profit;
+            peak = Math.max(peak, equity);
+            drawdown = Math.max(drawdown, peak - equity);
+            bySymbol[store.symbolId(row)] += profit;
+            byType[store.typeId(row)] += profit;
+            byDay.computeIfAbsent(store.epochDay(row), d -> new double[1])[0] += profit;
+        }
+        double[] sorted = new double[store.size()];
+        for (int row = 0; row < sorted.length; row++) sorted[row] = store.profit(row);
+        Arrays.sort(sorted);
+        double median = sorted[sorted.length / 2];
+        return net + wins + max + min + m2 + drawdown + median + bySymbol[0] + byType[0] + byDay.size();
+    }
+}
@@ -0,0 +1,56 @@
+package bench.jmh;
+
+import bench.TradeDataGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tracker.BatchTradeImporter;
+import tracker.CsvTradeImporter;
+import tracker.TradeStore;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Upload CSV (one file, straight into a store) and Batch Import (parallel parse plus de-duplication). */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvImportBench {
+    @Param({"10000", "1000000"})
+    public int rows;
+
+    private Path file;
+
+    @Setup
+    public void setup() throws IOException {
+        file = new TradeDataGenerator(TradeDataGenerator.DEFAULT_SEED).cachedCsv(rows);
+    }
+
+    @Benchmark
+    public TradeStore uploadCsv() throws IOException {
+        TradeStore store = new TradeStore();
+        new CsvTradeImporter().parse(file, store::add, null, null);
+        return store;
+    }
+
+    @Benchmark
+    public List<BatchTradeImporter.FileReport> batchImport() throws InterruptedException {
+        TradeStore store = new TradeStore();
+        return new BatchTradeImporter().run(Collections.singletonList(file), (report, unique) -> store.appendAll(unique),
+            null, null);
+    }
+}
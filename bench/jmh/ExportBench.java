@@ -0,0 +1,86 @@
+package bench.jmh;
+
+import bench.TradeDataGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tracker.CsvTradeExporter;
+import tracker.PdfTradeReport;
+import tracker.TradeRules;
+import tracker.TradeStatistics;
+import tracker.TradeStore;
+import tracker.TradeTags;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Export CSV (plain, into a discarding stream, and gzip to a file) and Export PDF, with the app's
+ * note column. PDF rows are capped by the smaller sizes: a million-row report takes minutes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExportBench {
+    @Param({"10000", "100000"})
+    public int rows;
+
+    private TradeStore store;
+    private IntFunction<String> notes;
+    private Map<String, String> summary;
+    private Path dir, csv, pdf;
+
+    @Setup
+    public void setup() throws IOException {
+        store = new TradeDataGenerator(TradeDataGenerator.DEFAULT_SEED).store(rows);
+        notes = new TradeTags(store, TradeRules.DEFAULT)::label;
+        TradeStatistics stats = new TradeStatistics(store);
+        summary = PdfTradeReport.summary(stats);
+        store.removeListener(stats);
+        dir = Files.createTempDirectory("export-bench");
+        csv = dir.resolve("trades.csv.gz");
+        pdf = dir.resolve("report.pdf");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(csv);
+        Files.deleteIfExists(pdf);
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public CsvTradeExporter.Result csv() throws IOException {
+        return new CsvTradeExporter(store, notes).export(OutputStream.nullOutputStream(),
+            CsvTradeExporter.Rows.all(store.size()), null, null);
+    }
+
+    @Benchmark
+    public CsvTradeExporter.Result csvGzip() throws IOException {
+        return new CsvTradeExporter(store, notes).export(csv, CsvTradeExporter.Rows.all(store.size()), true, null, null);
+    }
+
+    @Benchmark
+    public PdfTradeReport.Result pdf() throws Exception {
+        return new PdfTradeReport(store, notes).write(pdf, "bench", new LinkedHashMap<>(), summary, null, store.size(),
+            null, null);
+    }
+}
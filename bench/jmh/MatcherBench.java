@@ -0,0 +1,84 @@
+package bench.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tracker.TradeMatcher;
+import tracker.TradeStore;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replaying fills through {@link TradeMatcher}, once with closed trades discarded (the engine
+ * alone) and once streamed into a {@link TradeStore}. Fills are a random walk of position sizes
+ * generated once, so lots pile up and unwind like a real book.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MatcherBench {
+    @Param({"1000000"})
+    public int fills;
+
+    @Param({"50"})
+    public int symbols;
+
+    @Param({"FIFO", "LIFO", "AVERAGE"})
+    public TradeMatcher.Method method;
+
+    private int[] symbol;
+    private boolean[] buy;
+    private double[] qty, price;
+
+    @Setup
+    public void setup() {
+        symbol = new int[fills];
+        buy = new boolean[fills];
+        qty = new double[fills];
+        price = new double[fills];
+        Random rnd = new Random(42);
+        double[] last = new double[symbols];
+        Arrays.fill(last, 100);
+        for (int i = 0; i < fills; i++) {
+            int s = rnd.nextInt(symbols);
+            last[s] = Math.max(1, last[s] + rnd.nextGaussian() * 0.5);
+            symbol[i] = s;
+            buy[i] = rnd.nextBoolean();
+            qty[i] = 1 + rnd.nextInt(100);
+            price[i] = Math.round(last[s] * 100) / 100.0;
+        }
+    }
+
+    @Benchmark
+    public double engine() {
+        double[] sum = {0};
+        replay(new TradeMatcher(method, (sy, type, entry, exit, profit, day) -> sum[0] += profit));
+        return sum[0];
+    }
+
+    @Benchmark
+    public TradeStore intoStore() {
+        TradeStore store = new TradeStore();
+        replay(new TradeMatcher(method, store::add));
+        return store;
+    }
+
+    private void replay(TradeMatcher m) {
+        int[] ids = new int[symbols];
+        for (int s = 0; s < symbols; s++) ids[s] = m.symbolId("SYM" + s);
+        for (int i = 0; i < fills; i++) m.fill(ids[symbol[i]], buy[i], qty[i], price[i], 19_000 + (i >> 12));
+    }
+}
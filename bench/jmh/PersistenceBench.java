@@ -0,0 +1,74 @@
+package bench.jmh;
+
+import bench.TradeDataGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tracker.TradeFile;
+import tracker.TradeJournal;
+import tracker.TradeStore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Save and load as the app does them: the columnar snapshot written by Save and read at login,
+ * and opening a journal (snapshot plus an empty log), which is what Load Trades does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersistenceBench {
+    @Param({"10000", "1000000"})
+    public int rows;
+
+    private TradeStore store;
+    private Path dir, snapshot, saved, log;
+
+    @Setup
+    public void setup() throws IOException {
+        store = new TradeDataGenerator(TradeDataGenerator.DEFAULT_SEED).store(rows);
+        dir = Files.createTempDirectory("persistence-bench");
+        snapshot = dir.resolve("trades.bin");
+        saved = dir.resolve("saved.bin");
+        log = dir.resolve("trades.journal");
+        TradeFile.write(store, snapshot);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        for (Path p : new Path[]{snapshot, saved, log}) Files.deleteIfExists(p);
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public void save() throws IOException {
+        TradeFile.write(store, saved);
+    }
+
+    @Benchmark
+    public TradeStore load() throws IOException {
+        return TradeFile.read(snapshot);
+    }
+
+    @Benchmark
+    public TradeStore openJournal() throws IOException {
+        TradeStore loaded = new TradeStore();
+        TradeJournal.open(loaded, snapshot, log).close();
+        return loaded;
+    }
+}
@@ -0,0 +1,162 @@
+package bench.jmh;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tracker.MarkToMarket;
+import tracker.PriceFeed;
+import tracker.PriceFeedRunner;
+import tracker.SocketPriceFeed;
+import tracker.TradeMatcher;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Ticks through {@link PriceFeedRunner} into {@link MarkToMarket}: an in-memory feed at full
+ * speed, the same from a loopback socket stand-in server, and one second of ticks paced at
+ * {@code rate}, which reports the worst arrival-to-mark lag alongside its time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PriceFeedBench {
+    @Param({"1000000"})
+    public int ticks;
+
+    @Param({"100"})
+    public int symbols;
+
+    @Param({"200000"})
+    public int rate;
+
+    private String[] names;
+    private int[] symbol;
+    private double[] price;
+    private TradeMatcher matcher;
+
+    /** Worst lag of the last paced run. */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Lag {
+        public double maxLagMs;
+    }
+
+    @Setup
+    public void setup() {
+        names = new String[symbols];
+        matcher = new TradeMatcher(TradeMatcher.Method.FIFO, (s, t, e, x, p, d) -> { });
+        for (int s = 0; s < symbols; s++) {
+            names[s] = "SYM" + s;
+            matcher.fill(names[s], s % 2 == 0, 100, 50, 0);
+        }
+        symbol = new int[ticks];
+        price = new double[ticks];
+        Random rnd = new Random(42);
+        for (int i = 0; i < ticks; i++) {
+            symbol[i] = rnd.nextInt(symbols);
+            price[i] = 50 + rnd.nextGaussian();
+        }
+    }
+
+    @Benchmark
+    public long inMemory() throws InterruptedException {
+        return run(new ArrayFeed(names, symbol, price, 0)).ticks();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public long paced(Lag lag) throws InterruptedException {
+        MarkToMarket marks = run(new ArrayFeed(names, symbol, price, rate));
+        lag.maxLagMs = marks.maxLagNanos() / 1e6;
+        return marks.ticks();
+    }
+
+    @Benchmark
+    public long loopbackSocket() throws Exception {
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            Thread writer = new Thread(() -> {
+                try (Socket s = server.accept(); OutputStream out = new BufferedOutputStream(s.getOutputStream(), 1 << 16)) {
+                    StringBuilder sb = new StringBuilder();
+                    for (int i = 0; i < symbol.length; i++) {
+                        sb.setLength(0);
+                        sb.append(names[symbol[i]]).append(',').append(price[i]).append('\n');
+                        out.write(sb.toString().getBytes(StandardCharsets.US_ASCII));
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, "stand-in-server");
+            writer.start();
+            long applied = run(new SocketPriceFeed("127.0.0.1", server.getLocalPort())).ticks();
+            writer.join();
+            return applied;
+        }
+    }
+
+    private MarkToMarket run(PriceFeed feed) throws InterruptedException {
+        MarkToMarket marks = new MarkToMarket(matcher);
+        PriceFeedRunner runner = new PriceFeedRunner(feed, marks, PriceFeedRunner.DEFAULT_RING);
+        runner.start();
+        runner.await();
+        return marks;
+    }
+
+    /** Ticks straight from arrays; paced runs stop after one second's worth. */
+    private static final class ArrayFeed implements PriceFeed {
+        private final String[] names;
+        private final int[] symbol;
+        private final double[] price;
+        private final int limit;
+        private final long period;
+        private volatile boolean closed;
+
+        ArrayFeed(String[] names, int[] symbol, double[] price, int rate) {
+            this.names = names;
+            this.symbol = symbol;
+            this.price = price;
+            this.period = rate > 0 ? 1_000_000_000L / rate : 0;
+            this.limit = rate > 0 ? Math.min(symbol.length, rate) : symbol.length;
+        }
+
+        @Override
+        public void run(TickSink sink) {
+            long start = System.nanoTime();
+            for (int i = 0; i < limit && !closed; i++) {
+                if (period > 0) {
+                    long wait = start + i * period - System.nanoTime();
+                    if (wait > 100_000) LockSupport.parkNanos(wait);
+                }
+                sink.tick(names[symbol[i]], price[i], System.nanoTime());
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
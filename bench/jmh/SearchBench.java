@@ -0,0 +1,79 @@
+package bench.jmh;
+
+import bench.TradeDataGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tracker.RowBitmap;
+import tracker.TradeDates;
+import tracker.TradeIndex;
+import tracker.TradeQuery;
+import tracker.TradeStore;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The search box against a warm index, for a symbol substring, a one-year date range and both
+ * combined with wins only, plus building the index itself. {@code scan} is the same combined
+ * query tested row by row, the baseline the index has to beat.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBench {
+    @Param({"10000", "1000000"})
+    public int rows;
+
+    private TradeStore store;
+    private TradeIndex index;
+    private final TradeQuery text = new TradeQuery().text("jpy");
+    private final TradeQuery year = new TradeQuery().dates(TradeDates.of(2019, 1, 1), TradeDates.of(2019, 12, 31));
+    private final TradeQuery combined = new TradeQuery().text("usd")
+        .dates(TradeDates.of(2019, 1, 1), TradeDates.of(2019, 12, 31)).sign(TradeQuery.Sign.WINS);
+
+    @Setup
+    public void setup() {
+        store = new TradeDataGenerator(TradeDataGenerator.DEFAULT_SEED).store(rows);
+        index = new TradeIndex(store);
+    }
+
+    @Benchmark
+    public RowBitmap text() {
+        return index.search(text);
+    }
+
+    @Benchmark
+    public RowBitmap dateRange() {
+        return index.search(year);
+    }
+
+    @Benchmark
+    public RowBitmap combined() {
+        return index.search(combined);
+    }
+
+    @Benchmark
+    public int scan() {
+        int n = 0;
+        for (int row = 0; row < store.size(); row++) if (combined.matches(store, row)) n++;
+        return n;
+    }
+
+    @Benchmark
+    public TradeIndex buildIndex() {
+        TradeIndex built = new TradeIndex(store);
+        store.removeListener(built);
+        return built;
+    }
+}
@@ -0,0 +1,74 @@
+package bench.jmh;
+
+import bench.TradeDataGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tracker.TradeSorter;
+import tracker.TradeStore;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Column sorts from a cold sorter (the first click on a header) and from a warm one (clicking
+ * back to a column already sorted once). Each invocation gets a fresh sorter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SortBench {
+    @Param({"10000", "1000000"})
+    public int rows;
+
+    private TradeStore store;
+    private TradeSorter sorter;
+    private final List<TradeSorter.Order> byProfit = List.of(new TradeSorter.Order(TradeSorter.Key.PROFIT, true));
+    private final List<TradeSorter.Order> bySymbolThenDate = Arrays.asList(
+        new TradeSorter.Order(TradeSorter.Key.SYMBOL, false), new TradeSorter.Order(TradeSorter.Key.DATE, true));
+
+    @Setup
+    public void setup() {
+        store = new TradeDataGenerator(TradeDataGenerator.DEFAULT_SEED).store(rows);
+    }
+
+    @Setup(Level.Invocation)
+    public void newSorter() {
+        sorter = new TradeSorter(store);
+    }
+
+    @TearDown(Level.Invocation)
+    public void dropSorter() {
+        store.removeListener(sorter);
+    }
+
+    @Benchmark
+    public int[] profitCold() {
+        return sorter.sort(byProfit);
+    }
+
+    @Benchmark
+    public int[] symbolThenDateCold() {
+        return sorter.sort(bySymbolThenDate);
+    }
+
+    @Benchmark
+    public int[] profitWarm() {
+        sorter.sort(byProfit);
+        return sorter.sort(byProfit);
+    }
+}
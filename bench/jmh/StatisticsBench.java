@@ -0,0 +1,64 @@
+package bench.jmh;
+
+import bench.TradeDataGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tracker.PdfTradeReport;
+import tracker.TradeAnalytics;
+import tracker.TradeStatistics;
+import tracker.TradeStore;
+import tracker.TradeTimeSeries;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Show Stats (the running totals, rebuilt from scratch as after a login), Breakdown (the full
+ * parallel analysis) and the equity-curve index behind Equity Curve.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatisticsBench {
+    @Param({"10000", "1000000"})
+    public int rows;
+
+    private TradeStore store;
+    private final TradeAnalytics analytics = new TradeAnalytics();
+
+    @Setup
+    public void setup() {
+        store = new TradeDataGenerator(TradeDataGenerator.DEFAULT_SEED).store(rows);
+    }
+
+    @Benchmark
+    public Map<String, String> statistics() {
+        TradeStatistics stats = new TradeStatistics(store);
+        store.removeListener(stats);
+        return PdfTradeReport.summary(stats);
+    }
+
+    @Benchmark
+    public TradeAnalytics.Report breakdown() {
+        return analytics.analyze(store);
+    }
+
+    @Benchmark
+    public TradeTimeSeries equityCurve() {
+        TradeTimeSeries series = new TradeTimeSeries(store);
+        store.removeListener(series);
+        return series;
+    }
+}
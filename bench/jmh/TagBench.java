@@ -0,0 +1,71 @@
+package bench.jmh;
+
+import bench.TradeDataGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import tracker.TradeRules;
+import tracker.TradeStore;
+import tracker.TradeTags;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Re-tagging every row, as applying edited rules does, for the built-in notes and for a set that
+ * mixes symbol patterns, type, R-multiple and date conditions; plus reading every row's note the
+ * way the table and exports do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TagBench {
+    private static final TradeRules MIXED = TradeRules.parse(
+        "risk 25\n" +
+        "symbol in *JPY, XAUUSD and type = Sell and r >= 2 -> Big short\n" +
+        "symbol = BTCUSD and date >= 2021-01-01 and date < 2022-01-01 -> Crypto 2021\n" +
+        "type = Buy and r >= 3 -> Big long\n" +
+        "symbol not in EURUSD, GBPUSD and r <= -2 -> Large loss\n" +
+        "profit > 0 -> Win\n" +
+        "else -> Loss\n");
+
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    private TradeStore store;
+    private TradeTags tags;
+
+    @Setup
+    public void setup() {
+        store = new TradeDataGenerator(TradeDataGenerator.DEFAULT_SEED).store(rows);
+        tags = new TradeTags(store, TradeRules.DEFAULT);
+    }
+
+    @Benchmark
+    public TradeTags retagDefault() {
+        tags.setRules(TradeRules.DEFAULT);
+        return tags;
+    }
+
+    @Benchmark
+    public TradeTags retagMixed() {
+        tags.setRules(MIXED);
+        return tags;
+    }
+
+    @Benchmark
+    public void labels(Blackhole bh) {
+        for (int row = 0; row < rows; row++) bh.consume(tags.label(row));
+    }
+}
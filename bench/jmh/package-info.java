@@ -0,0 +1,14 @@
+/**
+ * JMH benchmarks, one class per area: CSV import, save/load, statistics and their fork/join
+ * scaling, search, sort, tagging and CSV/PDF export over data from {@link bench.TradeDataGenerator},
+ * plus fill matching and the live price feed over generated random walks. Build and run from the
+ * repository root:
+ * <pre>
+ *   mvn -B package
+ *   java -jar jmh/target/benchmarks.jar                          # everything at the default sizes
+ *   java -jar jmh/target/benchmarks.jar Sort -p rows=10000000    # one area at 10M rows
+ *   java -jar jmh/target/benchmarks.jar -rf json -rff base.json  # keep a baseline to compare against
+ * </pre>
+ * Generated CSVs are cached in {@code java.io.tmpdir} by row count and seed.
+ */
+package bench.jmh;
@@ -0,0 +1,203 @@
+package tracker;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Imports many CSV files at once: one {@link CsvTradeImporter} per file on a bounded pool, each
+ * parsing into its own {@link TradeStore}. Results are then deduplicated and handed to a
+ * {@link Sink} strictly in file order on the calling thread. The output is the same however the
+ * parses interleave.
+ * <p>
+ * A trade is a duplicate if (symbol, type, entry, exit, date) matches a row seen earlier in this
+ * batch or in the {@link #seed seeded} store. Rows are compared by a 64-bit hash kept in a
+ * {@link LongHashSet}. A false match needs a 64-bit collision, which is negligible at any
+ * realistic row count.
+ */
+public final class BatchTradeImporter {
+    private static final long PRIME = 0x100000001B3L;
+
+    public static final class FileReport {
+        public final Path file;
+        public final int rows, rejected, duplicates;
+        public final String error; // null unless the file could not be read
+
+        FileReport(Path file, int rows, int rejected, int duplicates, String error) {
+            this.file = file;
+            this.rows = rows;
+            this.rejected = rejected;
+            this.duplicates = duplicates;
+            this.error = error;
+        }
+    }
+
+    /** Receives each file's new trades, in file order, on the thread that called {@link #run}. */
+    public interface Sink {
+        void accept(FileReport report, TradeStore unique);
+    }
+
+    /** May be called from parser threads. */
+    public interface ProgressListener {
+        void progress(long bytesRead, long totalBytes, int filesDone, int totalFiles);
+    }
+
+    private final int threads;
+    private final LongHashSet seen = new LongHashSet(1 << 16);
+
+    public BatchTradeImporter(int threads) {
+        this.threads = threads;
+    }
+
+    public BatchTradeImporter() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /** Treats every row of {@code existing} as already imported. */
+    public void seed(TradeStore existing) {
+        long[] symbols = hashes(existing.symbols()), types = hashes(existing.types());
+        for (int row = 0; row < existing.size(); row++) {
+            seen.add(rowHash(symbols[existing.symbolId(row)], types[existing.typeId(row)],
+                    existing.entry(row), existing.exit(row), existing.epochDay(row)));
+        }
+    }
+
+    /** Regular files as given; directories contribute their {@code *.csv} files, sorted by name. */
+    public static List<Path> expand(List<Path> paths) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (Path p : paths) {
+            if (!Files.isDirectory(p)) {
+                files.add(p);
+                continue;
+            }
+            try (Stream<Path> s = Files.list(p)) {
+                s.filter(f -> Files.isRegularFile(f) && f.getFileName().toString().toLowerCase().endsWith(".csv"))
+                        .sorted()
+                        .forEach(files::add);
+            }
+        }
+        return files;
+    }
+
+    public List<FileReport> run(List<Path> files, Sink sink, ProgressListener progress, AtomicBoolean cancel)
+            throws InterruptedException {
+        long total = 0;
+        for (Path f : files) {
+            try {
+                total += Files.size(f);
+            } catch (IOException ignored) {
+                // reported when the parse fails
+            }
+        }
+        long totalBytes = total;
+        AtomicLong bytesRead = new AtomicLong();
+        AtomicLong filesDone = new AtomicLong();
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, files.size())), r -> {
+            Thread t = new Thread(r, "batch-import");
+            t.setDaemon(true);
+            return t;
+        });
+        List<Future<Parsed>> parses = new ArrayList<>();
+        try {
+            for (Path file : files) {
+                parses.add(pool.submit(() -> {
+                    TradeStore store = new TradeStore();
+                    long[] last = {0};
+                    CsvTradeImporter.Result result = new CsvTradeImporter().parse(file, store::add, (read, size, rows) -> {
+                        long now = bytesRead.addAndGet(read - last[0]);
+                        last[0] = read;
+                        if (progress != null) progress.progress(now, totalBytes, (int) filesDone.get(), files.size());
+                    }, cancel);
+                    filesDone.incrementAndGet();
+                    return new Parsed(store, result);
+                }));
+            }
+
+            List<FileReport> reports = new ArrayList<>();
+            for (int i = 0; i < files.size(); i++) {
+                Path file = files.get(i);
+                Parsed parsed;
+                try {
+                    parsed = parses.get(i).get();
+                } catch (ExecutionException e) {
+                    FileReport report = new FileReport(file, 0, 0, 0, String.valueOf(e.getCause()));
+                    reports.add(report);
+                    sink.accept(report, new TradeStore());
+                    continue;
+                }
+                TradeStore unique = dedupe(parsed.store);
+                FileReport report = new FileReport(file, unique.size(), parsed.result.rejected,
+                        parsed.store.size() - unique.size(), null);
+                reports.add(report);
+                sink.accept(report, unique);
+                if (cancel != null && cancel.get()) break;
+            }
+            if (progress != null) progress.progress(totalBytes, totalBytes, files.size(), files.size());
+            return reports;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static final class Parsed {
+        final TradeStore store;
+        final CsvTradeImporter.Result result;
+
+        Parsed(TradeStore store, CsvTradeImporter.Result result) {
+            this.store = store;
+            this.result = result;
+        }
+    }
+
+    /** Rows of {@code parsed} not seen before; {@code parsed} itself if every row is new. */
+    private TradeStore dedupe(TradeStore parsed) {
+        long[] symbols = hashes(parsed.symbols()), types = hashes(parsed.types());
+        TradeStore unique = null;
+        for (int row = 0; row < parsed.size(); row++) {
+            boolean fresh = seen.add(rowHash(symbols[parsed.symbolId(row)], types[parsed.typeId(row)],
+                    parsed.entry(row), parsed.exit(row), parsed.epochDay(row)));
+            if (fresh && unique == null) continue;
+            if (unique == null) {
+                unique = new TradeStore();
+                for (int r = 0; r < row; r++) copyRow(parsed, r, unique);
+            }
+            if (fresh) copyRow(parsed, row, unique);
+        }
+        return unique == null ? parsed : unique;
+    }
+
+    private static void copyRow(TradeStore from, int row, TradeStore to) {
+        to.add(from.symbol(row), from.type(row), from.entry(row), from.exit(row), from.profit(row), from.epochDay(row));
+    }
+
+    private static long[] hashes(StringDictionary dict) {
+        long[] h = new long[dict.size()];
+        for (int id = 0; id < h.length; id++) {
+            String s = dict.get(id);
+            long x = 0xCBF29CE484222325L;
+            for (int i = 0; i < s.length(); i++) x = (x ^ s.charAt(i)) * PRIME;
+            h[id] = x;
+        }
+        return h;
+    }
+
+    static long rowHash(long symbol, long type, double entry, double exit, int day) {
+        long h = symbol;
+        h = (h ^ type) * PRIME;
+        h = (h ^ Double.doubleToLongBits(entry)) * PRIME;
+        h = (h ^ Double.doubleToLongBits(exit)) * PRIME;
+        h = (h ^ day) * PRIME;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+}
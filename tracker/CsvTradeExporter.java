@@ -0,0 +1,309 @@
+package tracker;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes trades as CSV. Rows are cut into blocks of {@link #BLOCK_ROWS}; blocks are formatted in
+ * parallel into reusable byte buffers and written strictly in order, either straight to a
+ * {@link FileChannel} or through gzip. Doubles go through {@link #appendFixed2}, which matches
+ * {@code String.format(Locale.ROOT, "%.2f")} without allocating.
+ * <p>
+ * Which rows are written is described by a {@link Rows} view: everything, an {@code int[]} of row
+ * ids (a sort order or search result), or a {@link RowBitmap}. None of them copies trades.
+ */
+public final class CsvTradeExporter {
+    static final int BLOCK_ROWS = 8192;
+    static final String HEADER = "Symbol,Type,Entry,Exit,Profit,Date,Note";
+    private static final byte[] NEWLINE = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+
+    /** Which store rows to export, in output order, cut into blocks. */
+    public interface Rows {
+        int blocks();
+
+        /** Calls {@code sink} for each row of {@code block}, in output order. */
+        void forEach(int block, IntConsumer sink);
+
+        static Rows all(int count) {
+            return new Rows() {
+                public int blocks() {
+                    return (count + BLOCK_ROWS - 1) / BLOCK_ROWS;
+                }
+
+                public void forEach(int block, IntConsumer sink) {
+                    for (int row = block * BLOCK_ROWS, end = Math.min(count, row + BLOCK_ROWS); row < end; row++) sink.accept(row);
+                }
+            };
+        }
+
+        /** The first {@code count} entries of {@code rows}; the array must not change during the export. */
+        static Rows of(int[] rows, int count) {
+            return new Rows() {
+                public int blocks() {
+                    return (count + BLOCK_ROWS - 1) / BLOCK_ROWS;
+                }
+
+                public void forEach(int block, IntConsumer sink) {
+                    for (int i = block * BLOCK_ROWS, end = Math.min(count, i + BLOCK_ROWS); i < end; i++) sink.accept(rows[i]);
+                }
+            };
+        }
+
+        /** Rows of {@code bitmap} below {@code count}, ascending. */
+        static Rows of(RowBitmap bitmap, int count) {
+            return new Rows() {
+                public int blocks() {
+                    return (count + BLOCK_ROWS - 1) / BLOCK_ROWS;
+                }
+
+                public void forEach(int block, IntConsumer sink) {
+                    for (int row = block * BLOCK_ROWS, end = Math.min(count, row + BLOCK_ROWS); row < end; row++) {
+                        if (bitmap.contains(row)) sink.accept(row);
+                    }
+                }
+            };
+        }
+    }
+
+    public interface ProgressListener {
+        void progress(int blocksWritten, int totalBlocks);
+    }
+
+    public static final class Result {
+        public final int rows;
+        public final long bytes; // CSV bytes before any compression
+        public final boolean cancelled;
+
+        Result(int rows, long bytes, boolean cancelled) {
+            this.rows = rows;
+            this.bytes = bytes;
+            this.cancelled = cancelled;
+        }
+    }
+
+    private final TradeStore store;
+    private final IntFunction<String> notes;
+    private final ExecutorService pool;
+
+    /** {@code pool} formats blocks; the calling thread does all writing. */
+    public CsvTradeExporter(TradeStore store, IntFunction<String> notes, ExecutorService pool) {
+        this.store = store;
+        this.notes = notes;
+        this.pool = pool;
+    }
+
+    public CsvTradeExporter(TradeStore store, IntFunction<String> notes) {
+        this(store, notes, ForkJoinPool.commonPool());
+    }
+
+    /** Exports {@code rows} to {@code file}, gzip-compressed if {@code gzip}. A cancelled export is deleted. */
+    public Result export(Path file, Rows rows, boolean gzip, ProgressListener progress, AtomicBoolean cancel) throws IOException {
+        Result result;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             OutputStream gz = gzip ? new GZIPOutputStream(Channels.newOutputStream(ch), 1 << 16) : null) {
+            if (gz != null) {
+                result = run(gz::write, rows, progress, cancel);
+            } else {
+                result = run((buf, off, len) -> {
+                    ByteBuffer bb = ByteBuffer.wrap(buf, off, len);
+                    while (bb.hasRemaining()) ch.write(bb);
+                }, rows, progress, cancel);
+            }
+        }
+        if (result.cancelled) Files.deleteIfExists(file);
+        return result;
+    }
+
+    /** Streams {@code rows} to {@code out}, which is flushed but left open. */
+    public Result export(OutputStream out, Rows rows, ProgressListener progress, AtomicBoolean cancel) throws IOException {
+        Result result = run(out::write, rows, progress, cancel);
+        out.flush();
+        return result;
+    }
+
+    private interface Output {
+        void write(byte[] buf, int off, int len) throws IOException;
+    }
+
+    private Result run(Output out, Rows rows, ProgressListener progress, AtomicBoolean cancel) throws IOException {
+        byte[][] symbols = encode(store.symbols()), types = encode(store.types());
+        int blocks = rows.blocks();
+        int inFlight = Math.max(2, 2 * Runtime.getRuntime().availableProcessors());
+        ArrayBlockingQueue<Block> free = new ArrayBlockingQueue<>(inFlight);
+        for (int i = 0; i < inFlight; i++) free.add(new Block());
+        ArrayDeque<Future<Block>> queue = new ArrayDeque<>();
+
+        int written = 0;
+        long bytes = 0;
+        boolean cancelled = false;
+        try {
+            byte[] header = (HEADER + System.lineSeparator()).getBytes(StandardCharsets.US_ASCII);
+            out.write(header, 0, header.length);
+            bytes += header.length;
+
+            int next = 0;
+            for (int done = 0; done < blocks; done++) {
+                while (next < blocks && queue.size() < inFlight) {
+                    int b = next++;
+                    Block buf = free.poll();
+                    queue.add(pool.submit(() -> format(rows, b, buf, symbols, types)));
+                }
+                Block block = await(queue.poll());
+                out.write(block.buf, 0, block.len);
+                bytes += block.len;
+                written += block.rows;
+                free.add(block);
+                if (progress != null) progress.progress(done + 1, blocks);
+                if (cancel != null && cancel.get()) {
+                    cancelled = true;
+                    break;
+                }
+            }
+        } finally {
+            for (Future<Block> f : queue) f.cancel(false);
+        }
+        return new Result(written, bytes, cancelled);
+    }
+
+    private static Block await(Future<Block> f) throws IOException {
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Export interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Export failed: " + e.getCause(), e.getCause());
+        }
+    }
+
+    private Block format(Rows rows, int b, Block out, byte[][] symbols, byte[][] types) {
+        out.len = 0;
+        out.rows = 0;
+        Map<String, byte[]> noteBytes = out.notes;
+        rows.forEach(b, row -> {
+            out.append(symbols[store.symbolId(row)]).put(',');
+            out.append(types[store.typeId(row)]).put(',');
+            out.fixed2(store.entry(row)).put(',');
+            out.fixed2(store.exit(row)).put(',');
+            out.fixed2(store.profit(row)).put(',');
+            out.ensure(16);
+            out.len = appendDate(out.buf, out.len, store.epochDay(row));
+            out.put(',');
+            String note = notes.apply(row);
+            byte[] nb = noteBytes.get(note);
+            if (nb == null) {
+                if (noteBytes.size() == 1024) noteBytes.clear();
+                noteBytes.put(note, nb = field(note));
+            }
+            out.append(nb).append(NEWLINE);
+            out.rows++;
+        });
+        return out;
+    }
+
+    private static byte[][] encode(StringDictionary dict) {
+        byte[][] bytes = new byte[dict.size()][];
+        for (int id = 0; id < bytes.length; id++) bytes[id] = field(dict.get(id));
+        return bytes;
+    }
+
+    /** UTF-8 bytes of a CSV field, quoted only if it contains a separator, quote or line break. */
+    static byte[] field(String s) {
+        if (s == null) return new byte[0];
+        boolean quote = false;
+        for (int i = 0; i < s.length() && !quote; i++) {
+            char c = s.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        return (quote ? '"' + s.replace("\"", "\"\"") + '"' : s).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int appendDate(byte[] buf, int pos, int day) {
+        if (day == TradeDates.NO_DATE) return pos;
+        String s = TradeDates.format(day);
+        for (int i = 0; i < s.length(); i++) buf[pos++] = (byte) s.charAt(i);
+        return pos;
+    }
+
+    /**
+     * Writes {@code v} as {@code String.format(Locale.ROOT, "%.2f", v)} would (HALF_UP, no grouping,
+     * always a '.', "-0.00" for small negatives) and returns the new position. Values within 1e-3 of a rounding tie, large
+     * magnitudes and non-finite values take the exact {@code String.format} path. For
+     * {@code |v| < 1e15} at most 21 bytes are written.
+     */
+    public static int appendFixed2(byte[] buf, int pos, double v) {
+        double x = Math.abs(v) * 100;
+        if (!(x < 1e11)) return appendSlow(buf, pos, v);
+        double floor = Math.floor(x), frac = x - floor;
+        if (Math.abs(frac - 0.5) < 1e-3) return appendSlow(buf, pos, v);
+        long cents = (long) floor + (frac > 0.5 ? 1 : 0);
+        if (Double.doubleToRawLongBits(v) < 0) buf[pos++] = '-';
+        long whole = cents / 100;
+        int digits = 1;
+        for (long t = whole; t >= 10; t /= 10) digits++;
+        for (int i = pos + digits - 1; i >= pos; i--, whole /= 10) buf[i] = (byte) ('0' + whole % 10);
+        pos += digits;
+        int c = (int) (cents % 100);
+        buf[pos++] = '.';
+        buf[pos++] = (byte) ('0' + c / 10);
+        buf[pos++] = (byte) ('0' + c % 10);
+        return pos;
+    }
+
+    private static int appendSlow(byte[] buf, int pos, double v) {
+        String s = String.format(Locale.ROOT, "%.2f", v);
+        for (int i = 0; i < s.length(); i++) buf[pos++] = (byte) s.charAt(i);
+        return pos;
+    }
+
+    /** A growable output buffer; the note cache is per buffer so workers never share it. */
+    private static final class Block {
+        byte[] buf = new byte[BLOCK_ROWS * 64];
+        int len, rows;
+        final Map<String, byte[]> notes = new HashMap<>();
+
+        void ensure(int n) {
+            if (len + n > buf.length) buf = Arrays.copyOf(buf, Math.max(buf.length * 2, len + n));
+        }
+
+        Block append(byte[] b) {
+            ensure(b.length);
+            System.arraycopy(b, 0, buf, len, b.length);
+            len += b.length;
+            return this;
+        }
+
+        Block put(char c) {
+            ensure(1);
+            buf[len++] = (byte) c;
+            return this;
+        }
+
+        Block fixed2(double v) {
+            if (Math.abs(v) < 1e15) {
+                ensure(24);
+                len = appendFixed2(buf, len, v);
+                return this;
+            }
+            return append(String.format(Locale.ROOT, "%.2f", v).getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package tracker;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Streaming parser for the six-column {@code Symbol,Type,Entry,Exit,Profit,Date} trade CSV.
+ * The file is walked through memory-mapped windows and tokenized in place; repeated
+ * symbol/type values are interned and dates are decoded straight to epoch days, so a
+ * steady-state row allocates nothing.
+ */
+public final class CsvTradeImporter {
+
+    public interface RowSink {
+        void row(String symbol, String type, double entry, double exit, double profit, int epochDay);
+    }
+
+    public interface ProgressListener {
+        void progress(long bytesRead, long totalBytes, int rows);
+    }
+
+    public static final class Result {
+        public final int rows, rejected;
+        public final long bytes;
+        public final boolean cancelled;
+
+        Result(int rows, int rejected, long bytes, boolean cancelled) {
+            this.rows = rows;
+            this.rejected = rejected;
+            this.bytes = bytes;
+            this.cancelled = cancelled;
+        }
+    }
+
+    static final int DEFAULT_WINDOW = 32 << 20;
+    private static final int FIELDS = 6;
+    private static final int PROGRESS_EVERY = 1 << 16;
+    private static final double[] POW10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+        1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final int window;
+    private final ByteInterner interner = new ByteInterner();
+    private final byte[] scratch = new byte[256];
+    private final int[] starts = new int[FIELDS];
+    private final int[] ends = new int[FIELDS];
+
+    public CsvTradeImporter() {
+        this(DEFAULT_WINDOW);
+    }
+
+    public CsvTradeImporter(int window) {
+        this.window = window;
+    }
+
+    /** Parses {@code file}, skipping the header line. Not thread-safe; use one importer per file. */
+    public Result parse(Path file, RowSink sink, ProgressListener progress, AtomicBoolean cancel) throws IOException {
+        int rows = 0, rejected = 0;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            long pos = 0;
+            boolean header = true;
+            int sinceProgress = 0;
+
+            while (pos < size) {
+                int len = (int) Math.min(window, size - pos);
+                boolean last = pos + len == size;
+                MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, pos, len);
+
+                int lineStart = 0;
+                for (int i = 0; i < len; i++) {
+                    if (buf.get(i) != '\n') continue;
+                    if (header) header = false;
+                    else if (!blank(buf, lineStart, i)) {
+                        if (parseLine(buf, lineStart, i, sink)) rows++;
+                        else rejected++;
+                        if (++sinceProgress == PROGRESS_EVERY) {
+                            sinceProgress = 0;
+                            if (cancel != null && cancel.get()) return new Result(rows, rejected, pos + i, true);
+                            if (progress != null) progress.progress(pos + i, size, rows);
+                        }
+                    }
+                    lineStart = i + 1;
+                }
+
+                if (last) {
+                    if (lineStart < len && !header && !blank(buf, lineStart, len)) {
+                        if (parseLine(buf, lineStart, len, sink)) rows++;
+                        else rejected++;
+                    }
+                    pos = size;
+                } else {
+                    if (lineStart == 0) throw new IOException("Line longer than " + window + " bytes at offset " + pos);
+                    pos += lineStart;
+                }
+                if (cancel != null && cancel.get()) return new Result(rows, rejected, pos, true);
+                if (progress != null) progress.progress(pos, size, rows);
+            }
+            return new Result(rows, rejected, size, false);
+        }
+    }
+
+    private static boolean blank(MappedByteBuffer buf, int from, int to) {
+        for (int i = from; i < to; i++) {
+            byte b = buf.get(i);
+            if (b != ' ' && b != '\r' && b != '\t') return false;
+        }
+        return true;
+    }
+
+    private boolean parseLine(MappedByteBuffer buf, int from, int to, RowSink sink) {
+        if (to > from && buf.get(to - 1) == '\r') to--;
+        int field = 0;
+        starts[0] = from;
+        for (int i = from; i < to; i++) {
+            if (buf.get(i) == ',') {
+                if (field == FIELDS - 1) return false;
+                ends[field++] = i;
+                starts[field] = i + 1;
+            }
+        }
+        if (field != FIELDS - 1) return false;
+        ends[field] = to;
+
+        double entry = parseDouble(buf, starts[2], ends[2]);
+        double exit = parseDouble(buf, starts[3], ends[3]);
+        double profit = parseDouble(buf, starts[4], ends[4]);
+        if (Double.isNaN(entry) || Double.isNaN(exit) || Double.isNaN(profit)) return false;
+        int day = parseDate(buf, starts[5], ends[5]);
+        if (day == TradeDates.NO_DATE) return false;
+
+        sink.row(interner.intern(buf, starts[0], ends[0]), interner.intern(buf, starts[1], ends[1]),
+                entry, exit, profit, day);
+        return true;
+    }
+
+    /** Byte-level twin of {@link TradeDates#parse(CharSequence)}. */
+    static int parseDate(MappedByteBuffer buf, int from, int to) {
+        while (from < to && buf.get(from) == ' ') from++;
+        while (to > from && buf.get(to - 1) == ' ') to--;
+        if (to - from != 10) return TradeDates.NO_DATE;
+        byte c4 = buf.get(from + 4), c2 = buf.get(from + 2);
+        if ((c4 == '-' || c4 == '/') && buf.get(from + 7) == c4) {
+            return TradeDates.of(digits(buf, from, 4), digits(buf, from + 5, 2), digits(buf, from + 8, 2));
+        }
+        if (c2 == '-' && buf.get(from + 5) == '-') {
+            return TradeDates.of(digits(buf, from + 6, 4), digits(buf, from + 3, 2), digits(buf, from, 2));
+        }
+        return TradeDates.NO_DATE;
+    }
+
+    private static int digits(MappedByteBuffer buf, int from, int n) {
+        int v = 0;
+        for (int i = from; i < from + n; i++) {
+            byte b = buf.get(i);
+            if (b < '0' || b > '9') return -1;
+            v = v * 10 + (b - '0');
+        }
+        return v;
+    }
+
+    /**
+     * Exact fast path for plain decimals whose digits fit in 2^53; anything else
+     * (exponents, very long fractions) goes through {@link Double#parseDouble}.
+     * Returns NaN when the field is not a number.
+     */
+    double parseDouble(MappedByteBuffer buf, int from, int to) {
+        while (from < to && buf.get(from) == ' ') from++;
+        while (to > from && buf.get(to - 1) == ' ') to--;
+        if (from == to) return Double.NaN;
+
+        int i = from;
+        boolean negative = false;
+        byte b = buf.get(i);
+        if (b == '-' || b == '+') {
+            negative = b == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0, fraction = 0;
+        boolean dot = false, any = false;
+        for (; i < to; i++) {
+            b = buf.get(i);
+            if (b >= '0' && b <= '9') {
+                any = true;
+                mantissa = mantissa * 10 + (b - '0');
+                if (mantissa != 0) digits++;
+                if (dot) fraction++;
+                if (digits > 15) return slowParse(buf, from, to);
+            } else if (b == '.' && !dot) {
+                dot = true;
+            } else {
+                return slowParse(buf, from, to);
+            }
+        }
+        if (!any) return Double.NaN;
+        if (fraction >= POW10.length) return slowParse(buf, from, to);
+        double v = fraction == 0 ? mantissa : mantissa / POW10[fraction];
+        return negative ? -v : v;
+    }
+
+    private double slowParse(MappedByteBuffer buf, int from, int to) {
+        int len = to - from;
+        byte[] bytes = len <= scratch.length ? scratch : new byte[len];
+        for (int i = 0; i < len; i++) bytes[i] = buf.get(from + i);
+        try {
+            return Double.parseDouble(new String(bytes, 0, len, StandardCharsets.ISO_8859_1));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    /** Open-addressed byte-slice -> String cache; falls back to plain decoding when full. */
+    static final class ByteInterner {
+        private static final int CAPACITY = 1 << 14;
+        private final String[] values = new String[CAPACITY];
+        private final int[] hashes = new int[CAPACITY];
+        private int size;
+
+        String intern(MappedByteBuffer buf, int from, int to) {
+            while (from < to && buf.get(from) == ' ') from++;
+            while (to > from && buf.get(to - 1) == ' ') to--;
+            int h = 1;
+            for (int i = from; i < to; i++) {
+                byte b = buf.get(i);
+                if (b < 0) return decode(buf, from, to);
+                h = 31 * h + b;
+            }
+            int mask = CAPACITY - 1;
+            for (int slot = mix(h) & mask, probes = 0; probes < CAPACITY; slot = (slot + 1) & mask, probes++) {
+                String s = values[slot];
+                if (s == null) {
+                    String decoded = decode(buf, from, to);
+                    if (size < CAPACITY / 2) {
+                        values[slot] = decoded;
+                        hashes[slot] = h;
+                        size++;
+                    }
+                    return decoded;
+                }
+                if (hashes[slot] == h && matches(s, buf, from, to)) return s;
+            }
+            return decode(buf, from, to);
+        }
+
+        private static int mix(int h) {
+            return h ^ (h >>> 16);
+        }
+
+        private static boolean matches(String s, MappedByteBuffer buf, int from, int to) {
+            if (s.length() != to - from) return false;
+            for (int i = 0; i < s.length(); i++) {
+                if (s.charAt(i) != (char) buf.get(from + i)) return false;
+            }
+            return true;
+        }
+
+        private static String decode(MappedByteBuffer buf, int from, int to) {
+            byte[] bytes = new byte[to - from];
+            for (int i = 0; i < bytes.length; i++) bytes[i] = buf.get(from + i);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
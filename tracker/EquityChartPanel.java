@@ -0,0 +1,164 @@
+package tracker;
+
+import javax.swing.JComponent;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+
+/**
+ * Equity curve from a {@link TradeTimeSeries}. Each pixel column is drawn as one vertical span
+ * from the lowest to the highest equity it covers, looked up in O(log n), so painting costs the
+ * same for a thousand trades or ten million and no spike is ever skipped. Repaints on every store
+ * change while showing; Swing coalesces bursts into one paint.
+ */
+public final class EquityChartPanel extends JComponent implements TradeStore.Listener {
+    private static final int PAD_LEFT = 80, PAD_RIGHT = 16, PAD_TOP = 16, PAD_BOTTOM = 28;
+    private static final Color CURVE = new Color(0x1F5FAF), GRID = new Color(0xDDDDDD);
+
+    public enum Axis {
+        /** One step per trade, in insertion order. */
+        TRADES,
+        /** End-of-day equity over calendar time; undated trades are left out. */
+        DATES
+    }
+
+    private final TradeStore store;
+    private final TradeTimeSeries series;
+    private Axis axis = Axis.TRADES;
+
+    public EquityChartPanel(TradeStore store, TradeTimeSeries series) {
+        this.store = store;
+        this.series = series;
+        setPreferredSize(new Dimension(900, 420));
+        setOpaque(true);
+        setBackground(Color.WHITE);
+    }
+
+    public void setAxis(Axis axis) {
+        this.axis = axis;
+        repaint();
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        store.addListener(this);
+    }
+
+    @Override
+    public void removeNotify() {
+        store.removeListener(this);
+        super.removeNotify();
+    }
+
+    @Override
+    public void rowsAdded(int from, int to) {
+        repaint();
+    }
+
+    @Override
+    public void rowsRemoved(int from, int to) {
+        repaint();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g0) {
+        Graphics2D g = (Graphics2D) g0.create();
+        try {
+            g.setColor(getBackground());
+            g.fillRect(0, 0, getWidth(), getHeight());
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            int w = getWidth() - PAD_LEFT - PAD_RIGHT, h = getHeight() - PAD_TOP - PAD_BOTTOM;
+            if (w < 2 || h < 2) return;
+
+            double[] lo = new double[w], hi = new double[w];
+            String first, last;
+            if (axis == Axis.TRADES) {
+                int n = series.rows();
+                if (n == 0) {
+                    empty(g);
+                    return;
+                }
+                double[] mm = new double[2];
+                for (int x = 0; x < w; x++) {
+                    int from = (int) ((long) x * n / w), to = (int) ((long) (x + 1) * n / w);
+                    if (to == from) to = Math.min(n, from + 1);
+                    series.equityRange(from, to, mm);
+                    lo[x] = mm[0];
+                    hi[x] = mm[1];
+                }
+                first = "1";
+                last = String.format("%,d", n);
+            } else {
+                int d0 = series.firstDay(), d1 = series.lastDay();
+                if (d0 == TradeDates.NO_DATE) {
+                    empty(g);
+                    return;
+                }
+                long span = (long) d1 - d0 + 1;
+                double base = 0;
+                int prev = d0;
+                for (int x = 0; x < w; x++) {
+                    int from = (int) (d0 + x * span / w), to = (int) (d0 + (x + 1) * span / w) - 1;
+                    if (to < from) to = from;
+                    base += series.range(prev, from - 1).net;
+                    TradeTimeSeries.Range r = series.range(from, to);
+                    lo[x] = base + r.low;
+                    hi[x] = base + r.high;
+                    base += r.net;
+                    prev = to + 1;
+                }
+                first = TradeDates.format(d0);
+                last = TradeDates.format(d1);
+            }
+
+            double min = 0, max = 0;
+            for (int x = 0; x < w; x++) {
+                min = Math.min(min, lo[x]);
+                max = Math.max(max, hi[x]);
+            }
+            if (max == min) max = min + 1;
+            double scale = (h - 1) / (max - min);
+
+            FontMetrics fm = g.getFontMetrics();
+            g.setColor(GRID);
+            int zero = PAD_TOP + (int) Math.round((max - 0) * scale);
+            g.drawLine(PAD_LEFT, zero, PAD_LEFT + w - 1, zero);
+            g.drawRect(PAD_LEFT, PAD_TOP, w - 1, h - 1);
+            g.setColor(Color.DARK_GRAY);
+            label(g, fm, String.format("%,.2f", max), PAD_TOP + fm.getAscent());
+            label(g, fm, String.format("%,.2f", min), PAD_TOP + h);
+            if (zero > PAD_TOP + fm.getHeight() && zero < PAD_TOP + h - fm.getHeight()) label(g, fm, "0", zero + fm.getAscent() / 2);
+            g.drawString(first, PAD_LEFT, PAD_TOP + h + fm.getAscent() + 4);
+            g.drawString(last, PAD_LEFT + w - fm.stringWidth(last), PAD_TOP + h + fm.getAscent() + 4);
+
+            g.setColor(CURVE);
+            g.setStroke(new BasicStroke(1f));
+            int prevTop = -1, prevBottom = -1;
+            for (int x = 0; x < w; x++) {
+                int top = PAD_TOP + (int) Math.round((max - hi[x]) * scale);
+                int bottom = PAD_TOP + (int) Math.round((max - lo[x]) * scale);
+                // overlap the previous column so the curve stays connected across jumps
+                int y0 = prevTop < 0 ? top : Math.min(top, prevBottom), y1 = prevTop < 0 ? bottom : Math.max(bottom, prevTop);
+                g.drawLine(PAD_LEFT + x, y0, PAD_LEFT + x, y1);
+                prevTop = top;
+                prevBottom = bottom;
+            }
+        } finally {
+            g.dispose();
+        }
+    }
+
+    private static void label(Graphics2D g, FontMetrics fm, String text, int baseline) {
+        g.drawString(text, PAD_LEFT - 6 - fm.stringWidth(text), baseline);
+    }
+
+    private void empty(Graphics2D g) {
+        g.setColor(Color.GRAY);
+        g.drawString(axis == Axis.TRADES ? "No trades" : "No dated trades", PAD_LEFT, PAD_TOP + 20);
+    }
+}
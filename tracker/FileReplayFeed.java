@@ -0,0 +1,31 @@
+package tracker;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/** Replays a {@code Symbol,Price} CSV as a live feed, for testing without a market connection. */
+public final class FileReplayFeed extends LinePriceFeed {
+    private final Path file;
+    private final double ticksPerSecond;
+
+    /** {@code ticksPerSecond} of 0 replays as fast as the consumer keeps up. */
+    public FileReplayFeed(Path file, double ticksPerSecond) {
+        this.file = file;
+        this.ticksPerSecond = ticksPerSecond;
+    }
+
+    @Override
+    public void run(TickSink sink) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            pump(in, sink, ticksPerSecond > 0 ? (long) (1e9 / ticksPerSecond) : 0);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+}
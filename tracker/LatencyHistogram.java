@@ -0,0 +1,87 @@
+package tracker;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-linear latency histogram in the style of HdrHistogram: values below 128 are counted exactly,
+ * larger ones in buckets of 64 per power of two, so every recorded value is reported to within
+ * 1/64 (about 1.6%) from one nanosecond to centuries. Fixed size, lock-free to record from any
+ * thread, and cheap enough to leave on in production.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BITS = 7, SUB = 1 << SUB_BITS, HALF = SUB >>> 1;
+    private static final int BUCKETS = SUB + (64 - SUB_BITS) * HALF;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong(), sum = new AtomicLong();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE), max = new AtomicLong();
+
+    /** Negative values are recorded as 0. */
+    public void record(long value) {
+        long v = Math.max(0, value);
+        counts.incrementAndGet(index(v));
+        count.incrementAndGet();
+        sum.addAndGet(v);
+        long m;
+        while (v > (m = max.get()) && !max.compareAndSet(m, v)) { }
+        while (v < (m = min.get()) && !min.compareAndSet(m, v)) { }
+    }
+
+    static int index(long v) {
+        if (v < SUB) return (int) v;
+        int shift = 63 - Long.numberOfLeadingZeros(v) - (SUB_BITS - 1);
+        return SUB + (shift - 1) * HALF + (int) ((v >>> shift) - HALF);
+    }
+
+    /** Largest value that lands in the same bucket as {@code index}. */
+    static long highestEquivalent(int index) {
+        if (index < SUB) return index;
+        int shift = (index - SUB) / HALF + 1;
+        long lowest = (long) ((index - SUB) % HALF + HALF) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    public long count() {
+        return count.get();
+    }
+
+    public long sum() {
+        return sum.get();
+    }
+
+    public double mean() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) sum.get() / n;
+    }
+
+    public long min() {
+        return count.get() == 0 ? 0 : min.get();
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+    /** Value at or below which {@code percentile} percent of recorded values fall; 0 when empty. */
+    public long percentile(double percentile) {
+        long n = count.get();
+        if (n == 0) return 0;
+        long target = Math.max(1, (long) Math.ceil(Math.min(100, percentile) / 100 * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target) return Math.min(highestEquivalent(i), max.get());
+        }
+        return max.get();
+    }
+
+    /** Not atomic with respect to concurrent {@link #record}; a sample racing a reset may survive it. */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        count.set(0);
+        sum.set(0);
+        min.set(Long.MAX_VALUE);
+        max.set(0);
+    }
+}
@@ -0,0 +1,60 @@
+package tracker;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Shared reader for text feeds with one {@code Symbol,Price} tick per line. A first line whose price
+ * does not parse is taken as a header; later bad lines are counted and skipped.
+ */
+abstract class LinePriceFeed implements PriceFeed {
+    private static final long MIN_PARK_NANOS = 100_000;
+
+    private final Map<String, String> symbols = new HashMap<>(); // one String instance per symbol
+    volatile boolean closed;
+    private long ticks, rejected;
+
+    public long ticks() {
+        return ticks;
+    }
+
+    public long rejected() {
+        return rejected;
+    }
+
+    /** Reads until end of input or close; paces ticks {@code periodNanos} apart if that is positive. */
+    void pump(BufferedReader in, TickSink sink, long periodNanos) throws IOException {
+        long start = System.nanoTime();
+        String line;
+        boolean first = true;
+        while (!closed && (line = in.readLine()) != null) {
+            int comma = line.indexOf(',');
+            double price;
+            try {
+                if (comma <= 0) throw new NumberFormatException(line);
+                price = Double.parseDouble(line.substring(comma + 1).trim());
+            } catch (NumberFormatException e) {
+                if (!first && !line.isBlank()) rejected++;
+                first = false;
+                continue;
+            }
+            first = false;
+            String key = line.substring(0, comma).trim();
+            String symbol = symbols.get(key);
+            if (symbol == null) {
+                symbol = key;
+                symbols.put(key, key);
+            }
+            if (periodNanos > 0) {
+                long wait = start + ticks * periodNanos - System.nanoTime();
+                if (wait >= MIN_PARK_NANOS) LockSupport.parkNanos(wait);
+                if (closed) break; // close() unparks us
+            }
+            sink.tick(symbol, price, System.nanoTime());
+            ticks++;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package tracker;
+
+/**
+ * Open-addressed set of {@code long} keys with linear probing. No boxing and no per-entry objects:
+ * one {@code long[]} at most half full. Zero marks an empty slot, so a zero key is stored as a
+ * separate flag.
+ */
+public final class LongHashSet {
+    private long[] slots;
+    private int size;
+    private boolean hasZero;
+
+    public LongHashSet(int expected) {
+        int cap = 16;
+        while (cap < expected * 2) cap <<= 1;
+        slots = new long[cap];
+    }
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    /** Adds {@code key}; returns false if it was already present. */
+    public boolean add(long key) {
+        if (key == 0) {
+            if (hasZero) return false;
+            hasZero = true;
+            size++;
+            return true;
+        }
+        if ((size + 1) * 2 > slots.length) grow();
+        int mask = slots.length - 1;
+        for (int i = mix(key) & mask; ; i = (i + 1) & mask) {
+            long k = slots[i];
+            if (k == 0) {
+                slots[i] = key;
+                size++;
+                return true;
+            }
+            if (k == key) return false;
+        }
+    }
+
+    public boolean contains(long key) {
+        if (key == 0) return hasZero;
+        int mask = slots.length - 1;
+        for (int i = mix(key) & mask; ; i = (i + 1) & mask) {
+            long k = slots[i];
+            if (k == 0) return false;
+            if (k == key) return true;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void grow() {
+        long[] old = slots;
+        slots = new long[old.length * 2];
+        int mask = slots.length - 1;
+        for (long k : old) {
+            if (k == 0) continue;
+            int i = mix(k) & mask;
+            while (slots[i] != 0) i = (i + 1) & mask;
+            slots[i] = k;
+        }
+    }
+
+    private static int mix(long key) {
+        key *= 0x9E3779B97F4A7C15L;
+        return (int) (key ^ (key >>> 32));
+    }
+}
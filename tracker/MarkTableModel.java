@@ -0,0 +1,67 @@
+package tracker;
+
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Open positions marked by a {@link MarkToMarket}. Ticks never reach the table directly: the UI
+ * calls {@link #refresh()} from a timer, which repaints once per frame and only when a batch of
+ * ticks has landed since the last frame.
+ */
+public final class MarkTableModel extends AbstractTableModel {
+    private static final String[] COLUMNS = {"Symbol", "Position", "Avg Cost", "Last", "Unrealized"};
+
+    private MarkToMarket marks;
+    private long seen = -1;
+
+    /** Shows {@code marks}, or nothing for null. */
+    public void setMarks(MarkToMarket marks) {
+        this.marks = marks;
+        seen = -1;
+        fireTableDataChanged();
+    }
+
+    public MarkToMarket marks() {
+        return marks;
+    }
+
+    /** Event thread. Returns true if anything changed since the last call. */
+    public boolean refresh() {
+        if (marks == null) return false;
+        long v = marks.version();
+        if (v == seen) return false;
+        seen = v;
+        if (marks.size() > 0) fireTableRowsUpdated(0, marks.size() - 1);
+        return true;
+    }
+
+    @Override
+    public int getRowCount() {
+        return marks == null ? 0 : marks.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == 0 ? String.class : Double.class;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        switch (column) {
+            case 0: return marks.symbol(row);
+            case 1: return marks.position(row);
+            case 2: return marks.averageCost(row);
+            case 3: return Double.isNaN(marks.last(row)) ? null : marks.last(row);
+            default: return marks.unrealized(row);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package tracker;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Marks a snapshot of open positions to the latest tick. Written by one consumer thread and read
+ * by any number of others (the UI timer): the position arrays never change size, each tick writes
+ * its symbol's last price and unrealized P&L, and {@link #version()} is bumped once per batch so
+ * readers can skip frames where nothing moved. A reader may see some symbols a batch ahead of
+ * others, which is fine for a live display.
+ */
+public final class MarkToMarket implements PriceFeed.TickSink {
+    private final String[] symbols;
+    private final double[] position, cost;
+    private final Map<String, Integer> ids = new HashMap<>();
+
+    private final double[] last, unrealized;
+    private volatile long version;
+    private volatile long ticks, unknown, lastLagNanos, maxLagNanos;
+    private long pendingTicks, pendingUnknown, pendingLag, pendingMaxLag;
+
+    /** Every symbol with an open position in {@code matcher}. Take it while nothing else uses the matcher. */
+    public MarkToMarket(TradeMatcher matcher) {
+        List<Integer> open = new ArrayList<>();
+        for (int id = 0; id < matcher.symbols().size(); id++) {
+            if (matcher.openLots(id) > 0) open.add(id);
+        }
+        int n = open.size();
+        symbols = new String[n];
+        position = new double[n];
+        cost = new double[n];
+        last = new double[n];
+        unrealized = new double[n];
+        for (int i = 0; i < n; i++) {
+            int id = open.get(i);
+            symbols[i] = matcher.symbols().get(id);
+            position[i] = matcher.position(id);
+            cost[i] = matcher.averageCost(id) * Math.abs(position[i]);
+            last[i] = Double.NaN;
+            ids.put(symbols[i], i);
+        }
+    }
+
+    @Override
+    public void tick(String symbol, double price, long timeNanos) {
+        Integer i = ids.get(symbol);
+        pendingTicks++;
+        if (i == null) {
+            pendingUnknown++;
+        } else {
+            last[i] = price;
+            unrealized[i] = Math.signum(position[i]) * (price * Math.abs(position[i]) - cost[i]);
+        }
+        pendingLag = System.nanoTime() - timeNanos;
+        if (pendingLag > pendingMaxLag) pendingMaxLag = pendingLag;
+    }
+
+    /** Consumer thread, after each batch: makes the batch visible to readers. */
+    public void publish() {
+        ticks += pendingTicks;
+        unknown += pendingUnknown;
+        pendingTicks = pendingUnknown = 0;
+        lastLagNanos = pendingLag;
+        maxLagNanos = pendingMaxLag;
+        version++;
+    }
+
+    public int size() {
+        return symbols.length;
+    }
+
+    public String symbol(int i) {
+        return symbols[i];
+    }
+
+    /** Signed open quantity: positive long, negative short. */
+    public double position(int i) {
+        return position[i];
+    }
+
+    public double averageCost(int i) {
+        return cost[i] / Math.abs(position[i]);
+    }
+
+    /** Last traded price, or NaN before the first tick for this symbol. */
+    public double last(int i) {
+        return last[i];
+    }
+
+    /** Unrealized P&L at the last price; 0 before the first tick. */
+    public double unrealized(int i) {
+        return unrealized[i];
+    }
+
+    public double totalUnrealized() {
+        double sum = 0;
+        for (int i = 0; i < unrealized.length; i++) sum += unrealized[i];
+        return sum;
+    }
+
+    /** Changes whenever a batch of ticks has been applied. */
+    public long version() {
+        return version;
+    }
+
+    public long ticks() {
+        return ticks;
+    }
+
+    /** Ticks for symbols without an open position. */
+    public long unknown() {
+        return unknown;
+    }
+
+    /** Arrival-to-applied delay of the latest tick. */
+    public long lastLagNanos() {
+        return lastLagNanos;
+    }
+
+    public long maxLagNanos() {
+        return maxLagNanos;
+    }
+}
@@ -0,0 +1,202 @@
+package tracker;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide timings of the operations that touch many rows. Each {@link Sample} records its
+ * wall time into a {@link LatencyHistogram}, adds rows and the heap its thread allocated to
+ * running totals, and emits an {@link OperationEvent} for Flight Recorder:
+ * <pre>
+ *   try (Metrics.Sample s = Metrics.start("saveTrades")) {
+ *       ...
+ *       s.rows(n);
+ *   }
+ * </pre>
+ * A sample must be closed on the thread that started it, so background work is timed inside the
+ * worker rather than from the button click to the dialog.
+ */
+public final class Metrics {
+    private static final ConcurrentSkipListMap<String, Operation> OPERATIONS = new ConcurrentSkipListMap<>();
+    private static final com.sun.management.ThreadMXBean THREADS = allocationBean();
+    private static final long STARTED = System.nanoTime();
+
+    private Metrics() {
+    }
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        try {
+            com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            return bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled() ? bean : null;
+        } catch (ClassCastException | UnsupportedOperationException e) {
+            return null; // not a HotSpot-style JVM; allocation stays 0
+        }
+    }
+
+    private static long allocatedBytes() {
+        return THREADS == null ? 0 : THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    public static Sample start(String operation) {
+        return new Sample(operation(operation));
+    }
+
+    public static Operation operation(String name) {
+        return OPERATIONS.computeIfAbsent(name, Operation::new);
+    }
+
+    /** Every operation recorded so far, by name. */
+    public static List<Operation> operations() {
+        return new ArrayList<>(OPERATIONS.values());
+    }
+
+    public static void reset() {
+        for (Operation op : OPERATIONS.values()) op.reset();
+    }
+
+    /** One timed run of an operation; see the class comment. */
+    public static final class Sample implements AutoCloseable {
+        private final Operation operation;
+        private final OperationEvent event = new OperationEvent();
+        private final long start, allocatedAtStart;
+        private long rows;
+        private boolean closed;
+
+        private Sample(Operation operation) {
+            this.operation = operation;
+            event.begin();
+            allocatedAtStart = allocatedBytes();
+            start = System.nanoTime();
+        }
+
+        /** Rows the operation read or wrote; adds up if called more than once. */
+        public Sample rows(long n) {
+            rows += n;
+            return this;
+        }
+
+        @Override
+        public void close() {
+            if (closed) return;
+            closed = true;
+            long nanos = System.nanoTime() - start;
+            long allocated = allocatedBytes() - allocatedAtStart;
+            operation.add(nanos, rows, allocated);
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = operation.name;
+                event.rows = rows;
+                event.allocated = allocated;
+                event.commit();
+            }
+        }
+    }
+
+    /** Running totals for one operation name. */
+    public static final class Operation {
+        public final String name;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder rows = new LongAdder(), allocated = new LongAdder();
+
+        private Operation(String name) {
+            this.name = name;
+        }
+
+        private void add(long nanos, long rowCount, long allocatedBytes) {
+            latency.record(nanos);
+            rows.add(rowCount);
+            allocated.add(allocatedBytes);
+        }
+
+        /** Wall time per run, in nanoseconds. */
+        public LatencyHistogram latency() {
+            return latency;
+        }
+
+        public long count() {
+            return latency.count();
+        }
+
+        public long rows() {
+            return rows.sum();
+        }
+
+        /** Rows over the total time spent in this operation. */
+        public double rowsPerSecond() {
+            long nanos = latency.sum();
+            return nanos == 0 ? 0 : rows.sum() * 1e9 / nanos;
+        }
+
+        public long allocatedBytes() {
+            return allocated.sum();
+        }
+
+        private void reset() {
+            latency.reset();
+            rows.reset();
+            allocated.reset();
+        }
+    }
+
+    /** Fixed-width table for a diagnostics view; times in milliseconds. */
+    public static String table() {
+        StringBuilder sb = new StringBuilder(String.format("%-14s %6s %12s %12s %9s %9s %9s %9s %11s%n",
+            "Operation", "Runs", "Rows", "Rows/s", "p50 ms", "p90 ms", "p99 ms", "Max ms", "Alloc MB"));
+        for (Operation op : operations()) {
+            LatencyHistogram h = op.latency;
+            sb.append(String.format("%-14s %6d %,12d %,12.0f %9.2f %9.2f %9.2f %9.2f %,11.1f%n", op.name, op.count(),
+                op.rows(), op.rowsPerSecond(), h.percentile(50) / 1e6, h.percentile(90) / 1e6, h.percentile(99) / 1e6,
+                h.max() / 1e6, op.allocatedBytes() / 1048576.0));
+        }
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        sb.append(String.format("%nHeap %,.1f of %,.1f MB used, up %.0f s%s%n", heap.getUsed() / 1048576.0,
+            heap.getMax() / 1048576.0, (System.nanoTime() - STARTED) / 1e9,
+            THREADS == null ? ", allocation tracking unavailable" : ""));
+        return sb.toString();
+    }
+
+    /** All operations as one JSON object; latencies in nanoseconds. */
+    public static String toJson() {
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        StringBuilder sb = new StringBuilder(1024).append('{');
+        sb.append("\"uptimeNanos\":").append(System.nanoTime() - STARTED);
+        sb.append(",\"heapUsedBytes\":").append(heap.getUsed());
+        sb.append(",\"heapMaxBytes\":").append(heap.getMax());
+        sb.append(",\"operations\":[");
+        boolean first = true;
+        for (Operation op : operations()) {
+            LatencyHistogram h = op.latency;
+            if (!first) sb.append(',');
+            first = false;
+            sb.append("{\"name\":").append(quote(op.name))
+              .append(",\"count\":").append(op.count())
+              .append(",\"rows\":").append(op.rows())
+              .append(",\"rowsPerSecond\":").append(Math.round(op.rowsPerSecond()))
+              .append(",\"allocatedBytes\":").append(op.allocatedBytes())
+              .append(",\"latencyNanos\":{\"min\":").append(h.min())
+              .append(",\"mean\":").append(Math.round(h.mean()))
+              .append(",\"p50\":").append(h.percentile(50))
+              .append(",\"p90\":").append(h.percentile(90))
+              .append(",\"p99\":").append(h.percentile(99))
+              .append(",\"p999\":").append(h.percentile(99.9))
+              .append(",\"max\":").append(h.max())
+              .append("}}");
+        }
+        return sb.append("]}").toString();
+    }
+
+    private static String quote(String s) {
+        StringBuilder q = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') q.append('\\').append(c);
+            else if (c < 0x20) q.append(String.format("\\u%04x", (int) c));
+            else q.append(c);
+        }
+        return q.append('"').toString();
+    }
+}
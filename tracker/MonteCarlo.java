@@ -0,0 +1,353 @@
+package tracker;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Consumer;
+
+/**
+ * Monte Carlo resampling of the profit column into simulated equity paths. Paths are run in fixed
+ * chunks on a fork/join pool; each chunk owns a {@link SplittableRandom} split off a seeded root
+ * in chunk order, so a given seed reproduces the same paths on any number of threads, and writes
+ * only to its own slice of preallocated result arrays.
+ * <p>
+ * The block bootstrap draws circular blocks of consecutive trades, keeping streaks and volatility
+ * clustering that the plain bootstrap destroys. Every block start is summarised up front by its
+ * sum, highest and lowest running total and internal drawdown, which compose exactly, so a path
+ * costs one step per block rather than per trade.
+ * <p>
+ * One {@link #run} at a time per instance.
+ */
+public final class MonteCarlo {
+    private static final int CHUNK = 256; // paths per task; fixed so results do not depend on the pool size
+    private static final long PROGRESS_NANOS = 200_000_000L;
+
+    public enum Method {
+        /** Trades drawn independently, with replacement. */
+        BOOTSTRAP,
+        /** Runs of {@code blockLength} consecutive trades, wrapping at the end of the history. */
+        BLOCK
+    }
+
+    /** Snapshot of the paths finished so far. Percentile arrays follow {@link #PERCENTILES}. */
+    public static final class Result {
+        public static final double[] PERCENTILES = {5, 25, 50, 75, 95};
+        public int paths, requested, horizon;
+        public boolean cancelled;
+        public double meanPnl, lossProbability, riskOfRuin, meanDrawdown;
+        public final double[] pnl = new double[PERCENTILES.length];
+        public final double[] drawdown = new double[PERCENTILES.length];
+        /** Trade counts along the horizon, and the 5th/50th/95th percentile of equity at each. */
+        public int[] checkpoints;
+        public double[][] bands;
+
+        public boolean isDone() {
+            return cancelled || paths == requested;
+        }
+    }
+
+    private final double[] profits;
+    private final ForkJoinPool pool;
+    private int blockLength;
+    private double[] blocks; // per block start: sum, high, low, drawdown, side by side so a draw touches one cache line
+
+    public MonteCarlo(double[] profits, ForkJoinPool pool) {
+        if (profits.length == 0) throw new IllegalArgumentException("no trades to resample");
+        this.profits = profits;
+        this.pool = pool;
+    }
+
+    public MonteCarlo(double[] profits) {
+        this(profits, ForkJoinPool.commonPool());
+    }
+
+    /** The profit column as one array, in insertion order. */
+    public static double[] profits(TradeStore store) {
+        TradeStore.DoubleColumn column = store.profitColumn();
+        double[] out = new double[store.size()];
+        int at = 0;
+        for (int c = 0; c < column.chunkCount() && at < out.length; c++) {
+            int len = Math.min(column.chunkLength(c), out.length - at);
+            System.arraycopy(column.chunk(c), 0, out, at, len);
+            at += len;
+        }
+        return out;
+    }
+
+    /** Profits of just {@code rows}, in row order. */
+    public static double[] profits(TradeStore store, RowBitmap rows) {
+        double[] out = new double[rows.cardinality()];
+        int[] at = {0};
+        rows.forEach(row -> out[at[0]++] = store.profit(row));
+        return out;
+    }
+
+    /** Cube root of the history length, the usual default for block bootstraps. */
+    public static int defaultBlockLength(int trades) {
+        return Math.max(1, (int) Math.round(Math.cbrt(trades)));
+    }
+
+    /**
+     * Simulates {@code paths} paths of {@code horizon} trades each. A path is ruined once its equity
+     * falls to {@code -ruinLoss} or below. {@code progress} is called on the calling thread about
+     * five times a second and once at the end with the final result, which is also returned.
+     */
+    public Result run(Method method, int paths, int horizon, int blockLength, double ruinLoss, long seed,
+                      Consumer<Result> progress, AtomicBoolean cancel) throws InterruptedException {
+        if (paths <= 0 || horizon <= 0) throw new IllegalArgumentException("paths and horizon must be positive");
+        int block = method == Method.BLOCK ? Math.max(1, Math.min(blockLength, profits.length)) : 1;
+        if (method == Method.BLOCK && block != this.blockLength) summariseBlocks(block);
+
+        int[] checkpoints = checkpoints(horizon, method == Method.BLOCK ? block : 1);
+        int k = checkpoints.length;
+        double[] finalPnl = new double[paths], drawdown = new double[paths], lowest = new double[paths];
+        double[] equityAt = new double[(long) paths * k > Integer.MAX_VALUE ? 0 : paths * k];
+        if (equityAt.length == 0) throw new IllegalArgumentException("too many paths");
+
+        int chunks = (paths + CHUNK - 1) / CHUNK;
+        AtomicIntegerArray finished = new AtomicIntegerArray(chunks); // paths completed so far in each chunk
+        CountDownLatch done = new CountDownLatch(chunks);
+        SplittableRandom root = new SplittableRandom(seed);
+        for (int c = 0; c < chunks; c++) {
+            int from = c * CHUNK, to = Math.min(paths, from + CHUNK), chunk = c;
+            SplittableRandom rnd = root.split();
+            pool.execute(() -> {
+                try {
+                    for (int p = from; p < to; p++) {
+                        if (cancel != null && cancel.get()) break;
+                        if (method == Method.BLOCK) blockPath(rnd, horizon, block, checkpoints, p, finalPnl, drawdown, lowest, equityAt);
+                        else tradePath(rnd, horizon, checkpoints, p, finalPnl, drawdown, lowest, equityAt);
+                        finished.lazySet(chunk, p + 1 - from); // publishes this path's results to snapshots
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        Summary summary = new Summary(paths);
+        long wait = PROGRESS_NANOS;
+        int reported = 0;
+        while (!done.await(wait, TimeUnit.NANOSECONDS)) {
+            int n = 0;
+            for (int c = 0; c < chunks; c++) n += finished.get(c);
+            if (progress == null || n == reported) continue;
+            reported = n;
+            long t0 = System.nanoTime();
+            progress.accept(summary.of(finished, paths, horizon, ruinLoss, checkpoints, finalPnl, drawdown, lowest, equityAt, false));
+            wait = Math.max(PROGRESS_NANOS, 10 * (System.nanoTime() - t0)); // snapshots take at most a tenth of the time
+        }
+        Result result = summary.of(finished, paths, horizon, ruinLoss, checkpoints, finalPnl, drawdown, lowest, equityAt,
+            cancel != null && cancel.get());
+        if (progress != null) progress.accept(result);
+        return result;
+    }
+
+    private void tradePath(SplittableRandom rnd, int horizon, int[] checkpoints, int path,
+                           double[] finalPnl, double[] drawdown, double[] lowest, double[] equityAt) {
+        double[] p = profits;
+        int n = p.length, k = checkpoints.length, next = 0;
+        double equity = 0, peak = 0, dd = 0, low = 0;
+        for (int t = 1; t <= horizon; t++) {
+            equity += p[rnd.nextInt(n)];
+            if (equity > peak) peak = equity;
+            else if (peak - equity > dd) dd = peak - equity;
+            if (equity < low) low = equity;
+            if (t == checkpoints[next]) equityAt[path * k + next++] = equity;
+        }
+        finalPnl[path] = equity;
+        drawdown[path] = dd;
+        lowest[path] = low;
+    }
+
+    private void blockPath(SplittableRandom rnd, int horizon, int block, int[] checkpoints, int path,
+                           double[] finalPnl, double[] drawdown, double[] lowest, double[] equityAt) {
+        double[] b = blocks, p = profits;
+        int n = p.length, k = checkpoints.length, next = 0;
+        double equity = 0, peak = 0, dd = 0, lo = 0;
+        int t = 0;
+        for (; t + block <= horizon; t += block) {
+            int j = rnd.nextInt(n) << 2;
+            // plain compares: Math.max on doubles handles NaN and -0.0 and is much slower here
+            double bottom = equity + b[j + 2], top = equity + b[j + 1];
+            double d = peak - bottom;
+            if (b[j + 3] > d) d = b[j + 3];
+            if (d > dd) dd = d;
+            if (bottom < lo) lo = bottom;
+            if (top > peak) peak = top;
+            equity += b[j];
+            if (t + block == checkpoints[next]) equityAt[path * k + next++] = equity;
+        }
+        if (t < horizon) {
+            for (int j = rnd.nextInt(n); t < horizon; t++, j = j + 1 == n ? 0 : j + 1) {
+                equity += p[j];
+                if (equity > peak) peak = equity;
+                else if (peak - equity > dd) dd = peak - equity;
+                if (equity < lo) lo = equity;
+            }
+            equityAt[path * k + next] = equity;
+        }
+        finalPnl[path] = equity;
+        drawdown[path] = dd;
+        lowest[path] = lo;
+    }
+
+    /**
+     * Summaries of the circular block starting at every trade. Each window is the tail of one
+     * block-aligned stretch followed by the head of the next, so one backward and one forward scan
+     * per stretch give every window in O(n) total. Running totals count from 0 at the block start;
+     * drawdown is measured from the highest of those, including the start.
+     */
+    private void summariseBlocks(int block) {
+        int n = profits.length;
+        double[] b = new double[4 * n];
+        double[] tailSum = new double[block], tailHigh = new double[block], tailLow = new double[block], tailDd = new double[block];
+        for (int start = 0; start < n; start += block) {
+            // [start + i, start + block) for each i: prepend one trade at a time
+            double s = 0, hi = Double.NEGATIVE_INFINITY, lo = Double.POSITIVE_INFINITY, dd = 0;
+            for (int i = block - 1; i >= 0; i--) {
+                double x = profits[(start + i) % n];
+                dd = Math.max(Math.max(0, -x), Math.max(dd, Math.max(0, x) - (x + lo)));
+                hi = Math.max(x, x + hi);
+                lo = Math.min(x, x + lo);
+                s += x;
+                tailSum[i] = s;
+                tailHigh[i] = hi;
+                tailLow[i] = lo;
+                tailDd[i] = dd;
+            }
+            // the first i trades of the next stretch: append one trade at a time
+            s = 0;
+            hi = Double.NEGATIVE_INFINITY;
+            lo = Double.POSITIVE_INFINITY;
+            dd = 0;
+            for (int i = 0; i < block && start + i < n; i++) {
+                int j = (start + i) << 2;
+                double ts = tailSum[i];
+                b[j] = ts + s;
+                if (i == 0) {
+                    b[j + 1] = tailHigh[i];
+                    b[j + 2] = tailLow[i];
+                    b[j + 3] = tailDd[i];
+                } else {
+                    b[j + 1] = Math.max(tailHigh[i], ts + hi);
+                    b[j + 2] = Math.min(tailLow[i], ts + lo);
+                    b[j + 3] = Math.max(Math.max(tailDd[i], dd), Math.max(0, tailHigh[i]) - (ts + lo));
+                }
+                s += profits[(start + block + i) % n];
+                dd = Math.max(dd, Math.max(0, hi) - s);
+                hi = Math.max(hi, s);
+                lo = Math.min(lo, s);
+            }
+        }
+        blocks = b;
+        blockLength = block;
+    }
+
+    /** About 20 evenly spaced trade counts on whole blocks, always ending at the horizon. */
+    static int[] checkpoints(int horizon, int block) {
+        int steps = 20;
+        long whole = (long) horizon / block * block;
+        int[] out = new int[steps];
+        int size = 0, last = 0;
+        for (int i = 1; i < steps; i++) {
+            long t = Math.round((double) horizon * i / steps / block) * block;
+            if (t > last && t <= whole && t < horizon) out[size++] = last = (int) t;
+        }
+        out[size++] = horizon;
+        return java.util.Arrays.copyOf(out, size);
+    }
+
+    /** Percentiles over the finished paths, reusing scratch arrays between snapshots. */
+    private static final class Summary {
+        private final double[] scratch;
+
+        Summary(int paths) {
+            scratch = new double[paths];
+        }
+
+        Result of(AtomicIntegerArray finished, int requested, int horizon, double ruinLoss, int[] checkpoints,
+                  double[] finalPnl, double[] drawdown, double[] lowest, double[] equityAt, boolean cancelled) {
+            int chunks = finished.length();
+            int[] counts = new int[chunks];
+            int n = 0;
+            for (int c = 0; c < chunks; c++) n += counts[c] = finished.get(c);
+            Result r = new Result();
+            r.requested = requested;
+            r.horizon = horizon;
+            r.paths = n;
+            r.cancelled = cancelled;
+            r.checkpoints = checkpoints;
+            r.bands = new double[checkpoints.length][3];
+            if (n == 0) return r;
+
+            double sum = 0, ddSum = 0;
+            int losses = 0, ruined = 0;
+            for (int c = 0; c < chunks; c++) {
+                for (int p = c * CHUNK, end = p + counts[c]; p < end; p++) {
+                    sum += finalPnl[p];
+                    ddSum += drawdown[p];
+                    if (finalPnl[p] < 0) losses++;
+                    if (ruinLoss > 0 && lowest[p] <= -ruinLoss) ruined++;
+                }
+            }
+            r.meanPnl = sum / n;
+            r.meanDrawdown = ddSum / n;
+            r.lossProbability = 100.0 * losses / n;
+            r.riskOfRuin = 100.0 * ruined / n;
+
+            gather(finalPnl, counts, 0, 1);
+            percentiles(n, Result.PERCENTILES, r.pnl);
+            gather(drawdown, counts, 0, 1);
+            percentiles(n, Result.PERCENTILES, r.drawdown);
+            double[] band = new double[3];
+            for (int i = 0; i < checkpoints.length; i++) {
+                gather(equityAt, counts, i, checkpoints.length);
+                percentiles(n, new double[]{5, 50, 95}, band);
+                r.bands[i] = band.clone();
+            }
+            return r;
+        }
+
+        private void gather(double[] values, int[] counts, int offset, int stride) {
+            int at = 0;
+            for (int c = 0; c < counts.length; c++) {
+                for (int p = c * CHUNK, end = p + counts[c]; p < end; p++) scratch[at++] = values[p * stride + offset];
+            }
+        }
+
+        /** Nearest-rank percentiles of scratch[0, n), ascending {@code pct}; reorders scratch. */
+        private void percentiles(int n, double[] pct, double[] out) {
+            int from = 0;
+            for (int i = 0; i < pct.length; i++) {
+                int rank = Math.max(0, Math.min(n - 1, (int) Math.ceil(pct[i] / 100 * n) - 1));
+                out[i] = select(scratch, from, n - 1, rank);
+                from = rank; // everything below rank is now to its left
+            }
+        }
+
+        /** Hoare quickselect: the value that would be at {@code k} if a[lo..hi] were sorted. */
+        private static double select(double[] a, int lo, int hi, int k) {
+            while (hi > lo) {
+                double pivot = a[(lo + hi) >>> 1];
+                int i = lo, j = hi;
+                while (i <= j) {
+                    while (a[i] < pivot) i++;
+                    while (a[j] > pivot) j--;
+                    if (i <= j) {
+                        double t = a[i];
+                        a[i++] = a[j];
+                        a[j--] = t;
+                    }
+                }
+                if (k <= j) hi = j;
+                else if (k >= i) lo = i;
+                else return a[k];
+            }
+            return a[k];
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package tracker;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for one timed {@link Metrics} operation. Costs nothing unless a recording
+ * is running, e.g. {@code java -XX:StartFlightRecording=filename=trader.jfr ...}; the events then
+ * show up under "Smart Trader Tracker" in JDK Mission Control, next to GC and allocation samples.
+ */
+@Name("tracker.Operation")
+@Label("Trade Operation")
+@Category("Smart Trader Tracker")
+@Description("An import, export, save, load, search or table reload")
+@StackTrace(false)
+final class OperationEvent extends jdk.jfr.Event {
+    @Label("Operation")
+    String operation;
+
+    @Label("Rows")
+    long rows;
+
+    @Label("Allocated")
+    @Description("Heap allocated by the thread that ran the operation")
+    @DataAmount
+    long allocated;
+}
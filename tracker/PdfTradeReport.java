@@ -0,0 +1,160 @@
+package tracker;
+
+import com.itextpdf.text.*;
+import com.itextpdf.text.pdf.PdfPCell;
+import com.itextpdf.text.pdf.PdfPTable;
+import com.itextpdf.text.pdf.PdfWriter;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntFunction;
+
+/**
+ * Streams the trade report to PDF. The trade table is marked incomplete and handed to the document
+ * every {@link #FLUSH_ROWS} rows, so iText lays out and writes finished pages and drops their cells
+ * instead of holding the whole table until close. Fonts, colours and the template cell are created
+ * once per report; each row only swaps the template's background.
+ * <p>
+ * Safe to run off the EDT as long as the store is not truncated meanwhile: the row order is passed
+ * in as a snapshot and the summary is pre-rendered by the caller.
+ */
+public final class PdfTradeReport {
+    static final int FLUSH_ROWS = 500;
+    private static final String[] HEADERS = {"#", "Symbol", "Type", "Entry", "Exit", "Profit", "Date", "Note"};
+    private static final BaseColor WIN = new BaseColor(200, 255, 200);
+    private static final BaseColor LOSS = new BaseColor(255, 200, 200);
+
+    public interface ProgressListener {
+        void progress(int rowsWritten, int totalRows);
+    }
+
+    public static final class Result {
+        public final int rows;
+        public final boolean cancelled;
+
+        Result(int rows, boolean cancelled) {
+            this.rows = rows;
+            this.cancelled = cancelled;
+        }
+    }
+
+    private final TradeStore store;
+    private final IntFunction<String> notes;
+    private final Font titleFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18, BaseColor.BLACK);
+    private final Font sectionFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 14, BaseColor.DARK_GRAY);
+    private final Font textFont = FontFactory.getFont(FontFactory.HELVETICA, 12, BaseColor.BLACK);
+
+    public PdfTradeReport(TradeStore store, IntFunction<String> notes) {
+        this.store = store;
+        this.notes = notes;
+    }
+
+    /** The "Summary Stats" lines, rendered now so the report can be written from another thread. */
+    public static Map<String, String> summary(TradeStatistics stats) {
+        Map<String, String> m = new LinkedHashMap<>();
+        m.put("Total Trades", String.valueOf(stats.count()));
+        m.put("Winning Trades", String.valueOf(stats.wins()));
+        m.put("Losing Trades", String.valueOf(stats.losses()));
+        m.put("Win Rate (%)", String.format("%.2f", stats.winRate()));
+        m.put("Total Profit", String.format("%.2f", stats.netProfit()));
+        m.put("Total Winning Amt", String.format("%.2f", stats.grossWin()));
+        m.put("Total Losing Amt", String.format("%.2f", stats.grossLoss()));
+        m.put("Max Profit Trade", String.format("%.2f", stats.maxProfit()));
+        m.put("Max Loss Trade", String.format("%.2f", stats.maxLoss()));
+        m.put("Avg Profit (Wins)", String.format("%.2f", stats.avgWin()));
+        m.put("Avg Loss (Losses)", String.format("%.2f", stats.avgLoss()));
+        m.put("Avg Profit/Trade", String.format("%.2f", stats.avgProfit()));
+        m.put("Profit Factor", String.format("%.2f", stats.profitFactor()));
+        m.put("Expectancy", String.format("%.2f", stats.expectancy()));
+        m.put("Std Deviation", String.format("%.2f", stats.stdDev()));
+        m.put("Max Drawdown", String.format("%.2f", stats.maxDrawdown()));
+        return m;
+    }
+
+    /**
+     * Writes the report for {@code rows} (store row ids in display order; null means insertion order
+     * over the first {@code count} rows). A cancelled report is deleted.
+     */
+    public Result write(Path out, String user, Map<String, String> traderInfo, Map<String, String> summary,
+                        int[] rows, int count, ProgressListener progress, AtomicBoolean cancel)
+            throws IOException, DocumentException {
+        Document doc = new Document();
+        boolean cancelled = false;
+        int written = 0;
+        try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(out), 1 << 16)) {
+            PdfWriter.getInstance(doc, os);
+            doc.open();
+            try {
+                Paragraph title = new Paragraph("📄 Smart Trader Report - " + user, titleFont);
+                title.setSpacingAfter(10);
+                doc.add(title);
+                doc.add(new Paragraph("Date: " + new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new java.util.Date()), textFont));
+                doc.add(Chunk.NEWLINE);
+                if (!traderInfo.isEmpty()) {
+                    doc.add(new Paragraph("👤 Trader Info:", sectionFont));
+                    addLines(doc, traderInfo, 11);
+                    doc.add(Chunk.NEWLINE);
+                }
+                doc.add(new Paragraph("📊 Summary Stats:", sectionFont));
+                addLines(doc, summary, 20);
+                doc.add(Chunk.NEWLINE);
+
+                PdfPTable table = new PdfPTable(HEADERS.length);
+                table.setWidthPercentage(100);
+                table.setSpacingBefore(10f);
+                table.setSpacingAfter(10f);
+                table.setHeaderRows(1);
+                table.setComplete(false);
+                PdfPCell cell = table.getDefaultCell();
+                cell.setPadding(5);
+                cell.setBackgroundColor(BaseColor.LIGHT_GRAY);
+                for (String h : HEADERS) table.addCell(new Phrase(h, sectionFont));
+
+                for (; written < count; written++) {
+                    int row = rows == null ? written : rows[written];
+                    double profit = store.profit(row);
+                    cell.setBackgroundColor(profit > 0 ? WIN : profit < 0 ? LOSS : BaseColor.WHITE);
+                    table.addCell(new Phrase(String.valueOf(written + 1), textFont));
+                    table.addCell(new Phrase(store.symbol(row), textFont));
+                    table.addCell(new Phrase(store.type(row), textFont));
+                    table.addCell(new Phrase(String.valueOf(store.entry(row)), textFont));
+                    table.addCell(new Phrase(String.valueOf(store.exit(row)), textFont));
+                    table.addCell(new Phrase(String.valueOf(profit), textFont));
+                    table.addCell(new Phrase(store.date(row), textFont));
+                    table.addCell(new Phrase(notes.apply(row), textFont));
+                    if ((written + 1) % FLUSH_ROWS == 0) {
+                        doc.add(table);
+                        if (progress != null) progress.progress(written + 1, count);
+                        if (cancel != null && cancel.get()) {
+                            cancelled = true;
+                            written++;
+                            break;
+                        }
+                    }
+                }
+                table.setComplete(true);
+                doc.add(table);
+                if (progress != null) progress.progress(written, count);
+            } finally {
+                doc.close();
+            }
+        }
+        if (cancelled) Files.deleteIfExists(out);
+        return new Result(written, cancelled);
+    }
+
+    private void addLines(Document doc, Map<String, String> lines, int width) throws DocumentException {
+        for (Map.Entry<String, String> e : lines.entrySet()) {
+            StringBuilder label = new StringBuilder(e.getKey());
+            while (label.length() < width) label.append(' ');
+            doc.add(new Paragraph(label + ": " + e.getValue(), textFont));
+        }
+    }
+}
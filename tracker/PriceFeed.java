@@ -0,0 +1,28 @@
+package tracker;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Source of live prices. {@link #run} blocks on the caller's thread and hands every tick to the
+ * sink until the source ends or {@link #close} is called from another thread.
+ */
+public interface PriceFeed extends Closeable {
+
+    /** Receives ticks; {@code timeNanos} is {@link System#nanoTime()} when the tick arrived. */
+    interface TickSink {
+        void tick(String symbol, double price, long timeNanos);
+    }
+
+    void run(TickSink sink) throws IOException;
+
+    /** A {@code host:port} socket feed, or else a file replayed at {@code ticksPerSecond} (0 = unpaced). */
+    static PriceFeed open(String source, double ticksPerSecond) {
+        int colon = source.lastIndexOf(':');
+        if (colon > 0 && colon < source.length() - 1 && source.substring(colon + 1).chars().allMatch(Character::isDigit)
+                && !new java.io.File(source).exists()) {
+            return new SocketPriceFeed(source.substring(0, colon), Integer.parseInt(source.substring(colon + 1)));
+        }
+        return new FileReplayFeed(java.nio.file.Paths.get(source), ticksPerSecond);
+    }
+}
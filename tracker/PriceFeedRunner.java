@@ -0,0 +1,98 @@
+package tracker;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs a {@link PriceFeed} into {@link MarkToMarket} through a {@link TickRingBuffer}: one thread
+ * reads the feed and publishes ticks, another drains them in batches and marks positions. Neither
+ * touches Swing; a UI polls {@link MarkToMarket#version()} at its own frame rate.
+ */
+public final class PriceFeedRunner implements Closeable {
+    public static final int DEFAULT_RING = 1 << 16;
+
+    private final PriceFeed feed;
+    private final MarkToMarket marks;
+    private final TickRingBuffer ring;
+    private final Thread producer, consumer;
+    private volatile IOException error;
+
+    public PriceFeedRunner(PriceFeed feed, MarkToMarket marks, int ringCapacity) {
+        this.feed = feed;
+        this.marks = marks;
+        this.ring = new TickRingBuffer(ringCapacity);
+        producer = new Thread(this::produce, "price-feed");
+        consumer = new Thread(this::consume, "mark-to-market");
+        producer.setDaemon(true);
+        consumer.setDaemon(true);
+    }
+
+    public void start() {
+        consumer.start();
+        producer.start();
+    }
+
+    private void produce() {
+        try {
+            feed.run(ring);
+        } catch (IOException e) {
+            error = e;
+        } finally {
+            ring.close();
+        }
+    }
+
+    private void consume() {
+        int n;
+        while ((n = ring.drain(marks, 100, TimeUnit.MILLISECONDS)) >= 0) {
+            if (n > 0) marks.publish();
+        }
+    }
+
+    /** True until the feed has ended and every tick has been applied. */
+    public boolean isRunning() {
+        return consumer.isAlive();
+    }
+
+    /** Why the feed stopped early, if it did. */
+    public IOException error() {
+        return error;
+    }
+
+    public long backlog() {
+        return ring.backlog();
+    }
+
+    /** Waits for the feed to end and its ticks to be applied. */
+    public void await() throws InterruptedException {
+        consumer.join();
+    }
+
+    /**
+     * Stops the feed without waiting: a producer parked between paced ticks is woken, and the
+     * consumer ends once the ring is drained. {@link #isRunning} turns false when it has.
+     */
+    public void stop() {
+        try {
+            feed.close();
+        } catch (IOException ignored) {
+            // stopping anyway
+        }
+        LockSupport.unpark(producer);
+        ring.close();
+    }
+
+    /** Stops the feed and waits briefly for both threads; not for an event thread. */
+    @Override
+    public void close() {
+        stop();
+        try {
+            producer.join(1000);
+            consumer.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
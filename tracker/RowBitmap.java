@@ -0,0 +1,302 @@
+package tracker;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed set of row ids in the Roaring layout: rows are split into 65536-row blocks, and each
+ * block is either a sorted {@code char[]} (up to {@value #ARRAY_MAX} rows) or a 1024-word bitmap.
+ */
+public final class RowBitmap {
+    static final int ARRAY_MAX = 4096;
+    private static final int WORDS = 1024;
+
+    private char[][] arrays = new char[1][];
+    private long[][] bitmaps = new long[1][];
+    private int[] cards = new int[1];
+    private int blocks;
+
+    public static RowBitmap of(int[] rows, int size) {
+        RowBitmap b = new RowBitmap();
+        for (int i = 0; i < size; i++) b.add(rows[i]);
+        return b;
+    }
+
+    /** Every row in {@code [0, size)}. */
+    public static RowBitmap range(int size) {
+        RowBitmap b = new RowBitmap();
+        for (int row = 0; row < size; row++) b.add(row);
+        return b;
+    }
+
+    private void ensure(int block) {
+        if (block < blocks) return;
+        if (block >= cards.length) {
+            int n = Math.max(block + 1, cards.length * 2);
+            arrays = Arrays.copyOf(arrays, n);
+            bitmaps = Arrays.copyOf(bitmaps, n);
+            cards = Arrays.copyOf(cards, n);
+        }
+        blocks = block + 1;
+    }
+
+    public void add(int row) {
+        int b = row >>> 16;
+        char low = (char) row;
+        ensure(b);
+        long[] words = bitmaps[b];
+        if (words != null) {
+            long bit = 1L << low;
+            if ((words[low >>> 6] & bit) == 0) {
+                words[low >>> 6] |= bit;
+                cards[b]++;
+            }
+            return;
+        }
+        char[] a = arrays[b];
+        int n = cards[b];
+        if (a == null) a = arrays[b] = new char[4];
+        int pos;
+        if (n == 0 || a[n - 1] < low) {
+            pos = n;
+        } else {
+            pos = Arrays.binarySearch(a, 0, n, low);
+            if (pos >= 0) return;
+            pos = -pos - 1;
+        }
+        if (n == ARRAY_MAX) {
+            long[] w = toWords(a, n);
+            w[low >>> 6] |= 1L << low;
+            bitmaps[b] = w;
+            arrays[b] = null;
+            cards[b] = n + 1;
+            return;
+        }
+        if (n == a.length) a = arrays[b] = Arrays.copyOf(a, Math.min(ARRAY_MAX, Math.max(4, n * 2)));
+        System.arraycopy(a, pos, a, pos + 1, n - pos);
+        a[pos] = low;
+        cards[b] = n + 1;
+    }
+
+    public boolean contains(int row) {
+        int b = row >>> 16;
+        if (row < 0 || b >= blocks) return false;
+        char low = (char) row;
+        long[] words = bitmaps[b];
+        if (words != null) return (words[low >>> 6] & (1L << low)) != 0;
+        return cards[b] > 0 && Arrays.binarySearch(arrays[b], 0, cards[b], low) >= 0;
+    }
+
+    /** Removes every row {@code >= row}. */
+    public void removeFrom(int row) {
+        int first = Math.max(0, row) >>> 16;
+        if (first >= blocks) return;
+        for (int b = first + 1; b < blocks; b++) {
+            arrays[b] = null;
+            bitmaps[b] = null;
+            cards[b] = 0;
+        }
+        char low = (char) row;
+        if (low == 0) {
+            arrays[first] = null;
+            bitmaps[first] = null;
+            cards[first] = 0;
+            blocks = first;
+        } else {
+            blocks = first + 1;
+            long[] words = bitmaps[first];
+            if (words != null) {
+                int w = low >>> 6;
+                words[w] &= (1L << low) - 1;
+                Arrays.fill(words, w + 1, WORDS, 0);
+                cards[first] = bitCount(words);
+            } else if (cards[first] > 0) {
+                int pos = Arrays.binarySearch(arrays[first], 0, cards[first], low);
+                cards[first] = pos >= 0 ? pos : -pos - 1;
+            }
+        }
+        while (blocks > 0 && cards[blocks - 1] == 0) blocks--;
+    }
+
+    public RowBitmap copy() {
+        RowBitmap r = new RowBitmap();
+        r.ensureCapacity(blocks);
+        for (int b = 0; b < blocks; b++) if (cards[b] > 0) r.copyBlock(this, b);
+        r.trim();
+        return r;
+    }
+
+    public void clear() {
+        removeFrom(0);
+    }
+
+    public int cardinality() {
+        int n = 0;
+        for (int b = 0; b < blocks; b++) n += cards[b];
+        return n;
+    }
+
+    public boolean isEmpty() {
+        return cardinality() == 0;
+    }
+
+    public RowBitmap and(RowBitmap o) {
+        RowBitmap r = new RowBitmap();
+        int n = Math.min(blocks, o.blocks);
+        r.ensureCapacity(n);
+        for (int b = 0; b < n; b++) {
+            if (cards[b] == 0 || o.cards[b] == 0) continue;
+            if (bitmaps[b] == null && o.bitmaps[b] == null) {
+                char[] out = new char[Math.min(cards[b], o.cards[b])];
+                int k = 0;
+                char[] x = arrays[b], y = o.arrays[b];
+                for (int i = 0, j = 0; i < cards[b] && j < o.cards[b]; ) {
+                    if (x[i] < y[j]) i++;
+                    else if (x[i] > y[j]) j++;
+                    else { out[k++] = x[i]; i++; j++; }
+                }
+                r.setArray(b, out, k);
+            } else if (bitmaps[b] == null || o.bitmaps[b] == null) {
+                RowBitmap arr = bitmaps[b] == null ? this : o;
+                long[] words = bitmaps[b] == null ? o.bitmaps[b] : bitmaps[b];
+                char[] x = arr.arrays[b];
+                char[] out = new char[arr.cards[b]];
+                int k = 0;
+                for (int i = 0; i < arr.cards[b]; i++) {
+                    if ((words[x[i] >>> 6] & (1L << x[i])) != 0) out[k++] = x[i];
+                }
+                r.setArray(b, out, k);
+            } else {
+                long[] out = new long[WORDS];
+                for (int w = 0; w < WORDS; w++) out[w] = bitmaps[b][w] & o.bitmaps[b][w];
+                r.setWords(b, out);
+            }
+        }
+        r.trim();
+        return r;
+    }
+
+    public RowBitmap or(RowBitmap o) {
+        RowBitmap r = new RowBitmap();
+        int n = Math.max(blocks, o.blocks);
+        r.ensureCapacity(n);
+        for (int b = 0; b < n; b++) {
+            int ca = b < blocks ? cards[b] : 0, cb = b < o.blocks ? o.cards[b] : 0;
+            if (ca == 0 && cb == 0) continue;
+            if (cb == 0) {
+                r.copyBlock(this, b);
+            } else if (ca == 0) {
+                r.copyBlock(o, b);
+            } else if (bitmaps[b] == null && o.bitmaps[b] == null && ca + cb <= ARRAY_MAX) {
+                char[] x = arrays[b], y = o.arrays[b];
+                char[] out = new char[ca + cb];
+                int i = 0, j = 0, k = 0;
+                while (i < ca && j < cb) {
+                    if (x[i] < y[j]) out[k++] = x[i++];
+                    else if (x[i] > y[j]) out[k++] = y[j++];
+                    else { out[k++] = x[i++]; j++; }
+                }
+                while (i < ca) out[k++] = x[i++];
+                while (j < cb) out[k++] = y[j++];
+                r.setArray(b, out, k);
+            } else {
+                long[] out = words(b);
+                long[] other = o.bitmaps[b];
+                if (other != null) {
+                    for (int w = 0; w < WORDS; w++) out[w] |= other[w];
+                } else {
+                    for (int i = 0; i < cb; i++) out[o.arrays[b][i] >>> 6] |= 1L << o.arrays[b][i];
+                }
+                r.setWords(b, out);
+            }
+        }
+        r.trim();
+        return r;
+    }
+
+    private void ensureCapacity(int n) {
+        if (n == 0) return;
+        ensure(n - 1);
+    }
+
+    private void trim() {
+        while (blocks > 0 && cards[blocks - 1] == 0) blocks--;
+    }
+
+    private void copyBlock(RowBitmap from, int b) {
+        if (from.bitmaps[b] != null) {
+            bitmaps[b] = from.bitmaps[b].clone();
+            cards[b] = from.cards[b];
+        } else {
+            setArray(b, Arrays.copyOf(from.arrays[b], from.cards[b]), from.cards[b]);
+        }
+    }
+
+    private void setArray(int b, char[] values, int n) {
+        arrays[b] = values;
+        bitmaps[b] = null;
+        cards[b] = n;
+    }
+
+    private void setWords(int b, long[] words) {
+        int card = bitCount(words);
+        if (card <= ARRAY_MAX) {
+            char[] a = new char[card];
+            int k = 0;
+            for (int w = 0; w < WORDS; w++) {
+                for (long bits = words[w]; bits != 0; bits &= bits - 1) {
+                    a[k++] = (char) ((w << 6) + Long.numberOfTrailingZeros(bits));
+                }
+            }
+            setArray(b, a, card);
+        } else {
+            bitmaps[b] = words;
+            arrays[b] = null;
+            cards[b] = card;
+        }
+    }
+
+    /** Fresh word copy of block {@code b}, whichever form it is stored in. */
+    private long[] words(int b) {
+        if (b >= blocks) return new long[WORDS];
+        if (bitmaps[b] != null) return bitmaps[b].clone();
+        return toWords(arrays[b], cards[b]);
+    }
+
+    private static long[] toWords(char[] a, int n) {
+        long[] w = new long[WORDS];
+        for (int i = 0; i < n; i++) w[a[i] >>> 6] |= 1L << a[i];
+        return w;
+    }
+
+    private static int bitCount(long[] words) {
+        int n = 0;
+        for (long w : words) n += Long.bitCount(w);
+        return n;
+    }
+
+    /** Visits rows in ascending order. */
+    public void forEach(IntConsumer action) {
+        for (int b = 0; b < blocks; b++) {
+            int base = b << 16;
+            long[] words = bitmaps[b];
+            if (words != null) {
+                for (int w = 0; w < WORDS; w++) {
+                    for (long bits = words[w]; bits != 0; bits &= bits - 1) {
+                        action.accept(base + (w << 6) + Long.numberOfTrailingZeros(bits));
+                    }
+                }
+            } else {
+                char[] a = arrays[b];
+                for (int i = 0; i < cards[b]; i++) action.accept(base + a[i]);
+            }
+        }
+    }
+
+    public int[] toArray() {
+        int[] rows = new int[cardinality()];
+        int[] k = {0};
+        forEach(row -> rows[k[0]++] = row);
+        return rows;
+    }
+}
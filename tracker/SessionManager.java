@@ -0,0 +1,170 @@
+package tracker;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Open {@link Workspace}s of recently active traders, so switching back to one is instant. A
+ * workspace is loaded the first time it is asked for, on a background thread; once the loaded ones
+ * together exceed the memory budget, the least recently used are evicted and closed (journal
+ * flushed, undo history dropped). The active workspace is never evicted, and neither is one still
+ * loading.
+ * <p>
+ * Loads and closes share one thread, so a trader evicted and reopened straight away is reloaded
+ * only after their journal is closed. Call everything except {@link #close} from the event thread.
+ */
+public final class SessionManager implements Closeable {
+    /** Builds and fills a workspace; runs on the background thread. */
+    public interface Loader {
+        Workspace load(String user) throws Exception;
+    }
+
+    /** Told when closing an evicted workspace fails; runs on the background thread. */
+    public interface CloseListener {
+        void closeFailed(String user, IOException e);
+    }
+
+    private final Loader loader;
+    private final CloseListener onCloseFailure;
+    private final long budget;
+    private final ExecutorService background = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "session-loader");
+        t.setDaemon(true);
+        return t;
+    });
+    private final LinkedHashMap<String, CompletableFuture<Workspace>> sessions = new LinkedHashMap<>(16, 0.75f, true);
+    private String active;
+    private boolean closed;
+
+    public SessionManager(Loader loader, long budgetBytes, CloseListener onCloseFailure) {
+        this.loader = loader;
+        this.budget = budgetBytes;
+        this.onCloseFailure = onCloseFailure;
+    }
+
+    /**
+     * Makes {@code user} the active trader and returns their workspace, already complete if it is
+     * cached. A failed load is not cached, so the next call tries again.
+     */
+    public synchronized CompletableFuture<Workspace> open(String user) {
+        if (closed) throw new IllegalStateException("session manager is closed");
+        active = user;
+        CompletableFuture<Workspace> session = sessions.get(user);
+        if (session == null) {
+            CompletableFuture<Workspace> loading = new CompletableFuture<>();
+            sessions.put(user, loading);
+            background.execute(() -> {
+                try (Metrics.Sample sample = Metrics.start("loadWorkspace")) {
+                    Workspace ws = loader.load(user);
+                    sample.rows(ws.store.size());
+                    loading.complete(ws);
+                } catch (Throwable e) {
+                    forget(user, loading);
+                    loading.completeExceptionally(e);
+                }
+            });
+            session = loading;
+        }
+        trim();
+        return session;
+    }
+
+    private synchronized void forget(String user, CompletableFuture<Workspace> session) {
+        sessions.remove(user, session);
+    }
+
+    public synchronized String active() {
+        return active;
+    }
+
+    /** Cached traders, most recently used first, including any still loading. */
+    public synchronized List<String> users() {
+        List<String> users = new ArrayList<>(sessions.keySet());
+        Collections.reverse(users);
+        return users;
+    }
+
+    /** Estimated heap of the loaded workspaces. */
+    public synchronized long memoryBytes() {
+        long total = 0;
+        for (CompletableFuture<Workspace> s : sessions.values()) total += loadedBytes(s);
+        return total;
+    }
+
+    public long budgetBytes() {
+        return budget;
+    }
+
+    /**
+     * Evicts least recently used workspaces until the rest fit the budget. Workspaces grow as trades
+     * are imported, so call this after a load completes or an import ends, not only on switches.
+     */
+    public synchronized void trim() {
+        long total = memoryBytes();
+        for (Iterator<Map.Entry<String, CompletableFuture<Workspace>>> it = sessions.entrySet().iterator();
+                it.hasNext() && total > budget; ) {
+            Map.Entry<String, CompletableFuture<Workspace>> e = it.next();
+            CompletableFuture<Workspace> s = e.getValue();
+            if (e.getKey().equals(active) || !s.isDone() || s.isCompletedExceptionally()) continue;
+            total -= loadedBytes(s);
+            it.remove();
+            Workspace ws = s.join();
+            background.execute(() -> closeEvicted(ws));
+        }
+    }
+
+    private static long loadedBytes(CompletableFuture<Workspace> s) {
+        return s.isDone() && !s.isCompletedExceptionally() ? s.join().memoryBytes() : 0;
+    }
+
+    private void closeEvicted(Workspace ws) {
+        try {
+            ws.close();
+        } catch (IOException e) {
+            onCloseFailure.closeFailed(ws.user, e);
+        }
+    }
+
+    /** Waits for pending loads, then closes every workspace; their journals are on disk when this returns. */
+    @Override
+    public void close() throws IOException {
+        List<CompletableFuture<Workspace>> open;
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            open = new ArrayList<>(sessions.values());
+            sessions.clear();
+        }
+        IOException failure = null;
+        for (CompletableFuture<Workspace> s : open) {
+            Workspace ws;
+            try {
+                ws = s.join();
+            } catch (RuntimeException e) {
+                continue; // failed to load; nothing to close
+            }
+            try {
+                ws.close();
+            } catch (IOException e) {
+                if (failure == null) failure = e;
+            }
+        }
+        background.shutdown();
+        try {
+            background.awaitTermination(30, TimeUnit.SECONDS); // evictions still closing
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) throw failure;
+    }
+}
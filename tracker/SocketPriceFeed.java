@@ -0,0 +1,43 @@
+package tracker;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads {@code Symbol,Price} lines from a TCP connection, e.g. a local stand-in server such as
+ * {@code nc -lk 9000 < ticks.csv}. Ends when the server closes the connection.
+ */
+public final class SocketPriceFeed extends LinePriceFeed {
+    private final String host;
+    private final int port;
+    private volatile Socket socket;
+
+    public SocketPriceFeed(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    @Override
+    public void run(TickSink sink) throws IOException {
+        try (Socket s = new Socket()) {
+            socket = s;
+            if (closed) return;
+            s.setTcpNoDelay(true);
+            s.connect(new InetSocketAddress(host, port), 5000);
+            pump(new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.US_ASCII), 1 << 16), sink, 0);
+        } catch (IOException e) {
+            if (!closed) throw e; // closing the socket is how close() interrupts a blocked read
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        Socket s = socket;
+        if (s != null) s.close();
+    }
+}
@@ -0,0 +1,35 @@
+package tracker;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/** Append-only string <-> dense int id mapping used to dictionary-encode low-cardinality columns. */
+public final class StringDictionary {
+    private final Map<String, Integer> ids = new HashMap<>();
+    private String[] values = new String[16];
+    private int size;
+
+    public int id(String value) {
+        Integer id = ids.get(value);
+        if (id != null) return id;
+        if (size == values.length) values = Arrays.copyOf(values, size * 2);
+        values[size] = value;
+        ids.put(value, size);
+        return size++;
+    }
+
+    /** Returns the id of {@code value}, or -1 if it has never been added. */
+    public int find(String value) {
+        Integer id = ids.get(value);
+        return id == null ? -1 : id;
+    }
+
+    public String get(int id) {
+        return values[id];
+    }
+
+    public int size() {
+        return size;
+    }
+}
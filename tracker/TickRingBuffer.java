@@ -0,0 +1,106 @@
+package tracker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded single-producer, single-consumer tick queue in the style of a Disruptor ring: slots are
+ * preallocated parallel arrays, and the two sides coordinate only through a published and a
+ * consumed sequence (release/acquire, no locks). The consumer takes everything published so far
+ * in one batch. A full ring makes the producer wait, so a slow consumer slows the feed instead of
+ * growing memory or latency without bound.
+ */
+public final class TickRingBuffer implements PriceFeed.TickSink {
+    private static final int SPINS = 256;
+    private static final long PARK_NANOS = 20_000;
+
+    private final int mask;
+    private final String[] symbols;
+    private final double[] prices;
+    private final long[] times;
+
+    private final AtomicLong published = new AtomicLong(), consumed = new AtomicLong();
+    private long cachedConsumed; // producer's last view of consumed; re-read only when the ring looks full
+    private volatile boolean closed;
+    private volatile Thread consumerThread;
+    private volatile boolean consumerParked; // the producer unparks only when this is set
+
+    public TickRingBuffer(int capacity) {
+        int cap = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        mask = cap - 1;
+        symbols = new String[cap];
+        prices = new double[cap];
+        times = new long[cap];
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /** Producer side. Waits while the ring is full; drops the tick if the ring was closed. */
+    @Override
+    public void tick(String symbol, double price, long timeNanos) {
+        long seq = published.get(); // only the producer writes it
+        for (int spins = 0; seq - cachedConsumed > mask; spins++) {
+            if (closed) return;
+            cachedConsumed = consumed.getAcquire();
+            if (seq - cachedConsumed <= mask) break;
+            if (spins < SPINS) Thread.onSpinWait();
+            else LockSupport.parkNanos(PARK_NANOS);
+        }
+        int slot = (int) seq & mask;
+        symbols[slot] = symbol;
+        prices[slot] = price;
+        times[slot] = timeNanos;
+        published.setRelease(seq + 1);
+        if (consumerParked) LockSupport.unpark(consumerThread);
+    }
+
+    /** No more ticks; the consumer drains what is left and then sees -1. */
+    public void close() {
+        closed = true;
+        Thread c = consumerThread;
+        if (c != null) LockSupport.unpark(c);
+    }
+
+    /** Ticks published but not yet consumed. */
+    public long backlog() {
+        return published.get() - consumed.get();
+    }
+
+    /**
+     * Consumer side. Hands every tick published so far to {@code handler}, waiting up to
+     * {@code timeout} for the first. Returns the number handled, or -1 once closed and empty.
+     */
+    public int drain(PriceFeed.TickSink handler, long timeout, TimeUnit unit) {
+        long next = consumed.get(); // only the consumer writes it
+        long available = published.getAcquire();
+        if (available == next) {
+            consumerThread = Thread.currentThread();
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            for (int spins = 0; (available = published.getAcquire()) == next; spins++) {
+                if (closed) {
+                    available = published.getAcquire(); // a tick may have landed just before close
+                    if (available == next) return -1;
+                    break;
+                }
+                long left = deadline - System.nanoTime();
+                if (left <= 0) return 0;
+                if (spins < SPINS) {
+                    Thread.onSpinWait();
+                } else {
+                    consumerParked = true;
+                    if (published.get() == next && !closed) LockSupport.parkNanos(this, Math.min(left, 1_000_000));
+                    consumerParked = false;
+                }
+            }
+        }
+        for (long seq = next; seq < available; seq++) {
+            int slot = (int) seq & mask;
+            handler.tick(symbols[slot], prices[slot], times[slot]);
+        }
+        consumed.setRelease(available);
+        return (int) (available - next);
+    }
+}
@@ -0,0 +1,361 @@
+package tracker;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Fork/join analytics over a {@link TradeStore}. Work is split over whole column chunks; every leaf
+ * folds its rows into a {@link Partial} and partials merge pairwise up the tree, so the result does
+ * not depend on how the range was split. Two passes run: one for profit/date bounds, then one that
+ * fills totals, per-symbol/type breakdowns, per-day buckets and a profit histogram for percentiles.
+ * <p>
+ * Columns are captured when {@link #analyze} starts; rows appended afterwards are ignored, but the
+ * store must not be truncated while a run is in flight.
+ */
+public final class TradeAnalytics {
+    static final int HISTOGRAM_BUCKETS = 4096;
+    private static final int DENSE_DAY_RANGE = 1 << 16;
+    private static final double[] PERCENTILES = {1, 5, 10, 25, 50, 75, 90, 95, 99};
+
+    private final ForkJoinPool pool;
+
+    public TradeAnalytics(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public TradeAnalytics() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /** Totals and breakdowns for one group of trades. */
+    public static final class Bucket {
+        public final String label;
+        public final int count, wins;
+        public final double net;
+
+        Bucket(String label, int count, int wins, double net) {
+            this.label = label;
+            this.count = count;
+            this.wins = wins;
+            this.net = net;
+        }
+
+        public double winRate() {
+            return count > 0 ? 100.0 * wins / count : 0;
+        }
+    }
+
+    public static final class Report {
+        public int count, wins, losses;
+        public double net, grossWin, grossLoss, maxProfit, maxLoss, mean, stdDev, maxDrawdown;
+        public List<Bucket> bySymbol = new ArrayList<>(), byType = new ArrayList<>();
+        public List<Bucket> byDay = new ArrayList<>(), byWeek = new ArrayList<>(), byMonth = new ArrayList<>();
+        /** {@link #percentileRanks} mapped to profit, interpolated within histogram buckets. */
+        public double[] percentiles = new double[PERCENTILES.length];
+        public final double[] percentileRanks = PERCENTILES.clone();
+
+        public double winRate() {
+            return count > 0 ? 100.0 * wins / count : 0;
+        }
+
+        public double avgWin() {
+            return wins > 0 ? grossWin / wins : 0;
+        }
+
+        public double avgLoss() {
+            return losses > 0 ? grossLoss / losses : 0;
+        }
+
+        public double avgProfit() {
+            return count > 0 ? net / count : 0;
+        }
+
+        /** Same definition as {@link TradeStatistics#profitFactor()}. */
+        public double profitFactor() {
+            if (grossLoss == 0) return grossWin > 0 ? Double.POSITIVE_INFINITY : 0;
+            return grossWin / -grossLoss;
+        }
+
+        public double expectancy() {
+            return count > 0 ? (wins * avgWin() + losses * avgLoss()) / count : 0;
+        }
+    }
+
+    /** Ranges and sizes fixed by the bounds pass. */
+    private static final class Shape {
+        final double lo, width;
+        final int minDay, days, symbols, types;
+
+        Shape(double lo, double hi, int minDay, int maxDay, int symbols, int types) {
+            this.lo = lo;
+            this.width = hi > lo ? (hi - lo) / HISTOGRAM_BUCKETS : 1;
+            this.minDay = minDay;
+            this.days = maxDay >= minDay ? maxDay - minDay + 1 : 0;
+            this.symbols = symbols;
+            this.types = types;
+        }
+
+        int bucket(double profit) {
+            int b = (int) ((profit - lo) / width);
+            return b < 0 ? 0 : Math.min(b, HISTOGRAM_BUCKETS - 1);
+        }
+    }
+
+    /** Mergeable partial aggregate for a contiguous row range. */
+    static final class Partial {
+        int count, wins, losses;
+        double net, grossWin, grossLoss;
+        double max = Double.NEGATIVE_INFINITY, min = Double.POSITIVE_INFINITY;
+        double mean, m2;
+        double hi, lo, drawdown; // max/min prefix sum (empty prefix included) and max drawdown within the range
+        int minDay = Integer.MAX_VALUE, maxDay = Integer.MIN_VALUE;
+
+        int[] symbolCount, symbolWins, typeCount, typeWins;
+        double[] symbolNet, typeNet;
+        int[] dayCount, dayWins;
+        double[] dayNet;
+        Map<Integer, double[]> sparseDays; // day -> {count, wins, net} when the date range is too wide
+        long[] histogram;
+
+        Partial(Shape shape) {
+            if (shape == null) return;
+            symbolCount = new int[shape.symbols];
+            symbolWins = new int[shape.symbols];
+            symbolNet = new double[shape.symbols];
+            typeCount = new int[shape.types];
+            typeWins = new int[shape.types];
+            typeNet = new double[shape.types];
+            if (shape.days <= DENSE_DAY_RANGE) {
+                dayCount = new int[shape.days];
+                dayWins = new int[shape.days];
+                dayNet = new double[shape.days];
+            } else {
+                sparseDays = new HashMap<>();
+            }
+            histogram = new long[HISTOGRAM_BUCKETS];
+        }
+
+        void merge(Partial o) {
+            if (o.count == 0) return;
+            double delta = o.mean - mean;
+            int n = count + o.count;
+            mean += delta * o.count / n;
+            m2 += o.m2 + delta * delta * count * o.count / n;
+            drawdown = Math.max(Math.max(drawdown, o.drawdown), hi - (net + o.lo));
+            hi = Math.max(hi, net + o.hi);
+            lo = Math.min(lo, net + o.lo);
+
+            count = n;
+            wins += o.wins;
+            losses += o.losses;
+            net += o.net;
+            grossWin += o.grossWin;
+            grossLoss += o.grossLoss;
+            max = Math.max(max, o.max);
+            min = Math.min(min, o.min);
+            minDay = Math.min(minDay, o.minDay);
+            maxDay = Math.max(maxDay, o.maxDay);
+            if (histogram == null) return;
+            add(symbolCount, o.symbolCount);
+            add(symbolWins, o.symbolWins);
+            add(symbolNet, o.symbolNet);
+            add(typeCount, o.typeCount);
+            add(typeWins, o.typeWins);
+            add(typeNet, o.typeNet);
+            if (dayCount != null) {
+                add(dayCount, o.dayCount);
+                add(dayWins, o.dayWins);
+                add(dayNet, o.dayNet);
+            } else {
+                o.sparseDays.forEach((day, v) -> {
+                    double[] mine = sparseDays.computeIfAbsent(day, d -> new double[3]);
+                    for (int i = 0; i < 3; i++) mine[i] += v[i];
+                });
+            }
+            for (int i = 0; i < histogram.length; i++) histogram[i] += o.histogram[i];
+        }
+
+        private static void add(int[] a, int[] b) {
+            for (int i = 0; i < a.length; i++) a[i] += b[i];
+        }
+
+        private static void add(double[] a, double[] b) {
+            for (int i = 0; i < a.length; i++) a[i] += b[i];
+        }
+    }
+
+    private static final class Columns {
+        final TradeStore.DoubleColumn profit;
+        final TradeStore.IntColumn symbol, type, day;
+
+        Columns(TradeStore store, int rows) {
+            profit = store.profitColumn().pinned(rows);
+            symbol = store.symbolColumn().pinned(rows);
+            type = store.typeColumn().pinned(rows);
+            day = store.dayColumn().pinned(rows);
+        }
+    }
+
+    private static final class Task extends RecursiveTask<Partial> {
+        final Columns cols;
+        final Shape shape;
+        final int fromChunk, toChunk;
+
+        Task(Columns cols, Shape shape, int fromChunk, int toChunk) {
+            this.cols = cols;
+            this.shape = shape;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (toChunk - fromChunk > 1) {
+                int mid = (fromChunk + toChunk) >>> 1;
+                Task left = new Task(cols, shape, fromChunk, mid);
+                left.fork();
+                Partial right = new Task(cols, shape, mid, toChunk).compute();
+                Partial result = left.join();
+                result.merge(right);
+                return result;
+            }
+            Partial p = new Partial(shape);
+            if (fromChunk == toChunk) return p;
+            double[] profits = cols.profit.chunk(fromChunk);
+            int[] days = cols.day.chunk(fromChunk);
+            int[] symbols = cols.symbol.chunk(fromChunk), types = cols.type.chunk(fromChunk);
+            int n = cols.profit.chunkLength(fromChunk);
+            for (int i = 0; i < n; i++) {
+                double profit = profits[i];
+                int day = days[i];
+                p.count++;
+                p.net += profit;
+                boolean win = profit > 0;
+                if (win) {
+                    p.wins++;
+                    p.grossWin += profit;
+                } else if (profit < 0) {
+                    p.losses++;
+                    p.grossLoss += profit;
+                }
+                if (profit > p.max) p.max = profit;
+                if (profit < p.min) p.min = profit;
+                double delta = profit - p.mean;
+                p.mean += delta / p.count;
+                p.m2 += delta * (profit - p.mean);
+                if (p.net > p.hi) p.hi = p.net;
+                if (p.net < p.lo) p.lo = p.net;
+                if (p.hi - p.net > p.drawdown) p.drawdown = p.hi - p.net;
+                if (day != TradeDates.NO_DATE) {
+                    if (day < p.minDay) p.minDay = day;
+                    if (day > p.maxDay) p.maxDay = day;
+                }
+                if (shape == null) continue;
+
+                int s = symbols[i], t = types[i];
+                p.symbolCount[s]++;
+                p.symbolNet[s] += profit;
+                p.typeCount[t]++;
+                p.typeNet[t] += profit;
+                if (win) {
+                    p.symbolWins[s]++;
+                    p.typeWins[t]++;
+                }
+                if (day != TradeDates.NO_DATE) {
+                    if (p.dayCount != null) {
+                        int d = day - shape.minDay;
+                        p.dayCount[d]++;
+                        p.dayNet[d] += profit;
+                        if (win) p.dayWins[d]++;
+                    } else {
+                        double[] v = p.sparseDays.computeIfAbsent(day, k -> new double[3]);
+                        v[0]++;
+                        if (win) v[1]++;
+                        v[2] += profit;
+                    }
+                }
+                p.histogram[shape.bucket(profit)]++;
+            }
+            return p;
+        }
+    }
+
+    public Report analyze(TradeStore store) {
+        return analyze(store, store.size());
+    }
+
+    /** Analyzes the first {@code rows} rows as published to another thread; see {@link TradeStore.DoubleColumn#pinned}. */
+    Report analyze(TradeStore store, int rows) {
+        Columns cols = new Columns(store, rows);
+        int chunks = cols.profit.chunkCount();
+        Partial bounds = pool.invoke(new Task(cols, null, 0, chunks));
+        Report r = new Report();
+        if (bounds.count == 0) return r;
+
+        Shape shape = new Shape(bounds.min, bounds.max, bounds.minDay, bounds.maxDay,
+                store.symbols().size(), store.types().size());
+        Partial p = pool.invoke(new Task(cols, shape, 0, chunks));
+
+        r.count = p.count;
+        r.wins = p.wins;
+        r.losses = p.losses;
+        r.net = p.net;
+        r.grossWin = p.grossWin;
+        r.grossLoss = p.grossLoss;
+        r.maxProfit = p.max;
+        r.maxLoss = p.min;
+        r.mean = p.mean;
+        r.stdDev = p.count > 1 ? Math.sqrt(p.m2 / (p.count - 1)) : 0;
+        r.maxDrawdown = p.drawdown;
+
+        for (int s = 0; s < shape.symbols; s++) {
+            if (p.symbolCount[s] > 0) r.bySymbol.add(new Bucket(store.symbols().get(s), p.symbolCount[s], p.symbolWins[s], p.symbolNet[s]));
+        }
+        for (int t = 0; t < shape.types; t++) {
+            if (p.typeCount[t] > 0) r.byType.add(new Bucket(store.types().get(t), p.typeCount[t], p.typeWins[t], p.typeNet[t]));
+        }
+        fillCalendar(r, p, shape);
+        fillPercentiles(r, p, shape);
+        return r;
+    }
+
+    private static void fillCalendar(Report r, Partial p, Shape shape) {
+        TreeMap<Integer, double[]> days = new TreeMap<>();
+        if (p.dayCount != null) {
+            for (int d = 0; d < shape.days; d++) {
+                if (p.dayCount[d] > 0) days.put(shape.minDay + d, new double[]{p.dayCount[d], p.dayWins[d], p.dayNet[d]});
+            }
+        } else {
+            days.putAll(p.sparseDays);
+        }
+        TreeMap<Integer, double[]> weeks = new TreeMap<>(), months = new TreeMap<>();
+        days.forEach((day, v) -> {
+            r.byDay.add(new Bucket(TradeDates.format(day), (int) v[0], (int) v[1], v[2]));
+            accumulate(weeks, Math.floorDiv(day + 3, 7), v); // weeks start on Monday; epoch day 0 was a Thursday
+            LocalDate date = LocalDate.ofEpochDay(day);
+            accumulate(months, date.getYear() * 12 + date.getMonthValue() - 1, v);
+        });
+        weeks.forEach((week, v) -> r.byWeek.add(new Bucket("wk " + TradeDates.format(week * 7 - 3), (int) v[0], (int) v[1], v[2])));
+        months.forEach((month, v) -> r.byMonth.add(new Bucket(
+                String.format("%04d-%02d", month / 12, month % 12 + 1), (int) v[0], (int) v[1], v[2])));
+    }
+
+    private static void accumulate(Map<Integer, double[]> into, int key, double[] v) {
+        double[] acc = into.computeIfAbsent(key, k -> new double[3]);
+        for (int i = 0; i < 3; i++) acc[i] += v[i];
+    }
+
+    private static void fillPercentiles(Report r, Partial p, Shape shape) {
+        for (int k = 0; k < PERCENTILES.length; k++) {
+            double target = PERCENTILES[k] / 100.0 * p.count;
+            long seen = 0;
+            int b = 0;
+            while (b < HISTOGRAM_BUCKETS - 1 && seen + p.histogram[b] < target) seen += p.histogram[b++];
+            double within = p.histogram[b] > 0 ? (target - seen) / p.histogram[b] : 0;
+            double value = shape.lo + (b + within) * shape.width;
+            r.percentiles[k] = Math.max(p.min, Math.min(p.max, value));
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package tracker;
+
+/**
+ * Epoch-day encoding for the trade date column. Accepts {@code yyyy-MM-dd}, {@code yyyy/MM/dd}
+ * and the profile form {@code dd-MM-yyyy}; formats back to ISO {@code yyyy-MM-dd}.
+ */
+public final class TradeDates {
+    public static final int NO_DATE = Integer.MIN_VALUE;
+
+    private static final int DAYS_0000_TO_1970 = 719_528;
+    private static final int CACHE_SIZE = 4096;
+    private static final Entry[] CACHE = new Entry[CACHE_SIZE];
+
+    private TradeDates() {}
+
+    private static final class Entry {
+        final int day;
+        final String text;
+
+        Entry(int day, String text) {
+            this.day = day;
+            this.text = text;
+        }
+    }
+
+    public static int parse(CharSequence s) {
+        int from = 0, to = s.length();
+        while (from < to && s.charAt(from) == ' ') from++;
+        while (to > from && s.charAt(to - 1) == ' ') to--;
+        if (to - from != 10) return NO_DATE;
+        char c4 = s.charAt(from + 4), c2 = s.charAt(from + 2);
+        if ((c4 == '-' || c4 == '/') && s.charAt(from + 7) == c4) {
+            return of(digits(s, from, 4), digits(s, from + 5, 2), digits(s, from + 8, 2));
+        }
+        if (c2 == '-' && s.charAt(from + 5) == '-') {
+            return of(digits(s, from + 6, 4), digits(s, from + 3, 2), digits(s, from, 2));
+        }
+        return NO_DATE;
+    }
+
+    private static int digits(CharSequence s, int from, int n) {
+        int v = 0;
+        for (int i = from; i < from + n; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            v = v * 10 + (c - '0');
+        }
+        return v;
+    }
+
+    /** Proleptic Gregorian epoch day, or {@link #NO_DATE} when the fields are out of range. */
+    public static int of(int year, int month, int day) {
+        if (year < 1 || year > 9999 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            return NO_DATE;
+        }
+        long total = 365L * year + (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        total += (367 * month - 362) / 12 + day - 1;
+        if (month > 2) total -= isLeap(year) ? 1 : 2;
+        return (int) (total - DAYS_0000_TO_1970);
+    }
+
+    static boolean isLeap(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2: return isLeap(year) ? 29 : 28;
+            case 4: case 6: case 9: case 11: return 30;
+            default: return 31;
+        }
+    }
+
+    /** {@code year * 12 + month - 1} of an epoch day, by civil-from-days arithmetic (no allocation). */
+    static int yearMonth(int epochDay) {
+        int z = epochDay + 719_468;
+        int era = Math.floorDiv(z, 146_097);
+        int doe = z - era * 146_097;
+        int yoe = (doe - doe / 1460 + doe / 36_524 - doe / 146_096) / 365;
+        int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        int mp = (5 * doy + 2) / 153;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        int year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+        return year * 12 + month - 1;
+    }
+
+    public static String format(int epochDay) {
+        if (epochDay == NO_DATE) return "";
+        int slot = epochDay & (CACHE_SIZE - 1);
+        Entry e = CACHE[slot];
+        if (e == null || e.day != epochDay) {
+            e = new Entry(epochDay, java.time.LocalDate.ofEpochDay(epochDay).toString());
+            CACHE[slot] = e;
+        }
+        return e.text;
+    }
+}
@@ -0,0 +1,145 @@
+package tracker;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Versioned binary snapshot of a {@link TradeStore}.
+ * <pre>
+ *   int    magic 'STTJ', version, rowCount, symbolCount, typeCount
+ *   dict   symbolCount + typeCount entries of (u16 length, UTF-8 bytes), zero-padded to 8 bytes
+ *   double entry[rowCount], exit[rowCount], profit[rowCount]
+ *   int    symbol[rowCount], type[rowCount], epochDay[rowCount]
+ *   long   CRC32 of every preceding byte
+ * </pre>
+ * Little-endian throughout. Reading pulls the file into one heap buffer and bulk-copies each column
+ * block into the store's chunks, so nothing is decoded per row. It does not map the file: a mapping
+ * lives until it is collected, and on Windows a mapped file cannot be replaced by {@link #write}.
+ */
+public final class TradeFile {
+    static final int MAGIC = 0x4A545453; // "STTJ" read little-endian
+    static final int VERSION = 1;
+    private static final int HEADER = 20;
+    private static final int STAGING = 1 << 20;
+
+    private TradeFile() {}
+
+    /** Writes to a sibling temp file and moves it over {@code file}, so a crash never leaves half a snapshot. */
+    public static void write(TradeStore store, Path file) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(STAGING).order(ByteOrder.LITTLE_ENDIAN);
+            int n = store.size();
+            StringDictionary symbols = store.symbols(), types = store.types();
+            buf.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(symbols.size()).putInt(types.size());
+            long written = HEADER;
+            for (StringDictionary dict : new StringDictionary[]{symbols, types}) {
+                for (int id = 0; id < dict.size(); id++) {
+                    byte[] bytes = dict.get(id).getBytes(StandardCharsets.UTF_8);
+                    if (bytes.length > 0xFFFF) throw new IOException("Dictionary entry too long: " + dict.get(id).substring(0, 32));
+                    if (buf.remaining() < 2 + bytes.length) flush(ch, buf, crc);
+                    buf.putShort((short) bytes.length).put(bytes);
+                    written += 2 + bytes.length;
+                }
+            }
+            while ((written & 7) != 0) {
+                if (!buf.hasRemaining()) flush(ch, buf, crc);
+                buf.put((byte) 0);
+                written++;
+            }
+            for (TradeStore.DoubleColumn col : new TradeStore.DoubleColumn[]{
+                    store.entryColumn(), store.exitColumn(), store.profitColumn()}) {
+                for (int c = 0; c < col.chunkCount(); c++) {
+                    double[] chunk = col.chunk(c);
+                    for (int off = 0, len = col.chunkLength(c); off < len; ) {
+                        if (buf.remaining() < 8) flush(ch, buf, crc);
+                        int k = Math.min(len - off, buf.remaining() / 8);
+                        buf.asDoubleBuffer().put(chunk, off, k);
+                        buf.position(buf.position() + k * 8);
+                        off += k;
+                    }
+                }
+            }
+            for (TradeStore.IntColumn col : new TradeStore.IntColumn[]{
+                    store.symbolColumn(), store.typeColumn(), store.dayColumn()}) {
+                for (int c = 0; c < col.chunkCount(); c++) {
+                    int[] chunk = col.chunk(c);
+                    for (int off = 0, len = col.chunkLength(c); off < len; ) {
+                        if (buf.remaining() < 4) flush(ch, buf, crc);
+                        int k = Math.min(len - off, buf.remaining() / 4);
+                        buf.asIntBuffer().put(chunk, off, k);
+                        buf.position(buf.position() + k * 4);
+                        off += k;
+                    }
+                }
+            }
+            flush(ch, buf, crc);
+            buf.putLong(crc.getValue());
+            buf.flip();
+            while (buf.hasRemaining()) ch.write(buf);
+            ch.force(false);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void flush(FileChannel ch, ByteBuffer buf, CRC32 crc) throws IOException {
+        buf.flip();
+        crc.update(buf.duplicate());
+        while (buf.hasRemaining()) ch.write(buf);
+        buf.clear();
+    }
+
+    public static TradeStore read(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size > Integer.MAX_VALUE - 8) throw new IOException("Trade file too large to read: " + size + " bytes");
+            if (size < HEADER + 8) throw new IOException("Not a trade file: " + file);
+            ByteBuffer buf = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+            while (buf.hasRemaining()) {
+                if (ch.read(buf) < 0) throw new IOException("Truncated trade file: " + file);
+            }
+            buf.flip();
+
+            if (buf.getInt(0) != MAGIC) throw new IOException("Not a trade file: " + file);
+            int version = buf.getInt(4);
+            if (version != VERSION) throw new IOException("Unsupported trade file version " + version);
+            CRC32 crc = new CRC32();
+            crc.update(buf.duplicate().position(0).limit((int) size - 8));
+            if (crc.getValue() != buf.getLong((int) size - 8)) throw new IOException("Checksum mismatch in " + file);
+
+            int n = buf.getInt(8), symbolCount = buf.getInt(12), typeCount = buf.getInt(16);
+            TradeStore store = new TradeStore();
+            buf.position(HEADER);
+            String[] symbols = readDictionary(buf, symbolCount);
+            String[] types = readDictionary(buf, typeCount);
+            buf.position((buf.position() + 7) & ~7);
+            if (size - 8 - buf.position() != (long) n * (3 * 8 + 3 * 4)) throw new IOException("Truncated trade file: " + file);
+
+            int[] symbolMap = new int[symbolCount], typeMap = new int[typeCount];
+            for (int i = 0; i < symbolCount; i++) symbolMap[i] = store.symbols().id(symbols[i]);
+            for (int i = 0; i < typeCount; i++) typeMap[i] = store.types().id(types[i]);
+            store.appendRaw(buf.slice().order(ByteOrder.LITTLE_ENDIAN), n, symbolMap, typeMap);
+            return store;
+        }
+    }
+
+    private static String[] readDictionary(ByteBuffer buf, int count) {
+        String[] values = new String[count];
+        for (int i = 0; i < count; i++) {
+            byte[] bytes = new byte[buf.getShort() & 0xFFFF];
+            buf.get(bytes);
+            values[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return values;
+    }
+}
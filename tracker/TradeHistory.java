@@ -0,0 +1,214 @@
+package tracker;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * Undo and redo for a {@link TradeStore}. Every change the app makes is a tail splice: keep rows
+ * {@code [0, at)}, drop the rest, append new rows. A record holds just that range plus the rows
+ * its undo (or redo) must put back, so recording an import costs nothing per row, and undoing or
+ * redoing one truncates the tail and re-appends the captured rows, independent of history length.
+ * <p>
+ * Captured rows count against a memory cap. Beyond it, the oldest are written to a private temp
+ * directory with {@link TradeFile} and read back only if that record is applied again. Past
+ * {@code maxDepth} changes the oldest record is forgotten. Not thread-safe; use it from the
+ * store's writer thread, and route every change through {@link #begin}/{@link #end} or {@link #reset}.
+ */
+public final class TradeHistory implements Closeable {
+    /** Column bytes per captured row: three doubles and three ints. */
+    static final long ROW_BYTES = 3 * 8 + 3 * 4;
+
+    private static final class Record {
+        final String label;
+        final int at;
+        int count;        // rows of the current side, at [at, at + count)
+        TradeStore other; // rows of the other side; null when empty or spilled
+        int otherCount;
+        Path spill;
+
+        Record(String label, int at) {
+            this.label = label;
+            this.at = at;
+        }
+    }
+
+    private final TradeStore store;
+    private final long memoryCap;
+    private final int maxDepth;
+    private final ArrayDeque<Record> undo = new ArrayDeque<>(), redo = new ArrayDeque<>(); // newest first
+    private Record open;
+    private long inMemory;
+    private Path spillDir;
+    private int spills;
+
+    public TradeHistory(TradeStore store, long memoryCap, int maxDepth) {
+        this.store = store;
+        this.memoryCap = memoryCap;
+        this.maxDepth = Math.max(1, maxDepth);
+    }
+
+    /**
+     * Starts an undoable change that keeps rows {@code [0, keep)}, drops the rest now, and takes
+     * ownership of every row appended until {@link #end}.
+     */
+    public void begin(String label, int keep) {
+        if (open != null) throw new IllegalStateException("\"" + open.label + "\" is still in progress");
+        Record r = new Record(label, keep);
+        if (keep < store.size()) {
+            r.other = copy(keep, store.size());
+            r.otherCount = r.other.size();
+            store.truncate(keep);
+        }
+        open = r;
+    }
+
+    /** Finishes the change started by {@link #begin}; a change that did nothing is not recorded. */
+    public void end() {
+        Record r = open;
+        if (r == null) throw new IllegalStateException("no change in progress");
+        open = null;
+        r.count = store.size() - r.at;
+        if (r.count == 0 && r.otherCount == 0) return;
+        while (!redo.isEmpty()) discard(redo.pop());
+        undo.push(r);
+        inMemory += bytes(r);
+        while (undo.size() > maxDepth) discard(undo.removeLast());
+        enforceCap();
+    }
+
+    public boolean isOpen() {
+        return open != null;
+    }
+
+    public boolean canUndo() {
+        return open == null && !undo.isEmpty();
+    }
+
+    public boolean canRedo() {
+        return open == null && !redo.isEmpty();
+    }
+
+    /** Label of the change {@link #undo} would revert, or null. */
+    public String undoLabel() {
+        return undo.isEmpty() ? null : undo.peek().label;
+    }
+
+    public String redoLabel() {
+        return redo.isEmpty() ? null : redo.peek().label;
+    }
+
+    /** Reverts the newest change. Returns false if there is none. */
+    public boolean undo() throws IOException {
+        if (!canUndo()) return false;
+        swap(undo.peek());
+        redo.push(undo.pop());
+        return true;
+    }
+
+    /** Re-applies the newest undone change. Returns false if there is none. */
+    public boolean redo() throws IOException {
+        if (!canRedo()) return false;
+        swap(redo.peek());
+        undo.push(redo.pop());
+        return true;
+    }
+
+    /** Bytes of captured rows held in memory. */
+    public long memoryBytes() {
+        return inMemory;
+    }
+
+    /** Forgets all history, e.g. after the store was reloaded from disk. */
+    public void reset() {
+        open = null;
+        while (!undo.isEmpty()) discard(undo.pop());
+        while (!redo.isEmpty()) discard(redo.pop());
+    }
+
+    @Override
+    public void close() {
+        reset();
+        if (spillDir != null) {
+            try {
+                Files.deleteIfExists(spillDir);
+            } catch (IOException ignored) {
+                // a leftover empty temp directory is harmless
+            }
+            spillDir = null;
+        }
+    }
+
+    /**
+     * Exchanges the record's rows in the store with its captured side. The spilled side is read
+     * before the store is touched, so an I/O error leaves both unchanged.
+     */
+    private void swap(Record r) throws IOException {
+        if (store.size() != r.at + r.count) {
+            throw new IllegalStateException("trades changed outside the undo history (" + store.size() + " rows, expected "
+                    + (r.at + r.count) + ")");
+        }
+        TradeStore back = r.other;
+        if (back == null && r.spill != null) back = TradeFile.read(r.spill);
+        TradeStore taken = r.count > 0 ? copy(r.at, r.at + r.count) : null;
+        store.truncate(r.at);
+        if (back != null) store.appendAll(back);
+
+        inMemory -= bytes(r);
+        deleteSpill(r);
+        r.other = taken;
+        r.otherCount = r.count;
+        r.count = back != null ? back.size() : 0;
+        inMemory += bytes(r);
+        enforceCap();
+    }
+
+    private TradeStore copy(int from, int to) {
+        TradeStore rows = new TradeStore();
+        rows.appendRange(store, from, to);
+        return rows;
+    }
+
+    private static long bytes(Record r) {
+        return r.other == null ? 0 : r.otherCount * ROW_BYTES;
+    }
+
+    /** Spills captured rows, oldest undo first, then the redo farthest from the present. */
+    private void enforceCap() {
+        for (ArrayDeque<Record> stack : java.util.List.of(undo, redo)) {
+            for (Iterator<Record> it = stack.descendingIterator(); it.hasNext() && inMemory > memoryCap; ) {
+                Record r = it.next();
+                if (r.other == null) continue;
+                try {
+                    if (spillDir == null) spillDir = Files.createTempDirectory("trade-history");
+                    Path file = spillDir.resolve("undo-" + spills++ + ".bin");
+                    TradeFile.write(r.other, file);
+                    inMemory -= bytes(r);
+                    r.other = null;
+                    r.spill = file;
+                } catch (IOException e) {
+                    return; // keep the rows in memory rather than lose them
+                }
+            }
+        }
+    }
+
+    private void discard(Record r) {
+        inMemory -= bytes(r);
+        r.other = null;
+        deleteSpill(r);
+    }
+
+    private static void deleteSpill(Record r) {
+        if (r.spill == null) return;
+        try {
+            Files.deleteIfExists(r.spill);
+        } catch (IOException ignored) {
+            // a stray file in the temp directory is harmless
+        }
+        r.spill = null;
+    }
+}
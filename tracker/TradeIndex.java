@@ -0,0 +1,171 @@
+package tracker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Search index over a {@link TradeStore}, maintained through store events. Each symbol and type id
+ * owns a {@link RowBitmap} of its rows, and winners/losers have one each. Substring lookups go
+ * through a trigram index over the dictionaries rather than the rows, so a query only touches the
+ * handful of distinct strings and then ORs their bitmaps.
+ */
+public final class TradeIndex implements TradeStore.Listener {
+    private final TradeStore store;
+    private final List<RowBitmap> bySymbol = new ArrayList<>();
+    private final List<RowBitmap> byType = new ArrayList<>();
+    private final RowBitmap wins = new RowBitmap(), losses = new RowBitmap();
+    private final TrigramIndex symbolGrams = new TrigramIndex(), typeGrams = new TrigramIndex();
+
+    public TradeIndex(TradeStore store) {
+        this.store = store;
+        store.addListener(this);
+        rowsAdded(0, store.size());
+    }
+
+    @Override
+    public void rowsAdded(int from, int to) {
+        syncDictionary(store.symbols(), symbolGrams, bySymbol);
+        syncDictionary(store.types(), typeGrams, byType);
+        for (int row = from; row < to; row++) {
+            bySymbol.get(store.symbolId(row)).add(row);
+            byType.get(store.typeId(row)).add(row);
+            double profit = store.profit(row);
+            if (profit > 0) wins.add(row);
+            else if (profit < 0) losses.add(row);
+        }
+    }
+
+    private static void syncDictionary(StringDictionary dict, TrigramIndex grams, List<RowBitmap> postings) {
+        for (int id = postings.size(); id < dict.size(); id++) {
+            grams.add(dict.get(id));
+            postings.add(new RowBitmap());
+        }
+    }
+
+    @Override
+    public void rowsRemoved(int from, int to) {
+        for (RowBitmap b : bySymbol) b.removeFrom(from);
+        for (RowBitmap b : byType) b.removeFrom(from);
+        wins.removeFrom(from);
+        losses.removeFrom(from);
+    }
+
+    /** Rows matching every part of {@code q}, as a fresh bitmap the caller may keep. */
+    public RowBitmap search(TradeQuery q) {
+        RowBitmap result = null;
+        if (!q.text.isEmpty()) {
+            RowBitmap text = new RowBitmap();
+            for (int id : symbolGrams.matching(q.text)) text = text.or(bySymbol.get(id));
+            for (int id : typeGrams.matching(q.text)) text = text.or(byType.get(id));
+            result = text;
+        }
+        if (q.symbol != null) result = and(result, exact(store.symbols(), bySymbol, q.symbol));
+        if (q.type != null) result = and(result, exact(store.types(), byType, q.type));
+        if (q.sign == TradeQuery.Sign.WINS) result = and(result, wins);
+        else if (q.sign == TradeQuery.Sign.LOSSES) result = and(result, losses);
+        if (q.hasDateRange()) result = filterDates(result, q.fromDay, q.toDay);
+        if (result == null) return RowBitmap.range(store.size());
+        return result;
+    }
+
+    private static RowBitmap exact(StringDictionary dict, List<RowBitmap> postings, String value) {
+        int id = dict.find(value);
+        return id < 0 || id >= postings.size() ? new RowBitmap() : postings.get(id);
+    }
+
+    private static RowBitmap and(RowBitmap acc, RowBitmap b) {
+        return acc == null ? b.copy() : acc.and(b);
+    }
+
+    private RowBitmap filterDates(RowBitmap candidates, int fromDay, int toDay) {
+        RowBitmap out = new RowBitmap();
+        if (candidates != null) {
+            candidates.forEach(row -> {
+                int day = store.epochDay(row);
+                if (day != TradeDates.NO_DATE && day >= fromDay && day <= toDay) out.add(row);
+            });
+            return out;
+        }
+        TradeStore.IntColumn days = store.dayColumn();
+        for (int c = 0; c < days.chunkCount(); c++) {
+            int[] chunk = days.chunk(c);
+            int base = c << TradeStore.CHUNK_SHIFT;
+            for (int i = 0, n = days.chunkLength(c); i < n; i++) {
+                int day = chunk[i];
+                if (day != TradeDates.NO_DATE && day >= fromDay && day <= toDay) out.add(base + i);
+            }
+        }
+        return out;
+    }
+
+    /** Trigram postings over dictionary entries; ids are added in ascending order. */
+    static final class TrigramIndex {
+        private final List<String> lower = new ArrayList<>();
+        private final Map<Long, int[]> postings = new HashMap<>();
+        private final Map<Long, Integer> postingSizes = new HashMap<>();
+
+        void add(String value) {
+            int id = lower.size();
+            String s = value.toLowerCase();
+            lower.add(s);
+            for (int i = 0; i + 3 <= s.length(); i++) {
+                Long key = key(s, i);
+                int[] ids = postings.get(key);
+                int n = postingSizes.getOrDefault(key, 0);
+                if (ids == null) ids = new int[2];
+                if (n > 0 && ids[n - 1] == id) continue;
+                if (n == ids.length) ids = Arrays.copyOf(ids, n * 2);
+                ids[n] = id;
+                postings.put(key, ids);
+                postingSizes.put(key, n + 1);
+            }
+        }
+
+        private static long key(String s, int i) {
+            return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+        }
+
+        /** Ids whose lowercase value contains {@code query} (already lowercase). */
+        int[] matching(String query) {
+            int[] candidates = null;
+            int count = 0;
+            if (query.length() >= 3) {
+                for (int i = 0; i + 3 <= query.length(); i++) {
+                    Long key = key(query, i);
+                    int[] ids = postings.get(key);
+                    if (ids == null) return new int[0];
+                    int n = postingSizes.get(key);
+                    if (candidates == null) {
+                        candidates = Arrays.copyOf(ids, n);
+                        count = n;
+                    } else {
+                        count = intersect(candidates, count, ids, n);
+                    }
+                    if (count == 0) return new int[0];
+                }
+            } else {
+                candidates = new int[lower.size()];
+                for (int id = 0; id < candidates.length; id++) candidates[id] = id;
+                count = candidates.length;
+            }
+            int k = 0;
+            for (int i = 0; i < count; i++) {
+                if (lower.get(candidates[i]).contains(query)) candidates[k++] = candidates[i];
+            }
+            return Arrays.copyOf(candidates, k);
+        }
+
+        private static int intersect(int[] a, int na, int[] b, int nb) {
+            int k = 0;
+            for (int i = 0, j = 0; i < na && j < nb; ) {
+                if (a[i] < b[j]) i++;
+                else if (a[i] > b[j]) j++;
+                else { a[k++] = a[i]; i++; j++; }
+            }
+            return k;
+        }
+    }
+}
@@ -0,0 +1,419 @@
+package tracker;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead journal for a {@link TradeStore}. Every append and tail removal is encoded as a record
+ * on the mutating thread and handed to a single writer thread, which writes whatever has queued up and
+ * fsyncs once per group-commit interval. When the journal outgrows {@link #compactThreshold} the writer
+ * rebuilds the store from the snapshot and the records on disk, writes it as a new {@link TradeFile}
+ * snapshot, and restarts the journal empty on top of it; the mutating thread only queues a marker.
+ * <p>
+ * The first failed write stops journaling for good: later records would follow a gap (an append
+ * whose symbol definitions were lost), so every later change, {@link #sync} and {@link #close}
+ * report the failure instead.
+ * <p>
+ * Journal layout: header {@code (int magic, int version, long snapshotCrc, int snapshotRows)} followed
+ * by records {@code (int length, byte kind, payload, int crc32(kind + payload))}. On open, a journal
+ * whose header does not match the snapshot's checksum is stale (a compaction finished but the
+ * journal reset did not) and is discarded; a torn record at the tail ends replay.
+ */
+public final class TradeJournal implements TradeStore.Listener, Closeable {
+    static final int MAGIC = 0x53544A4C; // "STJL"
+    static final int VERSION = 1;
+    private static final int HEADER = 20;
+    private static final byte DEFINE_SYMBOL = 1, DEFINE_TYPE = 2, APPEND = 3, TRUNCATE = 4;
+    private static final int REPLAY_BATCH = 1 << 16; // rows of consecutive appends applied as one store event
+
+    private final TradeStore store;
+    private final Path snapshot, journal;
+    private final ScheduledExecutorService writer;
+    private final Object lock = new Object();
+
+    private FileChannel channel;
+    private List<Object> pending = new ArrayList<>(); // byte[] records and COMPACT markers, in order
+    private long pendingBytes;
+    private long journalBytes;
+    private int journaledSymbols, journaledTypes;
+    private long compactThreshold = 64L << 20;
+    private boolean compactionQueued;
+    private boolean replayed;
+    private volatile IOException failure;
+
+    private static final Object COMPACT = new Object();
+
+    private TradeJournal(TradeStore store, Path snapshot, Path journal, long commitIntervalMillis) {
+        this.store = store;
+        this.snapshot = snapshot;
+        this.journal = journal;
+        this.writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "trade-journal");
+            t.setDaemon(true);
+            return t;
+        });
+        writer.scheduleWithFixedDelay(this::drainQuietly, commitIntervalMillis, commitIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Loads the snapshot and replays the journal tail into {@code store} (which must be empty), then
+     * starts journaling its changes.
+     */
+    public static TradeJournal open(TradeStore store, Path snapshot, Path journal) throws IOException {
+        return open(store, snapshot, journal, 50);
+    }
+
+    public static TradeJournal open(TradeStore store, Path snapshot, Path journal, long commitIntervalMillis) throws IOException {
+        if (!store.isEmpty()) throw new IllegalStateException("Journal must be replayed into an empty store");
+        long snapshotCrc = 0;
+        if (Files.exists(snapshot)) {
+            store.appendAll(TradeFile.read(snapshot));
+            snapshotCrc = snapshotCrc(snapshot);
+        }
+        TradeJournal j = new TradeJournal(store, snapshot, journal, commitIntervalMillis);
+        j.journaledSymbols = store.symbols().size();
+        j.journaledTypes = store.types().size();
+        j.channel = FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long end = j.replay(store, snapshotCrc);
+        j.journaledSymbols = store.symbols().size();
+        j.journaledTypes = store.types().size();
+        if (end < 0) {
+            j.resetJournal(snapshotCrc, j.replayed);
+        } else {
+            j.channel.truncate(end);
+            j.channel.position(end);
+            j.journalBytes = end;
+        }
+        store.addListener(j);
+        return j;
+    }
+
+    private static long snapshotCrc(Path snapshot) throws IOException {
+        try (FileChannel ch = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            ByteBuffer b = ByteBuffer.allocate(8).order(java.nio.ByteOrder.LITTLE_ENDIAN);
+            ch.read(b, ch.size() - 8);
+            return b.getLong(0);
+        }
+    }
+
+    /**
+     * Applies journal records to {@code into}, which holds exactly the snapshot. Returns the offset
+     * after the last good record, or -1 if the journal is unusable. A record that checks out but
+     * refers to rows or ids the journal never defined is corruption, not a torn tail, and throws.
+     */
+    private long replay(TradeStore into, long snapshotCrc) throws IOException {
+        long size = channel.size();
+        if (size < HEADER) return -1;
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(0)), 1 << 16));
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) return -1;
+        if (in.readLong() != snapshotCrc || in.readInt() != into.size()) return -1;
+
+        List<Integer> symbolIds = new ArrayList<>(), typeIds = new ArrayList<>();
+        for (int id = 0; id < into.symbols().size(); id++) symbolIds.add(id);
+        for (int id = 0; id < into.types().size(); id++) typeIds.add(id);
+
+        long pos = HEADER;
+        CRC32 crc = new CRC32();
+        TradeStore appended = new TradeStore(); // reused, so one-row records do not each allocate chunks
+        while (pos + 4 <= size) {
+            int length = in.readInt();
+            if (length < 1 || pos + 4 + length + 4 > size) break;
+            byte[] body = new byte[length];
+            in.readFully(body);
+            int expected = in.readInt();
+            crc.reset();
+            crc.update(body);
+            if ((int) crc.getValue() != expected) break;
+
+            DataInputStream rec = new DataInputStream(new ByteArrayInputStream(body, 1, length - 1));
+            switch (body[0]) {
+                case DEFINE_SYMBOL:
+                    rec.readInt();
+                    symbolIds.add(into.symbols().id(rec.readUTF()));
+                    break;
+                case DEFINE_TYPE:
+                    rec.readInt();
+                    typeIds.add(into.types().id(rec.readUTF()));
+                    break;
+                case APPEND: {
+                    int n = rec.readInt();
+                    for (int i = 0; i < n; i++) {
+                        String symbol = into.symbols().get(defined(symbolIds, rec.readInt(), "symbol", pos));
+                        String type = into.types().get(defined(typeIds, rec.readInt(), "type", pos));
+                        appended.add(symbol, type, rec.readDouble(), rec.readDouble(), rec.readDouble(), rec.readInt());
+                    }
+                    if (appended.size() >= REPLAY_BATCH) applyAppended(into, appended);
+                    break;
+                }
+                case TRUNCATE: {
+                    applyAppended(into, appended);
+                    int rows = rec.readInt();
+                    if (rows < 0 || rows > into.size()) {
+                        throw new IOException("Journal truncates to row " + rows + " of " + into.size() + " at offset " + pos);
+                    }
+                    into.truncate(rows);
+                    break;
+                }
+                default:
+                    throw new IOException("Unknown journal record " + body[0] + " at offset " + pos);
+            }
+            pos += 4 + length + 4;
+            replayed = true;
+        }
+        applyAppended(into, appended);
+        // new records are written with the store's ids; if replay assigned different ones, start over from a snapshot
+        if (!identity(symbolIds) || !identity(typeIds)) return -1;
+        return pos;
+    }
+
+    private static int defined(List<Integer> ids, int id, String what, long pos) throws IOException {
+        if (id < 0 || id >= ids.size()) throw new IOException("Journal uses undefined " + what + " id " + id + " at offset " + pos);
+        return ids.get(id);
+    }
+
+    private static void applyAppended(TradeStore into, TradeStore appended) {
+        if (appended.isEmpty()) return;
+        into.appendAll(appended);
+        appended.clear();
+    }
+
+    private static boolean identity(List<Integer> ids) {
+        for (int i = 0; i < ids.size(); i++) if (ids.get(i) != i) return false;
+        return true;
+    }
+
+    /** Starts a fresh journal on top of the snapshot, first rewriting the snapshot if the store has moved past it. */
+    private void resetJournal(long snapshotCrc, boolean rewriteSnapshot) throws IOException {
+        if (rewriteSnapshot) {
+            TradeFile.write(copyOf(store), snapshot);
+            snapshotCrc = snapshotCrc(snapshot);
+        }
+        int snapshotRows = store.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        header.putInt(MAGIC).putInt(VERSION).putLong(snapshotCrc).putInt(snapshotRows).flip();
+        channel.truncate(0);
+        channel.position(0);
+        while (header.hasRemaining()) channel.write(header);
+        channel.force(false);
+        journalBytes = HEADER;
+        journaledSymbols = store.symbols().size();
+        journaledTypes = store.types().size();
+    }
+
+    private static TradeStore copyOf(TradeStore store) {
+        TradeStore copy = new TradeStore();
+        copy.appendAll(store);
+        return copy;
+    }
+
+    public void setCompactThreshold(long bytes) {
+        this.compactThreshold = bytes;
+    }
+
+    @Override
+    public void rowsAdded(int from, int to) {
+        checkNotFailed();
+        try {
+            defineNew(store.symbols(), DEFINE_SYMBOL, true);
+            defineNew(store.types(), DEFINE_TYPE, false);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(5 + (to - from) * 36);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(APPEND);
+            out.writeInt(to - from);
+            for (int row = from; row < to; row++) {
+                out.writeInt(store.symbolId(row));
+                out.writeInt(store.typeId(row));
+                out.writeDouble(store.entry(row));
+                out.writeDouble(store.exit(row));
+                out.writeDouble(store.profit(row));
+                out.writeInt(store.epochDay(row));
+            }
+            enqueue(bytes.toByteArray());
+            committed();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void defineNew(StringDictionary dict, byte kind, boolean symbols) throws IOException {
+        int start = symbols ? journaledSymbols : journaledTypes;
+        for (int id = start; id < dict.size(); id++) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(kind);
+            out.writeInt(id);
+            out.writeUTF(dict.get(id));
+            enqueue(bytes.toByteArray());
+        }
+        if (symbols) journaledSymbols = dict.size();
+        else journaledTypes = dict.size();
+    }
+
+    @Override
+    public void rowsRemoved(int from, int to) {
+        checkNotFailed();
+        enqueue(new byte[]{TRUNCATE, (byte) (from >>> 24), (byte) (from >>> 16), (byte) (from >>> 8), (byte) from});
+        committed();
+    }
+
+    private void checkNotFailed() {
+        IOException f = failure;
+        if (f != null) throw new UncheckedIOException("Journal stopped after a failed write; changes are no longer saved", f);
+    }
+
+    private void enqueue(byte[] body) {
+        synchronized (lock) {
+            pending.add(body);
+            pendingBytes += body.length + 8;
+            journalBytes += body.length + 8;
+        }
+    }
+
+    /**
+     * Called once all records of one store event are queued. A compaction queued between a define
+     * and its append would snapshot rows whose append then lands in the new journal and replays twice.
+     */
+    private void committed() {
+        boolean compact;
+        synchronized (lock) {
+            compact = journalBytes > compactThreshold && !compactionQueued;
+            if (compact) queueCompaction();
+        }
+        if (compact || pendingBytes > (4 << 20)) writer.execute(this::drainQuietly);
+    }
+
+    /** Queues a snapshot of the current store and an empty journal behind everything already logged. */
+    public void compact() {
+        checkNotFailed();
+        synchronized (lock) {
+            if (!compactionQueued) queueCompaction();
+        }
+        writer.execute(this::drainQuietly);
+    }
+
+    private void queueCompaction() {
+        pending.add(COMPACT);
+        journalBytes = HEADER;
+        compactionQueued = true;
+    }
+
+    /** Blocks until every change logged so far is on disk. */
+    public void sync() throws IOException {
+        try {
+            writer.submit(() -> {
+                drain();
+                return null;
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while syncing journal");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw new IOException(e.getCause());
+        }
+        if (failure != null) throw failure;
+    }
+
+    private void drainQuietly() {
+        try {
+            drain();
+        } catch (IOException e) {
+            // recorded in failure; the next change, sync or close reports it
+        }
+    }
+
+    /** Writer thread only. */
+    private void drain() throws IOException {
+        List<Object> batch;
+        synchronized (lock) {
+            if (failure != null) throw failure;
+            if (pending.isEmpty()) return;
+            batch = pending;
+            pending = new ArrayList<>();
+            pendingBytes = 0;
+        }
+        try {
+            write(batch);
+        } catch (IOException e) {
+            synchronized (lock) {
+                failure = e;
+                pending.clear(); // never written after the gap
+                pendingBytes = 0;
+            }
+            throw e;
+        }
+    }
+
+    private void write(List<Object> batch) throws IOException {
+        CRC32 crc = new CRC32();
+        ByteBuffer buf = ByteBuffer.allocate(1 << 16);
+        for (Object item : batch) {
+            if (item == COMPACT) {
+                writeFully(buf);
+                channel.force(false);
+                rewriteSnapshot();
+                synchronized (lock) {
+                    compactionQueued = false;
+                }
+                continue;
+            }
+            byte[] body = (byte[]) item;
+            crc.reset();
+            crc.update(body);
+            if (buf.remaining() < body.length + 8) {
+                writeFully(buf);
+                if (buf.capacity() < body.length + 8) buf = ByteBuffer.allocate(body.length + 8);
+            }
+            buf.putInt(body.length).put(body).putInt((int) crc.getValue());
+        }
+        writeFully(buf);
+        channel.force(false);
+    }
+
+    /**
+     * Writer thread only, with every record so far on disk: rebuilds the store from the snapshot and
+     * the journal, which is what a reopen would load, writes it as the new snapshot and restarts the
+     * journal on it. If replay would remap ids the journal is kept as it is.
+     */
+    private void rewriteSnapshot() throws IOException {
+        long end = channel.position();
+        boolean hasSnapshot = Files.exists(snapshot);
+        TradeStore copy = hasSnapshot ? TradeFile.read(snapshot) : new TradeStore();
+        if (replay(copy, hasSnapshot ? snapshotCrc(snapshot) : 0) != end) {
+            channel.position(end);
+            return;
+        }
+        TradeFile.write(copy, snapshot);
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        header.putInt(MAGIC).putInt(VERSION).putLong(snapshotCrc(snapshot)).putInt(copy.size()).flip();
+        channel.truncate(0);
+        channel.position(0);
+        while (header.hasRemaining()) channel.write(header);
+    }
+
+    private void writeFully(ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) channel.write(buf);
+        buf.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        store.removeListener(this);
+        try {
+            sync();
+        } finally {
+            writer.shutdown();
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package tracker;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Turns raw buy/sell fills into closed trades. Each symbol keeps its open lots in a primitive ring
+ * buffer (quantity, price and day arrays), all on one side: long after buys, short after sells. A
+ * fill on the opposite side closes lots from the front (FIFO) or back (LIFO) of the buffer, or
+ * against the running average cost, and emits one trade row for the closed quantity: type is the
+ * side of the position closed, entry the cost-weighted open price, exit the fill price, profit the
+ * realized P&L. Whatever the fill does not close opens a position on its own side.
+ * <p>
+ * Open quantity and cost are kept as running sums, so position, average cost and unrealized P&L at
+ * a mark price are O(1). Quantities are doubles, so a remainder within {@link #EPSILON} of the
+ * quantity it is left from counts as zero: selling 0.1 and then 0.2 out of 0.3 closes the lot
+ * instead of leaving 2.8e-17 open. Not thread-safe.
+ */
+public final class TradeMatcher {
+    /** Relative size below which a leftover quantity is rounding error. */
+    static final double EPSILON = 1e-9;
+
+    public enum Method {
+        FIFO, LIFO, AVERAGE
+    }
+
+    public static final class Result {
+        public final int fills, rejected, trades;
+
+        Result(int fills, int rejected, int trades) {
+            this.fills = fills;
+            this.rejected = rejected;
+            this.trades = trades;
+        }
+    }
+
+    /** Open lots of one symbol. */
+    private static final class Book {
+        double[] qty = new double[8], price = new double[8];
+        int[] day = new int[8];
+        int head, size; // ring buffer; capacity is a power of two
+        int side;       // +1 long, -1 short, 0 flat
+        double openQty, openCost, realized;
+
+        void push(double q, double px, int d) {
+            if (size == qty.length) grow();
+            int at = (head + size) & (qty.length - 1);
+            qty[at] = q;
+            price[at] = px;
+            day[at] = d;
+            size++;
+        }
+
+        private void grow() {
+            int cap = qty.length, first = cap - head;
+            double[] q = new double[cap * 2], p = new double[cap * 2];
+            int[] d = new int[cap * 2];
+            System.arraycopy(qty, head, q, 0, first);
+            System.arraycopy(qty, 0, q, first, head);
+            System.arraycopy(price, head, p, 0, first);
+            System.arraycopy(price, 0, p, first, head);
+            System.arraycopy(day, head, d, 0, first);
+            System.arraycopy(day, 0, d, first, head);
+            qty = q;
+            price = p;
+            day = d;
+            head = 0;
+        }
+
+        void flatten() {
+            side = 0;
+            head = size = 0;
+            openQty = openCost = 0;
+        }
+    }
+
+    private final Method method;
+    private final CsvTradeImporter.RowSink out;
+    private final StringDictionary symbols = new StringDictionary();
+    private Book[] books = new Book[16];
+    private int trades;
+
+    /** Closed trades go to {@code out}, e.g. {@code store::add}. */
+    public TradeMatcher(Method method, CsvTradeImporter.RowSink out) {
+        this.method = method;
+        this.out = out;
+    }
+
+    public Method method() {
+        return method;
+    }
+
+    public StringDictionary symbols() {
+        return symbols;
+    }
+
+    /** Id for {@link #fill(int, boolean, double, double, int)}; avoids a lookup per fill. */
+    public int symbolId(String symbol) {
+        int id = symbols.id(symbol);
+        if (id >= books.length) books = Arrays.copyOf(books, Math.max(id + 1, books.length * 2));
+        if (books[id] == null) books[id] = new Book();
+        return id;
+    }
+
+    public void fill(String symbol, boolean buy, double quantity, double price, int epochDay) {
+        fill(symbolId(symbol), buy, quantity, price, epochDay);
+    }
+
+    public void fill(int symbolId, boolean buy, double quantity, double price, int epochDay) {
+        if (!(quantity > 0) || quantity == Double.POSITIVE_INFINITY || !Double.isFinite(price)) {
+            throw new IllegalArgumentException("bad fill: " + quantity + " @ " + price);
+        }
+        Book b = books[symbolId];
+        int dir = buy ? 1 : -1;
+        if (b.side != -dir) {
+            open(b, dir, quantity, price, epochDay);
+            return;
+        }
+
+        double closed, cost;
+        if (method == Method.AVERAGE) {
+            closed = Math.min(quantity, b.openQty);
+            if (negligible(b.openQty - closed, b.openQty)) closed = b.openQty;
+            cost = closed == b.openQty ? b.openCost : b.openCost / b.openQty * closed;
+        } else {
+            closed = 0;
+            cost = 0;
+            boolean fifo = method == Method.FIFO;
+            int mask = b.qty.length - 1;
+            while (b.size > 0 && !negligible(quantity - closed, quantity)) {
+                int at = fifo ? b.head : (b.head + b.size - 1) & mask;
+                double take = Math.min(quantity - closed, b.qty[at]);
+                closed += take;
+                cost += take * b.price[at];
+                if (negligible(b.qty[at] - take, b.qty[at])) {
+                    b.size--;
+                    if (fifo) b.head = (b.head + 1) & mask;
+                } else {
+                    b.qty[at] -= take;
+                }
+            }
+        }
+
+        double profit = b.side * (price * closed - cost);
+        b.realized += profit;
+        trades++;
+        out.row(symbols.get(symbolId), b.side > 0 ? "Buy" : "Sell", cost / closed, price, profit, epochDay);
+        if (method == Method.AVERAGE ? closed >= b.openQty : b.size == 0) {
+            b.flatten();
+        } else {
+            b.openQty -= closed;
+            b.openCost -= cost;
+        }
+        if (!negligible(quantity - closed, quantity)) open(b, dir, quantity - closed, price, epochDay);
+    }
+
+    private static boolean negligible(double rest, double of) {
+        return rest <= of * EPSILON;
+    }
+
+    private void open(Book b, int dir, double quantity, double price, int epochDay) {
+        b.side = dir;
+        b.openQty += quantity;
+        b.openCost += quantity * price;
+        if (method != Method.AVERAGE) b.push(quantity, price, epochDay);
+    }
+
+    /** Signed open quantity: positive long, negative short. */
+    public double position(int symbolId) {
+        Book b = books[symbolId];
+        return b.side * b.openQty;
+    }
+
+    /** Average open price, or NaN when flat. */
+    public double averageCost(int symbolId) {
+        Book b = books[symbolId];
+        return b.side == 0 ? Double.NaN : b.openCost / b.openQty;
+    }
+
+    public double realized(int symbolId) {
+        return books[symbolId].realized;
+    }
+
+    /** P&L of the open position if it were closed at {@code mark}. */
+    public double unrealized(int symbolId, double mark) {
+        Book b = books[symbolId];
+        return b.side == 0 ? 0 : b.side * (mark * b.openQty - b.openCost);
+    }
+
+    /** Open lots; at most one under {@link Method#AVERAGE}. */
+    public int openLots(int symbolId) {
+        Book b = books[symbolId];
+        return method == Method.AVERAGE ? (b.side != 0 ? 1 : 0) : b.size;
+    }
+
+    /** Trades emitted so far. */
+    public int trades() {
+        return trades;
+    }
+
+    /**
+     * Replays a {@code Symbol,Side,Quantity,Price,Date} CSV, skipping the header line. Side is
+     * {@code Buy} or {@code Sell} in any case; malformed lines are counted and skipped.
+     */
+    public Result replay(Path file) throws IOException {
+        int fills = 0, rejected = 0, before = trades;
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line = in.readLine(); // header
+            String[] f = new String[5];
+            while ((line = in.readLine()) != null) {
+                if (line.isBlank()) continue;
+                if (split(line, f)) {
+                    try {
+                        boolean buy = f[1].equalsIgnoreCase("buy");
+                        if (buy || f[1].equalsIgnoreCase("sell")) {
+                            int day = f[4].isEmpty() ? TradeDates.NO_DATE : TradeDates.parse(f[4]);
+                            fill(symbolId(f[0]), buy, Double.parseDouble(f[2]), Double.parseDouble(f[3]), day);
+                            fills++;
+                            continue;
+                        }
+                    } catch (IllegalArgumentException ignored) {
+                        // counted below; NumberFormatException is one too
+                    }
+                }
+                rejected++;
+            }
+        }
+        return new Result(fills, rejected, trades - before);
+    }
+
+    private static boolean split(String line, String[] fields) {
+        int start = 0;
+        for (int i = 0; i < fields.length; i++) {
+            int comma = i < fields.length - 1 ? line.indexOf(',', start) : line.length();
+            if (comma < 0) return false;
+            fields[i] = line.substring(start, comma).trim();
+            start = comma + 1;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,63 @@
+package tracker;
+
+/**
+ * Conjunctive trade filter evaluated by {@link TradeIndex}. Unset parts match everything; the
+ * free-text part keeps the old search box semantics (case-insensitive substring of symbol or type).
+ */
+public final class TradeQuery {
+    public enum Sign { ANY, WINS, LOSSES }
+
+    String text = "";
+    String symbol, type;
+    int fromDay = Integer.MIN_VALUE, toDay = Integer.MAX_VALUE;
+    Sign sign = Sign.ANY;
+
+    public TradeQuery text(String substring) {
+        this.text = substring == null ? "" : substring.trim().toLowerCase();
+        return this;
+    }
+
+    public TradeQuery symbol(String exact) {
+        this.symbol = exact;
+        return this;
+    }
+
+    public TradeQuery type(String exact) {
+        this.type = exact;
+        return this;
+    }
+
+    /** Inclusive epoch-day bounds; {@link TradeDates#NO_DATE} leaves that side open. */
+    public TradeQuery dates(int fromDay, int toDay) {
+        this.fromDay = fromDay == TradeDates.NO_DATE ? Integer.MIN_VALUE : fromDay;
+        this.toDay = toDay == TradeDates.NO_DATE ? Integer.MAX_VALUE : toDay;
+        return this;
+    }
+
+    public TradeQuery sign(Sign sign) {
+        this.sign = sign;
+        return this;
+    }
+
+    boolean hasDateRange() {
+        return fromDay != Integer.MIN_VALUE || toDay != Integer.MAX_VALUE;
+    }
+
+    public boolean isEmpty() {
+        return text.isEmpty() && symbol == null && type == null && !hasDateRange() && sign == Sign.ANY;
+    }
+
+    /** Direct per-row evaluation, used for rows appended after the query ran. */
+    public boolean matches(TradeStore store, int row) {
+        String s = store.symbol(row), t = store.type(row);
+        if (!text.isEmpty() && !s.toLowerCase().contains(text) && !t.toLowerCase().contains(text)) return false;
+        if (symbol != null && !symbol.equals(s)) return false;
+        if (type != null && !type.equals(t)) return false;
+        int day = store.epochDay(row);
+        if (hasDateRange() && (day == TradeDates.NO_DATE || day < fromDay || day > toDay)) return false;
+        double profit = store.profit(row);
+        if (sign == Sign.WINS) return profit > 0;
+        if (sign == Sign.LOSSES) return profit < 0;
+        return true;
+    }
+}
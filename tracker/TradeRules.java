@@ -0,0 +1,257 @@
+package tracker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * User-editable rules that tag each trade, one per line, first match wins:
+ * <pre>
+ *   risk 50
+ *   symbol in *JPY, XAUUSD and type = Sell and r >= 2 -> Big short
+ *   date >= 2024-01-01 and profit &lt; 0 -> Loss this year
+ *   else -> Other
+ * </pre>
+ * Conditions are {@code symbol}/{@code type} with {@code =, !=, in, not in} (case-insensitive,
+ * {@code *} matches any run of characters) and {@code profit}, {@code r} and {@code date} with
+ * {@code =, <, <=, >, >=}, joined by {@code and}. {@code r} is profit in units of the {@code risk}
+ * line. Blank lines are ignored, as is everything from a {@code #} that comes before any
+ * {@code ->}, so a whole line or a {@code risk} line can be commented but a tag like
+ * {@code Setup #3} is kept.
+ * <p>
+ * Parsing compiles every rule to flat per-rule arrays: a closed profit interval (r bounds are
+ * folded into it), a closed epoch-day interval and name patterns that {@link TradeTags} turns into
+ * per-dictionary-id masks, so evaluation is a handful of compares per row and never touches text.
+ * Tag labels are interned: rules sharing a label share a tag id, and id 0 is "no rule matched".
+ */
+public final class TradeRules {
+    /** The notes the table always showed, as rules. */
+    public static final String DEFAULT_SOURCE =
+        "# First matching rule wins. Fields: symbol, type, profit, r, date.\n" +
+        "# e.g.  symbol in EURUSD, *JPY and type = Buy and r >= 2 -> Big FX long\n" +
+        "risk 100\n" +
+        "profit > 100 -> Great trade!\n" +
+        "profit > 0 -> Good job.\n" +
+        "profit < -100 -> High loss. Review setup.\n" +
+        "else -> Be cautious.\n";
+
+    private static final Pattern CONDITION =
+        Pattern.compile("(?i)(symbol|type|profit|r|date)\\s*(not\\s+in|in|!=|>=|<=|=|>|<)\\s*(.+)");
+    private static final Pattern AND = Pattern.compile("(?i)\\s+and\\s+");
+
+    public static final TradeRules DEFAULT = parse(DEFAULT_SOURCE);
+
+    final String source;
+    final int count;
+    /** Tag label per tag id; index 0 is the empty "no match" label. */
+    final String[] labels;
+    final short[] tag;
+    final double[] profitLo, profitHi;
+    final int[] dayLo, dayHi;
+    /** Per rule: null for any symbol/type, else the patterns a name must (or, if negated, must not) match. */
+    final Pattern[][] symbols, types;
+    final boolean[] symbolsNegated, typesNegated;
+
+    private TradeRules(String source, List<Rule> rules, Map<String, Short> labelIds) {
+        this.source = source;
+        count = rules.size();
+        labels = new String[labelIds.size() + 1];
+        labels[0] = "";
+        labelIds.forEach((label, id) -> labels[id] = label);
+        tag = new short[count];
+        profitLo = new double[count];
+        profitHi = new double[count];
+        dayLo = new int[count];
+        dayHi = new int[count];
+        symbols = new Pattern[count][];
+        types = new Pattern[count][];
+        symbolsNegated = new boolean[count];
+        typesNegated = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            Rule r = rules.get(i);
+            tag[i] = labelIds.get(r.label);
+            profitLo[i] = r.profitLo;
+            profitHi[i] = r.profitHi;
+            dayLo[i] = r.dayLo;
+            dayHi[i] = r.dayHi;
+            symbols[i] = r.symbols;
+            types[i] = r.types;
+            symbolsNegated[i] = r.symbolsNegated;
+            typesNegated[i] = r.typesNegated;
+        }
+    }
+
+    /** Compiles {@code source}; throws IllegalArgumentException naming the first bad line. */
+    public static TradeRules parse(String source) {
+        List<Rule> rules = new ArrayList<>();
+        Map<String, Short> labelIds = new LinkedHashMap<>();
+        double risk = Double.NaN;
+        int lineNo = 0;
+        for (String raw : source.split("\r?\n", -1)) {
+            lineNo++;
+            int hash = raw.indexOf('#'), arrow = raw.indexOf("->");
+            String line = (hash >= 0 && (arrow < 0 || hash < arrow) ? raw.substring(0, hash) : raw).trim();
+            if (line.isEmpty()) continue;
+            try {
+                if (line.toLowerCase(Locale.ROOT).startsWith("risk ")) {
+                    risk = number(line.substring(5).trim());
+                    if (!(risk > 0) || Double.isInfinite(risk)) throw new IllegalArgumentException("risk must be a positive amount");
+                    continue;
+                }
+                arrow = line.indexOf("->");
+                if (arrow < 0) throw new IllegalArgumentException("expected CONDITIONS -> TAG");
+                String label = line.substring(arrow + 2).trim();
+                if (label.isEmpty()) throw new IllegalArgumentException("missing tag after ->");
+                Rule rule = new Rule(label);
+                String when = line.substring(0, arrow).trim();
+                if (!when.equalsIgnoreCase("else") && !when.equals("*")) {
+                    if (when.isEmpty()) throw new IllegalArgumentException("missing condition before -> (use else to match everything)");
+                    for (String part : AND.split(when)) rule.condition(part.trim(), risk);
+                }
+                if (!labelIds.containsKey(label)) {
+                    if (labelIds.size() == Short.MAX_VALUE) throw new IllegalArgumentException("too many distinct tags");
+                    labelIds.put(label, (short) (labelIds.size() + 1));
+                }
+                rules.add(rule);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Line " + lineNo + ": " + e.getMessage() + "\n  " + raw.trim());
+            }
+        }
+        return new TradeRules(source, rules, labelIds);
+    }
+
+    public String source() {
+        return source;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /** Distinct tag labels in the order they first appear; tag id {@code i} is element {@code i - 1}. */
+    public List<String> tags() {
+        return Arrays.asList(labels).subList(1, labels.length);
+    }
+
+    /** Id of {@code label}, or -1 if no rule produces it. */
+    public int tagId(String label) {
+        for (int i = 1; i < labels.length; i++) if (labels[i].equals(label)) return i;
+        return -1;
+    }
+
+    boolean matchesSymbol(int rule, String name) {
+        return matches(symbols[rule], symbolsNegated[rule], name);
+    }
+
+    boolean matchesType(int rule, String name) {
+        return matches(types[rule], typesNegated[rule], name);
+    }
+
+    private static boolean matches(Pattern[] patterns, boolean negated, String name) {
+        if (patterns == null) return true;
+        for (Pattern p : patterns) if (p.matcher(name).matches()) return !negated;
+        return negated;
+    }
+
+    private static double number(String s) {
+        try {
+            return Double.parseDouble(s.replace(",", "").replace("_", ""));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("not a number: " + s);
+        }
+    }
+
+    /** One rule while parsing; every condition narrows it. */
+    private static final class Rule {
+        final String label;
+        double profitLo = Double.NEGATIVE_INFINITY, profitHi = Double.POSITIVE_INFINITY;
+        int dayLo = Integer.MIN_VALUE, dayHi = Integer.MAX_VALUE;
+        Pattern[] symbols, types;
+        boolean symbolsNegated, typesNegated;
+
+        Rule(String label) {
+            this.label = label;
+        }
+
+        void condition(String text, double risk) {
+            Matcher m = CONDITION.matcher(text);
+            if (!m.matches()) throw new IllegalArgumentException("cannot read condition '" + text + "'");
+            String field = m.group(1).toLowerCase(Locale.ROOT);
+            String op = m.group(2).toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+            String value = m.group(3).trim();
+            switch (field) {
+                case "symbol":
+                case "type": {
+                    boolean negated = op.equals("!=") || op.equals("not in");
+                    if (!op.equals("=") && !op.equals("in") && !negated) throw badOp(field, op);
+                    Pattern[] names = names(value, op.endsWith("in"));
+                    if (field.equals("symbol")) {
+                        if (symbols != null) throw new IllegalArgumentException("symbol is already constrained in this rule");
+                        symbols = names;
+                        symbolsNegated = negated;
+                    } else {
+                        if (types != null) throw new IllegalArgumentException("type is already constrained in this rule");
+                        types = names;
+                        typesNegated = negated;
+                    }
+                    break;
+                }
+                case "profit":
+                case "r": {
+                    double v = number(value);
+                    if (field.equals("r")) {
+                        if (Double.isNaN(risk)) throw new IllegalArgumentException("r needs a 'risk AMOUNT' line above it");
+                        v *= risk;
+                    }
+                    switch (op) {
+                        case "=": profitLo = Math.max(profitLo, v); profitHi = Math.min(profitHi, v); break;
+                        case ">": profitLo = Math.max(profitLo, Math.nextUp(v)); break;
+                        case ">=": profitLo = Math.max(profitLo, v); break;
+                        case "<": profitHi = Math.min(profitHi, Math.nextDown(v)); break;
+                        case "<=": profitHi = Math.min(profitHi, v); break;
+                        default: throw badOp(field, op);
+                    }
+                    break;
+                }
+                default: {
+                    int day = TradeDates.parse(value);
+                    if (day == TradeDates.NO_DATE) throw new IllegalArgumentException("not a date: " + value);
+                    switch (op) {
+                        case "=": dayLo = Math.max(dayLo, day); dayHi = Math.min(dayHi, day); break;
+                        case ">": dayLo = Math.max(dayLo, day + 1); break;
+                        case ">=": dayLo = Math.max(dayLo, day); break;
+                        case "<": dayHi = Math.min(dayHi, day - 1); break;
+                        case "<=": dayHi = Math.min(dayHi, day); break;
+                        default: throw badOp(field, op);
+                    }
+                    // a date condition never matches undated trades
+                    if (dayLo == Integer.MIN_VALUE) dayLo = TradeDates.NO_DATE + 1;
+                    break;
+                }
+            }
+        }
+
+        private static IllegalArgumentException badOp(String field, String op) {
+            return new IllegalArgumentException("'" + op + "' does not apply to " + field);
+        }
+
+        private static Pattern[] names(String value, boolean list) {
+            String[] parts = list ? value.split(",") : new String[]{value};
+            Pattern[] patterns = new Pattern[parts.length];
+            for (int i = 0; i < parts.length; i++) {
+                String name = parts[i].trim();
+                if (name.isEmpty()) throw new IllegalArgumentException("empty name in '" + value + "'");
+                String[] pieces = name.split("\\*", -1);
+                StringBuilder regex = new StringBuilder(Pattern.quote(pieces[0]));
+                for (int j = 1; j < pieces.length; j++) regex.append(".*").append(Pattern.quote(pieces[j]));
+                patterns[i] = Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+            }
+            return patterns;
+        }
+    }
+}
@@ -0,0 +1,432 @@
+package tracker;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.invoke.VarHandle;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import java.util.function.Function;
+
+/**
+ * Loopback-only JSON/CSV view of a {@link TradeStore}:
+ * <pre>
+ *   GET /api/summary                       statistics as in the Stats dialog
+ *   GET /api/symbols                       per-symbol count, wins, win rate, net
+ *   GET /api/trades?after=ID&amp;limit=N&amp;...   trades with row id &gt; after, oldest first
+ *   GET /api/trades.csv?...                the same filter streamed as CSV
+ * </pre>
+ * Filters: {@code q} (symbol/type text), {@code symbol}, {@code type}, {@code from}, {@code to}
+ * (dates) and {@code sign} (wins|losses). Pages are keyset-paginated on the row id; the response
+ * carries {@code next} to pass as {@code after}.
+ * <p>
+ * The store keeps its single writer. The server listens to it and bumps {@link #version} after
+ * every change. Requests read at most the published row count and retry if the version moved
+ * meanwhile. The version, prefixed with a per-instance nonce since it restarts at zero with every
+ * server, is also the ETag, so unchanged data costs a 304. Summary and symbol
+ * aggregates are computed once per version with {@link TradeAnalytics} and served from cache.
+ * Must be created on the store's writer thread.
+ */
+public final class TradeServer implements TradeStore.Listener, Closeable {
+    static final int MAX_PAGE = 1000;
+
+    static {
+        // the JDK server writes headers and body separately; with Nagle on, small responses stall ~40 ms on delayed ACKs
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final TradeStore store;
+    private final IntFunction<String> notes;
+    private final HttpServer http;
+    private final ExecutorService pool;
+    private final ForkJoinPool work; // analytics and CSV formatting, never the request threads
+    private final TradeAnalytics analytics;
+    private final AtomicLong version = new AtomicLong();
+    private final String nonce = Long.toHexString(ThreadLocalRandom.current().nextLong()); // tells instances' ETags apart
+    private volatile int published;
+    private volatile Cached cached; // analytics for one version
+
+    private static final class Cached {
+        final long version;
+        final String summary, symbols;
+
+        Cached(long version, String summary, String symbols) {
+            this.version = version;
+            this.summary = summary;
+            this.symbols = symbols;
+        }
+    }
+
+    /**
+     * Binds to 127.0.0.1:{@code port} (0 picks a free port). Requests run on {@code threads}
+     * workers; when all are busy and the queue is full the accept thread runs the request itself,
+     * which throttles new connections instead of dropping them.
+     */
+    public TradeServer(TradeStore store, IntFunction<String> notes, int port, int threads) throws IOException {
+        this.store = store;
+        this.notes = notes;
+        this.published = store.size();
+        this.pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1024), r -> {
+            Thread t = new Thread(r, "trade-server");
+            t.setDaemon(true);
+            return t;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+        this.work = new ForkJoinPool(Math.max(1, Math.min(threads, Runtime.getRuntime().availableProcessors())));
+        this.analytics = new TradeAnalytics(work);
+        http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 256);
+        http.setExecutor(pool);
+        http.createContext("/api/summary", ex -> handle(ex, c -> c.summary));
+        http.createContext("/api/symbols", ex -> handle(ex, c -> c.symbols));
+        http.createContext("/api/trades", this::trades);
+        store.addListener(this);
+        http.start();
+    }
+
+    public int port() {
+        return http.getAddress().getPort();
+    }
+
+    public long version() {
+        return version.get();
+    }
+
+    @Override
+    public void close() {
+        store.removeListener(this);
+        http.stop(0);
+        pool.shutdownNow();
+        work.shutdownNow();
+    }
+
+    // --- store events, on the writer thread
+
+    @Override
+    public void rowsAdded(int from, int to) {
+        published = to;
+        version.incrementAndGet();
+    }
+
+    @Override
+    public void rowsRemoved(int from, int to) {
+        published = from;
+        // a full fence: later overwrites of the dropped rows cannot be seen before this bump
+        version.incrementAndGet();
+    }
+
+    // --- consistent reads
+
+    /**
+     * Runs {@code read} against the rows published at one version and returns its result together
+     * with that version, retrying if the store changed meanwhile.
+     */
+    private <T> T consistent(IntFunction<T> read, long[] versionOut) {
+        while (true) {
+            long v = version.get();
+            int n = published;
+            T result;
+            try {
+                result = read.apply(n);
+            } catch (RuntimeException e) {
+                if (version.get() == v) throw e;
+                continue; // a truncation raced the read
+            }
+            VarHandle.acquireFence();
+            if (version.get() == v) {
+                versionOut[0] = v;
+                return result;
+            }
+        }
+    }
+
+    private Cached analyticsFor() {
+        Cached c = cached;
+        if (c != null && c.version == version.get()) return c;
+        synchronized (this) {
+            c = cached;
+            if (c != null && c.version == version.get()) return c;
+            long[] v = new long[1];
+            TradeAnalytics.Report r = consistent(n -> analytics.analyze(store, n), v);
+            c = new Cached(v[0], summaryJson(r), symbolsJson(r));
+            cached = c;
+            return c;
+        }
+    }
+
+    private static String summaryJson(TradeAnalytics.Report r) {
+        Json j = new Json().begin();
+        j.field("count", r.count).field("wins", r.wins).field("losses", r.losses).field("winRate", r.winRate())
+                .field("netProfit", r.net).field("grossWin", r.grossWin).field("grossLoss", r.grossLoss)
+                .field("maxProfit", r.count > 0 ? r.maxProfit : 0).field("maxLoss", r.count > 0 ? r.maxLoss : 0)
+                .field("avgWin", r.avgWin()).field("avgLoss", r.avgLoss()).field("avgProfit", r.avgProfit())
+                .field("profitFactor", r.profitFactor()).field("expectancy", r.expectancy())
+                .field("stdDev", r.stdDev).field("maxDrawdown", r.maxDrawdown);
+        return j.end().toString();
+    }
+
+    private static String symbolsJson(TradeAnalytics.Report r) {
+        Json j = new Json();
+        j.sb.append('[');
+        for (int i = 0; i < r.bySymbol.size(); i++) {
+            TradeAnalytics.Bucket b = r.bySymbol.get(i);
+            if (i > 0) j.sb.append(',');
+            j.begin().field("symbol", b.label).field("count", b.count).field("wins", b.wins)
+                    .field("winRate", b.winRate()).field("net", b.net).end();
+        }
+        j.sb.append(']');
+        return j.toString();
+    }
+
+    // --- handlers
+
+    /** Serves a cached analytics body for the current version, or 304 if the client already has it. */
+    private void handle(HttpExchange ex, Function<Cached, String> body) throws IOException {
+        try {
+            if (!"GET".equals(ex.getRequestMethod())) {
+                send(ex, 405, "{\"error\":\"GET only\"}", null);
+                return;
+            }
+            if (notModified(ex)) return;
+            Cached c = analyticsFor();
+            send(ex, 200, body.apply(c), etag(c.version));
+        } catch (RuntimeException e) {
+            send(ex, 500, "{\"error\":" + Json.quote(String.valueOf(e)) + "}", null);
+        } finally {
+            ex.close();
+        }
+    }
+
+    private void trades(HttpExchange ex) throws IOException {
+        try {
+            URI uri = ex.getRequestURI();
+            boolean csv = uri.getPath().endsWith(".csv");
+            if (!uri.getPath().equals("/api/trades") && !csv) {
+                send(ex, 404, "{\"error\":\"not found\"}", null);
+                return;
+            }
+            Map<String, String> params = query(uri.getRawQuery());
+            Filter filter;
+            int after, limit;
+            try {
+                filter = new Filter(params);
+                after = Integer.parseInt(params.getOrDefault("after", "-1"));
+                limit = Math.min(MAX_PAGE, Math.max(1, Integer.parseInt(params.getOrDefault("limit", "100"))));
+            } catch (IllegalArgumentException e) {
+                send(ex, 400, "{\"error\":" + Json.quote(e.getMessage()) + "}", null);
+                return;
+            }
+            if (notModified(ex)) return;
+            if (csv) {
+                streamCsv(ex, filter);
+                return;
+            }
+            long[] v = new long[1];
+            String json = consistent(n -> page(filter, after, limit, n), v);
+            send(ex, 200, json, etag(v[0]));
+        } catch (RuntimeException e) {
+            send(ex, 500, "{\"error\":" + Json.quote(String.valueOf(e)) + "}", null);
+        } finally {
+            ex.close();
+        }
+    }
+
+    private String page(Filter filter, int after, int limit, int n) {
+        filter.prepare(store);
+        TradeStore.DoubleColumn entry = store.entryColumn().pinned(n), exit = store.exitColumn().pinned(n),
+                profit = store.profitColumn().pinned(n);
+        TradeStore.IntColumn symbol = store.symbolColumn().pinned(n), type = store.typeColumn().pinned(n),
+                day = store.dayColumn().pinned(n);
+        Json j = new Json();
+        j.sb.append("{\"trades\":[");
+        int found = 0, last = -1;
+        for (int row = Math.max(0, after + 1); row < n && found < limit; row++) {
+            if (!filter.test(symbol.get(row), type.get(row), day.get(row), profit.get(row))) continue;
+            if (found++ > 0) j.sb.append(',');
+            j.begin().field("id", row).field("symbol", store.symbols().get(symbol.get(row)))
+                    .field("type", store.types().get(type.get(row))).field("entry", entry.get(row))
+                    .field("exit", exit.get(row)).field("profit", profit.get(row))
+                    .field("date", TradeDates.format(day.get(row))).end();
+            last = row;
+        }
+        j.sb.append("],\"next\":").append(found == limit ? String.valueOf(last) : "null").append('}');
+        return j.toString();
+    }
+
+    /** Streams every matching row; not retried, so a truncation mid-stream aborts the response. */
+    private void streamCsv(HttpExchange ex, Filter filter) throws IOException {
+        long v = version.get();
+        int n = published;
+        filter.prepare(store);
+        TradeStore.DoubleColumn profit = store.profitColumn().pinned(n);
+        TradeStore.IntColumn symbol = store.symbolColumn().pinned(n), type = store.typeColumn().pinned(n),
+                day = store.dayColumn().pinned(n);
+        RowBitmap rows = RowBitmap.of(new int[0], 0);
+        for (int row = 0; row < n; row++) {
+            if (filter.test(symbol.get(row), type.get(row), day.get(row), profit.get(row))) rows.add(row);
+        }
+        ex.getResponseHeaders().set("Content-Type", "text/csv; charset=utf-8");
+        ex.getResponseHeaders().set("ETag", etag(v));
+        ex.sendResponseHeaders(200, 0);
+        try (OutputStream out = ex.getResponseBody()) {
+            new CsvTradeExporter(store, notes, work).export(out, CsvTradeExporter.Rows.of(rows, n), null, null);
+        }
+    }
+
+    private boolean notModified(HttpExchange ex) throws IOException {
+        String tag = etag(version.get());
+        if (!tag.equals(ex.getRequestHeaders().getFirst("If-None-Match"))) return false;
+        ex.getResponseHeaders().set("ETag", tag);
+        ex.sendResponseHeaders(304, -1);
+        return true;
+    }
+
+    private String etag(long version) {
+        return "\"" + nonce + "-v" + version + '"';
+    }
+
+    private static void send(HttpExchange ex, int status, String body, String etag) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.getResponseHeaders().set("Cache-Control", "no-cache");
+        if (etag != null) ex.getResponseHeaders().set("ETag", etag);
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, String> query(String raw) {
+        Map<String, String> params = new HashMap<>();
+        if (raw == null || raw.isEmpty()) return params;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            params.put(key, eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    /**
+     * A {@link TradeQuery} evaluated per dictionary id instead of per row: text, symbol and type
+     * conditions become lookup tables, so scanning a page costs a few array reads per row.
+     */
+    private static final class Filter {
+        final TradeQuery query;
+        boolean[] symbolText, typeText, symbolOk, typeOk;
+
+        Filter(Map<String, String> params) {
+            query = new TradeQuery().text(params.getOrDefault("q", ""));
+            if (params.containsKey("symbol")) query.symbol(params.get("symbol"));
+            if (params.containsKey("type")) query.type(params.get("type"));
+            int from = date(params.get("from")), to = date(params.get("to"));
+            query.dates(from, to);
+            String sign = params.getOrDefault("sign", "any");
+            switch (sign) {
+                case "any": break;
+                case "wins": query.sign(TradeQuery.Sign.WINS); break;
+                case "losses": query.sign(TradeQuery.Sign.LOSSES); break;
+                default: throw new IllegalArgumentException("sign must be any, wins or losses");
+            }
+        }
+
+        private static int date(String s) {
+            if (s == null || s.isEmpty()) return TradeDates.NO_DATE;
+            int day = TradeDates.parse(s);
+            if (day == TradeDates.NO_DATE) throw new IllegalArgumentException("bad date: " + s);
+            return day;
+        }
+
+        /** Builds the lookup tables for the dictionaries as they are now (called inside a read). */
+        void prepare(TradeStore store) {
+            symbolText = textTable(store.symbols());
+            typeText = textTable(store.types());
+            symbolOk = equalsTable(store.symbols(), query.symbol);
+            typeOk = equalsTable(store.types(), query.type);
+        }
+
+        private boolean[] textTable(StringDictionary dict) {
+            boolean[] t = new boolean[dict.size()];
+            for (int id = 0; id < t.length; id++) t[id] = query.text.isEmpty() || dict.get(id).toLowerCase().contains(query.text);
+            return t;
+        }
+
+        private static boolean[] equalsTable(StringDictionary dict, String value) {
+            boolean[] t = new boolean[dict.size()];
+            for (int id = 0; id < t.length; id++) t[id] = value == null || value.equals(dict.get(id));
+            return t;
+        }
+
+        boolean test(int symbol, int type, int day, double profit) {
+            if (!symbolOk[symbol] || !typeOk[type] || !(symbolText[symbol] || typeText[type])) return false;
+            if (query.hasDateRange() && (day == TradeDates.NO_DATE || day < query.fromDay || day > query.toDay)) return false;
+            if (query.sign == TradeQuery.Sign.WINS) return profit > 0;
+            if (query.sign == TradeQuery.Sign.LOSSES) return profit < 0;
+            return true;
+        }
+    }
+
+    /** Just enough JSON writing for flat objects. Non-finite numbers become null. */
+    private static final class Json {
+        final StringBuilder sb = new StringBuilder(256);
+        private boolean first;
+
+        Json begin() {
+            sb.append('{');
+            first = true;
+            return this;
+        }
+
+        Json end() {
+            sb.append('}');
+            return this;
+        }
+
+        private StringBuilder key(String name) {
+            if (!first) sb.append(',');
+            first = false;
+            return sb.append('"').append(name).append("\":");
+        }
+
+        Json field(String name, long value) {
+            key(name).append(value);
+            return this;
+        }
+
+        Json field(String name, double value) {
+            if (Double.isFinite(value)) key(name).append(value);
+            else key(name).append("null");
+            return this;
+        }
+
+        Json field(String name, String value) {
+            key(name).append(quote(value));
+            return this;
+        }
+
+        static String quote(String s) {
+            StringBuilder q = new StringBuilder(s.length() + 2).append('"');
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c == '"' || c == '\\') q.append('\\').append(c);
+                else if (c < 0x20) q.append(String.format("\\u%04x", (int) c));
+                else q.append(c);
+            }
+            return q.append('"').toString();
+        }
+
+        @Override
+        public String toString() {
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package tracker;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sort orders over a {@link TradeStore} as row-id permutations. One permutation per key and
+ * direction is cached and kept up to date: appended rows are radix-sorted on their own and merged
+ * in, and removed rows are filtered out on next use, so re-sorting after an import costs O(new rows)
+ * plus one merge. Multi-key orders start from the cached permutation of the last key and apply
+ * stable radix passes for the earlier keys.
+ * <p>
+ * Every order is stable: rows that compare equal on all keys stay in insertion order, in either
+ * direction. Symbol and type sort alphabetically. Not thread-safe; use it from the store's writer thread.
+ */
+public final class TradeSorter implements TradeStore.Listener {
+
+    public enum Key {
+        SYMBOL, TYPE, ENTRY, EXIT, PROFIT, DATE
+    }
+
+    /** One key of a multi-key order. */
+    public static final class Order {
+        public final Key key;
+        public final boolean descending;
+
+        public Order(Key key, boolean descending) {
+            this.key = key;
+            this.descending = descending;
+        }
+
+        public Order reversed() {
+            return new Order(key, !descending);
+        }
+    }
+
+    private static final int DIGIT_BITS = 11;
+    private static final int RADIX = 1 << DIGIT_BITS;
+    private static final int PASSES = (64 + DIGIT_BITS - 1) / DIGIT_BITS;
+
+    private final TradeStore store;
+    private final Map<Key, Cached[]> cache = new EnumMap<>(Key.class); // [ascending, descending]
+    private int[] symbolRank = new int[0], typeRank = new int[0];
+
+    /** A permutation of store rows {@code [0, covered)}, minus any pending drop. */
+    private static final class Cached {
+        int[] perm;
+        int covered;
+        int dropFrom = Integer.MAX_VALUE;
+    }
+
+    public TradeSorter(TradeStore store) {
+        this.store = store;
+        store.addListener(this);
+    }
+
+    @Override
+    public void rowsAdded(int from, int to) {
+        // merged lazily on the next sort
+    }
+
+    @Override
+    public void rowsRemoved(int from, int to) {
+        for (Cached[] pair : cache.values()) {
+            for (Cached c : pair) if (c != null && c.covered > from) c.dropFrom = Math.min(c.dropFrom, from);
+        }
+    }
+
+    /** A fresh array of every row id in the given order; the caller may keep and modify it. */
+    public int[] sort(List<Order> orders) {
+        if (orders.isEmpty()) return TradeStore.identity(store.size());
+        refreshRanks();
+        Order last = orders.get(orders.size() - 1);
+        int[] perm = permutation(last.key, last.descending).clone();
+        if (orders.size() == 1) return perm;
+
+        int n = perm.length;
+        long[] keys = new long[n], keysTmp = new long[n];
+        int[] permTmp = new int[n];
+        for (int k = orders.size() - 2; k >= 0; k--) {
+            Order o = orders.get(k);
+            for (int i = 0; i < n; i++) keys[i] = key(o.key, perm[i], o.descending);
+            radixSort(keys, perm, keysTmp, permTmp, n);
+        }
+        return perm;
+    }
+
+    /** The cached order for one key, brought up to date. Do not modify. */
+    private int[] permutation(Key key, boolean descending) {
+        Cached[] pair = cache.computeIfAbsent(key, k -> new Cached[2]);
+        Cached c = pair[descending ? 1 : 0];
+        if (c == null) {
+            c = new Cached();
+            c.perm = new int[0];
+            pair[descending ? 1 : 0] = c;
+        }
+        if (c.dropFrom != Integer.MAX_VALUE) {
+            int kept = 0;
+            for (int row : c.perm) if (row < c.dropFrom) c.perm[kept++] = row;
+            c.perm = Arrays.copyOf(c.perm, kept);
+            c.covered = Math.min(c.covered, c.dropFrom);
+            c.dropFrom = Integer.MAX_VALUE;
+        }
+        int size = store.size();
+        if (c.covered < size) {
+            int m = size - c.covered;
+            int[] fresh = new int[m];
+            long[] keys = new long[m];
+            for (int i = 0; i < m; i++) {
+                fresh[i] = c.covered + i;
+                keys[i] = key(key, fresh[i], descending);
+            }
+            radixSort(keys, fresh, new long[m], new int[m], m);
+            c.perm = merge(c.perm, fresh, keys, key, descending);
+            c.covered = size;
+        }
+        return c.perm;
+    }
+
+    /**
+     * Stable merge of the cached order with newly sorted rows; on ties older rows (smaller ids) come
+     * first. Each new row's slot is binary-searched, so only O(m log n) keys are read and the old
+     * order is moved with bulk copies.
+     */
+    private int[] merge(int[] old, int[] fresh, long[] freshKeys, Key key, boolean descending) {
+        if (old.length == 0) return fresh;
+        int[] out = new int[old.length + fresh.length];
+        int i = 0, k = 0;
+        for (int j = 0; j < fresh.length; j++) {
+            int lo = i, hi = old.length; // first old row with a greater key
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (Long.compareUnsigned(key(key, old[mid], descending), freshKeys[j]) <= 0) lo = mid + 1;
+                else hi = mid;
+            }
+            System.arraycopy(old, i, out, k, lo - i);
+            k += lo - i;
+            i = lo;
+            out[k++] = fresh[j];
+        }
+        System.arraycopy(old, i, out, k, old.length - i);
+        return out;
+    }
+
+    /** Unsigned-sortable key of {@code row}; complemented for descending so ties stay stable. */
+    private long key(Key key, int row, boolean descending) {
+        long k;
+        switch (key) {
+            case SYMBOL: k = symbolRank[store.symbolId(row)]; break;
+            case TYPE: k = typeRank[store.typeId(row)]; break;
+            case ENTRY: k = sortable(store.entry(row)); break;
+            case EXIT: k = sortable(store.exit(row)); break;
+            case PROFIT: k = sortable(store.profit(row)); break;
+            default: k = (store.epochDay(row) ^ Integer.MIN_VALUE) & 0xFFFFFFFFL; break;
+        }
+        return descending ? ~k : k;
+    }
+
+    private static long sortable(double v) {
+        long bits = Double.doubleToLongBits(v == 0 ? 0.0 : v); // -0.0 ties with 0.0
+        return bits < 0 ? ~bits : bits | Long.MIN_VALUE;
+    }
+
+    private void refreshRanks() {
+        if (symbolRank.length != store.symbols().size()) symbolRank = ranks(store.symbols());
+        if (typeRank.length != store.types().size()) typeRank = ranks(store.types());
+    }
+
+    /**
+     * Alphabetical rank of each dictionary id. New entries can shift later ranks, but never change
+     * the relative order of existing ones, so cached permutations stay valid.
+     */
+    private static int[] ranks(StringDictionary dict) {
+        Integer[] ids = new Integer[dict.size()];
+        for (int i = 0; i < ids.length; i++) ids[i] = i;
+        Arrays.sort(ids, Comparator.comparing((Integer id) -> dict.get(id), String.CASE_INSENSITIVE_ORDER)
+                .thenComparing(dict::get));
+        int[] rank = new int[ids.length];
+        for (int r = 0; r < ids.length; r++) rank[ids[r]] = r;
+        return rank;
+    }
+
+    /**
+     * Stable LSD radix sort of {@code perm[0..n)} by the unsigned {@code keys} (aligned with
+     * {@code perm}). All digit histograms come from one pass, and digits every key shares are
+     * skipped, so small integer keys like ranks and days take one or two passes.
+     */
+    static void radixSort(long[] keys, int[] perm, long[] keysTmp, int[] permTmp, int n) {
+        int[][] counts = new int[PASSES][RADIX];
+        for (int i = 0; i < n; i++) {
+            long k = keys[i];
+            for (int p = 0; p < PASSES; p++) counts[p][(int) (k >>> (p * DIGIT_BITS)) & (RADIX - 1)]++;
+        }
+        long[] srcK = keys, dstK = keysTmp;
+        int[] srcP = perm, dstP = permTmp;
+        for (int p = 0; p < PASSES; p++) {
+            int[] count = counts[p];
+            int shift = p * DIGIT_BITS;
+            if (n == 0 || count[(int) (srcK[0] >>> shift) & (RADIX - 1)] == n) continue;
+            for (int d = 0, sum = 0; d < RADIX; d++) {
+                int c = count[d];
+                count[d] = sum;
+                sum += c;
+            }
+            for (int i = 0; i < n; i++) {
+                int d = (int) (srcK[i] >>> shift) & (RADIX - 1);
+                int at = count[d]++;
+                dstK[at] = srcK[i];
+                dstP[at] = srcP[i];
+            }
+            long[] tk = srcK; srcK = dstK; dstK = tk;
+            int[] tp = srcP; srcP = dstP; dstP = tp;
+        }
+        if (srcP != perm) {
+            System.arraycopy(srcP, 0, perm, 0, n);
+            System.arraycopy(srcK, 0, keys, 0, n);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package tracker;
+
+import java.util.Arrays;
+
+/**
+ * Running statistics over a {@link TradeStore}, kept current through store events so the summary
+ * bar, stats dialog and PDF report never rescan the trades.
+ * <p>
+ * Appends fold into the running state in O(1). Rows only ever leave from the tail, so removal
+ * restores the state saved at the last {@value #CHECKPOINT}-row boundary and replays at most that
+ * many rows. This covers max/min and drawdown, which cannot simply be subtracted, and it also keeps
+ * the sums free of add/subtract drift.
+ */
+public final class TradeStatistics implements TradeStore.Listener {
+    static final int CHECKPOINT = 1024;
+
+    private final TradeStore store;
+    private State state = new State();
+    private State[] checkpoints = new State[16];
+
+    public TradeStatistics(TradeStore store) {
+        this.store = store;
+        store.addListener(this);
+        rowsAdded(0, store.size());
+    }
+
+    private TradeStatistics(TradeStore store, RowBitmap rows) {
+        this.store = store;
+        rows.forEach(row -> state.add(store.profit(row)));
+    }
+
+    /**
+     * Statistics over just {@code rows}, in row order, e.g. the trades carrying one tag. A snapshot:
+     * it does not listen to the store, so it must not be used after the rows change.
+     */
+    public static TradeStatistics of(TradeStore store, RowBitmap rows) {
+        return new TradeStatistics(store, rows);
+    }
+
+    private static final class State {
+        int count, wins, losses;
+        double net, grossWin, grossLoss;
+        double max = Double.NEGATIVE_INFINITY, min = Double.POSITIVE_INFINITY;
+        double mean, m2; // Welford
+        double equity, peak, maxDrawdown;
+
+        State copy() {
+            State s = new State();
+            s.count = count;
+            s.wins = wins;
+            s.losses = losses;
+            s.net = net;
+            s.grossWin = grossWin;
+            s.grossLoss = grossLoss;
+            s.max = max;
+            s.min = min;
+            s.mean = mean;
+            s.m2 = m2;
+            s.equity = equity;
+            s.peak = peak;
+            s.maxDrawdown = maxDrawdown;
+            return s;
+        }
+
+        void add(double profit) {
+            count++;
+            net += profit;
+            if (profit > 0) {
+                wins++;
+                grossWin += profit;
+            } else if (profit < 0) {
+                losses++;
+                grossLoss += profit;
+            }
+            if (profit > max) max = profit;
+            if (profit < min) min = profit;
+            double delta = profit - mean;
+            mean += delta / count;
+            m2 += delta * (profit - mean);
+            equity += profit;
+            if (equity > peak) peak = equity;
+            if (peak - equity > maxDrawdown) maxDrawdown = peak - equity;
+        }
+    }
+
+    @Override
+    public void rowsAdded(int from, int to) {
+        for (int row = from; row < to; row++) {
+            if (row % CHECKPOINT == 0) {
+                int k = row / CHECKPOINT;
+                if (k == checkpoints.length) checkpoints = Arrays.copyOf(checkpoints, k * 2);
+                checkpoints[k] = state.copy();
+            }
+            state.add(store.profit(row));
+        }
+    }
+
+    @Override
+    public void rowsRemoved(int from, int to) {
+        int k = from / CHECKPOINT;
+        state = checkpoints[k].copy();
+        for (int row = k * CHECKPOINT; row < from; row++) state.add(store.profit(row));
+    }
+
+    public int count() {
+        return state.count;
+    }
+
+    public int wins() {
+        return state.wins;
+    }
+
+    public int losses() {
+        return state.losses;
+    }
+
+    /** Percentage of trades with positive profit, 0 when empty. */
+    public double winRate() {
+        return state.count > 0 ? 100.0 * state.wins / state.count : 0;
+    }
+
+    public double netProfit() {
+        return state.net;
+    }
+
+    public double grossWin() {
+        return state.grossWin;
+    }
+
+    /** Sum of losing trades; zero or negative. */
+    public double grossLoss() {
+        return state.grossLoss;
+    }
+
+    /** Largest single profit, or -Infinity when empty. */
+    public double maxProfit() {
+        return state.max;
+    }
+
+    /** Smallest single profit (the worst loss), or +Infinity when empty. */
+    public double maxLoss() {
+        return state.min;
+    }
+
+    public double avgWin() {
+        return state.wins > 0 ? state.grossWin / state.wins : 0;
+    }
+
+    public double avgLoss() {
+        return state.losses > 0 ? state.grossLoss / state.losses : 0;
+    }
+
+    public double avgProfit() {
+        return state.count > 0 ? state.net / state.count : 0;
+    }
+
+    /** Gross win over absolute gross loss; infinite when there are wins but no losses. */
+    public double profitFactor() {
+        if (state.grossLoss == 0) return state.grossWin > 0 ? Double.POSITIVE_INFINITY : 0;
+        return state.grossWin / -state.grossLoss;
+    }
+
+    /** Expected profit per trade: P(win) * avg win + P(loss) * avg loss. */
+    public double expectancy() {
+        if (state.count == 0) return 0;
+        return (state.wins * avgWin() + state.losses * avgLoss()) / state.count;
+    }
+
+    /** Sample standard deviation of profit. */
+    public double stdDev() {
+        return state.count > 1 ? Math.sqrt(state.m2 / (state.count - 1)) : 0;
+    }
+
+    /** Largest peak-to-trough fall of cumulative profit, in insertion order, starting from zero. */
+    public double maxDrawdown() {
+        return state.maxDrawdown;
+    }
+}
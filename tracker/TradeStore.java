@@ -0,0 +1,406 @@
+package tracker;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Columnar trade storage. Prices and profit live in {@code double} columns, symbol and type are
+ * dictionary-encoded ints, and the date is an epoch day. Columns grow one fixed-size chunk at a
+ * time, so appending never copies existing rows. Row ids are insertion positions.
+ */
+public final class TradeStore {
+    static final int CHUNK_SHIFT = 14;
+    static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    /** Notified after rows {@code [from, to)} are appended to or dropped from the tail. */
+    public interface Listener {
+        void rowsAdded(int from, int to);
+
+        void rowsRemoved(int from, int to);
+    }
+
+    private final List<Listener> listeners = new ArrayList<>();
+
+    private final StringDictionary symbols = new StringDictionary();
+    private final StringDictionary types = new StringDictionary();
+
+    private double[][] entry = new double[4][];
+    private double[][] exit = new double[4][];
+    private double[][] profit = new double[4][];
+    private int[][] symbol = new int[4][];
+    private int[][] type = new int[4][];
+    private int[][] day = new int[4][];
+    private int chunks;
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void addListener(Listener l) {
+        listeners.add(l);
+    }
+
+    public void removeListener(Listener l) {
+        listeners.remove(l);
+    }
+
+    private void fireAdded(int from, int to) {
+        if (from == to) return;
+        for (Listener l : listeners) l.rowsAdded(from, to);
+    }
+
+    private void fireRemoved(int from, int to) {
+        if (from == to) return;
+        for (Listener l : listeners) l.rowsRemoved(from, to);
+    }
+
+    public StringDictionary symbols() {
+        return symbols;
+    }
+
+    public StringDictionary types() {
+        return types;
+    }
+
+    public int add(String symbol, String type, double entry, double exit, double profit, int epochDay) {
+        int row = addEncoded(symbols.id(symbol), types.id(type), entry, exit, profit, epochDay);
+        fireAdded(row, row + 1);
+        return row;
+    }
+
+    public int add(String symbol, String type, double entry, double exit, double profit, String date) {
+        return add(symbol, type, entry, exit, profit, TradeDates.parse(date));
+    }
+
+    private int addEncoded(int symbolId, int typeId, double e, double x, double p, int epochDay) {
+        int row = size;
+        int c = row >>> CHUNK_SHIFT, i = row & CHUNK_MASK;
+        if (c == chunks) addChunk();
+        entry[c][i] = e;
+        exit[c][i] = x;
+        profit[c][i] = p;
+        symbol[c][i] = symbolId;
+        type[c][i] = typeId;
+        day[c][i] = epochDay;
+        size = row + 1;
+        return row;
+    }
+
+    private void addChunk() {
+        if (chunks == entry.length) {
+            int n = chunks * 2;
+            entry = Arrays.copyOf(entry, n);
+            exit = Arrays.copyOf(exit, n);
+            profit = Arrays.copyOf(profit, n);
+            symbol = Arrays.copyOf(symbol, n);
+            type = Arrays.copyOf(type, n);
+            day = Arrays.copyOf(day, n);
+        }
+        if (entry[chunks] == null) {
+            entry[chunks] = new double[CHUNK_SIZE];
+            exit[chunks] = new double[CHUNK_SIZE];
+            profit[chunks] = new double[CHUNK_SIZE];
+            symbol[chunks] = new int[CHUNK_SIZE];
+            type[chunks] = new int[CHUNK_SIZE];
+            day[chunks] = new int[CHUNK_SIZE];
+        }
+        chunks++;
+    }
+
+    /**
+     * Appends every row of {@code other}, re-encoding its dictionaries into this store's.
+     * Listeners see one ranged event for the whole batch.
+     */
+    public void appendAll(TradeStore other) {
+        appendRange(other, 0, other.size);
+    }
+
+    /** Appends rows {@code [from, to)} of {@code other} as one ranged event. */
+    void appendRange(TradeStore other, int from, int to) {
+        if (from < 0 || from > to || to > other.size) throw new IndexOutOfBoundsException("rows " + from + ".." + to + " of " + other.size);
+        int first = size;
+        int[] symbolMap = remap(other.symbols, symbols);
+        int[] typeMap = remap(other.types, types);
+        for (int r = from; r < to; r++) {
+            int c = r >>> CHUNK_SHIFT, i = r & CHUNK_MASK;
+            addEncoded(symbolMap[other.symbol[c][i]], typeMap[other.type[c][i]],
+                    other.entry[c][i], other.exit[c][i], other.profit[c][i], other.day[c][i]);
+        }
+        fireAdded(first, size);
+    }
+
+    /**
+     * Bulk-appends {@code n} rows from consecutive little-endian column blocks laid out as in
+     * {@link TradeFile}: entry, exit, profit doubles, then symbol, type, day ints.
+     */
+    void appendRaw(ByteBuffer columns, int n, int[] symbolMap, int[] typeMap) {
+        int first = size;
+        while (chunks < ((first + n + CHUNK_MASK) >>> CHUNK_SHIFT)) addChunk();
+        double[][][] doubles = {entry, exit, profit};
+        int[][][] ints = {symbol, type, day};
+        for (int col = 0; col < 6; col++) {
+            int bytes = col < 3 ? 8 : 4;
+            ByteBuffer block = columns.duplicate().order(columns.order());
+            block.position(col < 3 ? col * n * 8 : 3 * n * 8 + (col - 3) * n * 4);
+            for (int done = 0; done < n; ) {
+                int row = first + done, c = row >>> CHUNK_SHIFT, i = row & CHUNK_MASK;
+                int k = Math.min(n - done, CHUNK_SIZE - i);
+                if (col < 3) {
+                    block.asDoubleBuffer().get(doubles[col][c], i, k);
+                } else {
+                    int[] chunk = ints[col - 3][c];
+                    block.asIntBuffer().get(chunk, i, k);
+                    int[] map = col == 3 ? symbolMap : col == 4 ? typeMap : null;
+                    if (map != null) for (int j = i; j < i + k; j++) chunk[j] = map[chunk[j]];
+                }
+                block.position(block.position() + k * bytes);
+                done += k;
+            }
+        }
+        size = first + n;
+        fireAdded(first, size);
+    }
+
+    private static int[] remap(StringDictionary from, StringDictionary to) {
+        int[] map = new int[from.size()];
+        for (int id = 0; id < map.length; id++) map[id] = to.id(from.get(id));
+        return map;
+    }
+
+    /** Drops rows {@code newSize..size-1}. Emptied chunks are kept for reuse. */
+    public void truncate(int newSize) {
+        if (newSize < 0 || newSize > size) throw new IndexOutOfBoundsException("truncate " + newSize + " of " + size);
+        int old = size;
+        size = newSize;
+        chunks = (newSize + CHUNK_MASK) >>> CHUNK_SHIFT;
+        fireRemoved(newSize, old);
+    }
+
+    /** Heap held by the column chunks, including emptied ones kept for reuse. */
+    public long memoryBytes() {
+        long allocated = 0;
+        for (double[] c : entry) if (c != null) allocated++;
+        return allocated * CHUNK_SIZE * (3 * 8 + 3 * 4);
+    }
+
+    public void removeLast() {
+        truncate(size - 1);
+    }
+
+    public void clear() {
+        truncate(0);
+    }
+
+    private void check(int row) {
+        if (row < 0 || row >= size) throw new IndexOutOfBoundsException("row " + row + " of " + size);
+    }
+
+    public double entry(int row) {
+        check(row);
+        return entry[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+    }
+
+    public double exit(int row) {
+        check(row);
+        return exit[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+    }
+
+    public double profit(int row) {
+        check(row);
+        return profit[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+    }
+
+    public int symbolId(int row) {
+        check(row);
+        return symbol[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+    }
+
+    public int typeId(int row) {
+        check(row);
+        return type[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+    }
+
+    public int epochDay(int row) {
+        check(row);
+        return day[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+    }
+
+    public String symbol(int row) {
+        return symbols.get(symbolId(row));
+    }
+
+    public String type(int row) {
+        return types.get(typeId(row));
+    }
+
+    public String date(int row) {
+        return TradeDates.format(epochDay(row));
+    }
+
+    public DoubleColumn entryColumn() {
+        return new DoubleColumn(entry);
+    }
+
+    public DoubleColumn exitColumn() {
+        return new DoubleColumn(exit);
+    }
+
+    public DoubleColumn profitColumn() {
+        return new DoubleColumn(profit);
+    }
+
+    public IntColumn symbolColumn() {
+        return new IntColumn(symbol);
+    }
+
+    public IntColumn typeColumn() {
+        return new IntColumn(type);
+    }
+
+    public IntColumn dayColumn() {
+        return new IntColumn(day);
+    }
+
+    /**
+     * Read view over one double column as of the moment it was taken. {@link #chunk(int)} exposes
+     * the backing arrays so hot loops can run over plain {@code double[]} ranges.
+     */
+    public final class DoubleColumn {
+        private final double[][] data;
+        private final int length;
+
+        DoubleColumn(double[][] data) {
+            this(data, size);
+        }
+
+        private DoubleColumn(double[][] data, int length) {
+            this.data = data;
+            this.length = length;
+        }
+
+        public int size() {
+            return length;
+        }
+
+        /**
+         * This view resized to exactly {@code rows}, for readers on other threads that pin a row
+         * count published by the writer. Does not depend on the writer's current size, which may
+         * already be smaller; such reads are only meaningful under a version check.
+         */
+        DoubleColumn pinned(int rows) {
+            return new DoubleColumn(data, rows);
+        }
+
+        public double get(int row) {
+            if (row < 0 || row >= length) throw new IndexOutOfBoundsException("row " + row + " of " + length);
+            return data[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+        }
+
+        public int chunkCount() {
+            return (length + CHUNK_MASK) >>> CHUNK_SHIFT;
+        }
+
+        public double[] chunk(int c) {
+            return data[c];
+        }
+
+        public int chunkLength(int c) {
+            return Math.min(CHUNK_SIZE, length - (c << CHUNK_SHIFT));
+        }
+
+        public PrimitiveIterator.OfDouble iterator() {
+            return new PrimitiveIterator.OfDouble() {
+                private int row;
+
+                public boolean hasNext() {
+                    return row < length;
+                }
+
+                public double nextDouble() {
+                    if (row >= length) throw new NoSuchElementException();
+                    double v = data[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+                    row++;
+                    return v;
+                }
+            };
+        }
+    }
+
+    /** Int counterpart of {@link DoubleColumn} for the symbol, type and day columns. */
+    public final class IntColumn {
+        private final int[][] data;
+        private final int length;
+
+        IntColumn(int[][] data) {
+            this(data, size);
+        }
+
+        private IntColumn(int[][] data, int length) {
+            this.data = data;
+            this.length = length;
+        }
+
+        public int size() {
+            return length;
+        }
+
+        /**
+         * This view resized to exactly {@code rows}, for readers on other threads that pin a row
+         * count published by the writer. Does not depend on the writer's current size, which may
+         * already be smaller; such reads are only meaningful under a version check.
+         */
+        IntColumn pinned(int rows) {
+            return new IntColumn(data, rows);
+        }
+
+        public int get(int row) {
+            if (row < 0 || row >= length) throw new IndexOutOfBoundsException("row " + row + " of " + length);
+            return data[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+        }
+
+        public int chunkCount() {
+            return (length + CHUNK_MASK) >>> CHUNK_SHIFT;
+        }
+
+        public int[] chunk(int c) {
+            return data[c];
+        }
+
+        public int chunkLength(int c) {
+            return Math.min(CHUNK_SIZE, length - (c << CHUNK_SHIFT));
+        }
+
+        public PrimitiveIterator.OfInt iterator() {
+            return new PrimitiveIterator.OfInt() {
+                private int row;
+
+                public boolean hasNext() {
+                    return row < length;
+                }
+
+                public int nextInt() {
+                    if (row >= length) throw new NoSuchElementException();
+                    int v = data[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+                    row++;
+                    return v;
+                }
+            };
+        }
+    }
+
+    public static int[] identity(int n) {
+        int[] rows = new int[n];
+        for (int i = 0; i < n; i++) rows[i] = i;
+        return rows;
+    }
+}
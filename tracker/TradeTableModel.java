@@ -0,0 +1,194 @@
+package tracker;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+
+/**
+ * Table model that reads cells straight from a {@link TradeStore}. Nothing is copied per row:
+ * sorting installs a row-id permutation, filtering keeps the matching subset of it, and both are
+ * plain {@code int[]} remaps from view index to store row. An order installed with
+ * {@link #setSort} stays sorted as rows are appended: the {@link TradeSorter} merges them in.
+ */
+public final class TradeTableModel extends AbstractTableModel implements TradeStore.Listener {
+    private static final String[] COLUMNS = {"#", "Symbol", "Type", "Entry", "Exit", "Profit", "Date", "Note"};
+
+    private final TradeStore store;
+    private final IntFunction<String> notes;
+
+    private int[] order; // null = insertion order
+    private int orderSize;
+    private TradeSorter sorter; // non-null when order follows sortKeys
+    private List<TradeSorter.Order> sortKeys;
+    private int[] view; // null = same as order
+    private int viewSize;
+    private IntPredicate filter;
+
+    public TradeTableModel(TradeStore store, IntFunction<String> notes) {
+        this.store = store;
+        this.notes = notes;
+        store.addListener(this);
+    }
+
+    /** Installs a full-store permutation (null for insertion order) and drops any filter. */
+    public void setOrder(int[] rows) {
+        sorter = null;
+        sortKeys = null;
+        order = rows;
+        orderSize = rows == null ? 0 : rows.length;
+        filter = null;
+        view = null;
+        fireTableDataChanged();
+    }
+
+    /**
+     * Sorts by {@code keys} (insertion order if empty) and keeps appended rows in that order,
+     * re-sorting through {@code sorter} on each append. Drops any filter.
+     */
+    public void setSort(TradeSorter sorter, List<TradeSorter.Order> keys) {
+        setOrder(keys.isEmpty() ? null : sorter.sort(keys));
+        if (!keys.isEmpty()) {
+            this.sorter = sorter;
+            sortKeys = List.copyOf(keys);
+        }
+    }
+
+    /** Shows only rows accepted by {@code f}, in the current order; null shows everything. */
+    public void setFilter(IntPredicate f) {
+        filter = f;
+        if (f == null) view = null;
+        else applyFilter();
+        fireTableDataChanged();
+    }
+
+    private void applyFilter() {
+        int n = orderedCount();
+        int[] rows = new int[Math.max(16, n / 8)];
+        int size = 0;
+        for (int i = 0; i < n; i++) {
+            int row = orderedRow(i);
+            if (!filter.test(row)) continue;
+            if (size == rows.length) rows = Arrays.copyOf(rows, size * 2);
+            rows[size++] = row;
+        }
+        view = rows;
+        viewSize = size;
+    }
+
+    /** Installs an already computed filter result; {@code f} decides which future appends are shown. */
+    public void setFilterResult(int[] rows, int size, IntPredicate f) {
+        filter = f;
+        view = rows;
+        viewSize = size;
+        fireTableDataChanged();
+    }
+
+    public boolean isFiltered() {
+        return view != null;
+    }
+
+    public boolean isSorted() {
+        return order != null;
+    }
+
+    public int[] order() {
+        return order == null ? null : Arrays.copyOf(order, orderSize);
+    }
+
+    /** Store rows currently shown, in display order. */
+    public int[] viewRows() {
+        if (view != null) return Arrays.copyOf(view, viewSize);
+        return order != null ? Arrays.copyOf(order, orderSize) : TradeStore.identity(store.size());
+    }
+
+    /** Rows of the whole store in the current sort order, ignoring the filter. */
+    public int orderedCount() {
+        return order == null ? store.size() : orderSize;
+    }
+
+    public int orderedRow(int index) {
+        return order == null ? index : order[index];
+    }
+
+    /** Store row shown at {@code viewIndex}. */
+    public int rowAt(int viewIndex) {
+        return view != null ? view[viewIndex] : orderedRow(viewIndex);
+    }
+
+    @Override
+    public int getRowCount() {
+        return view != null ? viewSize : orderedCount();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Object getValueAt(int viewIndex, int column) {
+        int row = rowAt(viewIndex);
+        switch (column) {
+            case 0: return viewIndex + 1;
+            case 1: return store.symbol(row);
+            case 2: return store.type(row);
+            case 3: return store.entry(row);
+            case 4: return store.exit(row);
+            case 5: return store.profit(row);
+            case 6: return store.date(row);
+            default: return notes.apply(row);
+        }
+    }
+
+    @Override
+    public void rowsAdded(int from, int to) {
+        if (sorter != null) {
+            // new rows can land anywhere in the order; the sorter merges them in O(new + n)
+            order = sorter.sort(sortKeys);
+            orderSize = order.length;
+            if (view != null && filter != null) applyFilter();
+            fireTableDataChanged();
+            return;
+        }
+        if (order != null) {
+            if (orderSize + (to - from) > order.length) order = Arrays.copyOf(order, Math.max(orderSize + to - from, order.length * 2));
+            for (int row = from; row < to; row++) order[orderSize++] = row;
+        }
+        if (view != null) {
+            int first = viewSize;
+            for (int row = from; row < to; row++) {
+                if (filter != null && !filter.test(row)) continue;
+                if (viewSize == view.length) view = Arrays.copyOf(view, Math.max(16, viewSize * 2));
+                view[viewSize++] = row;
+            }
+            if (viewSize > first) fireTableRowsInserted(first, viewSize - 1);
+        } else {
+            int last = orderedCount();
+            fireTableRowsInserted(last - (to - from), last - 1);
+        }
+    }
+
+    @Override
+    public void rowsRemoved(int from, int to) {
+        if (order == null && view == null) {
+            fireTableRowsDeleted(from, to - 1);
+            return;
+        }
+        if (order != null) orderSize = dropRowsFrom(order, orderSize, from);
+        if (view != null) viewSize = dropRowsFrom(view, viewSize, from);
+        fireTableDataChanged();
+    }
+
+    private static int dropRowsFrom(int[] rows, int size, int firstRemoved) {
+        int n = 0;
+        for (int i = 0; i < size; i++) if (rows[i] < firstRemoved) rows[n++] = rows[i];
+        return n;
+    }
+}
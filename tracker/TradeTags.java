@@ -0,0 +1,190 @@
+package tracker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * The tag id {@link TradeRules} gives each row of a {@link TradeStore}, kept in {@code short}
+ * chunks aligned with the store's. Appended rows are tagged as they arrive and dropped rows are
+ * forgotten; only {@link #setRules} re-tags everything. Tagging runs rule by rule over whole
+ * column chunks, so the inner loop is a few compares on primitive arrays per still-untagged row,
+ * and {@link #label} hands back the interned label without allocating.
+ * <p>
+ * Like the store, it is written from one thread. Readers on other threads, such as exports, see
+ * either the old or the new rules' tags in full, never a mix.
+ */
+public final class TradeTags implements TradeStore.Listener {
+    private final TradeStore store;
+    private volatile Tagging current;
+
+    public TradeTags(TradeStore store, TradeRules rules) {
+        this.store = store;
+        current = new Tagging(rules);
+        store.addListener(this);
+        rowsAdded(0, store.size());
+    }
+
+    /** Switches to {@code rules} and re-tags every row. */
+    public void setRules(TradeRules rules) {
+        Tagging t = new Tagging(rules);
+        t.tag(store, 0, store.size());
+        current = t;
+    }
+
+    public TradeRules rules() {
+        return current.rules;
+    }
+
+    @Override
+    public void rowsAdded(int from, int to) {
+        current.tag(store, from, to);
+    }
+
+    @Override
+    public void rowsRemoved(int from, int to) {
+        Tagging t = current;
+        t.size = Math.min(t.size, from);
+    }
+
+    /** Tag id of {@code row}; 0 if no rule matched. */
+    public int tagId(int row) {
+        Tagging t = current;
+        return row < t.size ? t.ids[row >>> TradeStore.CHUNK_SHIFT][row & TradeStore.CHUNK_MASK] : 0;
+    }
+
+    /** The interned label of {@code row}'s tag; empty if no rule matched. */
+    public String label(int row) {
+        Tagging t = current;
+        return row < t.size ? t.rules.labels[t.ids[row >>> TradeStore.CHUNK_SHIFT][row & TradeStore.CHUNK_MASK]] : "";
+    }
+
+    public IntPredicate hasTag(int tagId) {
+        return row -> tagId(row) == tagId;
+    }
+
+    /** Rows currently carrying {@code tagId}. */
+    public RowBitmap rows(int tagId) {
+        Tagging t = current;
+        RowBitmap rows = new RowBitmap();
+        for (int c = 0, n = t.size; c << TradeStore.CHUNK_SHIFT < n; c++) {
+            short[] ids = t.ids[c];
+            int base = c << TradeStore.CHUNK_SHIFT, len = Math.min(TradeStore.CHUNK_SIZE, n - base);
+            for (int i = 0; i < len; i++) if (ids[i] == tagId) rows.add(base + i);
+        }
+        return rows;
+    }
+
+    /** Count, wins and net per tag in tag order, skipping tags no row carries. */
+    public List<TradeAnalytics.Bucket> byTag() {
+        Tagging t = current;
+        String[] labels = t.rules.labels;
+        int[] count = new int[labels.length], wins = new int[labels.length];
+        double[] net = new double[labels.length];
+        TradeStore.DoubleColumn profit = store.profitColumn();
+        int n = Math.min(t.size, profit.size());
+        for (int c = 0; c << TradeStore.CHUNK_SHIFT < n; c++) {
+            short[] ids = t.ids[c];
+            double[] p = profit.chunk(c);
+            int len = Math.min(TradeStore.CHUNK_SIZE, n - (c << TradeStore.CHUNK_SHIFT));
+            for (int i = 0; i < len; i++) {
+                int id = ids[i];
+                count[id]++;
+                net[id] += p[i];
+                if (p[i] > 0) wins[id]++;
+            }
+        }
+        List<TradeAnalytics.Bucket> buckets = new ArrayList<>();
+        for (int id = 1; id <= labels.length; id++) {
+            int k = id % labels.length; // untagged last
+            if (count[k] > 0) buckets.add(new TradeAnalytics.Bucket(k == 0 ? "(untagged)" : labels[k], count[k], wins[k], net[k]));
+        }
+        return buckets;
+    }
+
+    /** One rule set's tags plus its name masks, which grow with the store's dictionaries. */
+    private static final class Tagging {
+        final TradeRules rules;
+        final boolean[][] symbolMask, typeMask;
+        final boolean[] anyProfit;
+        short[][] ids = new short[4][];
+        volatile int size;
+
+        Tagging(TradeRules rules) {
+            this.rules = rules;
+            symbolMask = new boolean[rules.count][];
+            typeMask = new boolean[rules.count][];
+            anyProfit = new boolean[rules.count];
+            for (int k = 0; k < rules.count; k++) {
+                if (rules.symbols[k] != null) symbolMask[k] = new boolean[0];
+                if (rules.types[k] != null) typeMask[k] = new boolean[0];
+                // lets NaN profits through rules that say nothing about profit
+                anyProfit[k] = rules.profitLo[k] == Double.NEGATIVE_INFINITY && rules.profitHi[k] == Double.POSITIVE_INFINITY;
+            }
+        }
+
+        /** Evaluates each rule's name patterns once per new dictionary entry, never per row. */
+        private void syncMasks(TradeStore store) {
+            StringDictionary symbols = store.symbols(), types = store.types();
+            for (int k = 0; k < rules.count; k++) {
+                boolean[] m = symbolMask[k];
+                if (m != null && m.length < symbols.size()) {
+                    int from = m.length;
+                    m = symbolMask[k] = Arrays.copyOf(m, symbols.size());
+                    for (int id = from; id < m.length; id++) m[id] = rules.matchesSymbol(k, symbols.get(id));
+                }
+                m = typeMask[k];
+                if (m != null && m.length < types.size()) {
+                    int from = m.length;
+                    m = typeMask[k] = Arrays.copyOf(m, types.size());
+                    for (int id = from; id < m.length; id++) m[id] = rules.matchesType(k, types.get(id));
+                }
+            }
+        }
+
+        void tag(TradeStore store, int from, int to) {
+            if (from >= to) return;
+            syncMasks(store);
+            int chunks = (to + TradeStore.CHUNK_MASK) >>> TradeStore.CHUNK_SHIFT;
+            if (chunks > ids.length) ids = Arrays.copyOf(ids, Math.max(chunks, ids.length * 2));
+            TradeStore.DoubleColumn profit = store.profitColumn();
+            TradeStore.IntColumn symbol = store.symbolColumn(), type = store.typeColumn(), day = store.dayColumn();
+            for (int c = from >>> TradeStore.CHUNK_SHIFT; c < chunks; c++) {
+                if (ids[c] == null) ids[c] = new short[TradeStore.CHUNK_SIZE];
+                int base = c << TradeStore.CHUNK_SHIFT;
+                int lo = Math.max(from, base) - base, hi = Math.min(to, base + TradeStore.CHUNK_SIZE) - base;
+                short[] out = ids[c];
+                Arrays.fill(out, lo, hi, (short) 0);
+                double[] p = profit.chunk(c);
+                int[] s = symbol.chunk(c), t = type.chunk(c), d = day.chunk(c);
+                int left = hi - lo;
+                for (int k = 0; k < rules.count && left > 0; k++) {
+                    left -= apply(k, out, lo, hi, p, s, t, d);
+                }
+            }
+            size = to;
+        }
+
+        /** Gives rule {@code k}'s tag to the untagged rows of one chunk it matches; returns how many. */
+        private int apply(int k, short[] out, int lo, int hi, double[] p, int[] s, int[] t, int[] d) {
+            short tag = rules.tag[k];
+            double profitLo = rules.profitLo[k], profitHi = rules.profitHi[k];
+            int dayLo = rules.dayLo[k], dayHi = rules.dayHi[k];
+            boolean anyP = anyProfit[k];
+            boolean[] sm = symbolMask[k], tm = typeMask[k];
+            int n = 0;
+            for (int i = lo; i < hi; i++) {
+                if (out[i] != 0) continue;
+                double v = p[i];
+                int day = d[i];
+                if ((anyP || v >= profitLo && v <= profitHi) && day >= dayLo && day <= dayHi
+                        && (sm == null || sm[s[i]]) && (tm == null || tm[t[i]])) {
+                    out[i] = tag;
+                    n++;
+                }
+            }
+            return n;
+        }
+    }
+}
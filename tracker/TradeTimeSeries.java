@@ -0,0 +1,409 @@
+package tracker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Equity curve and calendar rollups over a {@link TradeStore}, kept current through store events.
+ * <ul>
+ *   <li>Per row: running equity (prefix sums of profit) in insertion order, plus min/max blocks of
+ *       8, 64, 512 ... rows, so the min and max over any row range cost O(log n) and a chart can
+ *       draw millions of points one pixel column at a time.</li>
+ *   <li>Per day, week (Monday first) and month: count, wins and net in a segment tree over the
+ *       distinct periods seen, so P&L, win rate and drawdown between two dates cost O(log n).</li>
+ * </ul>
+ * Drawdown over dates is measured on end-of-day equity starting from the range's opening equity;
+ * trades within a day are netted. Undated rows count towards the per-row curve only. Appends are
+ * O(log n); a period that falls between existing ones rebuilds that period's tree, which is sized by
+ * the number of distinct periods, not rows. Not thread-safe; use it from the store's writer thread.
+ */
+public final class TradeTimeSeries implements TradeStore.Listener {
+    private static final int LOD_SHIFT = 3; // each level groups 8 blocks of the level below
+    private static final int BULK_ROWS = 4096; // larger appends update leaves only, then rebuild each tree once
+    private static final int SLOT_CACHE = 1024;
+
+    public enum Period {
+        DAY, WEEK, MONTH
+    }
+
+    /** Aggregate over a date range. */
+    public static final class Range {
+        public final int count, wins;
+        public final double net, maxDrawdown;
+        /** Highest and lowest end-of-period equity relative to the equity at the start of the range. */
+        public final double high, low;
+
+        Range(int count, int wins, double net, double maxDrawdown, double high, double low) {
+            this.count = count;
+            this.wins = wins;
+            this.net = net;
+            this.maxDrawdown = maxDrawdown;
+            this.high = high;
+            this.low = low;
+        }
+
+        public double winRate() {
+            return count > 0 ? 100.0 * wins / count : 0;
+        }
+    }
+
+    private final TradeStore store;
+    private final Series days = new Series(), weeks = new Series(), months = new Series();
+
+    private double[] equity = new double[1024];
+    private int[] meta = new int[1024]; // day << 2 | 1 win | 2 loss, or NO_DATE
+    private int rows;
+    private double[][] lodMin = new double[0][], lodMax = new double[0][];
+
+    // direct-mapped day -> (day, week, month) slots; cleared when an insert shifts slots
+    private final int[] cachedDay = new int[SLOT_CACHE], cachedSlots = new int[3 * SLOT_CACHE];
+
+    public TradeTimeSeries(TradeStore store) {
+        this.store = store;
+        Arrays.fill(cachedDay, TradeDates.NO_DATE);
+        store.addListener(this);
+        rowsAdded(0, store.size());
+    }
+
+    @Override
+    public void rowsAdded(int from, int to) {
+        if (to > equity.length) {
+            int cap = Math.max(to, equity.length * 2);
+            equity = Arrays.copyOf(equity, cap);
+            meta = Arrays.copyOf(meta, cap);
+        }
+        double e = rows > 0 ? equity[rows - 1] : 0;
+        boolean bulk = to - from >= BULK_ROWS;
+        for (int row = from; row < to; row++) {
+            double profit = store.profit(row);
+            int day = store.epochDay(row);
+            e += profit;
+            equity[row] = e;
+            int win = profit > 0 ? 1 : 0;
+            if (day == TradeDates.NO_DATE) {
+                meta[row] = TradeDates.NO_DATE;
+            } else {
+                meta[row] = day << 2 | win | (profit < 0 ? 2 : 0);
+                int c = day & (SLOT_CACHE - 1);
+                if (cachedDay[c] != day) cacheSlots(day);
+                days.add(cachedSlots[3 * c], 1, win, profit, bulk);
+                weeks.add(cachedSlots[3 * c + 1], 1, win, profit, bulk);
+                months.add(cachedSlots[3 * c + 2], 1, win, profit, bulk);
+            }
+            rows = row + 1;
+            extendLod(row, e);
+        }
+        if (bulk) {
+            days.rebuild();
+            weeks.rebuild();
+            months.rebuild();
+        }
+    }
+
+    /**
+     * The store no longer has the removed rows, so their profit is recovered from the equity
+     * deltas. Periods left empty are reset to exact zeros.
+     */
+    @Override
+    public void rowsRemoved(int from, int to) {
+        for (int row = to - 1; row >= from; row--) {
+            if (meta[row] == TradeDates.NO_DATE) continue;
+            int day = meta[row] >> 2, win = meta[row] & 1;
+            double profit = equity[row] - (row > 0 ? equity[row - 1] : 0);
+            days.add(days.find(day), -1, -win, -profit, false);
+            weeks.add(weeks.find(week(day)), -1, -win, -profit, false);
+            months.add(months.find(month(day)), -1, -win, -profit, false);
+        }
+        rows = from;
+        for (int level = 0; level < lodMin.length; level++) {
+            int shift = LOD_SHIFT * (level + 1);
+            if (rows == 0) break;
+            int block = (rows - 1) >>> shift, first = block << shift;
+            double lo = Double.POSITIVE_INFINITY, hi = Double.NEGATIVE_INFINITY;
+            if (level == 0) {
+                for (int r = first; r < rows; r++) {
+                    lo = Math.min(lo, equity[r]);
+                    hi = Math.max(hi, equity[r]);
+                }
+            } else {
+                int below = LOD_SHIFT * level;
+                for (int b = first >>> below; b <= (rows - 1) >>> below; b++) {
+                    lo = Math.min(lo, lodMin[level - 1][b]);
+                    hi = Math.max(hi, lodMax[level - 1][b]);
+                }
+            }
+            lodMin[level][block] = lo;
+            lodMax[level][block] = hi;
+        }
+    }
+
+    private void cacheSlots(int day) {
+        int n = days.n + weeks.n + months.n;
+        int d = days.slot(day), w = weeks.slot(week(day)), m = months.slot(month(day));
+        boolean shifted = (d < days.n - 1 || w < weeks.n - 1 || m < months.n - 1) && days.n + weeks.n + months.n > n;
+        if (shifted) Arrays.fill(cachedDay, TradeDates.NO_DATE);
+        int c = day & (SLOT_CACHE - 1);
+        cachedDay[c] = day;
+        cachedSlots[3 * c] = d;
+        cachedSlots[3 * c + 1] = w;
+        cachedSlots[3 * c + 2] = m;
+    }
+
+    private void extendLod(int row, double e) {
+        while (lodMin.length == 0 || row >>> (LOD_SHIFT * lodMin.length) > 0) {
+            int levels = lodMin.length;
+            lodMin = Arrays.copyOf(lodMin, levels + 1);
+            lodMax = Arrays.copyOf(lodMax, levels + 1);
+            lodMin[levels] = new double[8];
+            lodMax[levels] = new double[8];
+            // a new top level starts from the level below, which covers every earlier row
+            int shift = LOD_SHIFT * (levels + 1);
+            for (int r = 0; r < row; r += 1 << LOD_SHIFT * levels) {
+                double lo = levels == 0 ? equity[r] : lodMin[levels - 1][r >>> LOD_SHIFT * levels];
+                double hi = levels == 0 ? equity[r] : lodMax[levels - 1][r >>> LOD_SHIFT * levels];
+                int b = r >>> shift;
+                if ((r & ((1 << shift) - 1)) == 0) {
+                    lodMin[levels][b] = lo;
+                    lodMax[levels][b] = hi;
+                } else {
+                    lodMin[levels][b] = Math.min(lodMin[levels][b], lo);
+                    lodMax[levels][b] = Math.max(lodMax[levels][b], hi);
+                }
+            }
+        }
+        for (int level = 0; level < lodMin.length; level++) {
+            int shift = LOD_SHIFT * (level + 1), b = row >>> shift;
+            if (b >= lodMin[level].length) {
+                lodMin[level] = Arrays.copyOf(lodMin[level], lodMin[level].length * 2);
+                lodMax[level] = Arrays.copyOf(lodMax[level], lodMax[level].length * 2);
+            }
+            if ((row & ((1 << shift) - 1)) == 0) {
+                lodMin[level][b] = e;
+                lodMax[level][b] = e;
+            } else {
+                lodMin[level][b] = Math.min(lodMin[level][b], e);
+                lodMax[level][b] = Math.max(lodMax[level][b], e);
+            }
+        }
+    }
+
+    /** Rows covered; the same as the store's size. */
+    public int rows() {
+        return rows;
+    }
+
+    /** Cumulative profit after {@code row}. */
+    public double equity(int row) {
+        if (row < 0 || row >= rows) throw new IndexOutOfBoundsException("row " + row + " of " + rows);
+        return equity[row];
+    }
+
+    /** Net profit of rows {@code [from, to)}. */
+    public double net(int from, int to) {
+        if (from < 0 || from > to || to > rows) throw new IndexOutOfBoundsException("rows " + from + ".." + to + " of " + rows);
+        return (to > 0 ? equity[to - 1] : 0) - (from > 0 ? equity[from - 1] : 0);
+    }
+
+    /**
+     * Lowest and highest equity after rows {@code [from, to)} into {@code out[0]} and {@code out[1]},
+     * using the largest aligned blocks that fit, so at most a few dozen values are read.
+     */
+    public void equityRange(int from, int to, double[] out) {
+        double lo = Double.POSITIVE_INFINITY, hi = Double.NEGATIVE_INFINITY;
+        int r = from;
+        while (r < to) {
+            int level = -1;
+            while (level + 1 < lodMin.length) {
+                int size = 1 << LOD_SHIFT * (level + 2);
+                if ((r & (size - 1)) != 0 || r + size > to) break;
+                level++;
+            }
+            if (level < 0) {
+                lo = Math.min(lo, equity[r]);
+                hi = Math.max(hi, equity[r]);
+                r++;
+            } else {
+                int shift = LOD_SHIFT * (level + 1);
+                lo = Math.min(lo, lodMin[level][r >>> shift]);
+                hi = Math.max(hi, lodMax[level][r >>> shift]);
+                r += 1 << shift;
+            }
+        }
+        out[0] = lo;
+        out[1] = hi;
+    }
+
+    /** Dated trades in {@code [fromDay, toDay]}, both inclusive. */
+    public Range range(int fromDay, int toDay) {
+        return days.query(days.lowerBound(fromDay), days.lowerBound(toDay == Integer.MAX_VALUE ? toDay : toDay + 1));
+    }
+
+    /** Net profit of every dated trade before {@code day}. */
+    public double equityBefore(int day) {
+        return days.query(0, days.lowerBound(day)).net;
+    }
+
+    /** First and last trading day, or {@link TradeDates#NO_DATE} if there are no dated trades. */
+    public int firstDay() {
+        return days.firstKey();
+    }
+
+    public int lastDay() {
+        return days.lastKey();
+    }
+
+    /** One bucket per period with trades, in date order. */
+    public List<TradeAnalytics.Bucket> rollup(Period period) {
+        Series s = period == Period.DAY ? days : period == Period.WEEK ? weeks : months;
+        List<TradeAnalytics.Bucket> out = new ArrayList<>();
+        for (int i = 0; i < s.n; i++) {
+            int leaf = s.cap + i;
+            if (s.count[leaf] == 0) continue;
+            int key = s.keys[i];
+            String label = period == Period.DAY ? TradeDates.format(key)
+                    : period == Period.WEEK ? "wk " + TradeDates.format(key * 7 - 3)
+                    : String.format("%04d-%02d", key / 12, key % 12 + 1);
+            out.add(new TradeAnalytics.Bucket(label, s.count[leaf], s.wins[leaf], s.net[leaf]));
+        }
+        return out;
+    }
+
+    private static int week(int day) {
+        return Math.floorDiv(day + 3, 7); // weeks start on Monday; epoch day 0 was a Thursday
+    }
+
+    private static int month(int day) {
+        return TradeDates.yearMonth(day);
+    }
+
+    /**
+     * Segment tree over sorted distinct period keys. Each node holds count, wins and net of its
+     * periods plus the highest and lowest running equity (counting the empty prefix) and the largest
+     * peak-to-trough drop, which merge left to right.
+     */
+    private static final class Series {
+        int[] keys = new int[16];
+        int n, cap = 16;
+        int[] count = new int[32], wins = new int[32];
+        double[] net = new double[32], hi = new double[32], lo = new double[32], dd = new double[32];
+
+        int find(int key) {
+            return Arrays.binarySearch(keys, 0, n, key);
+        }
+
+        /** First slot whose key is {@code >= key}. */
+        int lowerBound(int key) {
+            int i = find(key);
+            return i >= 0 ? i : -i - 1;
+        }
+
+        int firstKey() {
+            for (int i = 0; i < n; i++) if (count[cap + i] > 0) return keys[i];
+            return TradeDates.NO_DATE;
+        }
+
+        int lastKey() {
+            for (int i = n - 1; i >= 0; i--) if (count[cap + i] > 0) return keys[i];
+            return TradeDates.NO_DATE;
+        }
+
+        /** Slot of {@code key}, inserting it if new. */
+        int slot(int key) {
+            int i = find(key);
+            if (i >= 0) return i;
+            int at = -i - 1;
+            if (at == n && n < cap) {
+                keys[n++] = key;
+                return at;
+            }
+            // insert in the middle or grow: shift the leaves and rebuild every inner node
+            int newCap = n < cap ? cap : cap * 2;
+            int[] k = new int[newCap], c = new int[2 * newCap], w = new int[2 * newCap];
+            double[] v = new double[2 * newCap];
+            System.arraycopy(keys, 0, k, 0, at);
+            System.arraycopy(keys, at, k, at + 1, n - at);
+            k[at] = key;
+            for (int j = 0; j < n; j++) {
+                int to = newCap + (j < at ? j : j + 1);
+                c[to] = count[cap + j];
+                w[to] = wins[cap + j];
+                v[to] = net[cap + j];
+            }
+            keys = k;
+            count = c;
+            wins = w;
+            net = v;
+            if (newCap != cap) {
+                hi = new double[2 * newCap];
+                lo = new double[2 * newCap];
+                dd = new double[2 * newCap];
+            }
+            cap = newCap;
+            n++;
+            rebuild();
+            return at;
+        }
+
+        /** Updates one leaf, and its ancestors unless {@code deferred} (then call {@link #rebuild}). */
+        void add(int slot, int dCount, int dWins, double dNet, boolean deferred) {
+            int p = cap + slot;
+            count[p] += dCount;
+            wins[p] += dWins;
+            net[p] = count[p] == 0 ? 0 : net[p] + dNet;
+            if (deferred) return;
+            leaf(p);
+            for (p >>>= 1; p >= 1; p >>>= 1) pull(p);
+        }
+
+        void rebuild() {
+            for (int p = cap; p < 2 * cap; p++) leaf(p);
+            for (int p = cap - 1; p >= 1; p--) pull(p);
+        }
+
+        private void leaf(int p) {
+            hi[p] = Math.max(0, net[p]);
+            lo[p] = Math.min(0, net[p]);
+            dd[p] = Math.max(0, -net[p]);
+        }
+
+        private void pull(int p) {
+            int l = 2 * p, r = l + 1;
+            count[p] = count[l] + count[r];
+            wins[p] = wins[l] + wins[r];
+            net[p] = net[l] + net[r];
+            hi[p] = Math.max(hi[l], net[l] + hi[r]);
+            lo[p] = Math.min(lo[l], net[l] + lo[r]);
+            dd[p] = Math.max(Math.max(dd[l], dd[r]), hi[l] - (net[l] + lo[r]));
+        }
+
+        /** Slots {@code [from, to)}. */
+        Range query(int from, int to) {
+            // left and right accumulators, merged in order at the end
+            int lc = 0, lw = 0, rc = 0, rw = 0;
+            double ln = 0, lh = 0, ll = 0, ld = 0, rn = 0, rh = 0, rl = 0, rd = 0;
+            for (int a = from + cap, b = to + cap; a < b; a >>>= 1, b >>>= 1) {
+                if ((a & 1) == 1) {
+                    ld = Math.max(Math.max(ld, dd[a]), lh - (ln + lo[a]));
+                    lh = Math.max(lh, ln + hi[a]);
+                    ll = Math.min(ll, ln + lo[a]);
+                    ln += net[a];
+                    lc += count[a];
+                    lw += wins[a];
+                    a++;
+                }
+                if ((b & 1) == 1) {
+                    b--;
+                    rd = Math.max(Math.max(dd[b], rd), hi[b] - (net[b] + rl));
+                    rh = Math.max(hi[b], net[b] + rh);
+                    rl = Math.min(lo[b], net[b] + rl);
+                    rn += net[b];
+                    rc += count[b];
+                    rw += wins[b];
+                }
+            }
+            double d = Math.max(Math.max(ld, rd), lh - (ln + rl));
+            return new Range(lc + rc, lw + rw, ln + rn, d, Math.max(lh, ln + rh), Math.min(ll, ln + rl));
+        }
+    }
+}
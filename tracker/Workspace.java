@@ -0,0 +1,89 @@
+package tracker;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Everything the app keeps for one trader: the store, the statistics, indexes and tags maintained
+ * from it, undo history, the table model with its sort keys, and the journal that persists it.
+ * A {@link SessionManager} builds and loads it on a background thread; once it is handed to the
+ * event thread, only that thread touches it, as for a single store.
+ */
+public final class Workspace implements Closeable {
+    public final String user;
+    public final TradeStore store = new TradeStore();
+    public final TradeStatistics stats;
+    public final TradeTimeSeries timeSeries;
+    public final TradeIndex index;
+    public final TradeTags tags;
+    public final TradeSorter sorter;
+    public final TradeHistory history;
+    public final TradeTableModel table;
+    /** Primary first; kept here so each trader comes back to the sort they left. */
+    public final List<TradeSorter.Order> sortKeys = new ArrayList<>();
+
+    private TradeJournal journal;
+    private final List<String> warnings = new ArrayList<>();
+
+    public Workspace(String user, TradeRules rules, long undoMemory, int undoDepth) {
+        this.user = user;
+        stats = new TradeStatistics(store);
+        timeSeries = new TradeTimeSeries(store);
+        index = new TradeIndex(store);
+        tags = new TradeTags(store, rules); // before the table, so rows are tagged when it hears of them
+        sorter = new TradeSorter(store);
+        history = new TradeHistory(store, undoMemory, undoDepth);
+        table = new TradeTableModel(store, tags::label);
+    }
+
+    /** Loads the snapshot and journal tail into the (empty) store and journals every later change. */
+    public void openJournal(Path snapshot, Path log) throws IOException {
+        if (journal != null) throw new IllegalStateException("journal is already open");
+        journal = TradeJournal.open(store, snapshot, log);
+    }
+
+    /** Null if none is open, e.g. because opening it failed. */
+    public TradeJournal journal() {
+        return journal;
+    }
+
+    public void closeJournal() throws IOException {
+        if (journal == null) return;
+        TradeJournal j = journal;
+        journal = null;
+        j.close();
+    }
+
+    /** Records a problem met while loading, for the UI to show once the workspace is displayed. */
+    public void warn(String message) {
+        warnings.add(message);
+    }
+
+    /** The warnings recorded so far, which are then forgotten. */
+    public List<String> takeWarnings() {
+        List<String> taken = new ArrayList<>(warnings);
+        warnings.clear();
+        return taken;
+    }
+
+    /**
+     * Rough heap footprint: the columns, the same again for the index, tags, time series and sort
+     * caches built over them, plus undo history kept in memory.
+     */
+    public long memoryBytes() {
+        return 2 * store.memoryBytes() + history.memoryBytes();
+    }
+
+    /** Flushes the journal and drops undo history; the trades stay readable. */
+    @Override
+    public void close() throws IOException {
+        try {
+            closeJournal();
+        } finally {
+            history.close();
+        }
+    }
+}